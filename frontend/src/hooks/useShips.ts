@@ -46,38 +46,23 @@ export const useShips = (): UseShipsReturn => {
       
       setTotalNavios(allNavios.length);
 
-      const results: Record<string, CleaningSuggestion> = {};
       const errorResults: Record<string, string> = {};
+      let results: Record<string, CleaningSuggestion> = {};
 
-      const BATCH_SIZE = 5;
-      const BATCH_DELAY = 300;
-
-      const processBatch = async (batch: string[]) => {
-        const batchPromises = batch.map(async (navioId) => {
-          try {
-            const data = await shipService.getCleaningSuggestion(navioId);
-            if (data && data.navioId) {
-              results[navioId] = data;
-            } else {
-              errorResults[navioId] = 'Dados inválidos recebidos';
-            }
-          } catch (error: unknown) {
-            const errorMessage =
-              error instanceof Error ? error.message : 'Erro ao carregar dados';
-            errorResults[navioId] = errorMessage;
+      try {
+        // Previsão da frota inteira em uma única chamada ao endpoint em lote
+        results = await shipService.getCleaningSuggestions(allNavios);
+        allNavios.forEach((navioId) => {
+          if (!results[navioId]) {
+            errorResults[navioId] = 'Dados inválidos recebidos';
           }
         });
-
-        await Promise.all(batchPromises);
-      };
-
-      for (let i = 0; i < allNavios.length; i += BATCH_SIZE) {
-        const batch = allNavios.slice(i, i + BATCH_SIZE);
-        await processBatch(batch);
-
-        if (i + BATCH_SIZE < allNavios.length) {
-          await new Promise((resolve) => setTimeout(resolve, BATCH_DELAY));
-        }
+      } catch (error: unknown) {
+        const errorMessage =
+          error instanceof Error ? error.message : 'Erro ao carregar dados';
+        allNavios.forEach((navioId) => {
+          errorResults[navioId] = errorMessage;
+        });
       }
 
       setShips(results);
@@ -7,8 +7,6 @@ const API_BASE_URL = import.meta.env.VITE_API_URL || (import.meta.env.DEV ? '/ap
 const REQUEST_TIMEOUT = 60000;
 const MAX_RETRIES = 3;
 const RETRY_DELAY = 2000;
-const BATCH_SIZE = 5;
-const BATCH_DELAY = 500;
 
 export const apiClient = axios.create({
   baseURL: API_BASE_URL,
@@ -166,24 +164,29 @@ export const shipService = {
     navioIds: readonly string[]
   ): Promise<Record<string, CleaningSuggestion>> => {
     const results: Record<string, CleaningSuggestion> = {};
+    if (navioIds.length === 0) {
+      return results;
+    }
 
-    for (let i = 0; i < navioIds.length; i += BATCH_SIZE) {
-      const batch = navioIds.slice(i, i + BATCH_SIZE);
+    // Uma única chamada para o lote inteiro; o backend calcula os navios em paralelo
+    // e devolve as previsões na mesma ordem dos IDs enviados.
+    const normalizedIds = navioIds.map(normalizeShipId);
 
-      const batchPromises = batch.map(async (navioId) => {
-        try {
-          const data = await shipService.getCleaningSuggestion(navioId);
-          results[navioId] = data;
-        } catch (error) {
-          // Silent error - handled in hook
+    try {
+      const response: AxiosResponse<CleaningSuggestion[]> = await retryRequest(
+        () => apiClient.post('/previsao/limpeza-sugerida/lote', normalizedIds),
+        MAX_RETRIES
+      );
+
+      const data = Array.isArray(response.data) ? response.data : [];
+      navioIds.forEach((navioId, index) => {
+        const sanitized = sanitizeCleaningSuggestion(data[index]);
+        if (sanitized) {
+          results[navioId] = sanitized;
         }
       });
-
-      await Promise.all(batchPromises);
-
-      if (i + BATCH_SIZE < navioIds.length) {
-        await sleep(BATCH_DELAY);
-      }
+    } catch (error) {
+      throw handleApiError(error);
     }
 
     return results;
@@ -0,0 +1,84 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.BacktestReportDto;
+import com.hackathonbrasil.transpetro.model.BacktestSplit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backtest numa frota sintética: tempo de parede por divisão (navio, ciclo, origem móvel),
+ * modelo só da frota contra o hierárquico, com 1..n threads. A precisão (MAE/RMSE do HPI e erro da data
+ * de limpeza) não depende do tempo e é impressa uma vez por combinação, no fim do trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BacktestBenchmark {
+
+    private static final double HPI_THRESHOLD = 1.025;
+
+    @Param({"40"})
+    public int ships;
+
+    @Param({"4"})
+    public int cycles;
+
+    @Param({"5"})
+    public int folds;
+
+    @Param({"SHIP", "CYCLE", "ROLLING"})
+    public BacktestSplit split;
+
+    @Param({"false", "true"})
+    public boolean hierarchical;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BacktestEngine.Dataset fleet;
+    private ForkJoinPool pool;
+    private BacktestEngine engine;
+    private BacktestReportDto lastReport;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fleet = BacktestEngineTest.gerarFrota(ships, cycles, 600, 42);
+        pool = new ForkJoinPool(threads);
+        engine = new BacktestEngine(pool, GramTrainingEngine.DEFAULT_SHARD_SIZE,
+            HierarchicalModelTrainer.DEFAULT_MIN_ROWS, HierarchicalModelTrainer.DEFAULT_PRIOR_STRENGTH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        if (lastReport != null) {
+            System.out.printf("%n%s %s: %d linhas, MAE=%.5f RMSE=%.5f data=%.1f dias (%d ciclos, %d sem cruzamento)%n",
+                split, hierarchical ? "hierárquico" : "frota", fleet.getFeatures().size(), lastReport.getHpiMae(),
+                lastReport.getHpiRmse(), lastReport.getCleaningDateMaeDays(), lastReport.getCleaningDateCycles(),
+                lastReport.getCleaningDateMissed());
+        }
+    }
+
+    @Benchmark
+    public BacktestReportDto run() {
+        lastReport = engine.run(fleet, split, folds, hierarchical, HPI_THRESHOLD);
+        return lastReport;
+    }
+}
@@ -0,0 +1,185 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.TranspetroApplication;
+import com.hackathonbrasil.transpetro.model.Consumo;
+import com.hackathonbrasil.transpetro.model.EventoNavegacao;
+import com.hackathonbrasil.transpetro.model.Navio;
+import com.hackathonbrasil.transpetro.repository.ConsumoRepository;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
+import com.hackathonbrasil.transpetro.repository.NavioRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação dos consumos do ResultadoQueryConsumo.csv (linhas válidas, já associadas a evento e navio) num H2 em memória:
+ * saveAll do repositório (ids IDENTITY: um INSERT por linha) contra o batch JDBC do ImportBatchWriter.
+ * Lotes de 2000 como na importação; o contador "rows" sai em linhas por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BulkInsertBenchmark {
+
+    private static final int BATCH_SIZE = 2000;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Rows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    private ConfigurableApplicationContext context;
+    private ConsumoRepository consumoRepository;
+    private ImportBatchWriter importBatchWriter;
+    private JdbcTemplate jdbcTemplate;
+    private List<Consumo> template;
+    private List<Consumo> consumos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(TranspetroApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:bulk-insert;DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "model.retrain.interval-minutes=0",
+                "model.online-update.enabled=false",
+                "model.snapshot.enabled=false",
+                "logging.level.root=WARN")
+            .run();
+        consumoRepository = context.getBean(ConsumoRepository.class);
+        importBatchWriter = context.getBean(ImportBatchWriter.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Navio navio = new Navio();
+        navio.setNome("NAVIO BENCHMARK");
+        navio.setClasse("Suezmax");
+        navio.setTipo("Petroleiro");
+        navio.setPorteBruto(150000.0);
+        navio = context.getBean(NavioRepository.class).save(navio);
+
+        // Um evento por sessão do arquivo, para as chaves estrangeiras dos consumos
+        List<String[]> linhas = readValidConsumos();
+        Map<String, EventoNavegacao> eventos = new HashMap<>();
+        for (String[] linha : linhas) {
+            eventos.computeIfAbsent(linha[0], sessionId -> evento(sessionId));
+        }
+        List<EventoNavegacao> novos = new ArrayList<>(eventos.values());
+        for (EventoNavegacao evento : novos) {
+            evento.setNavio(navio);
+        }
+        importBatchWriter.insertEventos(novos);
+        Map<String, EventoNavegacao> salvos = new HashMap<>();
+        context.getBean(EventoNavegacaoRepository.class).findAll().forEach(evento -> salvos.put(evento.getSessionId(), evento));
+
+        template = new ArrayList<>(linhas.size());
+        for (String[] linha : linhas) {
+            Consumo consumo = new Consumo();
+            consumo.setNavio(navio);
+            consumo.setEvento(salvos.get(linha[0]));
+            consumo.setSessionId(linha[0]);
+            consumo.setConsumedQuantity(Double.parseDouble(linha[1]));
+            consumo.setDescription(linha[2]);
+            template.add(consumo);
+        }
+    }
+
+    /** Tabela vazia e entidades novas (sem id) a cada gravação completa do arquivo. */
+    @Setup(Level.Invocation)
+    public void resetTable() {
+        jdbcTemplate.update("DELETE FROM consumos");
+        consumos = new ArrayList<>(template.size());
+        for (Consumo modelo : template) {
+            Consumo consumo = new Consumo();
+            consumo.setNavio(modelo.getNavio());
+            consumo.setEvento(modelo.getEvento());
+            consumo.setSessionId(modelo.getSessionId());
+            consumo.setConsumedQuantity(modelo.getConsumedQuantity());
+            consumo.setDescription(modelo.getDescription());
+            consumos.add(consumo);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void jpaSaveAll(Rows counter) {
+        for (int from = 0; from < consumos.size(); from += BATCH_SIZE) {
+            List<Consumo> lote = consumos.subList(from, Math.min(consumos.size(), from + BATCH_SIZE));
+            counter.rows += consumoRepository.saveAll(lote).size();
+        }
+    }
+
+    @Benchmark
+    public void jdbcBatch(Rows counter) {
+        for (int from = 0; from < consumos.size(); from += BATCH_SIZE) {
+            List<Consumo> lote = consumos.subList(from, Math.min(consumos.size(), from + BATCH_SIZE));
+            importBatchWriter.insertConsumos(lote);
+            counter.rows += lote.size();
+        }
+    }
+
+    private static List<String[]> readValidConsumos() throws IOException {
+        CsvDecoder.Schema schema = DataImportService.CONSUMOS_SCHEMA;
+        int sessionId = schema.index("SESSION_ID");
+        int quantidade = schema.index("CONSUMED_QUANTITY");
+        int descricao = schema.index("DESCRIPTION");
+        List<String[]> linhas = new ArrayList<>();
+        try (CsvDecoder csv = new CsvDecoder(new InputStreamReader(
+                new ClassPathResource("ResultadoQueryConsumo.csv").getInputStream(), StandardCharsets.UTF_8), schema)) {
+            csv.readHeader();
+            while (csv.next()) {
+                if (!csv.isBlank(quantidade) && csv.getDouble(quantidade) > 0 && !csv.isBlank(sessionId)) {
+                    linhas.add(new String[]{csv.get(sessionId), csv.getTrimmed(quantidade), csv.get(descricao)});
+                }
+            }
+        }
+        return linhas;
+    }
+
+    private static EventoNavegacao evento(String sessionId) {
+        EventoNavegacao evento = new EventoNavegacao();
+        evento.setSessionId(sessionId);
+        evento.setEventName("NAVEGACAO");
+        evento.setStartGMTDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        evento.setDuration(12.0);
+        return evento;
+    }
+}
@@ -0,0 +1,186 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificação dos CSVs de consumo e de eventos: commons-csv com lookup por nome (como era a importação)
+ * contra o CsvDecoder. O texto já está em memória, então só o parsing é medido; rode com -prof gc para comparar
+ * a alocação por operação (gc.alloc.rate.norm).
+ * Consumo: o ResultadoQueryConsumo.csv do projeto. Eventos: n linhas sintéticas no layout da exportação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CsvDecodeBenchmark {
+
+    private static final String[] EVENT_HEADER = {"sessionId", "shipName", "class", "eventName", "startGMTDate", "endGMTDate",
+        "duration", "distance", "aftDraft", "fwdDraft", "midDraft", "TRIM", "displacement", "beaufortScale", "seaCondition",
+        "beaufortScaleDesc", "seaConditionDesc", "speed", "speedGps", "Porto", "decLatitude", "decLongitude"};
+    private static final String[] DOUBLE_COLUMNS = {"duration", "distance", "aftDraft", "fwdDraft", "midDraft", "TRIM",
+        "displacement", "speed", "speedGps", "decLatitude", "decLongitude"};
+
+    @Param({"100000"})
+    public int eventRows;
+
+    private String consumos;
+    private String eventos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        consumos = new ClassPathResource("ResultadoQueryConsumo.csv").getContentAsString(StandardCharsets.UTF_8);
+        eventos = syntheticEvents(eventRows, 42);
+    }
+
+    @Benchmark
+    public double consumosCommonsCsv() throws IOException {
+        double total = 0;
+        Iterable<CSVRecord> records = CSVFormat.DEFAULT.builder()
+            .setHeader("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION")
+            .setSkipHeaderRecord(true)
+            .build()
+            .parse(new StringReader(consumos));
+        for (CSVRecord record : records) {
+            String sessionId = record.get("SESSION_ID");
+            String description = record.get("DESCRIPTION");
+            try {
+                double quantity = Double.parseDouble(record.get("CONSUMED_QUANTITY").trim());
+                if (quantity > 0 && !sessionId.isEmpty() && description != null) {
+                    total += quantity;
+                }
+            } catch (NumberFormatException ignored) {
+                // Linha descartada, como na importação
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double consumosCsvDecoder() throws IOException {
+        double total = 0;
+        CsvDecoder.Schema schema = DataImportService.CONSUMOS_SCHEMA;
+        int quantityColumn = schema.index("CONSUMED_QUANTITY");
+        int sessionColumn = schema.index("SESSION_ID");
+        try (CsvDecoder csv = new CsvDecoder(new StringReader(consumos), schema)) {
+            csv.readHeader();
+            while (csv.next()) {
+                if (csv.isBlank(quantityColumn)) {
+                    continue;
+                }
+                try {
+                    double quantity = csv.getDouble(quantityColumn);
+                    if (quantity > 0 && !csv.isBlank(sessionColumn)) {
+                        total += quantity;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Linha descartada, como na importação
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void eventosCommonsCsv(Blackhole blackhole) throws IOException {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        Iterable<CSVRecord> records = CSVFormat.DEFAULT.builder()
+            .setHeader(EVENT_HEADER)
+            .setSkipHeaderRecord(true)
+            .build()
+            .parse(new StringReader(eventos));
+        for (CSVRecord record : records) {
+            blackhole.consume(record.get("sessionId"));
+            blackhole.consume(record.get("shipName"));
+            blackhole.consume(LocalDateTime.parse(record.get("startGMTDate"), formatter));
+            blackhole.consume(LocalDateTime.parse(record.get("endGMTDate"), formatter));
+            for (String column : DOUBLE_COLUMNS) {
+                if (record.get(column) != null && !record.get(column).trim().isEmpty()) {
+                    blackhole.consume(Double.parseDouble(record.get(column).trim()));
+                }
+            }
+            blackhole.consume(Integer.parseInt(record.get("beaufortScale").trim()));
+        }
+    }
+
+    @Benchmark
+    public void eventosCsvDecoder(Blackhole blackhole) throws IOException {
+        CsvDecoder.Schema schema = DataImportService.EVENTOS_SCHEMA;
+        int[] doubleColumns = new int[DOUBLE_COLUMNS.length];
+        for (int i = 0; i < doubleColumns.length; i++) {
+            doubleColumns[i] = schema.index(DOUBLE_COLUMNS[i]);
+        }
+        int sessionColumn = schema.index("sessionId");
+        int shipColumn = schema.index("shipName");
+        int startColumn = schema.index("startGMTDate");
+        int endColumn = schema.index("endGMTDate");
+        int beaufortColumn = schema.index("beaufortScale");
+        try (CsvDecoder csv = new CsvDecoder(new StringReader(eventos), schema)) {
+            csv.readHeader();
+            while (csv.next()) {
+                blackhole.consume(csv.get(sessionColumn));
+                blackhole.consume(csv.get(shipColumn));
+                blackhole.consume(csv.getDateTime(startColumn));
+                blackhole.consume(csv.getDateTime(endColumn));
+                for (int column : doubleColumns) {
+                    if (!csv.isBlank(column)) {
+                        blackhole.consume(csv.getDouble(column));
+                    }
+                }
+                blackhole.consume(csv.getInt(beaufortColumn));
+            }
+        }
+    }
+
+    static String syntheticEvents(int rows, long seed) {
+        Random random = new Random(seed);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime start = LocalDate.of(2022, 1, 1).atStartOfDay();
+        StringBuilder csv = new StringBuilder(rows * 260);
+        csv.append(String.join(",", EVENT_HEADER)).append('\n');
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime begin = start.plusMinutes(random.nextInt(1_000_000));
+            double hours = 1 + random.nextInt(24);
+            int beaufort = random.nextInt(9);
+            csv.append(39_800_000_000L + i).append(",\"Navio ").append(1 + random.nextInt(40)).append("\",Suezmax,NAVEGACAO,")
+                .append(formatter.format(begin)).append(',').append(formatter.format(begin.plusMinutes((long) (hours * 60)))).append(',')
+                .append(hours).append(',').append(Math.round(hours * 12.5 * 100) / 100.0).append(',')
+                .append(Math.round((8 + random.nextDouble() * 6) * 100) / 100.0).append(',')
+                .append(Math.round((7 + random.nextDouble() * 6) * 100) / 100.0).append(',')
+                .append(Math.round((7.5 + random.nextDouble() * 6) * 100) / 100.0).append(',')
+                .append(Math.round((random.nextDouble() * 2 - 1) * 100) / 100.0).append(',')
+                .append(Math.round((60000 + random.nextDouble() * 90000) * 10) / 10.0).append(',')
+                .append(beaufort).append(",Moderado,\"Beaufort ").append(beaufort).append("\",\"Mar moderado, ondas\",")
+                .append(Math.round((10 + random.nextDouble() * 5) * 10) / 10.0).append(',')
+                .append(Math.round((10 + random.nextDouble() * 5) * 10) / 10.0).append(",SANTOS,")
+                .append(Math.round((-23 - random.nextDouble()) * 1_000_000) / 1_000_000.0).append(',')
+                .append(Math.round((-46 - random.nextDouble()) * 1_000_000) / 1_000_000.0).append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Treino paralelo (acumulação da matriz de Gram + solução) com 1..n threads no ForkJoinPool.
+ * O speedup é a razão entre o tempo com threads=1 e o tempo de cada contagem de threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class GramTrainingEngineBenchmark {
+
+    @Param({"2000000"})
+    public int rows;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private GramTrainingEngine.TrainingRows data;
+    private ForkJoinPool pool;
+    private GramTrainingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = GramTrainingEngineTest.gerarLinhas(rows, 42);
+        pool = new ForkJoinPool(threads);
+        engine = new GramTrainingEngine(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public RegressionAccumulator.Solution train() {
+        return engine.train(data);
+    }
+}
@@ -0,0 +1,94 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura de uma exportação de eventos em disco: InputStreamReader em uma thread (caminho do upload)
+ * contra o ParallelCsvReader com 1..n workers. O consumidor só soma, então o tempo é o do parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ParallelCsvReadBenchmark {
+
+    @Param({"1000000"})
+    public int eventRows;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path file;
+    private ExecutorService executor;
+    private int startColumn;
+    private int[] doubleColumns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("eventos-benchmark", ".csv");
+        Files.writeString(file, CsvDecodeBenchmark.syntheticEvents(eventRows, 42), StandardCharsets.UTF_8);
+        executor = Executors.newFixedThreadPool(threads);
+        startColumn = DataImportService.EVENTOS_SCHEMA.index("startGMTDate");
+        doubleColumns = new int[]{DataImportService.EVENTOS_SCHEMA.index("duration"),
+            DataImportService.EVENTOS_SCHEMA.index("displacement"), DataImportService.EVENTOS_SCHEMA.index("speed"),
+            DataImportService.EVENTOS_SCHEMA.index("decLatitude"), DataImportService.EVENTOS_SCHEMA.index("decLongitude")};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public double sequentialReader() throws IOException {
+        double total = 0;
+        try (CsvDecoder csv = new CsvDecoder(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8),
+                DataImportService.EVENTOS_SCHEMA)) {
+            csv.readHeader();
+            while (csv.next()) {
+                total += parse(csv);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double parallelMapped() throws IOException {
+        double[] total = new double[1];
+        new ParallelCsvReader(executor, threads, ParallelCsvReader.DEFAULT_CHUNK_BYTES)
+            .read(file, DataImportService.EVENTOS_SCHEMA, this::parse, value -> total[0] += value);
+        return total[0];
+    }
+
+    private double parse(CsvDecoder csv) {
+        double sum = csv.getDateTime(startColumn).getHour();
+        for (int column : doubleColumns) {
+            sum += csv.getDouble(column);
+        }
+        return sum;
+    }
+}
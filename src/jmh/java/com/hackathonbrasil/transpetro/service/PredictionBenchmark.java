@@ -0,0 +1,75 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.CleaningSuggestionDto;
+import com.hackathonbrasil.transpetro.model.ProjectionStep;
+import com.hackathonbrasil.transpetro.model.ShipProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * PredictionService.suggestCleaningDate com o ModelService mockado (modelo e perfis fixos).
+ * Os navios consultados giram sobre um conjunto maior que o cache de previsões, então quase toda
+ * chamada faz o cálculo completo; o tamanho do conjunto mede o custo das faltas e descartes do cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredictionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int ships;
+
+    @Param({"DAILY", "NONE"})
+    public ProjectionStep step;
+
+    private PredictionService predictionService;
+    private String[] shipIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ModelService modelService = mock(ModelService.class);
+        when(modelService.getModelSnapshot()).thenReturn(ModelService.createSnapshot(1L,
+            new double[] {1.01, 0.0003, 0.001, 0.0000002, 0.002, -0.004}, null, 0.6, 100000));
+        LocalDate lastCleaning = LocalDate.now().minusDays(90);
+        when(modelService.getShipProfile(anyString())).thenAnswer(invocation -> new ShipProfile(
+            invocation.getArgument(0), "Suezmax", 150000, 25.0, lastCleaning, 52));
+
+        predictionService = new PredictionService();
+        ReflectionTestUtils.setField(predictionService, "modelService", modelService);
+        ReflectionTestUtils.setField(predictionService, "shipIdentity", new ShipIdentity());
+
+        shipIds = new String[ships];
+        for (int i = 0; i < ships; i++) {
+            shipIds[i] = "NAVIO " + i;
+        }
+    }
+
+    @Benchmark
+    public CleaningSuggestionDto suggestCleaningDate() {
+        String shipId = shipIds[next];
+        next = next + 1 == shipIds.length ? 0 : next + 1;
+        return predictionService.suggestCleaningDate(shipId, 180, step);
+    }
+}
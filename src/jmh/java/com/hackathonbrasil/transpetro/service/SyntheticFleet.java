@@ -0,0 +1,82 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.DockingHistory;
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Dados sintéticos dos benchmarks: sessões de navegação no formato da query de treino e o histórico de docagens da frota.
+ * Nomes com acento e espaços repetidos, como chegam dos CSVs, para a normalização trabalhar de verdade.
+ */
+final class SyntheticFleet {
+
+    static final int SHIPS = 60;
+    static final LocalDate START = LocalDate.of(2019, 1, 1);
+    static final int DAYS = 5 * 365;
+    static final int DOCKING_INTERVAL_DAYS = 420;
+
+    private static final String[] NOMES = {"São Sebastião", "Cândido  Mendes", "Lúcia Helena", "Anésio Gonçalves",
+        "Maria  Quitéria", "José Bonifácio"};
+
+    final List<TrainingSessionView> sessions;
+    final String[] rawShipNames;
+    final DockingHistory dockingHistory;
+
+    private SyntheticFleet(List<TrainingSessionView> sessions, String[] rawShipNames, DockingHistory dockingHistory) {
+        this.sessions = sessions;
+        this.rawShipNames = rawShipNames;
+        this.dockingHistory = dockingHistory;
+    }
+
+    static SyntheticFleet generate(int sessionCount, long seed, ShipIdentity shipIdentity) {
+        Random random = new Random(seed);
+        String[] rawShipNames = new String[SHIPS];
+        Map<String, List<LocalDate>> dockings = new HashMap<>();
+        for (int ship = 0; ship < SHIPS; ship++) {
+            rawShipNames[ship] = " " + NOMES[ship % NOMES.length] + " " + (ship + 1);
+            List<LocalDate> dates = new ArrayList<>();
+            for (int day = random.nextInt(DOCKING_INTERVAL_DAYS) - DOCKING_INTERVAL_DAYS; day < DAYS; day += DOCKING_INTERVAL_DAYS) {
+                dates.add(START.plusDays(day));
+            }
+            dockings.put(shipIdentity.canonical(rawShipNames[ship]), dates);
+        }
+
+        List<TrainingSessionView> sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            int ship = random.nextInt(SHIPS);
+            int day = random.nextInt(DAYS);
+            double duration = 6 + random.nextInt(18);
+            double dailyConsumption = 25 * (1.0 + (day % DOCKING_INTERVAL_DAYS) * 0.0001) + random.nextGaussian();
+            sessions.add(new Session("S" + i, rawShipNames[ship], ship % 2 == 0 ? "Suezmax" : "Aframax",
+                START.plusDays(day).atTime(random.nextInt(24), 0), duration,
+                8 + random.nextDouble() * 6, 7 + random.nextDouble() * 6, 60000 + random.nextDouble() * 90000,
+                random.nextInt(9), dailyConsumption * duration / 24.0));
+        }
+        return new SyntheticFleet(sessions, rawShipNames, DockingHistory.of(dockings));
+    }
+
+    /**
+     * Fonte de treino em memória: substitui o stream do banco na consolidação.
+     */
+    TrainingDataSource dataSource() {
+        return new TrainingDataSource() {
+            @Override
+            public long forEachTrainingSession(Consumer<TrainingSessionView> consumer) {
+                sessions.forEach(consumer);
+                return sessions.size();
+            }
+        };
+    }
+
+    private record Session(String getSessionId, String getNavioNome, String getClasse, LocalDateTime getStartGMTDate, Double getDuration,
+                           Double getAftDraft, Double getFwdDraft, Double getDisplacement, Integer getBeaufortScale,
+                           Double getConsumedQuantity) implements TrainingSessionView {}
+}
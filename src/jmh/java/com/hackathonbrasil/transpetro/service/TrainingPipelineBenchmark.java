@@ -0,0 +1,110 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.TrainingDataset;
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Etapas do pipeline de treino do ModelService sobre n sessões sintéticas:
+ * normalização dos nomes (ShipIdentity), consolidação (antigo readEventDataAndJoin; hoje lê o stream do banco),
+ * engenharia de features e treino (frota + classes + navios).
+ * Cada operação processa o conjunto inteiro; rode com -prof gc para ver a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TrainingPipelineBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int sessions;
+
+    private ModelService modelService;
+    private ShipIdentity shipIdentity;
+    private ForkJoinPool pool;
+    private SyntheticFleet fleet;
+    private String[] sessionShipNames;
+    private TrainingDataset rawData;
+    private Map<String, double[]> cfiByCycle;
+    private Map<String, Double> cfiCleanMap;
+    private TrainingFeatures features;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        modelService = new ModelService();
+        shipIdentity = new ShipIdentity();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        fleet = SyntheticFleet.generate(sessions, 42, shipIdentity);
+
+        ReflectionTestUtils.setField(modelService, "shipIdentity", shipIdentity);
+        ReflectionTestUtils.setField(modelService, "trainingDataSource", fleet.dataSource());
+        ReflectionTestUtils.setField(modelService, "trainingPool", pool);
+        ReflectionTestUtils.setField(modelService, "trainingShardSize", GramTrainingEngine.DEFAULT_SHARD_SIZE);
+        ReflectionTestUtils.setField(modelService, "hierarchyEnabled", true);
+        ReflectionTestUtils.setField(modelService, "hierarchyMinRows", HierarchicalModelTrainer.DEFAULT_MIN_ROWS);
+        ReflectionTestUtils.setField(modelService, "hierarchyPriorStrength", HierarchicalModelTrainer.DEFAULT_PRIOR_STRENGTH);
+
+        sessionShipNames = fleet.sessions.stream().map(TrainingSessionView::getNavioNome).toArray(String[]::new);
+        rawData = modelService.consolidateDataFromDatabase();
+        cfiByCycle = modelService.calculateCfiClean(rawData, fleet.dockingHistory);
+        cfiCleanMap = ModelService.latestCfiByShip(cfiByCycle);
+        features = modelService.featureEngineering(rawData, fleet.dockingHistory, cfiByCycle, cfiCleanMap);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /** Um nome por sessão, como na leitura linha a linha dos CSVs (com o cache de nomes já aquecido). */
+    @Benchmark
+    public void canonicalShipId(Blackhole blackhole) {
+        for (String name : sessionShipNames) {
+            blackhole.consume(shipIdentity.canonical(name));
+        }
+    }
+
+    /** Normalização sem o cache (custo de cada nome novo). */
+    @Benchmark
+    public void normalizeShipIdUncached(Blackhole blackhole) {
+        for (String name : sessionShipNames) {
+            blackhole.consume(ShipIdentity.normalize(name));
+        }
+    }
+
+    @Benchmark
+    public TrainingDataset consolidate() {
+        return modelService.consolidateDataFromDatabase();
+    }
+
+    @Benchmark
+    public TrainingFeatures featureEngineering() {
+        return modelService.featureEngineering(rawData, fleet.dockingHistory, cfiByCycle, cfiCleanMap);
+    }
+
+    @Benchmark
+    public boolean trainModel() {
+        return modelService.trainModel(features, rawData);
+    }
+}
@@ -6,14 +6,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 
-import com.hackathonbrasil.transpetro.service.ModelService; // Importação CORRETA
+import com.hackathonbrasil.transpetro.service.ModelRetrainingService;
 
 @SpringBootApplication
 public class TranspetroApplication {
 
-    // Injetamos apenas o ModelService, que agora orquestra tudo.
+    // O retreino agenda o pipeline do ModelService em segundo plano.
     @Autowired
-    private ModelService modelService; // Usando a classe ModelService que acabamos de construir
+    private ModelRetrainingService modelRetrainingService;
 
     public static void main(String[] args) {
         SpringApplication.run(TranspetroApplication.class, args);
@@ -21,22 +21,21 @@ public class TranspetroApplication {
 
     /**
      * O CommandLineRunner agora tem apenas uma responsabilidade:
-     * Iniciar o pipeline de dados e treinamento no ModelService.
+     * Disparar o pipeline de dados e treinamento em segundo plano (não bloqueia a inicialização).
      */
     @Bean
     public CommandLineRunner initDataAndTrainModel() {
         return args -> {
-            System.out.println("--- INICIANDO PIPELINE DE DADOS ---");
+            System.out.println("--- INICIANDO PIPELINE DE DADOS (EM SEGUNDO PLANO) ---");
 
-            // AQUI ESTÁ A MUDANÇA: Uma única chamada orquestra:
-            // 1. Leitura de Consumo/Eventos
+            // O pipeline do ModelService orquestra:
+            // 1. Leitura de Consumo/Eventos (tabelas consumos e eventos_navegacao)
             // 2. Leitura de Docagem (Limpeza 100%)
             // 3. Consolidação (JOIN)
             // 4. Feature Engineering (Cálculo HPI e Dias Desde Limpeza)
             // 5. Treinamento da Regressão
-            modelService.initDataAndTrainModel();
-
-            System.out.println("--- PIPELINE CONCLUÍDO. MODELO TREINADO E PRONTO PARA PREDIÇÃO ---");
+            // Até o primeiro modelo ser publicado, a previsão responde com o fallback.
+            modelRetrainingService.start();
         };
     }
 }
\ No newline at end of file
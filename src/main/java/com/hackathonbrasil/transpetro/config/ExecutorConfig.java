@@ -0,0 +1,115 @@
+package com.hackathonbrasil.transpetro.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor limitado usado pela previsão em lote da frota.
+     * Quando a fila enche, a própria thread da requisição executa a tarefa (backpressure).
+     */
+    @Bean(name = "predictionExecutor")
+    public ThreadPoolTaskExecutor predictionExecutor(
+            @Value("${prediction.batch.threads:0}") int threads,
+            @Value("${prediction.batch.queue-capacity:500}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("previsao-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Agendador do retreino do modelo. Uma única thread: os treinos nunca se sobrepõem.
+     */
+    @Bean(name = "retrainScheduler")
+    public ThreadPoolTaskScheduler retrainScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("retreino-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Executor das etapas do pipeline de treino (cargas de CSV/banco, CFI, features, treino).
+     * As cargas independentes rodam ao mesmo tempo; o pipeline tem no máximo 4 etapas simultâneas.
+     */
+    @Bean(name = "pipelineExecutor")
+    public ThreadPoolTaskExecutor pipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setThreadNamePrefix("pipeline-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers do parsing paralelo dos CSVs grandes em disco (ParallelCsvReader).
+     * A fila não precisa de limite: o próprio leitor limita quantos pedaços ficam em andamento.
+     */
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor(@Value("${import.parallel.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("importacao-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writers do pipeline de importação (ImportPipeline): cada thread grava um pedaço por transação.
+     * Importações simultâneas dividem o pool; as que sobram esperam na fila sem segurar conexão.
+     */
+    @Bean(name = "importWriterExecutor")
+    public ThreadPoolTaskExecutor importWriterExecutor(@Value("${import.writer.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setThreadNamePrefix("importacao-writer-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Jobs de importação em segundo plano (ImportJobService): uma thread, os jobs rodam na ordem de envio.
+     * Com a fila cheia o envio é recusado (o endpoint responde 503) em vez de acumular uploads em disco.
+     */
+    @Bean(name = "importJobExecutor")
+    public ThreadPoolTaskExecutor importJobExecutor(@Value("${import.jobs.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("importacao-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool fork-join do treino do modelo: os shards das estatísticas suficientes rodam aqui,
+     * separado do commonPool para não competir com parallel streams da aplicação.
+     */
+    @Bean(name = "trainingForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool trainingForkJoinPool(@Value("${model.training.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -1,159 +1,124 @@
 package com.hackathonbrasil.transpetro.controller;
 
-import com.hackathonbrasil.transpetro.service.DataImportService;
+import com.hackathonbrasil.transpetro.model.ImportJobDto;
+import com.hackathonbrasil.transpetro.service.ImportJob;
+import com.hackathonbrasil.transpetro.service.ImportJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * As importações rodam como jobs em segundo plano: os POSTs respondem 202 com o id do job na hora,
+ * e o progresso (linhas lidas/gravadas/rejeitadas, linhas por segundo, ETA) sai em GET /jobs/{id}.
+ */
 @RestController
 @RequestMapping("/api/v1/import")
 @Tag(name = "Importação de Dados", description = "Endpoints para importar dados de CSVs para o banco de dados")
 public class DataImportController {
 
     @Autowired
-    private DataImportService dataImportService;
+    private ImportJobService importJobService;
 
     @Operation(summary = "Importar todos os CSVs padrão",
-               description = "Importa todos os arquivos CSV padrão do projeto (navios, docagens, eventos, consumos, revestimentos)")
+               description = "Enfileira a importação de todos os arquivos CSV padrão do projeto (navios, docagens, eventos, consumos, revestimentos) e devolve o id do job")
     @PostMapping("/all")
     public ResponseEntity<Map<String, Object>> importAllCSVs() {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            dataImportService.importAllDefaultCSVs();
-            result.put("success", true);
-            result.put("message", "Importação concluída com sucesso");
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Erro na importação: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(result);
-        }
+        return submit(ImportJob.Tipo.TODOS, null, null);
     }
 
     @Operation(summary = "Importar navios do CSV",
-               description = "Importa navios do arquivo CSV enviado ou do arquivo padrão dados_navio.csv")
+               description = "Enfileira a importação de navios do arquivo CSV enviado ou do arquivo padrão dados_navio.csv e devolve o id do job")
     @PostMapping(value = "/navios", consumes = {"multipart/form-data", "application/json"})
     public ResponseEntity<Map<String, Object>> importNavios(
             @RequestParam(value = "file", required = false) MultipartFile file) {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            int count;
-            if (file != null && !file.isEmpty()) {
-                count = dataImportService.importNaviosCSV(file);
-                result.put("message", "Navios importados do arquivo: " + count);
-            } else {
-                count = dataImportService.importNaviosCSV("dados_navio.csv");
-                result.put("message", "Navios importados: " + count);
-            }
-            result.put("success", true);
-            result.put("imported", count);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Erro na importação: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(result);
-        }
+        return submit(ImportJob.Tipo.NAVIOS, file, null);
     }
 
     @Operation(summary = "Importar docagens do CSV",
-               description = "Importa docagens do arquivo CSV enviado ou do arquivo padrão dados_docagem.csv")
+               description = "Enfileira a importação de docagens do arquivo CSV enviado ou do arquivo padrão dados_docagem.csv e devolve o id do job")
     @PostMapping(value = "/docagens", consumes = {"multipart/form-data", "application/json"})
     public ResponseEntity<Map<String, Object>> importDocagens(
             @RequestParam(value = "file", required = false) MultipartFile file) {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            int count;
-            if (file != null && !file.isEmpty()) {
-                count = dataImportService.importDocagemCSV(file);
-                result.put("message", "Docagens importadas do arquivo: " + count);
-            } else {
-                count = dataImportService.importDocagemCSV("dados_docagem.csv");
-                result.put("message", "Docagens importadas: " + count);
-            }
-            result.put("success", true);
-            result.put("imported", count);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Erro na importação: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(result);
-        }
+        return submit(ImportJob.Tipo.DOCAGENS, file, null);
     }
 
     @Operation(summary = "Importar eventos do CSV",
-               description = "Importa eventos de navegação do arquivo CSV enviado ou do arquivo padrão ResultadoQueryEventos.csv")
+               description = "Enfileira a importação de eventos de navegação do arquivo CSV enviado, de um arquivo do diretório de importação local (parâmetro arquivo, leitura paralela) ou do arquivo padrão ResultadoQueryEventos.csv e devolve o id do job")
     @PostMapping(value = "/eventos", consumes = {"multipart/form-data", "application/json"})
     public ResponseEntity<Map<String, Object>> importEventos(
-            @RequestParam(value = "file", required = false) MultipartFile file) {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            int count;
-            if (file != null && !file.isEmpty()) {
-                count = dataImportService.importEventosCSV(file);
-                result.put("message", "Eventos importados do arquivo: " + count);
-            } else {
-                count = dataImportService.importEventosCSV("ResultadoQueryEventos.csv");
-                result.put("message", "Eventos importados: " + count);
-            }
-            result.put("success", true);
-            result.put("imported", count);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Erro na importação: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(result);
-        }
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "arquivo", required = false) String arquivo) {
+        return submit(ImportJob.Tipo.EVENTOS, file, arquivo);
     }
 
     @Operation(summary = "Importar consumos do CSV",
-               description = "Importa consumos do arquivo CSV enviado ou do arquivo padrão ResultadoQueryConsumo.csv")
+               description = "Enfileira a importação de consumos do arquivo CSV enviado, de um arquivo do diretório de importação local (parâmetro arquivo, leitura paralela) ou do arquivo padrão ResultadoQueryConsumo.csv e devolve o id do job")
     @PostMapping(value = "/consumos", consumes = {"multipart/form-data", "application/json"})
     public ResponseEntity<Map<String, Object>> importConsumos(
-            @RequestParam(value = "file", required = false) MultipartFile file) {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            int count;
-            if (file != null && !file.isEmpty()) {
-                count = dataImportService.importConsumosCSV(file);
-                result.put("message", "Consumos importados do arquivo: " + count);
-            } else {
-                count = dataImportService.importConsumosCSV("ResultadoQueryConsumo.csv");
-                result.put("message", "Consumos importados: " + count);
-            }
-            result.put("success", true);
-            result.put("imported", count);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Erro na importação: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(result);
-        }
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "arquivo", required = false) String arquivo) {
+        return submit(ImportJob.Tipo.CONSUMOS, file, arquivo);
     }
 
     @Operation(summary = "Importar revestimentos do CSV",
-               description = "Importa revestimentos do arquivo CSV enviado ou do arquivo padrão revestimento.csv")
+               description = "Enfileira a importação de revestimentos do arquivo CSV enviado ou do arquivo padrão revestimento.csv e devolve o id do job")
     @PostMapping(value = "/revestimentos", consumes = {"multipart/form-data", "application/json"})
     public ResponseEntity<Map<String, Object>> importRevestimentos(
             @RequestParam(value = "file", required = false) MultipartFile file) {
+        return submit(ImportJob.Tipo.REVESTIMENTOS, file, null);
+    }
+
+    @Operation(summary = "Listar jobs de importação",
+               description = "Jobs na fila, em execução e os últimos concluídos, do mais recente para o mais antigo")
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ImportJobDto>> listJobs() {
+        return ResponseEntity.ok(importJobService.list().stream().map(ImportJob::toDto).toList());
+    }
+
+    @Operation(summary = "Status de um job de importação",
+               description = "Linhas lidas, gravadas e rejeitadas, linhas por segundo e ETA da etapa atual")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJobDto> getJob(@PathVariable String id) {
+        return importJobService.find(id)
+            .map(job -> ResponseEntity.ok(job.toDto()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Cancelar um job de importação",
+               description = "O job para na próxima linha lida (ou não começa, se estiver na fila); os lotes já gravados permanecem")
+    @PostMapping("/jobs/{id}/cancelar")
+    public ResponseEntity<ImportJobDto> cancelJob(@PathVariable String id) {
+        return importJobService.cancel(id)
+            .map(job -> ResponseEntity.ok(job.toDto()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<Map<String, Object>> submit(ImportJob.Tipo tipo, MultipartFile file, String arquivo) {
         Map<String, Object> result = new HashMap<>();
         try {
-            int count;
-            if (file != null && !file.isEmpty()) {
-                count = dataImportService.importRevestimentosCSV(file);
-                result.put("message", "Revestimentos importados do arquivo: " + count);
-            } else {
-                count = dataImportService.importRevestimentosCSV("revestimento.csv");
-                result.put("message", "Revestimentos importados: " + count);
-            }
+            ImportJob job = importJobService.submit(tipo, file, arquivo);
             result.put("success", true);
-            result.put("imported", count);
-            return ResponseEntity.ok(result);
+            result.put("message", "Importação enfileirada: acompanhe em /api/v1/import/jobs/" + job.getId());
+            result.put("jobId", job.getId());
+            result.put("job", job.toDto());
+            return ResponseEntity.accepted().body(result);
+        } catch (IllegalArgumentException e) {
+            result.put("success", false);
+            result.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        } catch (TaskRejectedException e) {
+            result.put("success", false);
+            result.put("message", "Fila de importação cheia, tente novamente mais tarde");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result);
         } catch (Exception e) {
             result.put("success", false);
             result.put("message", "Erro na importação: " + e.getMessage());
@@ -161,5 +126,3 @@ public class DataImportController {
         }
     }
 }
-
-
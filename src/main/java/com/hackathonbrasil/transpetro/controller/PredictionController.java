@@ -1,21 +1,30 @@
 package com.hackathonbrasil.transpetro.controller;
 
+import com.hackathonbrasil.transpetro.model.BacktestSplit;
 import com.hackathonbrasil.transpetro.model.CleaningSuggestionDto;
+import com.hackathonbrasil.transpetro.model.ModelStatusDto;
+import com.hackathonbrasil.transpetro.model.PredictionCacheStatsDto;
+import com.hackathonbrasil.transpetro.model.ProjectionStep;
+import com.hackathonbrasil.transpetro.service.BacktestService;
+import com.hackathonbrasil.transpetro.service.ModelRetrainingService;
 import com.hackathonbrasil.transpetro.service.PredictionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/previsao")
@@ -26,21 +35,108 @@ public class PredictionController {
     @Autowired
     private PredictionService predictionService;
 
+    @Autowired
+    private ModelRetrainingService modelRetrainingService;
+
+    @Autowired
+    private BacktestService backtestService;
+
     @Operation(summary = "Sugere a data ideal de limpeza/docagem do navio",
                 description = "Calcula a projeção de degradação do HPI e sugere o dia em que o HPI atingirá o limite de 1.08.")
     @ApiResponse(responseCode = "200", description = "Previsão de sucesso, contendo a data ideal e a projeção diária.")
+    @ApiResponse(responseCode = "400", description = "Horizonte ou resolução inválidos.")
     @ApiResponse(responseCode = "500", description = "Erro interno, modelo não treinado ou dados inválidos.")
     @GetMapping("/limpeza-sugerida")
-    public ResponseEntity<CleaningSuggestionDto> suggestCleaning(
+    public ResponseEntity<?> suggestCleaning(
         @Parameter(description = "ID único ou nome do navio (ex: Victor Oliveira)")
-        @RequestParam String navioId
-
+        @RequestParam String navioId,
+        @Parameter(description = "Horizonte da projeção em dias (1 a 1825)")
+        @RequestParam(defaultValue = "180") int horizon,
+        @Parameter(description = "Resolução da série: daily, weekly, monthly ou none (somente data e resumo)")
+        @RequestParam(defaultValue = "daily") String step
     ) {
-        // Chamada ao serviço que executa a regressão e simulação
-        CleaningSuggestionDto result = predictionService.suggestCleaningDate(navioId);
+        CleaningSuggestionDto result;
+        try {
+            // Chamada ao serviço que executa a regressão e simulação
+            result = predictionService.suggestCleaningDate(navioId, horizon, ProjectionStep.fromParam(step));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
 
         // Sempre retorna 200 OK, mesmo se houver problemas
         // Os problemas são indicados na justificativa do DTO
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Sugere a data ideal de limpeza para vários navios (ou para a frota inteira)",
+                description = "Recebe uma lista de IDs/nomes de navios e calcula todas as previsões em paralelo em uma única chamada. "
+                            + "Se a lista estiver vazia ou ausente, calcula a frota inteira. O resultado segue a ordem dos IDs informados.")
+    @ApiResponse(responseCode = "200", description = "Lista de previsões, uma por navio.")
+    @ApiResponse(responseCode = "400", description = "Lote maior que o limite permitido, horizonte ou resolução inválidos.")
+    @PostMapping("/limpeza-sugerida/lote")
+    public ResponseEntity<?> suggestCleaningBatch(
+        @RequestBody(required = false) List<String> navioIds,
+        @Parameter(description = "Horizonte da projeção em dias (1 a 1825)")
+        @RequestParam(defaultValue = "180") int horizon,
+        @Parameter(description = "Resolução da série: daily, weekly, monthly ou none (somente data e resumo)")
+        @RequestParam(defaultValue = "daily") String step
+    ) {
+        try {
+            return ResponseEntity.ok(predictionService.suggestCleaningDates(navioIds, horizon, ProjectionStep.fromParam(step)));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    @Operation(summary = "Estatísticas do cache de previsões",
+                description = "Acertos, faltas, descartes e ocupação do cache de previsões (chave: navio, versão do modelo e dia).")
+    @ApiResponse(responseCode = "200", description = "Contadores atuais do cache.")
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<PredictionCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(predictionService.getCacheStats());
+    }
+
+    @Operation(summary = "Status do modelo de previsão",
+                description = "Indica se há modelo treinado (pronto), a versão e a data do último treino, e se um retreino está em andamento ou agendado.")
+    @ApiResponse(responseCode = "200", description = "Status atual do modelo.")
+    @GetMapping("/modelo/status")
+    public ResponseEntity<ModelStatusDto> getModelStatus() {
+        return ResponseEntity.ok(modelRetrainingService.getStatus());
+    }
+
+    @Operation(summary = "Solicita o retreino do modelo",
+                description = "Agenda o retreino imediato em segundo plano. A API continua respondendo com o modelo atual até a troca.")
+    @ApiResponse(responseCode = "202", description = "Retreino agendado.")
+    @PostMapping("/modelo/retreinar")
+    public ResponseEntity<ModelStatusDto> retrainModel() {
+        modelRetrainingService.requestRetrain(Duration.ZERO, "manual");
+        return ResponseEntity.accepted().body(modelRetrainingService.getStatus());
+    }
+
+    @Operation(summary = "Backtest do modelo (validação cruzada)",
+                description = "Treina e avalia o modelo em folds com os dados atuais, sem trocar o modelo em uso. "
+                            + "Retorna MAE/RMSE do HPI, o erro da data de limpeza prevista por ciclo de casco e os tempos de treino e previsão.")
+    @ApiResponse(responseCode = "200", description = "Métricas por fold e agregadas.")
+    @ApiResponse(responseCode = "400", description = "Divisão ou número de folds inválidos.")
+    @PostMapping("/modelo/backtest")
+    public ResponseEntity<?> runBacktest(
+        @Parameter(description = "Divisão dos folds: ship (por navio), cycle (por ciclo de casco) ou rolling (origem móvel no tempo)")
+        @RequestParam(defaultValue = "cycle") String split,
+        @Parameter(description = "Número de folds (2 a 20)")
+        @RequestParam(defaultValue = "5") int folds,
+        @Parameter(description = "Treina também os modelos por classe e por navio")
+        @RequestParam(defaultValue = "true") boolean hierarchical
+    ) {
+        try {
+            return ResponseEntity.ok(backtestService.runBacktest(BacktestSplit.fromParam(split), folds, hierarchical));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    // Parâmetro inválido: 400 com o motivo, no mesmo formato das respostas da importação
+    private static ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "Parâmetros inválidos";
+        return ResponseEntity.badRequest().body(Map.of("success", false, "message", message));
+    }
+}
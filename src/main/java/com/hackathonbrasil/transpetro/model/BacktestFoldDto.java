@@ -0,0 +1,22 @@
+package com.hackathonbrasil.transpetro.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestFoldDto {
+    private int fold;
+    private int trainingRows;
+    private int testRows;
+    private Double hpiMae; // null se o fold não foi avaliado
+    private Double hpiRmse;
+    private Double cleaningDateMaeDays; // Erro médio (dias) da data de limpeza prevista; null sem ciclos comparáveis
+    private int cleaningDateCycles; // Ciclos em que o HPI observado e o previsto cruzaram o limite
+    private int cleaningDateMissed; // Ciclos em que o HPI observado cruzou o limite e o previsto não (no horizonte)
+    private double trainingMs;
+    private double predictionMs;
+    private String error; // Motivo quando o fold não pôde ser treinado (ex: poucas linhas)
+}
@@ -0,0 +1,28 @@
+package com.hackathonbrasil.transpetro.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacktestReportDto {
+    private BacktestSplit split;
+    private int folds;
+    private boolean hierarchical; // Modelos por classe/navio (true) ou só o modelo da frota
+    private double hpiThreshold; // Limite de HPI usado para a data de limpeza
+    private int rows; // Linhas da matriz de treino
+    private int evaluatedRows; // Soma das linhas avaliadas nos folds
+    private Double hpiMae;
+    private Double hpiRmse;
+    private Double cleaningDateMaeDays;
+    private int cleaningDateCycles;
+    private int cleaningDateMissed;
+    private double trainingMs; // Soma dos folds (os folds rodam em paralelo)
+    private double predictionMs;
+    private long wallClockMs;
+    private List<BacktestFoldDto> foldResults;
+}
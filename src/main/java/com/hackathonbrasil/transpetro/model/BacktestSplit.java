@@ -0,0 +1,26 @@
+package com.hackathonbrasil.transpetro.model;
+
+/**
+ * Como o backtest separa os dados em folds.
+ * SHIP e CYCLE são k-fold agrupados (todas as linhas de um navio, ou de um ciclo de casco, ficam no mesmo fold);
+ * ROLLING é temporal: cada fold treina com o passado e avalia no período seguinte.
+ */
+public enum BacktestSplit {
+    SHIP,
+    CYCLE,
+    ROLLING;
+
+    /**
+     * Converte o parâmetro da API (ex: "cycle", "ROLLING") sem diferenciar maiúsculas.
+     */
+    public static BacktestSplit fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return CYCLE;
+        }
+        try {
+            return BacktestSplit.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Divisão inválida: " + value + " (use ship, cycle ou rolling)");
+        }
+    }
+}
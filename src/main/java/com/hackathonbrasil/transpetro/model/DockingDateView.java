@@ -0,0 +1,13 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção (Spring Data) de uma docagem: navio e data. Usada para montar o histórico completo de ciclos de casco.
+ */
+public interface DockingDateView {
+
+    String getNavioNome();
+
+    LocalDate getDataDocagem();
+}
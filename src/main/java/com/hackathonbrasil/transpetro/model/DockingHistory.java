@@ -0,0 +1,97 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Histórico completo de docagens (limpezas de casco) por navio, em epoch-days ordenados e sem repetição.
+ * Cada docagem abre um ciclo que vai até a docagem seguinte; um evento pertence ao ciclo
+ * da última docagem anterior ou igual à sua data, encontrada por busca binária (O(log d)).
+ * Imutável depois de construído.
+ */
+public final class DockingHistory {
+
+    /** Evento anterior à primeira docagem conhecida (ou sem data): não pertence a nenhum ciclo. */
+    public static final int NO_CYCLE = -1;
+
+    private static final int[] NO_DOCKINGS = new int[0];
+
+    public static final DockingHistory EMPTY = new DockingHistory(Map.of());
+
+    // Chave: nome normalizado do navio
+    private final Map<String, int[]> dockingDaysByShip;
+
+    private DockingHistory(Map<String, int[]> dockingDaysByShip) {
+        this.dockingDaysByShip = dockingDaysByShip;
+    }
+
+    /**
+     * Monta o histórico a partir das datas de docagem de cada navio (em qualquer ordem, com ou sem repetição).
+     */
+    public static DockingHistory of(Map<String, ? extends Collection<LocalDate>> dockingDatesByShip) {
+        Map<String, int[]> days = new HashMap<>();
+        dockingDatesByShip.forEach((ship, dates) -> {
+            int[] sorted = dates.stream()
+                .mapToInt(date -> (int) date.toEpochDay())
+                .sorted()
+                .distinct()
+                .toArray();
+            if (sorted.length > 0) {
+                days.put(ship, sorted);
+            }
+        });
+        return new DockingHistory(Collections.unmodifiableMap(days));
+    }
+
+    /**
+     * Um único ciclo por navio, a partir da última docagem (quando só ela é conhecida).
+     */
+    public static DockingHistory ofLatest(Map<String, LocalDate> lastDockingDates) {
+        Map<String, int[]> days = new HashMap<>();
+        lastDockingDates.forEach((ship, date) -> days.put(ship, new int[] { (int) date.toEpochDay() }));
+        return new DockingHistory(Collections.unmodifiableMap(days));
+    }
+
+    /**
+     * Epoch-days das docagens do navio em ordem crescente (vazio se não houver). Não altere o array devolvido.
+     */
+    public int[] dockingDays(String normalizedShip) {
+        return dockingDaysByShip.getOrDefault(normalizedShip, NO_DOCKINGS);
+    }
+
+    /**
+     * Índice do ciclo que contém o evento: a última docagem com data menor ou igual à do evento.
+     * @param dockingDays array devolvido por {@link #dockingDays(String)}
+     * @return índice em {@code dockingDays} ou {@link #NO_CYCLE}
+     */
+    public static int cycleOf(int[] dockingDays, int eventDay) {
+        if (eventDay == TrainingDataset.NO_DATE) {
+            return NO_CYCLE;
+        }
+        int index = Arrays.binarySearch(dockingDays, eventDay);
+        // Não encontrado: binarySearch devolve -(ponto de inserção) - 1; o ciclo é o da docagem anterior
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Data da docagem mais recente de cada navio.
+     */
+    public Map<String, LocalDate> lastDockingDates() {
+        Map<String, LocalDate> last = new HashMap<>();
+        dockingDaysByShip.forEach((ship, days) -> last.put(ship, LocalDate.ofEpochDay(days[days.length - 1])));
+        return last;
+    }
+
+    public int shipCount() {
+        return dockingDaysByShip.size();
+    }
+
+    /** Total de ciclos (docagens) de todos os navios. */
+    public int cycleCount() {
+        return dockingDaysByShip.values().stream().mapToInt(days -> days.length).sum();
+    }
+}
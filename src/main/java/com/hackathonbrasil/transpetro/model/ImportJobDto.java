@@ -0,0 +1,28 @@
+package com.hackathonbrasil.transpetro.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDto {
+    private String id;
+    private String tipo; // TODOS, NAVIOS, DOCAGENS, EVENTOS, CONSUMOS, REVESTIMENTOS
+    private String origem; // padrao, upload:<nome> ou local:<arquivo>
+    private String status; // NA_FILA, EXECUTANDO, CONCLUIDO, FALHOU, CANCELADO
+    private String stage; // Arquivo em importação agora (TODOS passa por todos)
+    private String message;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long rowsParsed; // Registros de dados lidos do CSV
+    private long rowsWritten; // Linhas commitadas no banco
+    private long rowsRejected; // Inválidas, duplicadas, sem navio/evento ou recusadas pelo banco
+    private Double rowsPerSecond; // Linhas lidas por segundo desde o início (null na fila)
+    private Double stageProgress; // Fração do arquivo da etapa atual já lida (null se desconhecida)
+    private Long etaSeconds; // Estimativa para terminar a etapa atual
+}
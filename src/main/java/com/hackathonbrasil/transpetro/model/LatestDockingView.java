@@ -0,0 +1,16 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção (Spring Data) com a docagem mais recente de um navio.
+ * Carregada para a frota inteira em uma única query agrupada.
+ */
+public interface LatestDockingView {
+
+    Long getNavioId();
+
+    String getNavioNome();
+
+    LocalDate getDataDocagem();
+}
@@ -0,0 +1,18 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção (Spring Data) com o revestimento mais recente de um navio (data de aplicação e período base).
+ * Carregada para a frota inteira em uma única query.
+ */
+public interface LatestRevestimentoView {
+
+    Long getNavioId();
+
+    String getNavioNome();
+
+    LocalDate getDataAplicacao();
+
+    Integer getPeriodoBaseVerificacao();
+}
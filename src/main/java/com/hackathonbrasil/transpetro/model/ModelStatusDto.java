@@ -0,0 +1,28 @@
+package com.hackathonbrasil.transpetro.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelStatusDto {
+    private boolean ready; // Existe modelo publicado (sem ele a previsão devolve o fallback)
+    private boolean retraining; // Retreino em execução agora
+    private boolean retrainPending; // Retreino agendado (ex: aguardando o fim de uma sequência de importações)
+    private long modelVersion;
+    private LocalDateTime lastTrainedAt;
+    private int trainingRows;
+    private double rSquared;
+    private int classModels; // Modelos específicos por classe de navio no modelo publicado
+    private int shipModels; // Modelos específicos por navio no modelo publicado
+    private LocalDateTime lastRunStartedAt;
+    private LocalDateTime lastRunFinishedAt;
+    private long lastRunDurationMs; // -1 enquanto nenhuma execução terminou
+    private String lastRunError;
+    private Map<String, Long> lastRunStageTimesMs; // Tempo de parede de cada etapa do último pipeline completo
+}
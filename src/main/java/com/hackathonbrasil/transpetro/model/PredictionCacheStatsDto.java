@@ -0,0 +1,17 @@
+package com.hackathonbrasil.transpetro.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionCacheStatsDto {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+    private int maxSize;
+    private double hitRate; // hits / (hits + misses), 0 quando ainda não houve consultas
+}
@@ -0,0 +1,38 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resolução da série de previsões devolvida na sugestão de limpeza.
+ * NONE devolve apenas a data ideal e o resumo, sem série.
+ */
+public enum ProjectionStep {
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS),
+    MONTHLY(ChronoUnit.MONTHS),
+    NONE(null);
+
+    private final ChronoUnit unit;
+
+    ProjectionStep(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Converte o parâmetro da API (ex: "daily", "WEEKLY") sem diferenciar maiúsculas.
+     */
+    public static ProjectionStep fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DAILY;
+        }
+        try {
+            return ProjectionStep.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Resolução inválida: " + value + " (use daily, weekly, monthly ou none)");
+        }
+    }
+}
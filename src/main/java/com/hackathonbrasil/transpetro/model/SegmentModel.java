@@ -0,0 +1,72 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.util.Locale;
+
+/**
+ * Coeficientes de um nível da hierarquia de modelos (frota, classe de navio ou navio).
+ * Os modelos de classe e de navio são encolhidos em direção ao nível acima quando têm poucos dados.
+ * Imutável.
+ */
+public final class SegmentModel {
+
+    public enum Level { GLOBAL, CLASS, SHIP }
+
+    private final Level level;
+    private final String key; // Classe normalizada (classKey), nome normalizado do navio ou "" no global
+    private final double[] coefficients; // Brutos (Intercepto + Features)
+    private final double[] adjustedCoefficients; // Após as correções de segurança
+    private final double rSquared;
+    private final int trainingRows;
+
+    public SegmentModel(Level level, String key, double[] coefficients, double[] adjustedCoefficients,
+                        double rSquared, int trainingRows) {
+        this.level = level;
+        this.key = key;
+        this.coefficients = coefficients.clone();
+        this.adjustedCoefficients = adjustedCoefficients.clone();
+        this.rSquared = rSquared;
+        this.trainingRows = trainingRows;
+    }
+
+    /**
+     * Chave de classe usada no registro (ex: " suezmax" e "Suezmax" são a mesma classe). null se a classe for desconhecida.
+     */
+    public static String classKey(String shipClass) {
+        if (shipClass == null) {
+            return null;
+        }
+        String key = shipClass.trim().toUpperCase(Locale.ROOT);
+        return key.isEmpty() || "UNKNOWN".equals(key) ? null : key;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public double[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    public double[] getAdjustedCoefficients() {
+        return adjustedCoefficients.clone();
+    }
+
+    /**
+     * Acesso direto a um coeficiente ajustado, sem cópia (caminho quente da previsão).
+     */
+    public double getAdjustedCoefficient(int index) {
+        return adjustedCoefficients[index];
+    }
+
+    public double getRSquared() {
+        return rSquared;
+    }
+
+    public int getTrainingRows() {
+        return trainingRows;
+    }
+}
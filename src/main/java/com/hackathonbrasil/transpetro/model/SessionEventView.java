@@ -0,0 +1,13 @@
+package com.hackathonbrasil.transpetro.model;
+
+/**
+ * Projeção (Spring Data) do evento de uma sessão: só os ids que um consumo importado precisa para ser gravado.
+ */
+public interface SessionEventView {
+
+    String getSessionId();
+
+    Long getEventoId();
+
+    Long getNavioId();
+}
@@ -0,0 +1,55 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Dados de consulta por navio (detalhes, última docagem, revestimento e CFI_Limpo) de uma carga dos CSVs/banco.
+ * Imutável: o ModelService monta uma nova versão a cada carga e troca a referência de uma só vez,
+ * então as requisições leem sem lock e nunca veem um mapa pela metade.
+ */
+public final class ShipLookupState {
+
+    public static final ShipLookupState EMPTY = new ShipLookupState(0L, Map.of(), Map.of(), Map.of(), Map.of(), 0.0);
+
+    private final long version;
+    private final Map<String, ShipDetail> shipDetails; // NavioID -> Classe/Porte Bruto
+    private final Map<String, LocalDate> lastDockingDates; // NavioID -> Data da Última Docagem
+    private final Map<String, RevestimentoDetail> revestimentos; // NavioID -> Revestimento mais recente
+    private final Map<String, Double> cfiClean; // NavioID -> CFI_Limpo (Consumo Ideal Específico)
+    private final double baselineCfi; // Média do CFI_Limpo da frota
+
+    public ShipLookupState(long version, Map<String, ShipDetail> shipDetails, Map<String, LocalDate> lastDockingDates,
+                           Map<String, RevestimentoDetail> revestimentos, Map<String, Double> cfiClean, double baselineCfi) {
+        this.version = version;
+        this.shipDetails = Map.copyOf(shipDetails);
+        this.lastDockingDates = Map.copyOf(lastDockingDates);
+        this.revestimentos = Map.copyOf(revestimentos);
+        this.cfiClean = Map.copyOf(cfiClean);
+        this.baselineCfi = baselineCfi;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, ShipDetail> getShipDetails() {
+        return shipDetails;
+    }
+
+    public Map<String, LocalDate> getLastDockingDates() {
+        return lastDockingDates;
+    }
+
+    public Map<String, RevestimentoDetail> getRevestimentos() {
+        return revestimentos;
+    }
+
+    public Map<String, Double> getCfiClean() {
+        return cfiClean;
+    }
+
+    public double getBaselineCfi() {
+        return baselineCfi;
+    }
+}
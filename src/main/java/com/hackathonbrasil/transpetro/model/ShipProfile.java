@@ -0,0 +1,23 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Visão consolidada de um navio com tudo o que a previsão de limpeza precisa
+ * (classe, porte bruto, CFI limpo, última docagem e período base do revestimento).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShipProfile {
+    private String navioId; // Nome normalizado (mesma chave do ModelService)
+    private String shipClass; // Ex: Suezmax, Aframax ("UNKNOWN" se não encontrado)
+    private double deadweightTonnage; // Porte Bruto (0 se não encontrado)
+    private double cfiCleanTonPerDay; // CFI_Limpo específico ou FALLBACK_CFI
+    private LocalDate lastCleaningDate; // Última docagem (null se não encontrada)
+    private int periodoBaseRevestimento; // Cr1. Período base de verificação do último revestimento
+}
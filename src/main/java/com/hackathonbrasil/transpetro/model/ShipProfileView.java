@@ -0,0 +1,20 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção (Spring Data) com os dados do navio usados na previsão,
+ * lida em uma única query junto com a última docagem e o último revestimento.
+ */
+public interface ShipProfileView {
+
+    String getNome();
+
+    String getClasse();
+
+    Double getPorteBruto();
+
+    LocalDate getUltimaDocagem();
+
+    Integer getPeriodoBaseRevestimento();
+}
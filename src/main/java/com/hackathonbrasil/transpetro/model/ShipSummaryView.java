@@ -0,0 +1,19 @@
+package com.hackathonbrasil.transpetro.model;
+
+/**
+ * Projeção (Spring Data) com os campos do cadastro do navio usados na previsão da frota e no treino
+ * (nome, classe, tipo, porte bruto).
+ * Carregada para a frota inteira em uma única query, sem entidades gerenciadas.
+ */
+public interface ShipSummaryView {
+
+    Long getId();
+
+    String getNome();
+
+    String getClasse();
+
+    String getTipo();
+
+    Double getPorteBruto();
+}
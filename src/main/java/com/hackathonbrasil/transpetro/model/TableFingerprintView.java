@@ -0,0 +1,17 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção (Spring Data) com o resumo de uma tabela: quantidade de linhas, maior id e última alteração.
+ * Basta para saber se os dados de treino mudaram desde o último snapshot do modelo
+ * (inserção, exclusão ou atualização mudam ao menos um dos três).
+ */
+public interface TableFingerprintView {
+
+    Long getTotal();
+
+    Long getMaxId();
+
+    LocalDateTime getLastUpdate();
+}
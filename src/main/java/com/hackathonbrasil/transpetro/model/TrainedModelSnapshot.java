@@ -0,0 +1,116 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Versão imutável do modelo treinado, publicada de uma só vez pelo ModelService.
+ * Guarda os coeficientes já resolvidos para que a previsão não precise refazer a regressão.
+ * Além do modelo da frota (global), pode trazer modelos por classe e por navio: {@link #resolve(String, String)}
+ * escolhe o mais específico disponível.
+ */
+public final class TrainedModelSnapshot {
+
+    private final long version;
+    private final LocalDateTime trainedAt;
+    private final double[] coefficients; // Coeficientes brutos do OLS (Intercepto + Features)
+    private final double[] adjustedCoefficients; // Coeficientes após as correções de segurança
+    private final double[][] covariance; // Matriz de variância-covariância dos coeficientes (pode ser null)
+    private final double rSquared;
+    private final int trainingRows;
+    private final SegmentModel globalModel;
+    private final Map<String, SegmentModel> classModels; // Chave: SegmentModel.classKey
+    private final Map<String, SegmentModel> shipModels;  // Chave: nome normalizado do navio
+
+    public TrainedModelSnapshot(long version, LocalDateTime trainedAt, double[] coefficients, double[] adjustedCoefficients,
+                                double[][] covariance, double rSquared, int trainingRows) {
+        this(version, trainedAt, coefficients, adjustedCoefficients, covariance, rSquared, trainingRows, Map.of(), Map.of());
+    }
+
+    public TrainedModelSnapshot(long version, LocalDateTime trainedAt, double[] coefficients, double[] adjustedCoefficients,
+                                double[][] covariance, double rSquared, int trainingRows,
+                                Map<String, SegmentModel> classModels, Map<String, SegmentModel> shipModels) {
+        this.version = version;
+        this.trainedAt = trainedAt;
+        this.coefficients = coefficients.clone();
+        this.adjustedCoefficients = adjustedCoefficients.clone();
+        this.covariance = covariance == null ? null : Arrays.stream(covariance).map(double[]::clone).toArray(double[][]::new);
+        this.rSquared = rSquared;
+        this.trainingRows = trainingRows;
+        this.globalModel = new SegmentModel(SegmentModel.Level.GLOBAL, "", coefficients, adjustedCoefficients, rSquared, trainingRows);
+        this.classModels = Map.copyOf(classModels);
+        this.shipModels = Map.copyOf(shipModels);
+    }
+
+    /**
+     * Mesmo modelo, com outros modelos de classe e de navio.
+     */
+    public TrainedModelSnapshot withSegments(Map<String, SegmentModel> classModels, Map<String, SegmentModel> shipModels) {
+        return new TrainedModelSnapshot(version, trainedAt, coefficients, adjustedCoefficients, covariance, rSquared,
+            trainingRows, classModels, shipModels);
+    }
+
+    /**
+     * Modelo mais específico para o navio: o do próprio navio, senão o da classe, senão o da frota.
+     * Duas consultas em HashMap, sem alocação.
+     * @param navioId nome normalizado do navio
+     * @param shipClass classe do navio como cadastrada (pode ser null)
+     */
+    public SegmentModel resolve(String navioId, String shipClass) {
+        SegmentModel ship = navioId != null ? shipModels.get(navioId) : null;
+        if (ship != null) {
+            return ship;
+        }
+        String classKey = SegmentModel.classKey(shipClass);
+        SegmentModel byClass = classKey != null ? classModels.get(classKey) : null;
+        return byClass != null ? byClass : globalModel;
+    }
+
+    public SegmentModel getGlobalModel() {
+        return globalModel;
+    }
+
+    public Map<String, SegmentModel> getClassModels() {
+        return classModels;
+    }
+
+    public Map<String, SegmentModel> getShipModels() {
+        return shipModels;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getTrainedAt() {
+        return trainedAt;
+    }
+
+    public double[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    public double[] getAdjustedCoefficients() {
+        return adjustedCoefficients.clone();
+    }
+
+    /**
+     * Acesso direto a um coeficiente ajustado, sem cópia (caminho quente da previsão).
+     */
+    public double getAdjustedCoefficient(int index) {
+        return adjustedCoefficients[index];
+    }
+
+    public double[][] getCovariance() {
+        return covariance == null ? null : Arrays.stream(covariance).map(double[]::clone).toArray(double[][]::new);
+    }
+
+    public double getRSquared() {
+        return rSquared;
+    }
+
+    public int getTrainingRows() {
+        return trainingRows;
+    }
+}
@@ -0,0 +1,172 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registros consolidados (evento de navegação + consumo) em colunas de tipos primitivos.
+ * Cada linha ocupa ~60 bytes, sem objetos por registro: o navio é um índice no dicionário
+ * de nomes normalizados e a data do evento é o epoch-day (LocalDate.toEpochDay).
+ * Lido pelo cálculo do CFI_Limpo e pela engenharia de features. Não é thread-safe durante a carga.
+ */
+public final class TrainingDataset {
+
+    /** Data do evento ausente ou inválida. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // Dicionário de navios: nome normalizado <-> índice
+    private final Map<String, Integer> shipIndex = new HashMap<>();
+    private String[] shipNames = new String[16];
+    private String[] shipClasses = new String[16]; // Classe cadastrada (ex: Suezmax), null se desconhecida
+    private int shipCount;
+
+    private int size;
+    private int[] ship;
+    private int[] eventDay;
+    private double[] consumedQuantity;
+    private double[] duration; // Horas
+    private double[] aftDraft;
+    private double[] fwdDraft;
+    private double[] displacement;
+    private int[] beaufortScale;
+    private boolean[] aframax;
+
+    // Sessões consolidadas: a atualização incremental não soma de novo o que o treino completo já contou
+    private final Set<String> sessionIds = new HashSet<>();
+
+    public TrainingDataset() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TrainingDataset(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        ship = new int[capacity];
+        eventDay = new int[capacity];
+        consumedQuantity = new double[capacity];
+        duration = new double[capacity];
+        aftDraft = new double[capacity];
+        fwdDraft = new double[capacity];
+        displacement = new double[capacity];
+        beaufortScale = new int[capacity];
+        aframax = new boolean[capacity];
+    }
+
+    /**
+     * Índice do navio (já normalizado) no dicionário, criando a entrada se for novo.
+     */
+    public int internShip(String normalizedName) {
+        Integer index = shipIndex.get(normalizedName);
+        if (index != null) {
+            return index;
+        }
+        if (shipCount == shipNames.length) {
+            shipNames = Arrays.copyOf(shipNames, shipCount * 2);
+            shipClasses = Arrays.copyOf(shipClasses, shipCount * 2);
+        }
+        shipNames[shipCount] = normalizedName;
+        shipIndex.put(normalizedName, shipCount);
+        return shipCount++;
+    }
+
+    public void add(int shipId, int eventEpochDay, double consumed, double durationHours, double aft, double fwd,
+                    double displacementValue, int beaufort, boolean isAframax) {
+        if (size == ship.length) {
+            grow();
+        }
+        ship[size] = shipId;
+        eventDay[size] = eventEpochDay;
+        consumedQuantity[size] = consumed;
+        duration[size] = durationHours;
+        aftDraft[size] = aft;
+        fwdDraft[size] = fwd;
+        displacement[size] = displacementValue;
+        beaufortScale[size] = beaufort;
+        aframax[size] = isAframax;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = ship.length + (ship.length >> 1);
+        ship = Arrays.copyOf(ship, capacity);
+        eventDay = Arrays.copyOf(eventDay, capacity);
+        consumedQuantity = Arrays.copyOf(consumedQuantity, capacity);
+        duration = Arrays.copyOf(duration, capacity);
+        aftDraft = Arrays.copyOf(aftDraft, capacity);
+        fwdDraft = Arrays.copyOf(fwdDraft, capacity);
+        displacement = Arrays.copyOf(displacement, capacity);
+        beaufortScale = Arrays.copyOf(beaufortScale, capacity);
+        aframax = Arrays.copyOf(aframax, capacity);
+    }
+
+    public void addSessionId(String sessionId) {
+        if (sessionId != null) {
+            sessionIds.add(sessionId);
+        }
+    }
+
+    public Set<String> sessionIds() {
+        return sessionIds;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int shipCount() {
+        return shipCount;
+    }
+
+    public String shipName(int shipId) {
+        return shipNames[shipId];
+    }
+
+    public void setShipClass(int shipId, String shipClass) {
+        shipClasses[shipId] = shipClass;
+    }
+
+    public String shipClass(int shipId) {
+        return shipClasses[shipId];
+    }
+
+    public int ship(int row) {
+        return ship[row];
+    }
+
+    public int eventDay(int row) {
+        return eventDay[row];
+    }
+
+    public double consumedQuantity(int row) {
+        return consumedQuantity[row];
+    }
+
+    public double duration(int row) {
+        return duration[row];
+    }
+
+    /** Consumo diário real (ton/dia), assumindo duration em horas. */
+    public double dailyConsumption(int row) {
+        return consumedQuantity[row] / (duration[row] / 24.0);
+    }
+
+    public double trim(int row) {
+        return aftDraft[row] - fwdDraft[row];
+    }
+
+    public double displacement(int row) {
+        return displacement[row];
+    }
+
+    public int beaufortScale(int row) {
+        return beaufortScale[row];
+    }
+
+    public boolean isAframax(int row) {
+        return aframax[row];
+    }
+}
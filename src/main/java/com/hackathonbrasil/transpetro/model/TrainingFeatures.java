@@ -0,0 +1,98 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.util.Arrays;
+
+/**
+ * Matriz de treino em colunas: Y (HPI) e as features do modelo, uma posição por linha.
+ * A ordem das features em {@link #fillFeatures(int, double[])} é a do modelo
+ * (dias desde limpeza, TRIM, deslocamento, Beaufort, dummy Aframax), sem o intercepto.
+ */
+public final class TrainingFeatures {
+
+    public static final int NUM_FEATURES = 5;
+
+    private int size;
+    private int[] ship; // Índice no dicionário do TrainingDataset de origem
+    private int[] cycle; // Índice do ciclo de casco (DockingHistory.dockingDays do navio)
+    private int[] eventDay; // Epoch-day do evento
+    private double[] hpi;
+    private int[] diasDesdeLimpeza;
+    private double[] trimAjustado;
+    private double[] deslocamento;
+    private int[] beaufortScale;
+    private boolean[] aframax;
+
+    public TrainingFeatures(int capacity) {
+        int initial = Math.max(capacity, 1);
+        ship = new int[initial];
+        cycle = new int[initial];
+        eventDay = new int[initial];
+        hpi = new double[initial];
+        diasDesdeLimpeza = new int[initial];
+        trimAjustado = new double[initial];
+        deslocamento = new double[initial];
+        beaufortScale = new int[initial];
+        aframax = new boolean[initial];
+    }
+
+    public void add(int shipId, int cycleIndex, int day, double hpiValue, int dias, double trim, double deslocamentoValue,
+                    int beaufort, boolean isAframax) {
+        if (size == hpi.length) {
+            int capacity = size + (size >> 1) + 1;
+            ship = Arrays.copyOf(ship, capacity);
+            cycle = Arrays.copyOf(cycle, capacity);
+            eventDay = Arrays.copyOf(eventDay, capacity);
+            hpi = Arrays.copyOf(hpi, capacity);
+            diasDesdeLimpeza = Arrays.copyOf(diasDesdeLimpeza, capacity);
+            trimAjustado = Arrays.copyOf(trimAjustado, capacity);
+            deslocamento = Arrays.copyOf(deslocamento, capacity);
+            beaufortScale = Arrays.copyOf(beaufortScale, capacity);
+            aframax = Arrays.copyOf(aframax, capacity);
+        }
+        ship[size] = shipId;
+        cycle[size] = cycleIndex;
+        eventDay[size] = day;
+        hpi[size] = hpiValue;
+        diasDesdeLimpeza[size] = dias;
+        trimAjustado[size] = trim;
+        deslocamento[size] = deslocamentoValue;
+        beaufortScale[size] = beaufort;
+        aframax[size] = isAframax;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int ship(int row) {
+        return ship[row];
+    }
+
+    public int cycle(int row) {
+        return cycle[row];
+    }
+
+    public int eventDay(int row) {
+        return eventDay[row];
+    }
+
+    public double hpi(int row) {
+        return hpi[row];
+    }
+
+    public int diasDesdeLimpeza(int row) {
+        return diasDesdeLimpeza[row];
+    }
+
+    /**
+     * Preenche {@code out} com as features da linha, na ordem dos coeficientes do modelo.
+     */
+    public void fillFeatures(int row, double[] out) {
+        out[0] = diasDesdeLimpeza[row];       // X1: Dias Desde Limpeza
+        out[1] = trimAjustado[row];           // X2: TRIM
+        out[2] = deslocamento[row];           // X3: Deslocamento
+        out[3] = beaufortScale[row];          // X4: Escala Beaufort
+        out[4] = aframax[row] ? 1.0 : 0.0;    // X5: Aframax Dummy
+    }
+}
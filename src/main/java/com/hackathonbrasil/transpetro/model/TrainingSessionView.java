@@ -0,0 +1,31 @@
+package com.hackathonbrasil.transpetro.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção (Spring Data) de uma sessão de navegação com o consumo total da sessão,
+ * já filtrada para o treino (velocidade e duração acima de 1, consumo positivo).
+ * Só os campos que viram colunas do TrainingDataset: nada de entidade gerenciada por linha.
+ */
+public interface TrainingSessionView {
+
+    String getSessionId();
+
+    String getNavioNome();
+
+    String getClasse();
+
+    LocalDateTime getStartGMTDate();
+
+    Double getDuration();
+
+    Double getAftDraft();
+
+    Double getFwdDraft();
+
+    Double getDisplacement();
+
+    Integer getBeaufortScale();
+
+    Double getConsumedQuantity();
+}
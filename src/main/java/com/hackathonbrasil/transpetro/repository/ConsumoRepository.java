@@ -1,6 +1,7 @@
 package com.hackathonbrasil.transpetro.repository;
 
 import com.hackathonbrasil.transpetro.model.Consumo;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -21,5 +22,8 @@ public interface ConsumoRepository extends JpaRepository<Consumo, Long> {
 
     @Query("SELECT c FROM Consumo c WHERE c.navio.nome = :nomeNavio ORDER BY c.createdAt DESC")
     List<Consumo> findByNavioNomeOrderByCreatedAtDesc(@Param("nomeNavio") String nomeNavio);
-}
 
+    // Resumo da tabela para o hash de entrada do snapshot do modelo
+    @Query("SELECT COUNT(c) AS total, MAX(c.id) AS maxId, MAX(c.updatedAt) AS lastUpdate FROM Consumo c")
+    TableFingerprintView fingerprint();
+}
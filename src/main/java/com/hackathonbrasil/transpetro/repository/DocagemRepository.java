@@ -1,6 +1,9 @@
 package com.hackathonbrasil.transpetro.repository;
 
 import com.hackathonbrasil.transpetro.model.Docagem;
+import com.hackathonbrasil.transpetro.model.DockingDateView;
+import com.hackathonbrasil.transpetro.model.LatestDockingView;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,11 +21,22 @@ public interface DocagemRepository extends JpaRepository<Docagem, Long> {
     @Query("SELECT d FROM Docagem d WHERE d.navio.id = :navioId ORDER BY d.dataDocagem DESC")
     Optional<Docagem> findFirstByNavioIdOrderByDataDocagemDesc(@Param("navioId") Long navioId);
 
+    // LIMIT 1 no banco: não carrega o histórico inteiro do navio para usar só a primeira linha
+    Optional<Docagem> findTopByNavioIdOrderByDataDocagemDesc(Long navioId);
+
     default Optional<Docagem> findUltimaDocagemByNavioId(Long navioId) {
-        List<Docagem> docagens = findByNavioIdOrderByDataDocagemDesc(navioId);
-        return docagens.isEmpty() ? Optional.empty() : Optional.of(docagens.get(0));
+        return findTopByNavioIdOrderByDataDocagemDesc(navioId);
     }
 
+    // Última docagem de todos os navios em uma única query agrupada (pipeline de treino e previsão da frota)
+    @Query("SELECT n.id AS navioId, n.nome AS navioNome, MAX(d.dataDocagem) AS dataDocagem " +
+           "FROM Docagem d JOIN d.navio n GROUP BY n.id, n.nome")
+    List<LatestDockingView> findLatestPerNavio();
+
+    // Todas as docagens da frota (só navio e data), para montar os ciclos de casco do treino
+    @Query("SELECT n.nome AS navioNome, d.dataDocagem AS dataDocagem FROM Docagem d JOIN d.navio n")
+    List<DockingDateView> findAllDockingDates();
+
     @Query("SELECT d FROM Docagem d WHERE d.navio.nome = :nomeNavio ORDER BY d.dataDocagem DESC")
     List<Docagem> findByNavioNomeOrderByDataDocagemDesc(@Param("nomeNavio") String nomeNavio);
 
@@ -30,5 +44,8 @@ public interface DocagemRepository extends JpaRepository<Docagem, Long> {
         List<Docagem> docagens = findByNavioNomeOrderByDataDocagemDesc(nomeNavio);
         return docagens.isEmpty() ? Optional.empty() : Optional.of(docagens.get(0));
     }
-}
 
+    // Resumo da tabela para o hash de entrada do snapshot do modelo
+    @Query("SELECT COUNT(d) AS total, MAX(d.id) AS maxId, MAX(d.updatedAt) AS lastUpdate FROM Docagem d")
+    TableFingerprintView fingerprint();
+}
@@ -1,8 +1,14 @@
 package com.hackathonbrasil.transpetro.repository;
 
 import com.hackathonbrasil.transpetro.model.EventoNavegacao;
+import com.hackathonbrasil.transpetro.model.SessionEventView;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,8 +16,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventoNavegacaoRepository extends JpaRepository<EventoNavegacao, Long> {
@@ -27,6 +35,11 @@ public interface EventoNavegacaoRepository extends JpaRepository<EventoNavegacao
         return eventos.isEmpty() ? Optional.empty() : Optional.of(eventos.get(0));
     }
 
+    // Importação de consumos: eventos das sessões de um pedaço do arquivo, sem carregar as entidades
+    @Query("SELECT e.sessionId AS sessionId, e.id AS eventoId, e.navio.id AS navioId " +
+           "FROM EventoNavegacao e WHERE e.sessionId IN :sessionIds")
+    List<SessionEventView> findSessionEventsBySessionIdIn(@Param("sessionIds") Collection<String> sessionIds);
+
     @Query("SELECT e FROM EventoNavegacao e WHERE e.navio.id = :navioId " +
            "AND e.startGMTDate >= :start AND e.startGMTDate <= :end " +
            "ORDER BY e.startGMTDate DESC")
@@ -44,7 +57,42 @@ public interface EventoNavegacaoRepository extends JpaRepository<EventoNavegacao
             @Param("end") LocalDateTime end,
             Pageable pageable);
 
+    // Sessões de treino: evento de navegação + soma dos consumos positivos da sessão (um combustível por linha em consumos)
+    String TRAINING_SESSIONS_FROM =
+        "FROM EventoNavegacao e JOIN e.navio n JOIN Consumo c ON c.sessionId = e.sessionId " +
+        "WHERE c.consumedQuantity > 0 AND e.speed > 1.0 AND e.duration > 1.0 ";
+
+    String TRAINING_SESSIONS_SELECT =
+        "SELECT e.sessionId AS sessionId, n.nome AS navioNome, n.classe AS classe, e.startGMTDate AS startGMTDate, " +
+        "e.duration AS duration, e.aftDraft AS aftDraft, e.fwdDraft AS fwdDraft, e.displacement AS displacement, " +
+        "e.beaufortScale AS beaufortScale, SUM(c.consumedQuantity) AS consumedQuantity " + TRAINING_SESSIONS_FROM;
+
+    String TRAINING_SESSIONS_GROUP_BY =
+        "GROUP BY e.id, e.sessionId, n.nome, n.classe, e.startGMTDate, e.duration, e.aftDraft, e.fwdDraft, e.displacement, e.beaufortScale";
+
+    /**
+     * Todas as sessões de treino em cursor forward-only: as linhas chegam em blocos (fetch size)
+     * e não ficam no contexto de persistência. Feche o Stream (try-with-resources) dentro de uma transação.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(TRAINING_SESSIONS_SELECT + TRAINING_SESSIONS_GROUP_BY)
+    Stream<TrainingSessionView> streamTrainingSessions();
+
+    @Query(TRAINING_SESSIONS_SELECT + "AND e.sessionId IN :sessionIds " + TRAINING_SESSIONS_GROUP_BY)
+    List<TrainingSessionView> findTrainingSessionsBySessionIdIn(@Param("sessionIds") Collection<String> sessionIds);
+
+    // Ids das sessões que entram no treino completo (warm start: sessões já somadas nas estatísticas do snapshot)
+    @Query("SELECT DISTINCT e.sessionId " + TRAINING_SESSIONS_FROM)
+    List<String> findTrainingSessionIds();
+
     @Query("SELECT e FROM EventoNavegacao e WHERE e.navio.nome = :nomeNavio ORDER BY e.startGMTDate DESC")
     List<EventoNavegacao> findByNavioNomeOrderByStartGMTDateDesc(@Param("nomeNavio") String nomeNavio);
-}
 
+    // Resumo da tabela para o hash de entrada do snapshot do modelo
+    @Query("SELECT COUNT(e) AS total, MAX(e.id) AS maxId, MAX(e.updatedAt) AS lastUpdate FROM EventoNavegacao e")
+    TableFingerprintView fingerprint();
+}
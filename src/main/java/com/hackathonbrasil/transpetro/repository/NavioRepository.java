@@ -1,9 +1,15 @@
 package com.hackathonbrasil.transpetro.repository;
 
 import com.hackathonbrasil.transpetro.model.Navio;
+import com.hackathonbrasil.transpetro.model.ShipProfileView;
+import com.hackathonbrasil.transpetro.model.ShipSummaryView;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +18,20 @@ public interface NavioRepository extends JpaRepository<Navio, Long> {
     Optional<Navio> findByNome(String nome);
 
     boolean existsByNome(String nome);
-}
 
+    // Perfil de previsão do navio em uma única ida ao banco (última docagem e revestimento mais recente)
+    @Query("SELECT n.nome AS nome, n.classe AS classe, n.porteBruto AS porteBruto, " +
+           "(SELECT MAX(d.dataDocagem) FROM Docagem d WHERE d.navio = n) AS ultimaDocagem, " +
+           "(SELECT MAX(r.periodoBaseVerificacao) FROM Revestimento r WHERE r.navio = n " +
+           "   AND r.dataAplicacao = (SELECT MAX(r2.dataAplicacao) FROM Revestimento r2 WHERE r2.navio = n)) AS periodoBaseRevestimento " +
+           "FROM Navio n WHERE n.nome = :nome")
+    Optional<ShipProfileView> findProfileByNome(@Param("nome") String nome);
+
+    // Cadastro da frota para a previsão em lote (lista de navios e perfis saem da mesma leitura) e para o treino
+    @Query("SELECT n.id AS id, n.nome AS nome, n.classe AS classe, n.tipo AS tipo, n.porteBruto AS porteBruto FROM Navio n")
+    List<ShipSummaryView> findAllSummaries();
+
+    // Resumo da tabela para o hash de entrada do snapshot do modelo
+    @Query("SELECT COUNT(n) AS total, MAX(n.id) AS maxId, MAX(n.updatedAt) AS lastUpdate FROM Navio n")
+    TableFingerprintView fingerprint();
+}
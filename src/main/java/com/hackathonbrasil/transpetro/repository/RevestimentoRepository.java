@@ -1,6 +1,8 @@
 package com.hackathonbrasil.transpetro.repository;
 
+import com.hackathonbrasil.transpetro.model.LatestRevestimentoView;
 import com.hackathonbrasil.transpetro.model.Revestimento;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,9 +16,11 @@ public interface RevestimentoRepository extends JpaRepository<Revestimento, Long
 
     List<Revestimento> findByNavioIdOrderByDataAplicacaoDesc(Long navioId);
 
+    // LIMIT 1 no banco: não carrega o histórico inteiro do navio para usar só a primeira linha
+    Optional<Revestimento> findTopByNavioIdOrderByDataAplicacaoDesc(Long navioId);
+
     default Optional<Revestimento> findUltimoRevestimentoByNavioId(Long navioId) {
-        List<Revestimento> revestimentos = findByNavioIdOrderByDataAplicacaoDesc(navioId);
-        return revestimentos.isEmpty() ? Optional.empty() : Optional.of(revestimentos.get(0));
+        return findTopByNavioIdOrderByDataAplicacaoDesc(navioId);
     }
 
     default Optional<Revestimento> findUltimoRevestimentoByNavioNome(String nomeNavio) {
@@ -24,7 +28,18 @@ public interface RevestimentoRepository extends JpaRepository<Revestimento, Long
         return revestimentos.isEmpty() ? Optional.empty() : Optional.of(revestimentos.get(0));
     }
 
+    // Revestimento mais recente de todos os navios em uma única query (pipeline de treino e previsão da frota).
+    // Empate na data de aplicação devolve mais de uma linha para o mesmo navio: quem consome mantém a primeira.
+    @Query("SELECT n.id AS navioId, n.nome AS navioNome, r.dataAplicacao AS dataAplicacao, " +
+           "r.periodoBaseVerificacao AS periodoBaseVerificacao " +
+           "FROM Revestimento r JOIN r.navio n " +
+           "WHERE r.dataAplicacao = (SELECT MAX(r2.dataAplicacao) FROM Revestimento r2 WHERE r2.navio = r.navio)")
+    List<LatestRevestimentoView> findLatestPerNavio();
+
     @Query("SELECT r FROM Revestimento r WHERE r.navio.nome = :nomeNavio ORDER BY r.dataAplicacao DESC")
     List<Revestimento> findByNavioNomeOrderByDataAplicacaoDesc(@Param("nomeNavio") String nomeNavio);
-}
 
+    // Resumo da tabela para o hash de entrada do snapshot do modelo
+    @Query("SELECT COUNT(r) AS total, MAX(r.id) AS maxId, MAX(r.updatedAt) AS lastUpdate FROM Revestimento r")
+    TableFingerprintView fingerprint();
+}
@@ -0,0 +1,354 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.BacktestFoldDto;
+import com.hackathonbrasil.transpetro.model.BacktestReportDto;
+import com.hackathonbrasil.transpetro.model.BacktestSplit;
+import com.hackathonbrasil.transpetro.model.SegmentModel;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import com.hackathonbrasil.transpetro.model.TrainingDataset;
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Backtest do modelo de HPI: separa a matriz de treino em folds, treina cada fold com as demais linhas
+ * e avalia nas linhas separadas. Os folds treinam e avaliam em paralelo no pool de treino.
+ *
+ * Métricas por fold e no total: MAE/RMSE do HPI previsto (coeficientes ajustados, como na previsão da API)
+ * e o erro da data de limpeza prevista em cada ciclo de casco avaliado. A data "observada" do ciclo é o primeiro dia
+ * (desde a docagem) com HPI medido acima do limite; a prevista sai da reta do modelo com as condições médias do ciclo.
+ */
+public final class BacktestEngine {
+
+    /** Horizonte da busca da data de limpeza prevista (mesmo limite do horizonte da API). */
+    public static final int MAX_CROSSING_DAYS = 1825;
+    public static final int MAX_FOLDS = 20;
+
+    // Semente fixa: o mesmo conjunto de dados gera sempre os mesmos folds (comparação entre versões do modelo)
+    private static final long SHUFFLE_SEED = 42L;
+
+    /**
+     * Matriz de treino com o dicionário de navios (nome e classe normalizados por índice).
+     */
+    public static final class Dataset {
+
+        private final TrainingFeatures features;
+        private final String[] shipKeys;
+        private final String[] classKeys; // null se a classe do navio for desconhecida
+
+        public Dataset(TrainingFeatures features, String[] shipKeys, String[] classKeys) {
+            this.features = features;
+            this.shipKeys = shipKeys;
+            this.classKeys = classKeys;
+        }
+
+        public static Dataset of(TrainingFeatures features, TrainingDataset dictionary) {
+            String[] shipKeys = new String[dictionary.shipCount()];
+            String[] classKeys = new String[dictionary.shipCount()];
+            for (int shipId = 0; shipId < shipKeys.length; shipId++) {
+                shipKeys[shipId] = dictionary.shipName(shipId);
+                classKeys[shipId] = SegmentModel.classKey(dictionary.shipClass(shipId));
+            }
+            return new Dataset(features, shipKeys, classKeys);
+        }
+
+        public TrainingFeatures getFeatures() {
+            return features;
+        }
+    }
+
+    private record Fold(int[] trainRows, int[] testRows) {}
+
+    // Somas do fold (as médias do total são ponderadas pelas linhas, não pela média dos folds)
+    private record FoldStats(int fold, int trainRows, int testRows, double absError, double squaredError, int evaluated,
+                             double dateAbsError, int dateCycles, int dateMissed, long trainNanos, long predictNanos,
+                             String error) {}
+
+    private final ForkJoinPool pool;
+    private final int shardSize;
+    private final int minRows;
+    private final double priorStrength;
+
+    public BacktestEngine(ForkJoinPool pool, int shardSize, int minRows, double priorStrength) {
+        this.pool = pool;
+        this.shardSize = shardSize;
+        this.minRows = minRows;
+        this.priorStrength = priorStrength;
+    }
+
+    /**
+     * Executa o backtest.
+     * @param folds número de folds (2 a {@link #MAX_FOLDS})
+     * @param hierarchical treina os modelos por classe e navio (como o treino completo) ou só o da frota
+     * @param hpiThreshold limite de HPI que define a data de limpeza
+     */
+    public BacktestReportDto run(Dataset data, BacktestSplit split, int folds, boolean hierarchical, double hpiThreshold) {
+        if (folds < 2 || folds > MAX_FOLDS) {
+            throw new IllegalArgumentException("O número de folds deve estar entre 2 e " + MAX_FOLDS + ".");
+        }
+        long inicio = System.currentTimeMillis();
+        Fold[] plan = plan(data.features, split, folds);
+
+        List<FoldStats> stats = pool.submit(() -> IntStream.range(0, plan.length).parallel()
+            .mapToObj(f -> runFold(f, plan[f], data, hierarchical, hpiThreshold))
+            .collect(Collectors.toList())).join();
+
+        List<BacktestFoldDto> foldResults = new ArrayList<>(stats.size());
+        double absError = 0, squaredError = 0, dateAbsError = 0;
+        int evaluated = 0, dateCycles = 0, dateMissed = 0;
+        long trainNanos = 0, predictNanos = 0;
+        for (FoldStats fold : stats) {
+            foldResults.add(new BacktestFoldDto(fold.fold(), fold.trainRows(), fold.testRows(),
+                mean(fold.absError(), fold.evaluated()), rootMean(fold.squaredError(), fold.evaluated()),
+                mean(fold.dateAbsError(), fold.dateCycles()), fold.dateCycles(), fold.dateMissed(),
+                fold.trainNanos() / 1e6, fold.predictNanos() / 1e6, fold.error()));
+            absError += fold.absError();
+            squaredError += fold.squaredError();
+            evaluated += fold.evaluated();
+            dateAbsError += fold.dateAbsError();
+            dateCycles += fold.dateCycles();
+            dateMissed += fold.dateMissed();
+            trainNanos += fold.trainNanos();
+            predictNanos += fold.predictNanos();
+        }
+
+        return new BacktestReportDto(split, plan.length, hierarchical, hpiThreshold, data.features.size(), evaluated,
+            mean(absError, evaluated), rootMean(squaredError, evaluated), mean(dateAbsError, dateCycles), dateCycles,
+            dateMissed, trainNanos / 1e6, predictNanos / 1e6, System.currentTimeMillis() - inicio, foldResults);
+    }
+
+    // --- DIVISÃO EM FOLDS ---
+
+    private static Fold[] plan(TrainingFeatures features, BacktestSplit split, int folds) {
+        int[] foldOf = new int[features.size()];
+        switch (split) {
+            case SHIP -> assignGroups(features, folds, foldOf, false);
+            case CYCLE -> assignGroups(features, folds, foldOf, true);
+            case ROLLING -> {
+                return rollingOrigin(features, folds);
+            }
+        }
+
+        Fold[] plan = new Fold[folds];
+        for (int f = 0; f < folds; f++) {
+            int fold = f;
+            int[] test = IntStream.range(0, foldOf.length).filter(row -> foldOf[row] == fold).toArray();
+            int[] train = IntStream.range(0, foldOf.length).filter(row -> foldOf[row] != fold).toArray();
+            plan[f] = new Fold(train, test);
+        }
+        return plan;
+    }
+
+    /**
+     * K-fold agrupado: navios (ou ciclos de navio) embaralhados com semente fixa e distribuídos em rodízio.
+     */
+    private static void assignGroups(TrainingFeatures features, int folds, int[] foldOf, boolean byCycle) {
+        Map<Long, Integer> groups = new HashMap<>();
+        int[] groupOf = new int[features.size()];
+        for (int row = 0; row < features.size(); row++) {
+            long key = byCycle ? ((long) features.ship(row) << 32) | (features.cycle(row) & 0xFFFFFFFFL) : features.ship(row);
+            groupOf[row] = groups.computeIfAbsent(key, k -> groups.size());
+        }
+
+        int[] order = IntStream.range(0, groups.size()).toArray();
+        Random random = new Random(SHUFFLE_SEED);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        int[] foldOfGroup = new int[order.length];
+        for (int position = 0; position < order.length; position++) {
+            foldOfGroup[order[position]] = position % folds;
+        }
+        for (int row = 0; row < groupOf.length; row++) {
+            foldOf[row] = foldOfGroup[groupOf[row]];
+        }
+    }
+
+    /**
+     * Origem móvel: as datas são divididas em folds + 1 blocos de mesmo tamanho; o fold f treina com tudo
+     * antes do bloco f + 1 e avalia nele. Nenhuma linha do futuro entra no treino.
+     */
+    private static Fold[] rollingOrigin(TrainingFeatures features, int folds) {
+        int n = features.size();
+        int[] sortedDays = new int[n];
+        for (int row = 0; row < n; row++) {
+            sortedDays[row] = features.eventDay(row);
+        }
+        Arrays.sort(sortedDays);
+
+        Fold[] plan = new Fold[folds];
+        for (int f = 0; f < folds; f++) {
+            int origin = n == 0 ? 0 : sortedDays[(int) ((long) (f + 1) * n / (folds + 1))];
+            int end = f + 1 < folds ? sortedDays[(int) ((long) (f + 2) * n / (folds + 1))] : Integer.MAX_VALUE;
+            int[] train = IntStream.range(0, n).filter(row -> features.eventDay(row) < origin).toArray();
+            int[] test = IntStream.range(0, n)
+                .filter(row -> features.eventDay(row) >= origin && features.eventDay(row) < end).toArray();
+            plan[f] = new Fold(train, test);
+        }
+        return plan;
+    }
+
+    // --- TREINO E AVALIAÇÃO DE UM FOLD ---
+
+    private FoldStats runFold(int fold, Fold split, Dataset data, boolean hierarchical, double hpiThreshold) {
+        TrainingFeatures features = data.features;
+        long inicio = System.nanoTime();
+        TrainedModelSnapshot model;
+        try {
+            model = train(split.trainRows(), data, hierarchical);
+        } catch (RuntimeException e) {
+            return new FoldStats(fold, split.trainRows().length, split.testRows().length, 0, 0, 0, 0, 0, 0,
+                System.nanoTime() - inicio, 0, e.getMessage());
+        }
+        long trainNanos = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        double absError = 0;
+        double squaredError = 0;
+        double[] x = new double[TrainingFeatures.NUM_FEATURES];
+        // Por ciclo avaliado: primeiro dia com HPI observado acima do limite e soma das condições (TRIM, deslocamento...)
+        Map<Long, CycleAccumulator> cycles = new HashMap<>();
+        for (int row : split.testRows()) {
+            int ship = features.ship(row);
+            SegmentModel segment = model.resolve(data.shipKeys[ship], data.classKeys[ship]);
+            features.fillFeatures(row, x);
+            double predicted = segment.getAdjustedCoefficient(0);
+            for (int j = 0; j < x.length; j++) {
+                predicted += segment.getAdjustedCoefficient(j + 1) * x[j];
+            }
+            double error = Math.max(1.0, predicted) - features.hpi(row);
+            absError += Math.abs(error);
+            squaredError += error * error;
+
+            long key = ((long) ship << 32) | (features.cycle(row) & 0xFFFFFFFFL);
+            cycles.computeIfAbsent(key, k -> new CycleAccumulator(segment)).add(x, features.hpi(row) >= hpiThreshold);
+        }
+
+        double dateAbsError = 0;
+        int dateCycles = 0;
+        int dateMissed = 0;
+        for (CycleAccumulator cycle : cycles.values()) {
+            if (!cycle.hasObservedCrossing()) {
+                continue; // Sem cruzamento observado no ciclo: nada a comparar
+            }
+            long predictedCrossing = cycle.predictedCrossing(hpiThreshold);
+            if (predictedCrossing < 0) {
+                dateMissed++;
+            } else {
+                dateAbsError += Math.abs(predictedCrossing - cycle.observedCrossing);
+                dateCycles++;
+            }
+        }
+        long predictNanos = System.nanoTime() - inicio;
+
+        return new FoldStats(fold, split.trainRows().length, split.testRows().length, absError, squaredError,
+            split.testRows().length, dateAbsError, dateCycles, dateMissed, trainNanos, predictNanos, null);
+    }
+
+    private TrainedModelSnapshot train(int[] rows, Dataset data, boolean hierarchical) {
+        TrainingFeatures features = data.features;
+        GramTrainingEngine.TrainingRows subset = new GramTrainingEngine.TrainingRows() {
+            @Override
+            public int size() {
+                return rows.length;
+            }
+
+            @Override
+            public int numFeatures() {
+                return TrainingFeatures.NUM_FEATURES;
+            }
+
+            @Override
+            public void features(int row, double[] out) {
+                features.fillFeatures(rows[row], out);
+            }
+
+            @Override
+            public double target(int row) {
+                return features.hpi(rows[row]);
+            }
+        };
+        if (subset.size() < TrainingFeatures.NUM_FEATURES + 2) {
+            throw new IllegalStateException("Linhas de treino insuficientes: " + subset.size());
+        }
+
+        if (!hierarchical) {
+            RegressionAccumulator.Solution global = new GramTrainingEngine(pool, shardSize).train(subset);
+            return ModelService.createSnapshot(0L, global.getCoefficients(), null, global.getRSquared(), rows.length);
+        }
+
+        HierarchicalModelTrainer.Result result = new HierarchicalModelTrainer(pool, shardSize, minRows, priorStrength)
+            .train(subset, row -> features.ship(rows[row]), data.shipKeys, data.classKeys);
+        RegressionAccumulator.Solution global = result.getGlobal();
+        return ModelService.createSnapshot(0L, global.getCoefficients(), null, global.getRSquared(), rows.length)
+            .withSegments(ModelService.toSegmentModels(SegmentModel.Level.CLASS, result.getClassModels()),
+                ModelService.toSegmentModels(SegmentModel.Level.SHIP, result.getShipModels()));
+    }
+
+    /**
+     * Linhas avaliadas de um ciclo de casco: condições médias e o primeiro dia com HPI observado acima do limite.
+     */
+    private static final class CycleAccumulator {
+
+        private final SegmentModel segment;
+        private final double[] controlSum = new double[TrainingFeatures.NUM_FEATURES];
+        private int count;
+        private int firstDay = Integer.MAX_VALUE;
+        private int observedCrossing = Integer.MAX_VALUE;
+
+        CycleAccumulator(SegmentModel segment) {
+            this.segment = segment;
+        }
+
+        void add(double[] x, boolean aboveThreshold) {
+            for (int j = 1; j < x.length; j++) {
+                controlSum[j] += x[j];
+            }
+            count++;
+            int dias = (int) x[0]; // Dias desde a limpeza
+            firstDay = Math.min(firstDay, dias);
+            if (aboveThreshold) {
+                observedCrossing = Math.min(observedCrossing, dias);
+            }
+        }
+
+        /**
+         * A data observada só vale se o cruzamento aconteceu dentro das linhas avaliadas: na origem móvel o ciclo
+         * pode começar no treino e a primeira linha avaliada já estar acima do limite.
+         */
+        boolean hasObservedCrossing() {
+            return observedCrossing != Integer.MAX_VALUE && firstDay < observedCrossing;
+        }
+
+        /**
+         * Mesmo cálculo da previsão da API (PredictionService.findThresholdCrossingDay), com as condições médias do ciclo.
+         */
+        long predictedCrossing(double threshold) {
+            double baseHPI = segment.getAdjustedCoefficient(0);
+            for (int j = 1; j < controlSum.length; j++) {
+                baseHPI += segment.getAdjustedCoefficient(j + 1) * controlSum[j] / count;
+            }
+            return PredictionService.findThresholdCrossingDay(baseHPI, segment.getAdjustedCoefficient(1), threshold,
+                0, MAX_CROSSING_DAYS);
+        }
+    }
+
+    private static Double mean(double sum, int count) {
+        return count > 0 ? sum / count : null;
+    }
+
+    private static Double rootMean(double sum, int count) {
+        return count > 0 ? Math.sqrt(sum / count) : null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.BacktestReportDto;
+import com.hackathonbrasil.transpetro.model.BacktestSplit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Backtest do modelo com os dados atuais do banco: monta a matriz de treino do pipeline e avalia os folds
+ * no mesmo pool do treino. Não publica nada; o modelo em uso pela API não muda.
+ */
+@Service
+public class BacktestService {
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    @Qualifier("trainingForkJoinPool")
+    private ForkJoinPool trainingPool;
+
+    @Value("${model.training.shard-size:" + GramTrainingEngine.DEFAULT_SHARD_SIZE + "}")
+    private int trainingShardSize;
+
+    @Value("${model.hierarchy.min-rows:" + HierarchicalModelTrainer.DEFAULT_MIN_ROWS + "}")
+    private int hierarchyMinRows;
+
+    @Value("${model.hierarchy.prior-strength:" + HierarchicalModelTrainer.DEFAULT_PRIOR_STRENGTH + "}")
+    private double hierarchyPriorStrength;
+
+    @Value("${model.backtest.hpi-threshold:1.025}")
+    private double hpiThreshold;
+
+    /**
+     * Lança IllegalArgumentException para número de folds fora de [2, {@link BacktestEngine#MAX_FOLDS}].
+     */
+    public BacktestReportDto runBacktest(BacktestSplit split, int folds, boolean hierarchical) {
+        if (folds < 2 || folds > BacktestEngine.MAX_FOLDS) {
+            throw new IllegalArgumentException("O número de folds deve estar entre 2 e " + BacktestEngine.MAX_FOLDS + ".");
+        }
+        System.out.println("🔁 Backtest: divisão " + split + ", " + folds + " folds" + (hierarchical ? ", hierárquico" : "") + "...");
+        BacktestEngine.Dataset dataset = modelService.buildTrainingDataset();
+        BacktestEngine engine = new BacktestEngine(trainingPool, trainingShardSize, hierarchyMinRows, hierarchyPriorStrength);
+        BacktestReportDto report = engine.run(dataset, split, folds, hierarchical, hpiThreshold);
+        System.out.println("✅ Backtest concluído em " + report.getWallClockMs() + " ms: MAE HPI = " + report.getHpiMae()
+            + ", MAE data de limpeza = " + report.getCleaningDateMaeDays() + " dias.");
+        return report;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hackathonbrasil.transpetro.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache em memória com tamanho máximo e descarte do item menos usado (LRU).
+ * O carregamento do valor acontece fora do lock; a "geração" permite descartar
+ * valores carregados durante uma invalidação concorrente (evita gravar dado velho).
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedLruCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Tamanho máximo do cache deve ser positivo");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                boolean evict = size() > BoundedLruCache.this.maxSize;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Geração atual do cache. Leia antes de carregar um valor e passe para {@link #put(Object, Object, long)}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Grava o valor somente se nenhuma invalidação aconteceu desde a geração informada.
+     */
+    public boolean put(K key, V value, long expectedGeneration) {
+        synchronized (entries) {
+            if (generation.get() != expectedGeneration) {
+                return false;
+            }
+            entries.put(key, value);
+            return true;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateIf(Predicate<K> keyFilter) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.keySet().removeIf(keyFilter);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -10,6 +10,7 @@ import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
 import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import com.hackathonbrasil.transpetro.model.PageResponseDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +32,9 @@ public class ConsumoService {
     @Autowired
     private EventoNavegacaoRepository eventoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private ConsumoResponseDto toResponseDto(Consumo consumo) {
         ConsumoResponseDto dto = new ConsumoResponseDto();
         dto.setId(consumo.getId());
@@ -66,6 +70,9 @@ public class ConsumoService {
         }
 
         consumo = consumoRepository.save(consumo);
+        if (consumo.getSessionId() != null) {
+            eventPublisher.publishEvent(new TrainingSessionsWrittenEvent(List.of(consumo.getSessionId())));
+        }
         return toResponseDto(consumo);
     }
 
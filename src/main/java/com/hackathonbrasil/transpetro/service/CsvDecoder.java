@@ -0,0 +1,530 @@
+package com.hackathonbrasil.transpetro.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Leitor de CSV (RFC 4180, mesmo dialeto do CSVFormat.DEFAULT) com pouca alocação por linha:
+ * o registro atual fica num buffer de caracteres reaproveitado e os campos são só intervalos desse buffer.
+ * Números e datas são lidos direto dos caracteres; String só é criada quando o chamador pede o texto.
+ *
+ * As colunas são declaradas num {@link Schema} e resolvidas para a posição física uma vez só, no cabeçalho.
+ * Uso típico: {@code while (decoder.next()) { double q = decoder.getDouble(COL_QUANTIDADE); ... }}.
+ */
+public final class CsvDecoder implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // 10^0 .. 10^22 são exatos em double: m / 10^k é arredondado corretamente se m < 2^53
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final int MAX_FAST_DIGITS = 15;
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    /**
+     * Colunas esperadas do arquivo, na ordem do layout padrão.
+     * Os índices ({@link #index(String)}) são resolvidos uma vez e usados como constantes na leitura.
+     */
+    public static final class Schema {
+
+        private final String[] columns;
+
+        private Schema(String[] columns) {
+            this.columns = columns;
+        }
+
+        public static Schema of(String... columns) {
+            return new Schema(columns.clone());
+        }
+
+        public int index(String column) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equals(column)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Coluna não declarada no schema: " + column);
+        }
+
+        public int size() {
+            return columns.length;
+        }
+
+        /**
+         * Posição física de cada coluna: pelo nome, se o cabeçalho tiver todas; senão pela ordem do schema
+         * (mesmo comportamento de setHeader(...) + setSkipHeaderRecord(true) do commons-csv).
+         */
+        int[] bind(String[] header) {
+            int[] binding = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                binding[i] = -1;
+                for (int j = 0; j < header.length; j++) {
+                    if (columns[i].equals(header[j].trim())) {
+                        binding[i] = j;
+                        break;
+                    }
+                }
+                if (binding[i] < 0) {
+                    return positional();
+                }
+            }
+            return binding;
+        }
+
+        int[] positional() {
+            int[] binding = new int[columns.length];
+            for (int i = 0; i < binding.length; i++) {
+                binding[i] = i;
+            }
+            return binding;
+        }
+    }
+
+    private final Reader in;
+    private final Schema schema;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readPos;
+    private int readLimit;
+
+    private int[] binding;
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldStart = new int[32];
+    private int[] fieldEnd = new int[32];
+    private int fieldCount;
+    private long recordNumber;
+
+    /**
+     * Decoder posicionado no início do arquivo; chame {@link #readHeader()} antes da primeira linha de dados.
+     */
+    public CsvDecoder(Reader in, Schema schema) {
+        this.in = in;
+        this.schema = schema;
+    }
+
+    /**
+     * Decoder para um trecho sem cabeçalho (ex: pedaço de um arquivo maior), com o mapeamento já resolvido.
+     */
+    public CsvDecoder(Reader in, Schema schema, int[] binding) {
+        this(in, schema);
+        this.binding = binding.clone();
+    }
+
+    /**
+     * Lê o cabeçalho e resolve as colunas do schema. Arquivo vazio: mapeamento posicional.
+     */
+    public void readHeader() throws IOException {
+        if (!nextRecord()) {
+            binding = schema.positional();
+            return;
+        }
+        String[] header = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            header[i] = new String(record, fieldStart[i], fieldEnd[i] - fieldStart[i]);
+        }
+        binding = schema.bind(header);
+        recordNumber = 0;
+    }
+
+    /**
+     * Mapeamento coluna do schema -> posição física (para repassar a decoders de outros trechos do arquivo).
+     */
+    public int[] getBinding() {
+        return binding.clone();
+    }
+
+    /**
+     * Avança para o próximo registro de dados. Linhas vazias são ignoradas (como no commons-csv).
+     */
+    public boolean next() throws IOException {
+        if (binding == null) {
+            throw new IllegalStateException("Cabeçalho não lido: chame readHeader() antes de next()");
+        }
+        boolean read = nextRecord();
+        if (read) {
+            recordNumber++;
+        }
+        return read;
+    }
+
+    /** Número do registro de dados atual (1 = primeira linha após o cabeçalho). */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Texto bruto do campo (sem trim), como CSVRecord.get; "" se a linha não tiver a coluna.
+     */
+    public String get(int column) {
+        int field = field(column);
+        return field < 0 ? "" : new String(record, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    public String getTrimmed(int column) {
+        int field = field(column);
+        if (field < 0) {
+            return "";
+        }
+        int from = trimStart(field);
+        return new String(record, from, trimEnd(field, from) - from);
+    }
+
+    /** Campo vazio ou só com espaços. */
+    public boolean isBlank(int column) {
+        int field = field(column);
+        return field < 0 || trimStart(field) == fieldEnd[field];
+    }
+
+    /**
+     * Número decimal (com trim). Lança NumberFormatException para campo vazio ou inválido, como Double.parseDouble.
+     */
+    public double getDouble(int column) {
+        int field = field(column);
+        if (field < 0) {
+            throw new NumberFormatException("empty String");
+        }
+        int from = trimStart(field);
+        return parseDouble(record, from, trimEnd(field, from));
+    }
+
+    /**
+     * Inteiro (com trim). Lança NumberFormatException para campo vazio ou inválido, como Integer.parseInt.
+     */
+    public int getInt(int column) {
+        int field = field(column);
+        if (field < 0) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        int from = trimStart(field);
+        return parseInt(record, from, trimEnd(field, from));
+    }
+
+    /**
+     * Número no início de um campo descritivo, seguido de espaço ou hífen (ex: "4 - Moderate breeze" → 4);
+     * null se o campo não começar assim.
+     */
+    public Integer getLeadingInt(int column) {
+        int field = field(column);
+        if (field < 0) {
+            return null;
+        }
+        int from = trimStart(field);
+        int to = trimEnd(field, from);
+        int i = from;
+        int value = 0;
+        while (i < to && i - from < 9 && record[i] >= '0' && record[i] <= '9') {
+            value = value * 10 + (record[i] - '0');
+            i++;
+        }
+        if (i == from || i == to || (record[i] != ' ' && record[i] != '\t' && record[i] != '-')) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Data/hora no formato yyyy-MM-dd HH:mm:ss. Se a hora não servir, usa só a data (yyyy-MM-dd, início do dia);
+     * null se nem a data for válida.
+     */
+    public LocalDateTime getDateTime(int column) {
+        int field = field(column);
+        if (field < 0) {
+            return null;
+        }
+        int from = trimStart(field);
+        return parseDateTime(record, from, trimEnd(field, from));
+    }
+
+    /**
+     * Data no formato americano M/D/YYYY (planilhas de docagem e revestimento); null se inválida.
+     */
+    public LocalDate getUsDate(int column) {
+        int field = field(column);
+        if (field < 0) {
+            return null;
+        }
+        int from = trimStart(field);
+        return parseUsDate(record, from, trimEnd(field, from));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // --- CONVERSÕES (também usadas nos testes e benchmarks) ---
+
+    static double parseDouble(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean dot = false;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (c != '0' || digits > 0) {
+                    if (digits == MAX_FAST_DIGITS) {
+                        return slowDouble(chars, from, to);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                }
+                if (dot) {
+                    scale++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                // Expoente, NaN, Infinity, sufixos: casos raros, tratados pelo parser completo
+                return slowDouble(chars, from, to);
+            }
+        }
+        if (!anyDigit || scale >= POWERS_OF_TEN.length) {
+            return slowDouble(chars, from, to);
+        }
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    static int parseInt(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        if (i == to || to - i > 9) {
+            return Integer.parseInt(new String(chars, from, to - from)); // Vazio, sinal solto ou possível overflow
+        }
+        int value = 0;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(new String(chars, from, to - from));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    static LocalDateTime parseDateTime(char[] chars, int from, int to) {
+        if (to - from < 10) {
+            return null;
+        }
+        int year = digits(chars, from, 4);
+        int month = digits(chars, from + 5, 2);
+        int day = digits(chars, from + 8, 2);
+        if (year < 0 || month < 0 || day < 0 || chars[from + 4] != '-' || chars[from + 7] != '-') {
+            return null;
+        }
+        try {
+            if (to - from == 19 && chars[from + 10] == ' ' && chars[from + 13] == ':' && chars[from + 16] == ':') {
+                int hour = digits(chars, from + 11, 2);
+                int minute = digits(chars, from + 14, 2);
+                int second = digits(chars, from + 17, 2);
+                if (hour >= 0 && minute >= 0 && second >= 0) {
+                    try {
+                        return LocalDateTime.of(year, month, day, hour, minute, second);
+                    } catch (DateTimeException invalidTime) {
+                        // Hora inválida: fica só com a data
+                    }
+                }
+            }
+            return LocalDate.of(year, month, day).atStartOfDay();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    static LocalDate parseUsDate(char[] chars, int from, int to) {
+        int firstSlash = indexOf(chars, from, to, '/');
+        int secondSlash = firstSlash < 0 ? -1 : indexOf(chars, firstSlash + 1, to, '/');
+        if (secondSlash < 0 || indexOf(chars, secondSlash + 1, to, '/') >= 0) {
+            return null;
+        }
+        try {
+            int month = parseInt(chars, trimFrom(chars, from, firstSlash), trimTo(chars, from, firstSlash));
+            int day = parseInt(chars, trimFrom(chars, firstSlash + 1, secondSlash), trimTo(chars, firstSlash + 1, secondSlash));
+            int year = parseInt(chars, trimFrom(chars, secondSlash + 1, to), trimTo(chars, secondSlash + 1, to));
+            return LocalDate.of(year, month, day);
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static double slowDouble(char[] chars, int from, int to) {
+        return Double.parseDouble(new String(chars, from, to - from));
+    }
+
+    // Inteiro de largura fixa só com dígitos; -1 se houver outro caractere
+    private static int digits(char[] chars, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(char[] chars, int from, int to, char target) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimFrom(char[] chars, int from, int to) {
+        while (from < to && chars[from] <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimTo(char[] chars, int from, int to) {
+        while (to > from && chars[to - 1] <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    // --- LEITURA DOS REGISTROS ---
+
+    private int field(int column) {
+        int field = binding[column];
+        return field < fieldCount ? field : -1;
+    }
+
+    private int trimStart(int field) {
+        return trimFrom(record, fieldStart[field], fieldEnd[field]);
+    }
+
+    private int trimEnd(int field, int from) {
+        return trimTo(record, from, fieldEnd[field]);
+    }
+
+    private boolean nextRecord() throws IOException {
+        while (true) {
+            recordLength = 0;
+            fieldCount = 0;
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                continue; // Linha vazia
+            }
+            parseRecord(c);
+            return true;
+        }
+    }
+
+    private void parseRecord(int first) throws IOException {
+        int c = first;
+        startField();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    endField();
+                    return; // Aspas não fechadas no fim do arquivo: aceita o que veio
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                endField();
+                return;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                endField();
+                return;
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '"' && recordLength == fieldStart[fieldCount]) {
+                quoted = true;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = recordLength;
+    }
+
+    private void endField() {
+        fieldEnd[fieldCount++] = recordLength;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (readPos == readLimit && !fill()) {
+            return -1;
+        }
+        return readBuffer[readPos++];
+    }
+
+    private int peek() throws IOException {
+        if (readPos == readLimit && !fill()) {
+            return -1;
+        }
+        return readBuffer[readPos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(readBuffer, 0, readBuffer.length);
+        while (n == 0) {
+            n = in.read(readBuffer, 0, readBuffer.length);
+        }
+        readPos = 0;
+        readLimit = Math.max(n, 0);
+        return n > 0;
+    }
+}
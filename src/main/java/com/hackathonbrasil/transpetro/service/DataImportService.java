@@ -5,28 +5,66 @@ import com.hackathonbrasil.transpetro.repository.*;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.text.Normalizer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @Service
 public class DataImportService {
 
+    // Layout das exportações de eventos e consumo (colunas resolvidas uma vez; leitura sem lookup por nome)
+    static final CsvDecoder.Schema EVENTOS_SCHEMA = CsvDecoder.Schema.of(
+        "sessionId", "shipName", "class", "eventName", "startGMTDate", "endGMTDate",
+        "duration", "distance", "aftDraft", "fwdDraft", "midDraft", "TRIM",
+        "displacement", "beaufortScale", "seaCondition", "beaufortScaleDesc",
+        "seaConditionDesc", "speed", "speedGps", "Porto", "decLatitude", "decLongitude");
+    private static final int EV_SESSION_ID = EVENTOS_SCHEMA.index("sessionId");
+    private static final int EV_SHIP_NAME = EVENTOS_SCHEMA.index("shipName");
+    private static final int EV_CLASS = EVENTOS_SCHEMA.index("class");
+    private static final int EV_EVENT_NAME = EVENTOS_SCHEMA.index("eventName");
+    private static final int EV_START_DATE = EVENTOS_SCHEMA.index("startGMTDate");
+    private static final int EV_END_DATE = EVENTOS_SCHEMA.index("endGMTDate");
+    private static final int EV_DURATION = EVENTOS_SCHEMA.index("duration");
+    private static final int EV_DISTANCE = EVENTOS_SCHEMA.index("distance");
+    private static final int EV_AFT_DRAFT = EVENTOS_SCHEMA.index("aftDraft");
+    private static final int EV_FWD_DRAFT = EVENTOS_SCHEMA.index("fwdDraft");
+    private static final int EV_MID_DRAFT = EVENTOS_SCHEMA.index("midDraft");
+    private static final int EV_TRIM = EVENTOS_SCHEMA.index("TRIM");
+    private static final int EV_DISPLACEMENT = EVENTOS_SCHEMA.index("displacement");
+    private static final int EV_BEAUFORT_SCALE = EVENTOS_SCHEMA.index("beaufortScale");
+    private static final int EV_SEA_CONDITION = EVENTOS_SCHEMA.index("seaCondition");
+    private static final int EV_BEAUFORT_DESC = EVENTOS_SCHEMA.index("beaufortScaleDesc");
+    private static final int EV_SPEED = EVENTOS_SCHEMA.index("speed");
+    private static final int EV_SPEED_GPS = EVENTOS_SCHEMA.index("speedGps");
+    private static final int EV_PORTO = EVENTOS_SCHEMA.index("Porto");
+    private static final int EV_LATITUDE = EVENTOS_SCHEMA.index("decLatitude");
+    private static final int EV_LONGITUDE = EVENTOS_SCHEMA.index("decLongitude");
+
+    static final CsvDecoder.Schema CONSUMOS_SCHEMA = CsvDecoder.Schema.of("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION");
+    private static final int CO_SESSION_ID = CONSUMOS_SCHEMA.index("SESSION_ID");
+    private static final int CO_CONSUMED_QUANTITY = CONSUMOS_SCHEMA.index("CONSUMED_QUANTITY");
+    private static final int CO_DESCRIPTION = CONSUMOS_SCHEMA.index("DESCRIPTION");
+
     @Autowired
     private NavioRepository navioRepository;
 
@@ -36,58 +74,85 @@ public class DataImportService {
     @Autowired
     private EventoNavegacaoRepository eventoRepository;
 
-    @Autowired
-    private ConsumoRepository consumoRepository;
-
     @Autowired
     private RevestimentoRepository revestimentoRepository;
 
     @Autowired
     private ModelService modelService;
 
+    @Autowired
+    private ShipIdentity shipIdentity;
+
+    @Autowired
+    private ImportBatchWriter importBatchWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("importExecutor")
+    private Executor importExecutor;
+
+    @Value("${import.parallel.threads:0}")
+    private int importThreads;
+
+    @Value("${import.parallel.chunk-size-mb:8}")
+    private int importChunkSizeMb;
+
+    @Value("${import.local-dir:./data/import}")
+    private String importLocalDir;
+
+    @Autowired
+    @Qualifier("importWriterExecutor")
+    private Executor importWriterExecutor;
+
+    @Value("${import.writer.threads:2}")
+    private int importWriterThreads;
+
+    @Value("${import.chunk-size:2000}")
+    private int importChunkSize;
+
+    @Value("${import.queue-capacity:4}")
+    private int importQueueCapacity;
+
     /**
-     * Normaliza o nome do navio para busca (mesma lógica do ModelService)
+     * Busca ou cria um navio pelo nome. Sem transação em volta: cada save do repositório commita sozinho,
+     * então o navio já está visível para os writers da importação (outras conexões) quando o id volta.
      */
-    private String normalizeShipName(String shipName) {
-        if (shipName == null || shipName.isEmpty()) {
-            return "";
-        }
-        String normalized = Normalizer.normalize(shipName.trim().toUpperCase(), Normalizer.Form.NFD);
-        normalized = normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        normalized = normalized.replaceAll("\\s+", " ").trim();
-        return normalized;
+    private Navio findOrCreateNavio(String nomeNavio) {
+        return findOrCreateNavio(nomeNavio, null);
     }
 
     /**
-     * Busca ou cria um navio pelo nome (sem transação para evitar lock)
+     * Como {@link #findOrCreateNavio(String)}, com a classe informada pela exportação de eventos (coluna class).
+     * O dummy Aframax do treino vem de Navio.classe: navio criado pelos eventos (ou criado antes como UNKNOWN)
+     * recebe a classe do evento, para o dummy continuar igual ao da exportação. Classe já cadastrada não muda.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
-    private Navio findOrCreateNavio(String nomeNavio) {
-        String normalizedName = normalizeShipName(nomeNavio);
+    private Navio findOrCreateNavio(String nomeNavio, String classe) {
+        String normalizedName = shipIdentity.canonical(nomeNavio);
         Optional<Navio> navioOpt = navioRepository.findByNome(normalizedName);
+        boolean classeConhecida = classe != null && !classe.isBlank();
         
         if (navioOpt.isPresent()) {
-            return navioOpt.get();
-        }
-        
-        // Se não encontrado, cria um navio básico em transação separada
-        return createNavioIfNotExists(normalizedName);
-    }
-
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private Navio createNavioIfNotExists(String normalizedName) {
-        // Verifica novamente para evitar race condition
-        Optional<Navio> navioOpt = navioRepository.findByNome(normalizedName);
-        if (navioOpt.isPresent()) {
-            return navioOpt.get();
+            Navio existente = navioOpt.get();
+            if (classeConhecida && (existente.getClasse() == null || "UNKNOWN".equals(existente.getClasse()))) {
+                existente.setClasse(classe);
+                return navioRepository.save(existente);
+            }
+            return existente;
         }
         
         Navio navio = new Navio();
         navio.setNome(normalizedName);
-        navio.setClasse("UNKNOWN");
+        navio.setClasse(classeConhecida ? classe : "UNKNOWN");
         navio.setTipo("UNKNOWN");
         navio.setPorteBruto(0.0);
-        return navioRepository.save(navio);
+        try {
+            return navioRepository.save(navio);
+        } catch (DataIntegrityViolationException e) {
+            // Outra importação criou o mesmo navio entre a busca e o insert (nome é único)
+            return navioRepository.findByNome(normalizedName).orElseThrow(() -> e);
+        }
     }
 
     /**
@@ -124,7 +189,7 @@ public class DataImportService {
     /**
      * Importa navios do CSV a partir de um InputStream (processamento em lotes)
      */
-    private int importNaviosCSV(java.io.InputStream inputStream) throws IOException {
+    int importNaviosCSV(java.io.InputStream inputStream) throws IOException {
         int imported = 0;
         List<Navio> naviosToSave = new ArrayList<>();
         final int BATCH_SIZE = 50;
@@ -138,7 +203,7 @@ public class DataImportService {
                 .parse(in);
 
             for (CSVRecord record : records) {
-                String nomeNavio = normalizeShipName(record.get("Nome do navio"));
+                String nomeNavio = shipIdentity.canonical(record.get("Nome do navio"));
                 if (nomeNavio.isEmpty()) continue;
 
                 Navio navio = processNavioRecord(record, nomeNavio);
@@ -158,11 +223,12 @@ public class DataImportService {
                 imported += saveNaviosBatch(naviosToSave);
             }
         }
-        
+
+        eventPublisher.publishEvent(ShipDataChangedEvent.todosOsNavios(ShipDataChangedEvent.Tipo.NAVIO));
+        eventPublisher.publishEvent(new DataImportedEvent("navios", imported));
         return imported;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     private int saveNaviosBatch(List<Navio> navios) {
         int saved = 0;
         for (Navio navio : navios) {
@@ -237,7 +303,7 @@ public class DataImportService {
     /**
      * Importa docagens do CSV e associa aos navios (processamento em lotes)
      */
-    private int importDocagemCSV(java.io.InputStream inputStream) throws IOException {
+    int importDocagemCSV(java.io.InputStream inputStream) throws IOException {
         int imported = 0;
         List<Docagem> docagensToSave = new ArrayList<>();
         final int BATCH_SIZE = 100;
@@ -252,7 +318,7 @@ public class DataImportService {
                 .parse(in);
 
             for (CSVRecord record : records) {
-                String nomeNavio = normalizeShipName(record.get("Navio"));
+                String nomeNavio = shipIdentity.canonical(record.get("Navio"));
                 String dateString = record.get("Docagem").trim();
                 String tipo = record.get("Tipo").trim();
 
@@ -279,11 +345,12 @@ public class DataImportService {
                 imported += saveDocagensBatch(docagensToSave);
             }
         }
-        
+
+        eventPublisher.publishEvent(ShipDataChangedEvent.todosOsNavios(ShipDataChangedEvent.Tipo.DOCAGEM));
+        eventPublisher.publishEvent(new DataImportedEvent("docagens", imported));
         return imported;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     private int saveDocagensBatch(List<Docagem> docagens) {
         try {
             // Usa saveAll() para inserção em batch
@@ -308,254 +375,368 @@ public class DataImportService {
      * Importa eventos de navegação do CSV (versão com arquivo do resources)
      */
     public int importEventosCSV(String filePath) throws IOException {
-        return importEventosCSV(new ClassPathResource(filePath).getInputStream());
+        return importEventosCSV(new ClassPathResource(filePath).getInputStream(), ImportJob.avulso(ImportJob.Tipo.EVENTOS));
     }
 
     /**
      * Importa eventos de navegação do CSV enviado via upload
      */
     public int importEventosCSV(MultipartFile file) throws IOException {
-        return importEventosCSV(file.getInputStream());
+        return importEventosCSV(file.getInputStream(), ImportJob.avulso(ImportJob.Tipo.EVENTOS));
     }
 
     /**
-     * Importa eventos de navegação do CSV e associa aos navios (processamento em lotes)
+     * Importa eventos de navegação de um CSV em disco local, com parsing paralelo (exportações grandes)
      */
-    private int importEventosCSV(java.io.InputStream inputStream) throws IOException {
-        int imported = 0;
-        List<EventoNavegacao> eventosToSave = new ArrayList<>();
-        final int BATCH_SIZE = 2000; // Aumentado para processar mais rápido
-        Map<String, Navio> navioCache = new HashMap<>();
-        Map<String, Boolean> sessionIdCache = new HashMap<>(); // Cache de sessionIds já verificados
-        
-        try (Reader in = new InputStreamReader(inputStream)) {
-            Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                .builder()
-                .setSkipHeaderRecord(true)
-                .setHeader("sessionId", "shipName", "class", "eventName", "startGMTDate", "endGMTDate", 
-                          "duration", "distance", "aftDraft", "fwdDraft", "midDraft", "TRIM", 
-                          "displacement", "beaufortScale", "seaCondition", "beaufortScaleDesc", 
-                          "seaConditionDesc", "speed", "speedGps", "Porto", "decLatitude", "decLongitude")
-                .build()
-                .parse(in);
+    public int importEventosCSV(Path file) throws IOException {
+        return importEventosCSV(file, ImportJob.avulso(ImportJob.Tipo.EVENTOS));
+    }
 
-            for (CSVRecord record : records) {
-                String sessionId = record.get("sessionId");
-                String shipName = normalizeShipName(record.get("shipName"));
-                
-                if (sessionId == null || sessionId.isEmpty() || shipName.isEmpty()) continue;
+    int importEventosCSV(Path file, ImportJob job) throws IOException {
+        job.startStage("eventos", Files.size(file));
+        ImportacaoEventos importacao = new ImportacaoEventos(job);
+        try {
+            parallelCsvReader().read(file, EVENTOS_SCHEMA, job.counting(DataImportService::parseEvento), importacao,
+                job::bytesDelivered);
+        } catch (IOException | RuntimeException e) {
+            importacao.abortar(e);
+            throw e;
+        }
+        return importacao.concluir();
+    }
 
-                // Verifica cache primeiro (muito mais rápido)
-                if (sessionIdCache.containsKey(sessionId)) {
-                    continue; // Já processado
+    /**
+     * Importa eventos de navegação do CSV e associa aos navios (processamento em lotes)
+     */
+    int importEventosCSV(java.io.InputStream inputStream, ImportJob job) throws IOException {
+        ImportacaoEventos importacao = new ImportacaoEventos(job);
+        ParallelCsvReader.RowMapper<EventoLinha> mapper = job.counting(DataImportService::parseEvento);
+        try (CsvDecoder csv = new CsvDecoder(new InputStreamReader(inputStream), EVENTOS_SCHEMA)) {
+            csv.readHeader();
+            while (csv.next()) {
+                EventoLinha linha = mapper.map(csv);
+                if (linha != null) {
+                    importacao.accept(linha);
                 }
-                sessionIdCache.put(sessionId, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            importacao.abortar(e);
+            throw e;
+        }
+        return importacao.concluir();
+    }
 
-                Navio navio = navioCache.computeIfAbsent(shipName, this::findOrCreateNavio);
+    /**
+     * Linha de evento convertida, ainda sem navio (a busca no banco fica na etapa de gravação).
+     * evento == null: linha com número inválido.
+     */
+    private record EventoLinha(String sessionId, String shipName, String classe, EventoNavegacao evento) {}
 
-                EventoNavegacao evento = processEventoRecord(record, navio, sessionId);
-                if (evento != null) {
-                    eventosToSave.add(evento);
-                    
-                    if (eventosToSave.size() >= BATCH_SIZE) {
-                        imported += saveEventosBatch(eventosToSave);
-                        eventosToSave.clear();
-                        System.out.println("   Processados " + imported + " eventos...");
-                    }
-                }
+    /**
+     * Etapa final do parser dos eventos, sempre em uma thread: deduplica por sessionId, associa o navio
+     * e entrega ao pipeline de gravação (writers em paralelo, um pedaço por transação).
+     */
+    private class ImportacaoEventos implements Consumer<EventoLinha> {
+
+        private final Map<String, Navio> navioCache = new HashMap<>();
+        private final Set<String> sessionIds = new HashSet<>(); // sessionIds já verificados
+        private final ImportJob job;
+        private final ImportPipeline<EventoNavegacao> pipeline;
+
+        ImportacaoEventos(ImportJob job) {
+            this.job = job;
+            this.pipeline = importPipeline(importBatchWriter::insertEventos,
+                salvos -> publicarSessoes(salvos.stream().map(EventoNavegacao::getSessionId).toList()));
+            job.track(pipeline);
+        }
+
+        @Override
+        public void accept(EventoLinha linha) {
+            // Verifica cache primeiro (muito mais rápido)
+            if (sessionIds.contains(linha.sessionId())) {
+                job.discarded();
+                return;
             }
-            
-            if (!eventosToSave.isEmpty()) {
-                imported += saveEventosBatch(eventosToSave);
+            String shipName = shipIdentity.canonical(linha.shipName());
+            if (shipName.isEmpty()) {
+                job.discarded();
+                return;
+            }
+            sessionIds.add(linha.sessionId());
+
+            EventoNavegacao evento = linha.evento();
+            if (evento == null) {
+                job.discarded();
+                return;
             }
+            evento.setNavio(navioCache.computeIfAbsent(shipName, nome -> findOrCreateNavio(nome, linha.classe())));
+            pipeline.accept(evento);
         }
-        
-        return imported;
+
+        int concluir() {
+            int imported = (int) pipeline.finish();
+            logRejeitados("eventos", pipeline);
+            eventPublisher.publishEvent(new DataImportedEvent("eventos", imported));
+            return imported;
+        }
+
+        void abortar(Exception causa) {
+            pipeline.abort(new IllegalStateException("Importação de eventos interrompida", causa));
+        }
+    }
+
+    private static EventoLinha parseEvento(CsvDecoder csv) {
+        String sessionId = csv.get(EV_SESSION_ID);
+        if (sessionId.isEmpty()) {
+            return null;
+        }
+        return new EventoLinha(sessionId, csv.get(EV_SHIP_NAME), csv.getTrimmed(EV_CLASS), processEventoRecord(csv, sessionId));
     }
 
-    private EventoNavegacao processEventoRecord(CSVRecord record, Navio navio, String sessionId) {
+    static EventoNavegacao processEventoRecord(CsvDecoder csv, String sessionId) {
         EventoNavegacao evento = new EventoNavegacao();
-        evento.setNavio(navio);
         evento.setSessionId(sessionId);
-        evento.setEventName(record.get("eventName"));
+        evento.setEventName(csv.get(EV_EVENT_NAME));
+        evento.setStartGMTDate(csv.getDateTime(EV_START_DATE));
+        evento.setEndGMTDate(csv.getDateTime(EV_END_DATE));
 
         try {
-            String startDateStr = record.get("startGMTDate");
-            if (startDateStr != null && !startDateStr.isEmpty()) {
-                evento.setStartGMTDate(parseDateTime(startDateStr));
-            }
-            String endDateStr = record.get("endGMTDate");
-            if (endDateStr != null && !endDateStr.isEmpty()) {
-                evento.setEndGMTDate(parseDateTime(endDateStr));
-            }
-
-            if (record.get("duration") != null && !record.get("duration").trim().isEmpty()) {
-                evento.setDuration(Double.parseDouble(record.get("duration").trim()));
-            }
-            if (record.get("distance") != null && !record.get("distance").trim().isEmpty()) {
-                evento.setDistance(Double.parseDouble(record.get("distance").trim()));
-            }
-            if (record.get("aftDraft") != null && !record.get("aftDraft").trim().isEmpty()) {
-                evento.setAftDraft(Double.parseDouble(record.get("aftDraft").trim()));
-            }
-            if (record.get("fwdDraft") != null && !record.get("fwdDraft").trim().isEmpty()) {
-                evento.setFwdDraft(Double.parseDouble(record.get("fwdDraft").trim()));
-            }
-            if (record.get("midDraft") != null && !record.get("midDraft").trim().isEmpty()) {
-                evento.setMidDraft(Double.parseDouble(record.get("midDraft").trim()));
-            }
-            if (record.get("TRIM") != null && !record.get("TRIM").trim().isEmpty()) {
-                evento.setTrim(Double.parseDouble(record.get("TRIM").trim()));
-            }
-            if (record.get("displacement") != null && !record.get("displacement").trim().isEmpty()) {
-                evento.setDisplacement(Double.parseDouble(record.get("displacement").trim()));
-            }
-            if (record.get("beaufortScale") != null && !record.get("beaufortScale").trim().isEmpty()) {
-                evento.setBeaufortScale(Integer.parseInt(record.get("beaufortScale").trim()));
-            }
-            if (record.get("speed") != null && !record.get("speed").trim().isEmpty()) {
-                evento.setSpeed(Double.parseDouble(record.get("speed").trim()));
-            }
-            if (record.get("speedGps") != null && !record.get("speedGps").trim().isEmpty()) {
-                evento.setSpeedGps(Double.parseDouble(record.get("speedGps").trim()));
-            }
-            if (record.get("decLatitude") != null && !record.get("decLatitude").trim().isEmpty()) {
-                evento.setDecLatitude(Double.parseDouble(record.get("decLatitude").trim()));
-            }
-            if (record.get("decLongitude") != null && !record.get("decLongitude").trim().isEmpty()) {
-                evento.setDecLongitude(Double.parseDouble(record.get("decLongitude").trim()));
-            }
+            evento.setDuration(optionalDouble(csv, EV_DURATION));
+            evento.setDistance(optionalDouble(csv, EV_DISTANCE));
+            evento.setAftDraft(optionalDouble(csv, EV_AFT_DRAFT));
+            evento.setFwdDraft(optionalDouble(csv, EV_FWD_DRAFT));
+            evento.setMidDraft(optionalDouble(csv, EV_MID_DRAFT));
+            evento.setTrim(optionalDouble(csv, EV_TRIM));
+            evento.setDisplacement(optionalDouble(csv, EV_DISPLACEMENT));
+            evento.setBeaufortScale(beaufortScale(csv));
+            evento.setSpeed(optionalDouble(csv, EV_SPEED));
+            evento.setSpeedGps(optionalDouble(csv, EV_SPEED_GPS));
+            evento.setDecLatitude(optionalDouble(csv, EV_LATITUDE));
+            evento.setDecLongitude(optionalDouble(csv, EV_LONGITUDE));
         } catch (NumberFormatException ignored) {
             return null;
         }
 
-        evento.setSeaCondition(record.get("seaCondition"));
-        evento.setPorto(record.get("Porto"));
+        evento.setSeaCondition(csv.get(EV_SEA_CONDITION));
+        evento.setPorto(csv.get(EV_PORTO));
         return evento;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private int saveEventosBatch(List<EventoNavegacao> eventos) {
-        try {
-            // Usa saveAll() para inserção em batch (muito mais rápido)
-            eventoRepository.saveAll(eventos);
-            return eventos.size();
-        } catch (Exception e) {
-            // Se houver erro de constraint (duplicata), tenta salvar individualmente
-            int saved = 0;
-            for (EventoNavegacao evento : eventos) {
-                try {
-                    eventoRepository.save(evento);
-                    saved++;
-                } catch (Exception ex) {
-                    // Ignora duplicatas e outros erros
-                }
+    /**
+     * Escala Beaufort da coluna numérica; se ela vier vazia ou em texto, o número no início de
+     * beaufortScaleDesc (ex: "4 - Moderate breeze"). null se nenhuma das duas servir — o evento não é descartado.
+     */
+    private static Integer beaufortScale(CsvDecoder csv) {
+        if (!csv.isBlank(EV_BEAUFORT_SCALE)) {
+            try {
+                return csv.getInt(EV_BEAUFORT_SCALE);
+            } catch (NumberFormatException ignored) {
+                // Exportações antigas trazem a escala por extenso; cai na descrição abaixo
             }
-            return saved;
         }
+        return csv.getLeadingInt(EV_BEAUFORT_DESC);
+    }
+
+    /**
+     * Campo numérico opcional: null se vazio, NumberFormatException se inválido (descarta a linha).
+     */
+    private static Double optionalDouble(CsvDecoder csv, int column) {
+        return csv.isBlank(column) ? null : csv.getDouble(column);
     }
 
     /**
      * Importa consumos do CSV (versão com arquivo do resources)
      */
     public int importConsumosCSV(String filePath) throws IOException {
-        return importConsumosCSV(new ClassPathResource(filePath).getInputStream());
+        return importConsumosCSV(new ClassPathResource(filePath).getInputStream(), ImportJob.avulso(ImportJob.Tipo.CONSUMOS));
     }
 
     /**
      * Importa consumos do CSV enviado via upload
      */
     public int importConsumosCSV(MultipartFile file) throws IOException {
-        return importConsumosCSV(file.getInputStream());
+        return importConsumosCSV(file.getInputStream(), ImportJob.avulso(ImportJob.Tipo.CONSUMOS));
     }
 
     /**
-     * Importa consumos do CSV e associa aos navios (processamento em lotes)
+     * Importa consumos de um CSV em disco local, com parsing paralelo (exportações grandes)
      */
-    private int importConsumosCSV(java.io.InputStream inputStream) throws IOException {
-        int imported = 0;
-        List<Consumo> consumosToSave = new ArrayList<>();
-        final int BATCH_SIZE = 2000; // Aumentado para processar mais rápido
-        Map<String, EventoNavegacao> eventoCache = new HashMap<>(); // Cache de eventos
-        
-        try (Reader in = new InputStreamReader(inputStream)) {
-            Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                .builder()
-                .setHeader("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION")
-                .setSkipHeaderRecord(true)
-                .build()
-                .parse(in);
+    public int importConsumosCSV(Path file) throws IOException {
+        return importConsumosCSV(file, ImportJob.avulso(ImportJob.Tipo.CONSUMOS));
+    }
 
-            // Pré-carrega eventos em cache (uma única query)
-            System.out.println("   Carregando eventos em cache...");
-            List<EventoNavegacao> todosEventos = eventoRepository.findAll();
-            for (EventoNavegacao evento : todosEventos) {
-                eventoCache.put(evento.getSessionId(), evento);
+    int importConsumosCSV(Path file, ImportJob job) throws IOException {
+        job.startStage("consumos", Files.size(file));
+        ImportacaoConsumos importacao = new ImportacaoConsumos(job);
+        try {
+            parallelCsvReader().read(file, CONSUMOS_SCHEMA, job.counting(DataImportService::parseConsumo), importacao,
+                job::bytesDelivered);
+        } catch (IOException | RuntimeException e) {
+            importacao.abortar(e);
+            throw e;
+        }
+        return importacao.concluir();
+    }
+
+    /**
+     * Importa consumos do CSV e associa aos navios (processamento em lotes)
+     */
+    int importConsumosCSV(java.io.InputStream inputStream, ImportJob job) throws IOException {
+        ImportacaoConsumos importacao = new ImportacaoConsumos(job);
+        ParallelCsvReader.RowMapper<Consumo> mapper = job.counting(DataImportService::parseConsumo);
+        try (CsvDecoder csv = new CsvDecoder(new InputStreamReader(inputStream), CONSUMOS_SCHEMA)) {
+            csv.readHeader();
+            while (csv.next()) {
+                Consumo consumo = mapper.map(csv);
+                if (consumo != null) {
+                    importacao.accept(consumo);
+                }
             }
-            System.out.println("   " + eventoCache.size() + " eventos carregados em cache");
+        } catch (IOException | RuntimeException e) {
+            importacao.abortar(e);
+            throw e;
+        }
+        return importacao.concluir();
+    }
 
-            for (CSVRecord record : records) {
-                String sessionId = record.get("SESSION_ID");
-                String description = record.get("DESCRIPTION");
+    /**
+     * Consumo válido da linha (ainda sem evento/navio) ou null se a linha deve ser descartada.
+     */
+    private static Consumo parseConsumo(CsvDecoder csv) {
+        // Quantidade primeiro: linhas descartadas (mais da metade no arquivo padrão) não criam Strings nem exceções
+        if (csv.isBlank(CO_CONSUMED_QUANTITY)) {
+            return null;
+        }
+        double consumedQuantity;
+        try {
+            consumedQuantity = csv.getDouble(CO_CONSUMED_QUANTITY);
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
+        if (consumedQuantity <= 0) {
+            return null;
+        }
+        String sessionId = csv.get(CO_SESSION_ID);
+        if (sessionId.isEmpty()) {
+            return null;
+        }
 
-                if (sessionId == null || sessionId.isEmpty()) continue;
+        Consumo consumo = new Consumo();
+        consumo.setSessionId(sessionId);
+        consumo.setConsumedQuantity(consumedQuantity);
+        consumo.setDescription(csv.get(CO_DESCRIPTION));
+        return consumo;
+    }
 
-                try {
-                    double consumedQuantity = Double.parseDouble(record.get("CONSUMED_QUANTITY").trim());
-                    if (consumedQuantity <= 0) continue;
+    /**
+     * Etapa final do parser dos consumos, sempre em uma thread: associa ao evento da sessão
+     * e entrega ao pipeline de gravação (writers em paralelo, um pedaço por transação).
+     * Os eventos são buscados por pedaço (uma query por importChunkSize consumos, só os ids):
+     * a memória não cresce com a tabela de eventos.
+     */
+    private class ImportacaoConsumos implements Consumer<Consumo> {
 
-                    // Busca no cache (muito mais rápido que query no banco)
-                    EventoNavegacao evento = eventoCache.get(sessionId);
-                    
-                    if (evento != null) {
-                        Navio navio = evento.getNavio();
-
-                        Consumo consumo = new Consumo();
-                        consumo.setNavio(navio);
-                        consumo.setEvento(evento);
-                        consumo.setSessionId(sessionId);
-                        consumo.setConsumedQuantity(consumedQuantity);
-                        consumo.setDescription(description != null ? description : "");
-
-                        consumosToSave.add(consumo);
-                        
-                        if (consumosToSave.size() >= BATCH_SIZE) {
-                            imported += saveConsumosBatch(consumosToSave);
-                            consumosToSave.clear();
-                            System.out.println("   Processados " + imported + " consumos...");
-                        }
-                    }
-                } catch (NumberFormatException ignored) {
-                    continue;
-                }
+        private final ImportJob job;
+        private final ImportPipeline<Consumo> pipeline;
+        private final List<Consumo> pendentes = new ArrayList<>();
+
+        ImportacaoConsumos(ImportJob job) {
+            this.job = job;
+            pipeline = importPipeline(importBatchWriter::insertConsumos,
+                salvos -> publicarSessoes(salvos.stream().map(Consumo::getSessionId).toList()));
+            job.track(pipeline);
+        }
+
+        @Override
+        public void accept(Consumo consumo) {
+            pendentes.add(consumo);
+            if (pendentes.size() >= importChunkSize) {
+                associarEventos();
             }
-            
-            if (!consumosToSave.isEmpty()) {
-                imported += saveConsumosBatch(consumosToSave);
+        }
+
+        /**
+         * Busca os eventos das sessões pendentes (uma query) e entrega ao pipeline os consumos com evento.
+         */
+        private void associarEventos() {
+            if (pendentes.isEmpty()) {
+                return;
             }
+            Set<String> sessionIds = new HashSet<>();
+            for (Consumo consumo : pendentes) {
+                sessionIds.add(consumo.getSessionId());
+            }
+            Map<String, SessionEventView> eventos = new HashMap<>();
+            for (SessionEventView evento : eventoRepository.findSessionEventsBySessionIdIn(sessionIds)) {
+                eventos.put(evento.getSessionId(), evento);
+            }
+
+            for (Consumo consumo : pendentes) {
+                SessionEventView evento = eventos.get(consumo.getSessionId());
+                if (evento == null) {
+                    job.discarded();
+                    continue;
+                }
+                // Só os ids: o writer grava as chaves estrangeiras, sem carregar navio nem evento
+                Navio navio = new Navio();
+                navio.setId(evento.getNavioId());
+                EventoNavegacao eventoRef = new EventoNavegacao();
+                eventoRef.setId(evento.getEventoId());
+                consumo.setNavio(navio);
+                consumo.setEvento(eventoRef);
+                pipeline.accept(consumo);
+            }
+            pendentes.clear();
+        }
+
+        int concluir() {
+            associarEventos();
+            int imported = (int) pipeline.finish();
+            logRejeitados("consumos", pipeline);
+            eventPublisher.publishEvent(new DataImportedEvent("consumos", imported));
+            return imported;
+        }
+
+        void abortar(Exception causa) {
+            pipeline.abort(new IllegalStateException("Importação de consumos interrompida", causa));
         }
-        
-        return imported;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private int saveConsumosBatch(List<Consumo> consumos) {
-        try {
-            // Usa saveAll() para inserção em batch (muito mais rápido)
-            consumoRepository.saveAll(consumos);
-            return consumos.size();
-        } catch (Exception e) {
-            // Se houver erro, tenta salvar individualmente
-            int saved = 0;
-            for (Consumo consumo : consumos) {
-                try {
-                    consumoRepository.save(consumo);
-                    saved++;
-                } catch (Exception ex) {
-                    // Ignora erros individuais
-                }
-            }
-            return saved;
+    private <T> ImportPipeline<T> importPipeline(ImportPipeline.ChunkWriter<T> writer, Consumer<List<T>> onCommitted) {
+        return new ImportPipeline<>(importWriterExecutor, Math.max(1, importWriterThreads), importChunkSize,
+            importQueueCapacity, writer, onCommitted);
+    }
+
+    private static void logRejeitados(String tipo, ImportPipeline<?> pipeline) {
+        if (pipeline.getRejected() > 0) {
+            System.out.println("   ⚠️ " + pipeline.getRejected() + " " + tipo + " rejeitados pelo banco ("
+                + pipeline.getChunksRetried() + " lotes refeitos linha a linha)");
+        }
+    }
+
+    private ParallelCsvReader parallelCsvReader() {
+        int threads = importThreads > 0 ? importThreads : Runtime.getRuntime().availableProcessors();
+        return new ParallelCsvReader(importExecutor, threads, importChunkSizeMb * 1024 * 1024);
+    }
+
+    /**
+     * Arquivo do diretório de importação local (import.local-dir); recusa nomes fora do diretório
+     */
+    public Path resolveLocalFile(String nome) {
+        Path dir = Path.of(importLocalDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(nome).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Arquivo não encontrado no diretório de importação: " + nome);
+        }
+        return file;
+    }
+
+    /**
+     * Sessões gravadas no lote (chamado pelos writers, depois do commit): o modelo é atualizado de forma incremental com os pares consumo/evento completos.
+     */
+    private void publicarSessoes(List<String> sessionIds) {
+        if (!sessionIds.isEmpty()) {
+            eventPublisher.publishEvent(new TrainingSessionsWrittenEvent(sessionIds));
         }
     }
 
@@ -576,7 +757,7 @@ public class DataImportService {
     /**
      * Importa revestimentos do CSV e associa aos navios (processamento em lotes)
      */
-    private int importRevestimentosCSV(java.io.InputStream inputStream) throws IOException {
+    int importRevestimentosCSV(java.io.InputStream inputStream) throws IOException {
         int imported = 0;
         List<Revestimento> revestimentosToSave = new ArrayList<>();
         final int BATCH_SIZE = 50;
@@ -593,7 +774,7 @@ public class DataImportService {
                 .parse(in);
 
             for (CSVRecord record : records) {
-                String nomeNavio = normalizeShipName(record.get("Nome do navio"));
+                String nomeNavio = shipIdentity.canonical(record.get("Nome do navio"));
                 String dateString = record.get("Data da aplicacao").trim();
                 String periodoStr = record.get("Cr1. Período base de verificação").trim();
                 String paradaStr = record.get("Cr1. Parada máxima acumulada no período").trim();
@@ -631,11 +812,12 @@ public class DataImportService {
                 imported += saveRevestimentosBatch(revestimentosToSave);
             }
         }
-        
+
+        eventPublisher.publishEvent(ShipDataChangedEvent.todosOsNavios(ShipDataChangedEvent.Tipo.REVESTIMENTO));
+        eventPublisher.publishEvent(new DataImportedEvent("revestimentos", imported));
         return imported;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     private int saveRevestimentosBatch(List<Revestimento> revestimentos) {
         try {
             // Usa saveAll() para inserção em batch
@@ -657,46 +839,56 @@ public class DataImportService {
     }
 
     /**
-     * Parse de DateTime no formato yyyy-MM-dd HH:mm:ss
+     * Importa todos os CSVs padrão do projeto. Sem transação em volta: cada lote commita sozinho,
+     * então a importação não segura locks nem bloqueia os outros writers do banco até o fim.
      */
-    private LocalDateTime parseDateTime(String dateTimeString) {
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            return LocalDateTime.parse(dateTimeString, formatter);
-        } catch (Exception e) {
-            try {
-                // Tenta apenas a data
-                return LocalDate.parse(dateTimeString.substring(0, 10)).atStartOfDay();
-            } catch (Exception ignored) {
-                return null;
-            }
-        }
+    public void importAllDefaultCSVs() throws IOException {
+        importAllDefaultCSVs(ImportJob.avulso(ImportJob.Tipo.TODOS));
     }
 
-    /**
-     * Importa todos os CSVs padrão do projeto
-     */
-    @Transactional
-    public void importAllDefaultCSVs() throws IOException {
+    void importAllDefaultCSVs(ImportJob job) throws IOException {
         System.out.println("--- INICIANDO IMPORTAÇÃO DE CSVs ---");
         
-        int navios = importNaviosCSV("dados_navio.csv");
+        int navios = importNaviosCSV(abrir(null, "dados_navio.csv", "navios", job));
+        job.written(navios);
         System.out.println("✅ Navios importados: " + navios);
         
-        int docagens = importDocagemCSV("dados_docagem.csv");
+        int docagens = importDocagemCSV(abrir(null, "dados_docagem.csv", "docagens", job));
+        job.written(docagens);
         System.out.println("✅ Docagens importadas: " + docagens);
         
-        int eventos = importEventosCSV("ResultadoQueryEventos.csv");
+        // Exportações grandes podem ficar no diretório local: leitura paralela em vez do classpath
+        Path eventosLocal = Path.of(importLocalDir, "ResultadoQueryEventos.csv");
+        int eventos = Files.isRegularFile(eventosLocal)
+            ? importEventosCSV(eventosLocal, job)
+            : importEventosCSV(abrir(null, "ResultadoQueryEventos.csv", "eventos", job), job);
         System.out.println("✅ Eventos importados: " + eventos);
         
-        int consumos = importConsumosCSV("ResultadoQueryConsumo.csv");
+        Path consumosLocal = Path.of(importLocalDir, "ResultadoQueryConsumo.csv");
+        int consumos = Files.isRegularFile(consumosLocal)
+            ? importConsumosCSV(consumosLocal, job)
+            : importConsumosCSV(abrir(null, "ResultadoQueryConsumo.csv", "consumos", job), job);
         System.out.println("✅ Consumos importados: " + consumos);
         
-        int revestimentos = importRevestimentosCSV("revestimento.csv");
+        int revestimentos = importRevestimentosCSV(abrir(null, "revestimento.csv", "revestimentos", job));
+        job.written(revestimentos);
         System.out.println("✅ Revestimentos importados: " + revestimentos);
         
         System.out.println("--- IMPORTAÇÃO CONCLUÍDA ---");
     }
+
+    /**
+     * Abre o arquivo da etapa (em disco ou, se null, o padrão do classpath) contando os bytes lidos para o progresso.
+     */
+    java.io.InputStream abrir(Path arquivo, String padrao, String etapa, ImportJob job) throws IOException {
+        if (arquivo != null) {
+            job.startStage(etapa, Files.size(arquivo));
+            return job.counting(Files.newInputStream(arquivo));
+        }
+        ClassPathResource resource = new ClassPathResource(padrao);
+        job.startStage(etapa, resource.contentLength());
+        return job.counting(resource.getInputStream());
+    }
 }
 
 
@@ -0,0 +1,23 @@
+package com.hackathonbrasil.transpetro.service;
+
+/**
+ * Publicado ao final de cada importação de CSV. Usado para agendar o retreino do modelo.
+ */
+public class DataImportedEvent {
+
+    private final String tipo; // navios, docagens, eventos, consumos, revestimentos
+    private final int registros;
+
+    public DataImportedEvent(String tipo, int registros) {
+        this.tipo = tipo;
+        this.registros = registros;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public int getRegistros() {
+        return registros;
+    }
+}
@@ -7,6 +7,7 @@ import com.hackathonbrasil.transpetro.model.Navio;
 import com.hackathonbrasil.transpetro.repository.DocagemRepository;
 import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,9 @@ public class DocagemService {
     @Autowired
     private NavioRepository navioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private DocagemResponseDto toResponseDto(Docagem docagem) {
         DocagemResponseDto dto = new DocagemResponseDto();
         dto.setId(docagem.getId());
@@ -50,6 +54,7 @@ public class DocagemService {
         docagem.setObservacoes(dto.getObservacoes());
 
         docagem = docagemRepository.save(docagem);
+        publicarAlteracao(navio);
         return toResponseDto(docagem);
     }
 
@@ -57,6 +62,7 @@ public class DocagemService {
     public DocagemResponseDto atualizar(Long id, DocagemRequestDto dto) {
         Docagem docagem = docagemRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Docagem não encontrada com ID: " + id));
+        publicarAlteracao(docagem.getNavio()); // Navio anterior (caso a docagem mude de navio)
 
         if (dto.getNavioId() != null) {
             Navio navio = navioRepository.findById(dto.getNavioId())
@@ -68,6 +74,7 @@ public class DocagemService {
         if (dto.getObservacoes() != null) docagem.setObservacoes(dto.getObservacoes());
 
         docagem = docagemRepository.save(docagem);
+        publicarAlteracao(docagem.getNavio());
         return toResponseDto(docagem);
     }
 
@@ -97,10 +104,17 @@ public class DocagemService {
 
     @Transactional
     public void deletar(Long id) {
-        if (!docagemRepository.existsById(id)) {
-            throw new IllegalArgumentException("Docagem não encontrada com ID: " + id);
-        }
-        docagemRepository.deleteById(id);
+        Docagem docagem = docagemRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Docagem não encontrada com ID: " + id));
+        docagemRepository.delete(docagem);
+        publicarAlteracao(docagem.getNavio());
+    }
+
+    /**
+     * Avisa os caches da previsão (perfil do navio) que a docagem deste navio mudou.
+     */
+    private void publicarAlteracao(Navio navio) {
+        eventPublisher.publishEvent(new ShipDataChangedEvent(ShipDataChangedEvent.Tipo.DOCAGEM, navio.getNome()));
     }
 }
 
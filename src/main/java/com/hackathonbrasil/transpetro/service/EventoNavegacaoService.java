@@ -8,6 +8,7 @@ import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
 import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import com.hackathonbrasil.transpetro.model.PageResponseDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,6 +28,9 @@ public class EventoNavegacaoService {
     @Autowired
     private NavioRepository navioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private EventoNavegacaoResponseDto toResponseDto(EventoNavegacao evento) {
         EventoNavegacaoResponseDto dto = new EventoNavegacaoResponseDto();
         dto.setId(evento.getId());
@@ -89,6 +93,7 @@ public class EventoNavegacaoService {
         evento.setDecLongitude(dto.getDecLongitude());
 
         evento = eventoRepository.save(evento);
+        eventPublisher.publishEvent(new TrainingSessionsWrittenEvent(List.of(evento.getSessionId())));
         return toResponseDto(evento);
     }
 
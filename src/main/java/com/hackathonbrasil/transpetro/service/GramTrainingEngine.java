@@ -0,0 +1,226 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Treino da regressão em paralelo: divide as linhas em shards (fork-join), cada shard acumula
+ * suas estatísticas suficientes ({@link RegressionAccumulator}) e os shards são combinados em árvore.
+ * No fim só sobra resolver um sistema p×p, então o custo é O(n·p²/núcleos) sem montar a matriz n×p.
+ */
+public final class GramTrainingEngine {
+
+    /** Abaixo disso não compensa dividir: o custo de agendar a tarefa supera o de acumular. */
+    public static final int DEFAULT_SHARD_SIZE = 4096;
+
+    /**
+     * Fonte de linhas de treino acessível por índice. Cada shard lê só o seu intervalo.
+     */
+    public interface TrainingRows {
+
+        int size();
+
+        int numFeatures();
+
+        /** Preenche {@code out} com as features da linha (sem o intercepto). */
+        void features(int row, double[] out);
+
+        double target(int row);
+    }
+
+    private final ForkJoinPool pool;
+    private final int shardSize;
+
+    public GramTrainingEngine(ForkJoinPool pool) {
+        this(pool, DEFAULT_SHARD_SIZE);
+    }
+
+    public GramTrainingEngine(ForkJoinPool pool, int shardSize) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Tamanho do shard deve ser positivo");
+        }
+        this.pool = pool;
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Acumula todas as linhas em paralelo e devolve as estatísticas combinadas.
+     */
+    public RegressionAccumulator accumulate(TrainingRows rows) {
+        return pool.invoke(new ShardTask(rows, 0, rows.size(), shardSize));
+    }
+
+    /**
+     * Acumula em paralelo separando por grupo (ex: navio): uma única passada nos dados, com um acumulador
+     * por grupo em cada shard. Grupos maiores (classe, frota) saem da soma destes com {@link RegressionAccumulator#merge}.
+     * @param groupOf grupo de cada linha, em [0, numGroups)
+     * @return acumulador de cada grupo; null para grupo sem linhas
+     */
+    public RegressionAccumulator[] accumulateByGroup(TrainingRows rows, int numGroups, IntUnaryOperator groupOf) {
+        return pool.invoke(new GroupShardTask(rows, numGroups, groupOf, 0, rows.size(), shardSize));
+    }
+
+    /**
+     * Acumula e resolve. Lança IllegalStateException se o sistema for singular ou faltarem observações.
+     */
+    public RegressionAccumulator.Solution train(TrainingRows rows) {
+        return accumulate(rows).solve();
+    }
+
+    /**
+     * Lê direto das colunas da matriz de treino (sem cópia).
+     */
+    public static TrainingRows fromFeatures(TrainingFeatures features) {
+        return new TrainingRows() {
+            @Override
+            public int size() {
+                return features.size();
+            }
+
+            @Override
+            public int numFeatures() {
+                return TrainingFeatures.NUM_FEATURES;
+            }
+
+            @Override
+            public void features(int row, double[] out) {
+                features.fillFeatures(row, out);
+            }
+
+            @Override
+            public double target(int row) {
+                return features.hpi(row);
+            }
+        };
+    }
+
+    /**
+     * Adapta uma lista de registros com extratores de features e alvo.
+     */
+    public static <T> TrainingRows fromList(List<T> records, int numFeatures,
+                                            FeatureExtractor<T> features, TargetExtractor<T> target) {
+        return new TrainingRows() {
+            @Override
+            public int size() {
+                return records.size();
+            }
+
+            @Override
+            public int numFeatures() {
+                return numFeatures;
+            }
+
+            @Override
+            public void features(int row, double[] out) {
+                features.extract(records.get(row), out);
+            }
+
+            @Override
+            public double target(int row) {
+                return target.extract(records.get(row));
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface FeatureExtractor<T> {
+        void extract(T record, double[] out);
+    }
+
+    @FunctionalInterface
+    public interface TargetExtractor<T> {
+        double extract(T record);
+    }
+
+    // ForkJoinTask é Serializable, mas as tarefas nunca são serializadas (vivem só dentro do pool)
+    @SuppressWarnings("serial")
+    private static final class ShardTask extends RecursiveTask<RegressionAccumulator> {
+
+        private final TrainingRows rows;
+        private final int from;
+        private final int to;
+        private final int shardSize;
+
+        ShardTask(TrainingRows rows, int from, int to, int shardSize) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected RegressionAccumulator compute() {
+            if (to - from <= shardSize) {
+                RegressionAccumulator stats = new RegressionAccumulator(rows.numFeatures());
+                double[] buffer = new double[rows.numFeatures()];
+                for (int i = from; i < to; i++) {
+                    rows.features(i, buffer);
+                    stats.add(buffer, rows.target(i));
+                }
+                return stats;
+            }
+            int middle = (from + to) >>> 1;
+            ShardTask left = new ShardTask(rows, from, middle, shardSize);
+            ShardTask right = new ShardTask(rows, middle, to, shardSize);
+            left.fork();
+            RegressionAccumulator merged = right.compute();
+            merged.merge(left.join());
+            return merged;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class GroupShardTask extends RecursiveTask<RegressionAccumulator[]> {
+
+        private final TrainingRows rows;
+        private final int numGroups;
+        private final IntUnaryOperator groupOf;
+        private final int from;
+        private final int to;
+        private final int shardSize;
+
+        GroupShardTask(TrainingRows rows, int numGroups, IntUnaryOperator groupOf, int from, int to, int shardSize) {
+            this.rows = rows;
+            this.numGroups = numGroups;
+            this.groupOf = groupOf;
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected RegressionAccumulator[] compute() {
+            if (to - from <= shardSize) {
+                RegressionAccumulator[] stats = new RegressionAccumulator[numGroups];
+                double[] buffer = new double[rows.numFeatures()];
+                for (int i = from; i < to; i++) {
+                    int group = groupOf.applyAsInt(i);
+                    if (stats[group] == null) {
+                        stats[group] = new RegressionAccumulator(rows.numFeatures());
+                    }
+                    rows.features(i, buffer);
+                    stats[group].add(buffer, rows.target(i));
+                }
+                return stats;
+            }
+            int middle = (from + to) >>> 1;
+            GroupShardTask left = new GroupShardTask(rows, numGroups, groupOf, from, middle, shardSize);
+            GroupShardTask right = new GroupShardTask(rows, numGroups, groupOf, middle, to, shardSize);
+            left.fork();
+            RegressionAccumulator[] merged = right.compute();
+            RegressionAccumulator[] other = left.join();
+            for (int group = 0; group < numGroups; group++) {
+                if (merged[group] == null) {
+                    merged[group] = other[group];
+                } else if (other[group] != null) {
+                    merged[group].merge(other[group]);
+                }
+            }
+            return merged;
+        }
+    }
+}
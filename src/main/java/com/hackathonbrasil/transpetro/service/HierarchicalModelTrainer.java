@@ -0,0 +1,135 @@
+package com.hackathonbrasil.transpetro.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Treino hierárquico: modelo da frota (OLS), um modelo por classe de navio e um por navio.
+ * Os dados são lidos uma única vez (um acumulador por navio em cada shard); classe e frota saem da soma
+ * dos acumuladores dos navios. Cada classe é encolhida em direção à frota e cada navio em direção à sua classe
+ * ({@link RegressionAccumulator#solveShrunk}), e os sistemas p×p de cada nível são resolvidos em paralelo no pool.
+ * O custo continua O(n·p²/núcleos) na passada + O(grupos·p³) nas soluções, independente do número de classes.
+ */
+public final class HierarchicalModelTrainer {
+
+    /** Mínimo de linhas para um grupo ter modelo próprio; abaixo disso usa o do nível acima. */
+    public static final int DEFAULT_MIN_ROWS = 30;
+    /** Força do prior em linhas equivalentes: um grupo com essa quantidade de linhas fica no meio do caminho. */
+    public static final double DEFAULT_PRIOR_STRENGTH = 200.0;
+
+    private final ForkJoinPool pool;
+    private final GramTrainingEngine engine;
+    private final int minRows;
+    private final double priorStrength;
+
+    public HierarchicalModelTrainer(ForkJoinPool pool, int shardSize, int minRows, double priorStrength) {
+        if (priorStrength <= 0) {
+            throw new IllegalArgumentException("Força do prior deve ser positiva");
+        }
+        this.pool = pool;
+        this.engine = new GramTrainingEngine(pool, shardSize);
+        this.minRows = Math.max(minRows, 1);
+        this.priorStrength = priorStrength;
+    }
+
+    /**
+     * Resultado: estatísticas e solução da frota e as soluções de cada classe e navio que tiveram dados suficientes.
+     */
+    public static final class Result {
+
+        private final RegressionAccumulator globalStats;
+        private final RegressionAccumulator.Solution global;
+        private final Map<String, RegressionAccumulator.Solution> classModels;
+        private final Map<String, RegressionAccumulator.Solution> shipModels;
+
+        Result(RegressionAccumulator globalStats, RegressionAccumulator.Solution global,
+               Map<String, RegressionAccumulator.Solution> classModels, Map<String, RegressionAccumulator.Solution> shipModels) {
+            this.globalStats = globalStats;
+            this.global = global;
+            this.classModels = classModels;
+            this.shipModels = shipModels;
+        }
+
+        public RegressionAccumulator getGlobalStats() {
+            return globalStats;
+        }
+
+        public RegressionAccumulator.Solution getGlobal() {
+            return global;
+        }
+
+        /** Chave: classe normalizada (SegmentModel.classKey). */
+        public Map<String, RegressionAccumulator.Solution> getClassModels() {
+            return classModels;
+        }
+
+        /** Chave: nome normalizado do navio. */
+        public Map<String, RegressionAccumulator.Solution> getShipModels() {
+            return shipModels;
+        }
+    }
+
+    private record Prior(double[] coefficients, RegressionAccumulator parent) {}
+
+    /**
+     * Treina os três níveis. Lança IllegalStateException se o modelo da frota não puder ser resolvido
+     * (mesmas condições do treino simples); grupos que falharem ficam sem modelo próprio.
+     * @param shipOf navio de cada linha, em [0, shipKeys.length)
+     * @param shipKeys nome normalizado de cada navio
+     * @param classKeys classe normalizada de cada navio (null se desconhecida)
+     */
+    public Result train(GramTrainingEngine.TrainingRows rows, IntUnaryOperator shipOf, String[] shipKeys, String[] classKeys) {
+        RegressionAccumulator[] byShipId = engine.accumulateByGroup(rows, shipKeys.length, shipOf);
+
+        // Classe e frota = soma dos navios (sem nova passada nos dados)
+        RegressionAccumulator globalStats = new RegressionAccumulator(rows.numFeatures());
+        Map<String, RegressionAccumulator> byClass = new HashMap<>();
+        Map<String, RegressionAccumulator> byShip = new HashMap<>();
+        Map<String, String> classOfShip = new HashMap<>();
+        for (int shipId = 0; shipId < byShipId.length; shipId++) {
+            RegressionAccumulator stats = byShipId[shipId];
+            if (stats == null) {
+                continue;
+            }
+            globalStats.merge(stats);
+            byShip.put(shipKeys[shipId], stats);
+            if (classKeys[shipId] != null) {
+                classOfShip.put(shipKeys[shipId], classKeys[shipId]);
+                byClass.computeIfAbsent(classKeys[shipId], k -> new RegressionAccumulator(rows.numFeatures())).merge(stats);
+            }
+        }
+
+        RegressionAccumulator.Solution global = globalStats.solve();
+        Prior globalPrior = new Prior(global.getCoefficients(), globalStats);
+
+        Map<String, RegressionAccumulator.Solution> classModels = solveAll(byClass, classKey -> globalPrior);
+        Map<String, RegressionAccumulator.Solution> shipModels = solveAll(byShip, shipKey -> {
+            String classKey = classOfShip.get(shipKey);
+            RegressionAccumulator.Solution parent = classKey != null ? classModels.get(classKey) : null;
+            return parent != null ? new Prior(parent.getCoefficients(), byClass.get(classKey)) : globalPrior;
+        });
+
+        return new Result(globalStats, global, classModels, shipModels);
+    }
+
+    private Map<String, RegressionAccumulator.Solution> solveAll(Map<String, RegressionAccumulator> groups,
+                                                                 Function<String, Prior> priorOf) {
+        Map<String, RegressionAccumulator.Solution> solved = new ConcurrentHashMap<>();
+        pool.submit(() -> groups.entrySet().parallelStream()
+            .filter(group -> group.getValue().getCount() >= minRows)
+            .forEach(group -> {
+                Prior prior = priorOf.apply(group.getKey());
+                try {
+                    solved.put(group.getKey(), group.getValue().solveShrunk(prior.coefficients(), prior.parent(), priorStrength));
+                } catch (RuntimeException e) {
+                    // Sem modelo próprio: a previsão usa o do nível acima
+                    System.err.println("   - Modelo de " + group.getKey() + " descartado: " + e.getMessage());
+                }
+            })).join();
+        return new HashMap<>(solved);
+    }
+}
@@ -0,0 +1,120 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.Consumo;
+import com.hackathonbrasil.transpetro.model.EventoNavegacao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Gravação em massa da importação via batch JDBC.
+ * As entidades usam GenerationType.IDENTITY, o que faz o Hibernate desligar o batch de INSERT (um INSERT e um
+ * round-trip por linha no saveAll). Aqui cada pedaço vira um único executeBatch numa transação própria; o id continua
+ * gerado pelo banco e created_at/updated_at são preenchidos como no @PrePersist.
+ * Qualquer linha rejeitada desfaz o pedaço inteiro: o isolamento por linha fica com o {@link ImportPipeline}.
+ */
+@Service
+public class ImportBatchWriter {
+
+    private static final String INSERT_EVENTO = "INSERT INTO eventos_navegacao (navio_id, session_id, event_name, "
+        + "startgmtdate, endgmtdate, duration, distance, aft_draft, fwd_draft, mid_draft, trim, displacement, "
+        + "beaufort_scale, sea_condition, speed, speed_gps, porto, dec_latitude, dec_longitude, created_at, updated_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CONSUMO = "INSERT INTO consumos (navio_id, evento_id, session_id, "
+        + "consumed_quantity, description, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row, LocalDateTime now) throws SQLException;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Grava os eventos (navio já persistido) numa transação própria.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertEventos(List<EventoNavegacao> eventos) {
+        insert(INSERT_EVENTO, eventos, (ps, evento, now) -> {
+            ps.setLong(1, evento.getNavio().getId());
+            ps.setString(2, evento.getSessionId());
+            ps.setString(3, evento.getEventName());
+            ps.setObject(4, evento.getStartGMTDate());
+            ps.setObject(5, evento.getEndGMTDate());
+            setDouble(ps, 6, evento.getDuration());
+            setDouble(ps, 7, evento.getDistance());
+            setDouble(ps, 8, evento.getAftDraft());
+            setDouble(ps, 9, evento.getFwdDraft());
+            setDouble(ps, 10, evento.getMidDraft());
+            setDouble(ps, 11, evento.getTrim());
+            setDouble(ps, 12, evento.getDisplacement());
+            if (evento.getBeaufortScale() != null) {
+                ps.setInt(13, evento.getBeaufortScale());
+            } else {
+                ps.setNull(13, Types.INTEGER);
+            }
+            ps.setString(14, evento.getSeaCondition());
+            setDouble(ps, 15, evento.getSpeed());
+            setDouble(ps, 16, evento.getSpeedGps());
+            ps.setString(17, evento.getPorto());
+            setDouble(ps, 18, evento.getDecLatitude());
+            setDouble(ps, 19, evento.getDecLongitude());
+            ps.setObject(20, now);
+            ps.setObject(21, now);
+        });
+    }
+
+    /**
+     * Grava os consumos (evento e navio já persistidos) numa transação própria.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertConsumos(List<Consumo> consumos) {
+        insert(INSERT_CONSUMO, consumos, (ps, consumo, now) -> {
+            ps.setLong(1, consumo.getNavio().getId());
+            if (consumo.getEvento() != null) {
+                ps.setLong(2, consumo.getEvento().getId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, consumo.getSessionId());
+            ps.setDouble(4, consumo.getConsumedQuantity());
+            ps.setString(5, consumo.getDescription());
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+    }
+
+    private <T> void insert(String sql, List<T> rows, RowBinder<T> binder) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                binder.bind(ps, rows.get(i), now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.ImportJobDto;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Importação executada em segundo plano (ver {@link ImportJobService}) e o seu progresso.
+ *
+ * Contadores: lidas = registros de dados do CSV; gravadas = linhas commitadas; rejeitadas = linhas inválidas,
+ * duplicadas, sem navio/evento ou recusadas pelo banco. Navios, docagens e revestimentos (arquivos pequenos)
+ * só somam as gravadas no fim da etapa. O ETA é o da etapa atual, pelos bytes já lidos do arquivo.
+ *
+ * As importações síncronas usam um job avulso ({@link #avulso}), que ninguém consulta.
+ */
+public final class ImportJob {
+
+    public enum Tipo { TODOS, NAVIOS, DOCAGENS, EVENTOS, CONSUMOS, REVESTIMENTOS }
+
+    public enum Status { NA_FILA, EXECUTANDO, CONCLUIDO, FALHOU, CANCELADO }
+
+    private final String id;
+    private final Tipo tipo;
+    private final String origem;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile Status status = Status.NA_FILA;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String message;
+    private volatile boolean cancelRequested;
+
+    // Etapa atual (TODOS passa por cinco arquivos)
+    private volatile String stage;
+    private volatile long stageStartNanos;
+    private volatile long stageBytesTotal;
+    private final AtomicLong stageBytesRead = new AtomicLong();
+    private volatile ImportPipeline<?> pipeline;
+
+    private final LongAdder parsed = new LongAdder(); // Incrementado pelos workers do parsing paralelo
+    private final LongAdder discarded = new LongAdder();
+    private final AtomicLong written = new AtomicLong(); // Etapas já concluídas (a atual vem do pipeline)
+    private final AtomicLong rejected = new AtomicLong();
+
+    ImportJob(String id, Tipo tipo, String origem) {
+        this.id = id;
+        this.tipo = tipo;
+        this.origem = origem;
+    }
+
+    static ImportJob avulso(Tipo tipo) {
+        return new ImportJob("avulso", tipo, "sincrono");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        Status atual = status;
+        return atual == Status.CONCLUIDO || atual == Status.FALHOU || atual == Status.CANCELADO;
+    }
+
+    /**
+     * Pede o cancelamento: o job para na próxima linha lida (ou nem começa, se ainda estiver na fila).
+     * Pedaços já commitados continuam gravados.
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    // --- CICLO DE VIDA (ImportJobService) ---
+
+    void started() {
+        startNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        status = Status.EXECUTANDO;
+    }
+
+    void finished(Status finalStatus, String finalMessage) {
+        finishStage();
+        finishNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        message = finalMessage;
+        status = finalStatus;
+    }
+
+    // --- PROGRESSO (DataImportService) ---
+
+    /**
+     * Nova etapa (arquivo). bytesTotal <= 0: tamanho desconhecido, sem ETA.
+     */
+    void startStage(String nome, long bytesTotal) {
+        checkCancelled();
+        finishStage();
+        stage = nome;
+        stageBytesTotal = bytesTotal;
+        stageBytesRead.set(0);
+        stageStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Conta os bytes lidos do arquivo da etapa (leitura sequencial).
+     */
+    InputStream counting(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    stageBytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    stageBytesRead.addAndGet(count);
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Posição até onde o arquivo da etapa já foi entregue (leitura paralela).
+     */
+    void bytesDelivered(long position) {
+        checkCancelled();
+        stageBytesRead.set(position);
+    }
+
+    /**
+     * Envolve o mapper do CSV: conta as linhas lidas e as descartadas e interrompe a leitura se o job foi cancelado.
+     */
+    <T> ParallelCsvReader.RowMapper<T> counting(ParallelCsvReader.RowMapper<T> mapper) {
+        return csv -> {
+            checkCancelled();
+            parsed.increment();
+            T row = mapper.map(csv);
+            if (row == null) {
+                discarded.increment();
+            }
+            return row;
+        };
+    }
+
+    void discarded() {
+        discarded.increment();
+    }
+
+    void track(ImportPipeline<?> stagePipeline) {
+        pipeline = stagePipeline;
+    }
+
+    /**
+     * Linhas gravadas por uma etapa sem pipeline (navios, docagens, revestimentos).
+     */
+    void written(long rows) {
+        written.addAndGet(rows);
+    }
+
+    private void finishStage() {
+        ImportPipeline<?> atual = pipeline;
+        if (atual != null) {
+            pipeline = null;
+            written.addAndGet(atual.getWritten());
+            rejected.addAndGet(atual.getRejected());
+        }
+    }
+
+    private void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Importação cancelada");
+        }
+    }
+
+    // --- STATUS ---
+
+    public ImportJobDto toDto() {
+        ImportPipeline<?> atual = pipeline;
+        long rowsWritten = written.get() + (atual != null ? atual.getWritten() : 0);
+        long rowsRejected = discarded.sum() + rejected.get() + (atual != null ? atual.getRejected() : 0);
+        long rowsParsed = parsed.sum();
+
+        Double rowsPerSecond = null;
+        long start = startNanos;
+        if (start != 0) {
+            long end = isFinished() ? finishNanos : System.nanoTime();
+            double seconds = (end - start) / 1e9;
+            rowsPerSecond = seconds > 0 ? rowsParsed / seconds : 0.0;
+        }
+
+        Double stageProgress = null;
+        Long etaSeconds = null;
+        long total = stageBytesTotal;
+        if (status == Status.EXECUTANDO && stage != null && total > 0) {
+            long read = Math.min(total, stageBytesRead.get());
+            stageProgress = (double) read / total;
+            double elapsed = (System.nanoTime() - stageStartNanos) / 1e9;
+            if (read > 0 && elapsed > 0) {
+                etaSeconds = Math.round((total - read) / (read / elapsed));
+            }
+        }
+
+        return new ImportJobDto(id, tipo.name(), origem, status.name(), stage, message,
+            submittedAt, startedAt, finishedAt, rowsParsed, rowsWritten, rowsRejected,
+            rowsPerSecond, stageProgress, etaSeconds);
+    }
+}
@@ -0,0 +1,192 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+/**
+ * Importações como jobs em segundo plano: o endpoint só registra o job e devolve o id, sem segurar a thread do Tomcat
+ * nem a conexão HTTP durante arquivos de milhões de linhas. O progresso é consultado pelo id.
+ *
+ * Os jobs rodam um por vez, na ordem de envio (consumos dependem dos eventos já gravados); o paralelismo fica
+ * dentro de cada job (parsing paralelo e writers do pipeline). Uploads são copiados para um arquivo temporário
+ * ainda na requisição, porque o multipart é apagado quando ela termina.
+ */
+@Service
+public class ImportJobService {
+
+    @Autowired
+    private DataImportService dataImportService;
+
+    @Autowired
+    @Qualifier("importJobExecutor")
+    private Executor importJobExecutor;
+
+    @Value("${import.jobs.history:50}")
+    private int history;
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>(); // Ordem de envio; guardado por synchronized
+
+    /**
+     * Registra e enfileira a importação.
+     * @param file upload (opcional)
+     * @param arquivo nome no diretório de importação local (opcional); sem nenhum dos dois usa o CSV padrão
+     * @throws IllegalArgumentException arquivo local inexistente ou fora do diretório
+     * @throws TaskRejectedException fila de jobs cheia
+     */
+    public ImportJob submit(ImportJob.Tipo tipo, MultipartFile file, String arquivo) throws IOException {
+        Path origem = null;
+        boolean temporario = false;
+        String descricao = "padrao";
+        if (file != null && !file.isEmpty()) {
+            origem = Files.createTempFile("importacao-", ".csv");
+            temporario = true;
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, origem, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(origem);
+                throw e;
+            }
+            descricao = "upload:" + file.getOriginalFilename();
+        } else if (arquivo != null && !arquivo.isBlank()) {
+            origem = dataImportService.resolveLocalFile(arquivo);
+            descricao = "local:" + arquivo;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), tipo, descricao);
+        register(job);
+        Path arquivoJob = origem;
+        boolean apagar = temporario;
+        try {
+            importJobExecutor.execute(() -> run(job, arquivoJob, apagar));
+        } catch (TaskRejectedException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            if (apagar) {
+                Files.deleteIfExists(arquivoJob);
+            }
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ImportJob> find(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    /**
+     * Jobs em andamento e os últimos concluídos (import.jobs.history), do mais recente para o mais antigo.
+     */
+    public List<ImportJob> list() {
+        List<ImportJob> lista;
+        synchronized (jobs) {
+            lista = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(lista);
+        return lista;
+    }
+
+    public Optional<ImportJob> cancel(String id) {
+        Optional<ImportJob> job = find(id);
+        job.ifPresent(ImportJob::cancel);
+        return job;
+    }
+
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            // Descarta os concluídos mais antigos; job na fila ou executando nunca sai da lista
+            Iterator<ImportJob> iterator = jobs.values().iterator();
+            int excedente = jobs.size() - Math.max(1, history);
+            while (excedente > 0 && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    excedente--;
+                }
+            }
+        }
+    }
+
+    private void run(ImportJob job, Path arquivo, boolean temporario) {
+        try {
+            if (job.isCancelRequested()) {
+                job.finished(ImportJob.Status.CANCELADO, "Cancelado antes de começar");
+                return;
+            }
+            job.started();
+            System.out.println("📥 Job de importação " + job.getId() + " (" + job.getTipo() + ") iniciado");
+            importar(job, arquivo);
+            job.finished(ImportJob.Status.CONCLUIDO, "Importação concluída com sucesso");
+        } catch (Exception e) {
+            if (job.isCancelRequested() || e instanceof CancellationException) {
+                // Pedaços já commitados ficam no banco: o status informa quantas linhas entraram
+                job.finished(ImportJob.Status.CANCELADO, "Importação cancelada");
+            } else {
+                job.finished(ImportJob.Status.FALHOU, "Erro na importação: " + e.getMessage());
+                System.err.println("❌ Job de importação " + job.getId() + " falhou: " + e.getMessage());
+            }
+        } catch (Error e) {
+            job.finished(ImportJob.Status.FALHOU, "Erro na importação: " + e);
+            throw e;
+        } finally {
+            if (temporario) {
+                try {
+                    Files.deleteIfExists(arquivo);
+                } catch (IOException e) {
+                    System.err.println("⚠️ Não foi possível apagar o upload temporário " + arquivo + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("📥 Job de importação " + job.getId() + " terminou: " + job.getStatus());
+    }
+
+    private void importar(ImportJob job, Path arquivo) throws IOException {
+        switch (job.getTipo()) {
+            case TODOS -> dataImportService.importAllDefaultCSVs(job);
+            case NAVIOS -> job.written(dataImportService.importNaviosCSV(
+                dataImportService.abrir(arquivo, "dados_navio.csv", "navios", job)));
+            case DOCAGENS -> job.written(dataImportService.importDocagemCSV(
+                dataImportService.abrir(arquivo, "dados_docagem.csv", "docagens", job)));
+            case EVENTOS -> {
+                if (arquivo != null) {
+                    dataImportService.importEventosCSV(arquivo, job);
+                } else {
+                    dataImportService.importEventosCSV(
+                        dataImportService.abrir(null, "ResultadoQueryEventos.csv", "eventos", job), job);
+                }
+            }
+            case CONSUMOS -> {
+                if (arquivo != null) {
+                    dataImportService.importConsumosCSV(arquivo, job);
+                } else {
+                    dataImportService.importConsumosCSV(
+                        dataImportService.abrir(null, "ResultadoQueryConsumo.csv", "consumos", job), job);
+                }
+            }
+            case REVESTIMENTOS -> job.written(dataImportService.importRevestimentosCSV(
+                dataImportService.abrir(arquivo, "revestimento.csv", "revestimentos", job)));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline produtor/consumidor da importação. A thread do parser entrega as linhas já validadas com {@link #accept},
+ * que monta pedaços de tamanho fixo numa fila limitada; com a fila cheia o parser espera (backpressure).
+ * Cada writer grava um pedaço por vez, numa transação própria ({@link ChunkWriter}), e commita antes do próximo:
+ * memória e locks ficam limitados a alguns pedaços e nenhuma transação dura a importação inteira.
+ *
+ * Pedaço que falha é refeito linha a linha (uma transação por linha): linha rejeitada pelo banco
+ * (DataIntegrityViolationException: duplicata, NOT NULL, FK) é contada e descartada; qualquer outro erro
+ * interrompe a importação.
+ */
+public final class ImportPipeline<T> implements Consumer<T> {
+
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Grava o pedaço inteiro numa transação própria ou lança exceção (rollback do pedaço todo).
+     */
+    @FunctionalInterface
+    public interface ChunkWriter<T> {
+        void write(List<T> chunk);
+    }
+
+    private final int chunkSize;
+    private final ChunkWriter<T> writer;
+    private final Consumer<List<T>> onCommitted;
+    private final BlockingQueue<List<T>> queue;
+    private final CountDownLatch writersDone;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong chunksRetried = new AtomicLong();
+    private List<T> current;
+    private volatile boolean producerDone;
+
+    /**
+     * @param onCommitted chamado (na thread do writer) com as linhas de cada transação que commitou
+     */
+    public ImportPipeline(Executor writerExecutor, int writers, int chunkSize, int queueCapacity,
+                          ChunkWriter<T> writer, Consumer<List<T>> onCommitted) {
+        if (writers < 1 || chunkSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("writers, chunkSize e queueCapacity devem ser positivos");
+        }
+        this.chunkSize = chunkSize;
+        this.writer = writer;
+        this.onCommitted = onCommitted;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writersDone = new CountDownLatch(writers);
+        this.current = new ArrayList<>(chunkSize);
+        for (int i = 0; i < writers; i++) {
+            writerExecutor.execute(this::runWriter);
+        }
+    }
+
+    /**
+     * Linha pronta para gravar. Bloqueia enquanto a fila estiver cheia; lança a falha dos writers, se houver.
+     */
+    @Override
+    public void accept(T row) {
+        current.add(row);
+        if (current.size() >= chunkSize) {
+            enqueue(current);
+            current = new ArrayList<>(chunkSize);
+        }
+    }
+
+    /**
+     * Entrega o último pedaço e espera os writers terminarem. Lança a falha da importação, se houver.
+     * @return linhas gravadas
+     */
+    public long finish() {
+        try {
+            if (!current.isEmpty()) {
+                enqueue(current);
+                current = new ArrayList<>();
+            }
+        } finally {
+            producerDone = true;
+        }
+        awaitWriters();
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+        return written.get();
+    }
+
+    /**
+     * Interrompe a importação (erro no parser, cancelamento): os writers param depois do pedaço em andamento.
+     * Pedaços já commitados continuam gravados.
+     */
+    public void abort(RuntimeException reason) {
+        failure.compareAndSet(null, reason);
+        producerDone = true;
+        queue.clear();
+        awaitWriters();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getChunksRetried() {
+        return chunksRetried.get();
+    }
+
+    private void enqueue(List<T> chunk) {
+        try {
+            while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                throwIfFailed();
+            }
+            throwIfFailed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importação interrompida", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (failure.get() == null) {
+                // Lido antes do poll: fila vazia depois de producerDone significa que não vem mais nada
+                boolean last = producerDone;
+                List<T> chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    writeChunk(chunk);
+                } else if (last) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new IllegalStateException("Writer da importação interrompido", e));
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            writersDone.countDown();
+        }
+    }
+
+    private void writeChunk(List<T> chunk) {
+        boolean committed;
+        try {
+            writer.write(chunk);
+            committed = true;
+        } catch (RuntimeException chunkError) {
+            committed = false;
+            chunksRetried.incrementAndGet();
+        }
+        if (committed) {
+            // Fora do try da gravação: falha do ouvinte não pode refazer um pedaço que já commitou
+            written.addAndGet(chunk.size());
+            notifyCommitted(chunk);
+            return;
+        }
+
+        // Isolamento por linha: só as linhas rejeitadas ficam de fora
+        List<T> rows = new ArrayList<>(chunk.size());
+        for (T row : chunk) {
+            try {
+                writer.write(List.of(row));
+                rows.add(row);
+            } catch (DataIntegrityViolationException rowError) {
+                rejected.incrementAndGet();
+            }
+        }
+        written.addAndGet(rows.size());
+        if (!rows.isEmpty()) {
+            notifyCommitted(rows);
+        }
+    }
+
+    /**
+     * Avisa o ouvinte (ex: atualização incremental do modelo) sobre linhas já commitadas. As linhas continuam
+     * gravadas se ele falhar: o erro é registrado e a importação segue.
+     */
+    private void notifyCommitted(List<T> rows) {
+        try {
+            onCommitted.accept(rows);
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Falha ao processar " + rows.size() + " linha(s) já gravadas pela importação: " + e.getMessage());
+        }
+    }
+
+    private void awaitWriters() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writersDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true; // Espera os writers mesmo assim: nenhuma transação fica aberta depois do retorno
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.ModelStatusDto;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executa o pipeline de dados e treino do ModelService fora da thread de inicialização e das requisições.
+ * O ModelService monta o novo modelo isolado e troca a referência de uma só vez,
+ * então a API continua respondendo (com o modelo anterior, ou o fallback) durante o retreino.
+ */
+@Service
+public class ModelRetrainingService {
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    @Qualifier("retrainScheduler")
+    private TaskScheduler retrainScheduler;
+
+    @Value("${model.retrain.interval-minutes:60}")
+    private long intervalMinutes; // 0 desliga o retreino periódico
+
+    @Value("${model.retrain.debounce-seconds:30}")
+    private long debounceSeconds;
+
+    private final Object lock = new Object();
+    private ScheduledFuture<?> pendingRetrain; // Protegido por lock
+
+    private final AtomicBoolean retraining = new AtomicBoolean();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+    private volatile long lastRunDurationMs = -1;
+    private volatile String lastRunError;
+
+    /**
+     * Dispara o primeiro treino imediatamente (em segundo plano) e agenda os retreinos periódicos.
+     */
+    public void start() {
+        requestRetrain(Duration.ZERO, "inicialização");
+        if (intervalMinutes > 0) {
+            Duration intervalo = Duration.ofMinutes(intervalMinutes);
+            retrainScheduler.scheduleWithFixedDelay(() -> runRetrain("agendado"), Instant.now().plus(intervalo), intervalo);
+            System.out.println("🕒 Retreino periódico do modelo a cada " + intervalMinutes + " min.");
+        }
+    }
+
+    /**
+     * Agenda um retreino para daqui a {@code delay}. Um pedido novo substitui o pendente,
+     * então uma sequência de importações gera um único retreino no final (debounce).
+     */
+    public void requestRetrain(Duration delay, String motivo) {
+        synchronized (lock) {
+            if (pendingRetrain != null && !pendingRetrain.isDone()) {
+                pendingRetrain.cancel(false);
+            }
+            pendingRetrain = retrainScheduler.schedule(() -> runRetrain(motivo), Instant.now().plus(delay));
+        }
+    }
+
+    /**
+     * Dados de treino importados: retreina depois de {@code model.retrain.debounce-seconds} sem novas importações.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataImported(DataImportedEvent event) {
+        requestRetrain(Duration.ofSeconds(debounceSeconds), "importação de " + event.getTipo());
+    }
+
+    public ModelStatusDto getStatus() {
+        TrainedModelSnapshot model = modelService.getModelSnapshot();
+        boolean pending;
+        synchronized (lock) {
+            pending = pendingRetrain != null && !pendingRetrain.isDone();
+        }
+        return new ModelStatusDto(
+            model != null,
+            retraining.get(),
+            pending,
+            model != null ? model.getVersion() : 0L,
+            model != null ? model.getTrainedAt() : null,
+            model != null ? model.getTrainingRows() : 0,
+            model != null ? model.getRSquared() : 0.0,
+            model != null ? model.getClassModels().size() : 0,
+            model != null ? model.getShipModels().size() : 0,
+            lastRunStartedAt,
+            lastRunFinishedAt,
+            lastRunDurationMs,
+            lastRunError,
+            modelService.getLastStageTimes()
+        );
+    }
+
+    // O agendador tem uma única thread: nunca há dois treinos ao mesmo tempo
+    private void runRetrain(String motivo) {
+        retraining.set(true);
+        lastRunStartedAt = LocalDateTime.now();
+        long inicio = System.currentTimeMillis();
+        try {
+            System.out.println("🔄 Retreino do modelo iniciado (" + motivo + ").");
+            modelService.initDataAndTrainModel();
+            lastRunError = null;
+        } catch (RuntimeException e) {
+            // Não deixa a exceção escapar: cancelaria o agendamento periódico
+            lastRunError = e.getMessage();
+            System.err.println("❌ Erro no retreino do modelo: " + e.getMessage());
+        } finally {
+            lastRunDurationMs = System.currentTimeMillis() - inicio;
+            lastRunFinishedAt = LocalDateTime.now();
+            retraining.set(false);
+            System.out.println("✅ Retreino do modelo finalizado em " + lastRunDurationMs + " ms (" + motivo + ").");
+        }
+    }
+}
@@ -1,26 +1,49 @@
 package com.hackathonbrasil.transpetro.service;
 
-import com.hackathonbrasil.transpetro.model.ConsolidatedRecord;
+import com.hackathonbrasil.transpetro.model.DockingDateView;
+import com.hackathonbrasil.transpetro.model.DockingHistory;
+import com.hackathonbrasil.transpetro.model.LatestRevestimentoView;
 import com.hackathonbrasil.transpetro.model.RevestimentoDetail;
+import com.hackathonbrasil.transpetro.model.SegmentModel;
 import com.hackathonbrasil.transpetro.model.ShipDetail;
-import com.hackathonbrasil.transpetro.model.TrainingDataRecord;
-import com.hackathonbrasil.transpetro.model.Navio;
+import com.hackathonbrasil.transpetro.model.ShipLookupState;
+import com.hackathonbrasil.transpetro.model.ShipProfile;
+import com.hackathonbrasil.transpetro.model.ShipProfileView;
+import com.hackathonbrasil.transpetro.model.ShipSummaryView;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import com.hackathonbrasil.transpetro.model.TrainingDataset;
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
 import com.hackathonbrasil.transpetro.repository.DocagemRepository;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
 import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import com.hackathonbrasil.transpetro.repository.RevestimentoRepository;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.text.Normalizer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ModelService {
@@ -29,15 +52,10 @@ public class ModelService {
     // Atualmente: 6 coeficientes (Intercepto + 5 Features)
     public static final int NUM_MODEL_COEFFICIENTS = 6; 
 
-    // Mapeia NavioID -> Data da Última Docagem
-    Map<String, LocalDate> lastDockingMap = new HashMap<>();
-    //Mapeia NavioID -> CFI_Limpo (Consumo Ideal Específico)
-    Map<String, Double> cfiCleanMap = new HashMap<>();
-
-    private final Map<String, ShipDetail> shipDetailsMap = new HashMap<>();
-
-
-    private final Map<String, RevestimentoDetail> revestimentosMap = new HashMap<>();
+    // Mapas de consulta por navio (docagem, CFI_Limpo, detalhes, revestimento): versão imutável,
+    // reconstruída fora do lugar a cada carga e trocada atomicamente (leitura sem lock nas requisições)
+    private final AtomicReference<ShipLookupState> lookupState = new AtomicReference<>(ShipLookupState.EMPTY);
+    private final AtomicLong lookupVersion = new AtomicLong();
 
     @Autowired
     private NavioRepository navioRepository;
@@ -48,17 +66,91 @@ public class ModelService {
     @Autowired
     private RevestimentoRepository revestimentoRepository;
 
+    @Autowired
+    private TrainingDataSource trainingDataSource;
+
+    @Autowired
+    private ShipIdentity shipIdentity;
+
+    @Autowired
+    private ModelSnapshotStore snapshotStore;
+
+    @Autowired
+    @Qualifier("pipelineExecutor")
+    private Executor pipelineExecutor;
+
+    private volatile Map<String, Long> lastStageTimes = Map.of();
+
+    @Autowired
+    private EventoNavegacaoRepository eventoNavegacaoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Constantes de Limites
     private static final int DAYS_POST_CLEANING_START = 3; // Começa a contar a partir do 3º dia
     private static final int DAYS_POST_CLEANING_END = 7;   // Último dia para o cálculo da média
     private static final double FALLBACK_CFI = 25.0; // Se não houver dados limpos, usa um valor padrão.
-    private double HPI_BASELINE_CONSUMPTION = FALLBACK_CFI;
+    private static final int DEFAULT_PERIODO_BASE = 52; // Período base médio do revestimento (dias)
+
+    // Limites usados no ajuste dos coeficientes (aplicado uma única vez, no treino)
+    private static final double DEFAULT_DEGRADATION_RATE = 0.0005;
+    private static final double HPI_ACCEPTABLE_MAX_CLEAN = 1.030; // 3% de perda é o máximo aceitável para um casco "limpo"
 
-    private OLSMultipleLinearRegression trainedModel;
+    // Modelo publicado: trocado atomicamente a cada treino, nunca visto pela metade
+    private final AtomicReference<TrainedModelSnapshot> currentModel = new AtomicReference<>();
+    private final AtomicLong modelVersion = new AtomicLong();
 
-    // --- GETTER (MANTIDO) ---
-    public OLSMultipleLinearRegression getTrainedModel() {
-        return trainedModel;
+    // Estatísticas suficientes do modelo publicado (XᵀX, Xᵀy, n), usadas na atualização incremental.
+    // Treino completo e atualização incremental publicam sob o mesmo lock.
+    @Autowired
+    @Qualifier("trainingForkJoinPool")
+    private ForkJoinPool trainingPool;
+
+    @Value("${model.training.shard-size:" + GramTrainingEngine.DEFAULT_SHARD_SIZE + "}")
+    private int trainingShardSize;
+
+    // Modelos por classe e por navio, encolhidos em direção ao nível acima (ver HierarchicalModelTrainer)
+    @Value("${model.hierarchy.enabled:true}")
+    private boolean hierarchyEnabled;
+
+    @Value("${model.hierarchy.min-rows:" + HierarchicalModelTrainer.DEFAULT_MIN_ROWS + "}")
+    private int hierarchyMinRows;
+
+    @Value("${model.hierarchy.prior-strength:" + HierarchicalModelTrainer.DEFAULT_PRIOR_STRENGTH + "}")
+    private double hierarchyPriorStrength;
+
+    private final Object trainingLock = new Object();
+    private RegressionAccumulator trainingStats; // Protegido por trainingLock
+    // Sessões já somadas em trainingStats (protegidas por trainingLock): as do último treino completo,
+    // que ficam de fora até o próximo treino, e as da atualização incremental com a observação somada
+    // (features + HPI), retirada quando a sessão muda (ex: mais um combustível gravado na mesma sessão)
+    private Set<String> trainedSessions = Set.of();
+    private final Map<String, double[]> onlineContributions = new HashMap<>();
+    private long trainingGeneration; // Muda a cada treino completo ou warm start publicado
+
+    // Tentativas da atualização incremental quando um treino completo é publicado durante a carga das sessões
+    private static final int ONLINE_UPDATE_ATTEMPTS = 3;
+
+    @Value("${model.online-update.enabled:true}")
+    private boolean onlineUpdateEnabled;
+
+    // Perfis de previsão por navio (chave: nome normalizado). Invalidado pelos eventos de escrita e a cada treino.
+    private static final int SHIP_PROFILE_CACHE_SIZE = 2000;
+    private final BoundedLruCache<String, ShipProfile> shipProfileCache = new BoundedLruCache<>(SHIP_PROFILE_CACHE_SIZE);
+
+    /**
+     * Retorna o modelo treinado atual, ou null se nenhum treino foi concluído.
+     */
+    public TrainedModelSnapshot getModelSnapshot() {
+        return currentModel.get();
+    }
+
+    /**
+     * Retorna a versão atual dos mapas de consulta por navio (nunca null).
+     */
+    public ShipLookupState getLookupState() {
+        return lookupState.get();
     }
 
     private static final String DOCAGEM_FILE = "dados_docagem.csv"; // Arquivo com as docagens
@@ -66,12 +158,14 @@ public class ModelService {
     private static final String SHIP_DETAILS_FILE = "dados_navio.csv"; // Arquivo que acabamos de criar
 
     /**
-     * Lê o arquivo de docagem e retorna a data de docagem mais recente para cada navio.
-     * PRIORIDADE: Dados do banco de dados sobrescrevem dados do CSV.
+     * Lê todas as docagens de cada navio (CSV histórico + banco de dados) e monta os ciclos de casco.
+     * A última docagem de cada navio é a mais recente entre as duas fontes.
      */
-    private Map<String, LocalDate> loadDockingDates(String filePath) throws IOException {
+    private DockingHistory loadDockingHistory(String filePath) {
+        Map<String, List<LocalDate>> dockingDatesMap = new HashMap<>();
+
         // 1. Carregar do CSV (fallback para dados históricos)
-        try (Reader in = new FileReader(new ClassPathResource(filePath).getFile())) {
+        try (Reader in = openClasspathCsv(filePath)) {
             Iterable<CSVRecord> records = CSVFormat.DEFAULT
                     .builder()
                     .setHeader("Navio", "Docagem", "Tipo")
@@ -80,7 +174,7 @@ public class ModelService {
                     .parse(in);
 
             for (CSVRecord record : records) {
-                String shipName = normalizeShipId(record.get("Navio"));
+                String shipName = shipIdentity.canonical(record.get("Navio"));
                 String dateString = record.get("Docagem").trim();
 
                 if (shipName.isEmpty() || dateString.isEmpty()) continue;
@@ -88,28 +182,31 @@ public class ModelService {
                 LocalDate dockingDate = parseDockingDate(dateString);
 
                 if (dockingDate != null) {
-                    // Só adiciona se não existir no banco (será sobrescrito abaixo se existir)
-                    lastDockingMap.computeIfAbsent(shipName, k -> dockingDate);
+                    dockingDatesMap.computeIfAbsent(shipName, k -> new ArrayList<>()).add(dockingDate);
                 }
             }
         } catch (IOException e) {
             System.err.println("Erro ao ler arquivo de docagem: " + e.getMessage());
         }
 
-        // 2. PRIORIDADE: Carregar do banco de dados e sobrescrever dados do CSV
-        navioRepository.findAll().forEach(navio -> {
-            String navioNome = normalizeShipId(navio.getNome());
-            docagemRepository.findUltimaDocagemByNavioId(navio.getId())
-                .ifPresent(docagem -> {
-                    LocalDate dataDocagem = docagem.getDataDocagem();
-                    // Sobrescreve dados do CSV com dados do banco (sempre mais atualizados)
-                    lastDockingMap.compute(navioNome, (k, existingDate) ->
-                        (existingDate == null || dataDocagem.isAfter(existingDate)) ? dataDocagem : existingDate
-                    );
-                });
-        });
+        // 2. Banco de dados (uma query para a frota toda): docagens cadastradas pela API entram como novos ciclos
+        for (DockingDateView docagem : docagemRepository.findAllDockingDates()) {
+            if (docagem.getDataDocagem() != null) {
+                dockingDatesMap.computeIfAbsent(shipIdentity.canonical(docagem.getNavioNome()), k -> new ArrayList<>())
+                    .add(docagem.getDataDocagem());
+            }
+        }
 
-        return lastDockingMap;
+        DockingHistory history = DockingHistory.of(dockingDatesMap);
+        System.out.println("   - " + history.cycleCount() + " ciclos de docagem para " + history.shipCount() + " navios.");
+        return history;
+    }
+
+    /**
+     * Abre um CSV do classpath como stream: getFile() só funciona com as classes em diretório, não dentro do jar.
+     */
+    private static Reader openClasspathCsv(String filePath) throws IOException {
+        return new InputStreamReader(new ClassPathResource(filePath).getInputStream(), StandardCharsets.UTF_8);
     }
 
     /**
@@ -132,9 +229,11 @@ public class ModelService {
         return null;
     }
 
-    public void carregarDadosRevestimento(String filePath) throws IOException {
+    public Map<String, RevestimentoDetail> carregarDadosRevestimento(String filePath) throws IOException {
+        Map<String, RevestimentoDetail> revestimentosMap = new HashMap<>();
+
         // 1. Carregar do CSV (como está hoje)
-        try (Reader in = new FileReader(new ClassPathResource(filePath).getFile())) {
+        try (Reader in = openClasspathCsv(filePath)) {
             Iterable<CSVRecord> records = CSVFormat.DEFAULT
                 .builder()
                 .setHeader("Sigla", "Nome do navio", "TipoClass", "TipoCarga", "ClasseNum", "Data da aplicacao", "Cr1. Período base de verificação", "Cr1. Parada máxima acumulada no período")
@@ -143,7 +242,7 @@ public class ModelService {
                 .parse(in);
 
             for (CSVRecord record : records) {
-                String shipName = normalizeShipId(record.get("Nome do navio"));
+                String shipName = shipIdentity.canonical(record.get("Nome do navio"));
                 String dateString = record.get("Data da aplicacao").trim();
                 String periodo = record.get("Cr1. Período base de verificação").trim();
 
@@ -161,31 +260,32 @@ public class ModelService {
             }
         }
 
-        // 2. Carregar do banco de dados
-        navioRepository.findAll().forEach(navio -> {
-            String navioNome = normalizeShipId(navio.getNome());
-            revestimentoRepository.findUltimoRevestimentoByNavioId(navio.getId())
-                .ifPresent(rev -> {
-                    LocalDate dataAplicacao = rev.getDataAplicacao();
-                    int periodoBase = rev.getPeriodoBaseVerificacao();
-                    
-                    revestimentosMap.compute(navioNome, (k, existingDetail) -> {
-                        if (existingDetail == null || dataAplicacao.isAfter(existingDetail.getDataAplicacao())) {
-                            return new RevestimentoDetail(navioNome, periodoBase, dataAplicacao);
-                        }
-                        return existingDetail;
-                    });
-                });
-        });
+        // 2. Carregar do banco de dados (uma query para a frota toda)
+        for (LatestRevestimentoView rev : revestimentoRepository.findLatestPerNavio()) {
+            String navioNome = shipIdentity.canonical(rev.getNavioNome());
+            LocalDate dataAplicacao = rev.getDataAplicacao();
+            int periodoBase = rev.getPeriodoBaseVerificacao();
+
+            revestimentosMap.compute(navioNome, (k, existingDetail) -> {
+                if (existingDetail == null || dataAplicacao.isAfter(existingDetail.getDataAplicacao())) {
+                    return new RevestimentoDetail(navioNome, periodoBase, dataAplicacao);
+                }
+                return existingDetail;
+            });
+        }
+
+        return revestimentosMap;
     }
 
     /**
      * Carrega os detalhes físicos e de classe do navio para o mapeamento HPI Dinâmico.
      * Também busca dados do banco de dados.
      */
-    public void loadShipDetails(String filePath) throws IOException {
+    public Map<String, ShipDetail> loadShipDetails(String filePath) throws IOException {
+        Map<String, ShipDetail> shipDetailsMap = new HashMap<>();
+
         // 1. Carregar do CSV (como está hoje)
-        try (Reader in = new FileReader(new ClassPathResource(filePath).getFile())) {
+        try (Reader in = openClasspathCsv(filePath)) {
             Iterable<CSVRecord> records = CSVFormat.DEFAULT
                     .builder()
                     .setHeader("Nome do navio", "Classe", "Tipo", "Porte Bruto", "Comprimento total (m)", "Boca (m)", "Calado (m)", "Pontal (m)")
@@ -194,7 +294,7 @@ public class ModelService {
                     .parse(in);
 
             for (CSVRecord record : records) {
-                String shipName = normalizeShipId(record.get("Nome do navio"));
+                String shipName = shipIdentity.canonical(record.get("Nome do navio"));
                 String shipClass = record.get("Classe").trim();
                 String cargoType = record.get("Tipo").trim();
 
@@ -210,9 +310,9 @@ public class ModelService {
             }
         }
 
-        // 2. Carregar do banco de dados e sobrescrever dados do CSV
-        navioRepository.findAll().forEach(navio -> {
-            String navioNome = normalizeShipId(navio.getNome());
+        // 2. Carregar do banco de dados (projeção, sem entidades) e sobrescrever dados do CSV
+        navioRepository.findAllSummaries().forEach(navio -> {
+            String navioNome = shipIdentity.canonical(navio.getNome());
             if (navio.getPorteBruto() != null && navio.getPorteBruto() > 0) {
                 ShipDetail detail = new ShipDetail(
                     navioNome,
@@ -225,250 +325,381 @@ public class ModelService {
         });
 
         System.out.println("   - Detalhes de " + shipDetailsMap.size() + " navios carregados.");
+        return shipDetailsMap;
     }
 
     // --- PIPELINE DE TREINAMENTO (Pode ser chamado pelo @PostConstruct ou @Bean) ---
+    // Monta os mapas em variáveis locais e só publica no final: requisições concorrentes
+    // continuam lendo a versão anterior, inteira, até a troca.
+    //
+    // Etapas e dependências (o que não depende de nada roda em paralelo no pipelineExecutor):
+    //   detalhes dos navios, revestimentos, docagens, consolidação -> sem dependências
+    //   CFI_Limpo  <- consolidação + docagens (um valor por ciclo de casco)
+    //   features   <- consolidação + docagens + CFI_Limpo
+    //   treino     <- features
     public void initDataAndTrainModel() {
-        try {
-            System.out.println("Iniciando pipeline de processamento e treinamento...");
-
-            loadShipDetails(SHIP_DETAILS_FILE);
-            System.out.println("Detalhes do Navio (Classe/Porte Bruto) Carregados.");
-
-            // Carrega as datas de docagem (100% limpeza)
-            Map<String, LocalDate> lastCleaningMap = loadDockingDates(DOCAGEM_FILE);
-            System.out.println("Datas de Docagem (Limpeza 100%) Carregadas: " + lastCleaningMap.size() + " navios.");
-
-            // 1. CONSOLIDAÇÃO
-            List<ConsolidatedRecord> rawData = consolidateDataFromFiles();
-            System.out.println("Etapa 1: Consolidação concluída. Total de registros válidos: " + rawData.size());
+        // Hash calculado antes de ler os dados: uma escrita durante o treino muda o hash e força novo treino no próximo boot
+        String inputHash = computeInputHash();
+        if (inputHash != null && currentModel.get() == null && warmStartFromSnapshot(inputHash)) {
+            return;
+        }
 
-            // 1.5 - Calcula o CFI Específico
-            calculateCfiClean(rawData, lastCleaningMap);
-            double baselineCfiForHPI = cfiCleanMap.values().stream()
+        System.out.println("Iniciando pipeline de processamento e treinamento...");
+        long inicio = System.currentTimeMillis();
+        Map<String, Long> stageTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        CompletableFuture<Map<String, ShipDetail>> shipDetailsStage =
+            runStage("detalhes dos navios", stageTimes, () -> loadShipDetails(SHIP_DETAILS_FILE));
+        CompletableFuture<Map<String, RevestimentoDetail>> revestimentosStage =
+            runStage("revestimentos", stageTimes, () -> carregarDadosRevestimento(REVESTIMENTO_FILE));
+        // Datas de docagem = limpeza 100%; cada docagem abre um ciclo de casco
+        CompletableFuture<DockingHistory> dockingStage =
+            runStage("docagens", stageTimes, () -> loadDockingHistory(DOCAGEM_FILE));
+        CompletableFuture<TrainingDataset> consolidationStage =
+            runStage("consolidação", stageTimes, this::consolidateDataFromDatabase);
+
+        // CFI Específico: precisa das sessões e das docagens
+        CompletableFuture<Map<String, double[]>> cfiStage = consolidationStage.thenCombineAsync(dockingStage,
+            (rawData, docagens) -> timeStage("CFI_Limpo", stageTimes, () -> calculateCfiClean(rawData, docagens)),
+            pipelineExecutor);
+
+        CompletableFuture<TrainingFeatures> featuresStage = CompletableFuture.allOf(consolidationStage, dockingStage, cfiStage)
+            .thenApplyAsync(ignored -> timeStage("features", stageTimes,
+                () -> featureEngineering(consolidationStage.join(), dockingStage.join(), cfiStage.join(),
+                    latestCfiByShip(cfiStage.join()))), pipelineExecutor);
+
+        CompletableFuture<Boolean> trainingStage = featuresStage.thenApplyAsync(
+            trainingData -> timeStage("treino", stageTimes, () -> trainModel(trainingData, consolidationStage.join())),
+            pipelineExecutor);
+
+        // Publica o que foi carregado (etapas que falharam mantêm os mapas da versão anterior)
+        ShipLookupState previous = lookupState.get();
+        // Falha -> etapa onde ocorreu (as dependentes recebem a mesma exceção e não são contadas de novo)
+        Map<Throwable, String> failures = new LinkedHashMap<>();
+        Map<String, ShipDetail> shipDetailsMap = stageResult(shipDetailsStage, previous.getShipDetails(), "detalhes dos navios", failures);
+        DockingHistory dockingHistory = stageResult(dockingStage, null, "docagens", failures);
+        Map<String, LocalDate> lastCleaningMap = dockingHistory != null
+            ? dockingHistory.lastDockingDates() : previous.getLastDockingDates();
+        Map<String, RevestimentoDetail> revestimentosMap = stageResult(revestimentosStage, previous.getRevestimentos(), "revestimentos", failures);
+        stageResult(consolidationStage, null, "consolidação", failures);
+        Map<String, double[]> cfiByCycle = stageResult(cfiStage, null, "CFI_Limpo", failures);
+        stageResult(featuresStage, null, "features", failures);
+        boolean trained = stageResult(trainingStage, false, "treino", failures);
+
+        double baselineCfiForHPI = previous.getBaselineCfi();
+        Map<String, Double> cfiCleanMap;
+        if (cfiByCycle != null) {
+            // Previsões são para o casco atual: publica o CFI do ciclo mais recente com dados
+            cfiCleanMap = latestCfiByShip(cfiByCycle);
+            baselineCfiForHPI = cfiCleanMap.values().stream()
                                     .mapToDouble(Double::doubleValue)
                                     .average().orElse(FALLBACK_CFI);
+            System.out.println("   - CFI Específico médio da frota: " + baselineCfiForHPI);
+        } else {
+            cfiCleanMap = previous.getCfiClean();
+        }
 
-            // ATUALIZA A CONSTANTE GLOBAL PARA QUE featureEngineering A USE
-            HPI_BASELINE_CONSUMPTION = baselineCfiForHPI;
-            System.out.println("Etapa 1.5: Calcula o CFI Específico: " + HPI_BASELINE_CONSUMPTION);
+        ShipLookupState published = new ShipLookupState(lookupVersion.incrementAndGet(),
+            shipDetailsMap, lastCleaningMap, revestimentosMap, cfiCleanMap, baselineCfiForHPI);
+        lookupState.set(published);
+        // Os mapas dos CSVs e o CFI por navio podem ter mudado: os perfis em cache ficaram velhos
+        shipProfileCache.invalidateAll();
+        TrainedModelSnapshot model = currentModel.get();
+        eventPublisher.publishEvent(new ModelSwappedEvent(model != null ? model.getVersion() : 0L));
+        if (trained && inputHash != null) {
+            saveSnapshot(inputHash, published);
+        }
 
-            // 2. ENGENHARIA DE FEATURES: Passa o mapa de docagem
-            List<TrainingDataRecord> trainingData = featureEngineering(rawData, lastCleaningMap);
-            System.out.println("Etapa 2: Engenharia de Features concluída. Dados para treino: " + trainingData.size());
+        lastStageTimes = Collections.unmodifiableMap(new LinkedHashMap<>(stageTimes));
+        long total = System.currentTimeMillis() - inicio;
+        long soma = stageTimes.values().stream().mapToLong(Long::longValue).sum();
+        System.out.println((failures.isEmpty() ? "✅" : "⚠️") + " Pipeline concluído em " + total
+            + " ms (soma das etapas: " + soma + " ms) " + stageTimes);
 
+        if (!failures.isEmpty()) {
+            // Publicado o que deu certo; o erro segue para quem disparou o pipeline (status do retreino)
+            throw new IllegalStateException("Etapas com falha no pipeline: " + String.join(", ", failures.values()));
+        }
+    }
 
-            carregarDadosRevestimento(REVESTIMENTO_FILE);
-            System.out.println("Etapa 2.5: dados do revestimento");
+    /**
+     * Tempo de parede (ms) de cada etapa da última execução completa do pipeline.
+     */
+    public Map<String, Long> getLastStageTimes() {
+        return lastStageTimes;
+    }
 
-            // 3. TREINAMENTO
-            trainModel(trainingData);
+    @FunctionalInterface
+    private interface StageBody<T> {
+        T run() throws Exception;
+    }
 
-            System.out.println("✅ Etapa 3: Treinamento concluído. Coeficientes calculados.");
+    private <T> CompletableFuture<T> runStage(String nome, Map<String, Long> stageTimes, StageBody<T> body) {
+        return CompletableFuture.supplyAsync(() -> timeStage(nome, stageTimes, body), pipelineExecutor);
+    }
 
-        } catch (IOException e) {
-            System.err.println("❌ Erro no pipeline. Verifique arquivos CSV/formato de data.");
-            e.printStackTrace();
+    private static <T> T timeStage(String nome, Map<String, Long> stageTimes, StageBody<T> body) {
+        long inicio = System.currentTimeMillis();
+        try {
+            return body.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            long duracao = System.currentTimeMillis() - inicio;
+            stageTimes.put(nome, duracao);
+            System.out.println("   ⏱️ Etapa " + nome + ": " + duracao + " ms");
         }
     }
 
-    // --- MÉTODOS DE LEITURA E CONSOLIDAÇÃO ---
-
-    private List<ConsolidatedRecord> consolidateDataFromFiles() throws IOException {
-        final String CONSUMO_FILE = "ResultadoQueryConsumo.csv";
-        final String EVENTOS_FILE = "ResultadoQueryEventos.csv";
+    /**
+     * Aguarda a etapa; se ela (ou uma dependência) falhou, registra e devolve o valor anterior.
+     * Aguarde as etapas na ordem do grafo para que a falha seja atribuída à etapa de origem.
+     */
+    private static <T> T stageResult(CompletableFuture<T> stage, T fallback, String nome, Map<Throwable, String> failures) {
+        try {
+            return stage.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (failures.putIfAbsent(cause, nome) == null) {
+                System.err.println("❌ Erro na etapa " + nome + ": " + cause.getMessage());
+            }
+            return fallback;
+        }
+    }
 
-        Map<String, Double> consumptionMap = readConsumptionData(CONSUMO_FILE);
+    private static final List<String> SNAPSHOT_CSV_INPUTS = List.of(SHIP_DETAILS_FILE, DOCAGEM_FILE, REVESTIMENTO_FILE);
 
-        return readEventDataAndJoin(EVENTOS_FILE, consumptionMap);
+    private String computeInputHash() {
+        if (!snapshotStore.isEnabled()) {
+            return null;
+        }
+        try {
+            return snapshotStore.computeInputHash(SNAPSHOT_CSV_INPUTS, trainingConfig());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("   - Não foi possível calcular o hash das entradas (" + e.getMessage() + "): snapshot desativado nesta execução.");
+            return null;
+        }
     }
 
-    private Map<String, Double> readConsumptionData(String filePath) throws IOException {
-        Map<String, Double> consumptionMap = new HashMap<>();
-
-        try (Reader in = new FileReader(new ClassPathResource(filePath).getFile())) {
-            Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                    .builder()
-                    .setHeader("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION")
-                    .setSkipHeaderRecord(true)
-                    .build()
-                    .parse(in);
+    /**
+     * Configuração que muda o modelo treinado com os mesmos dados: entra no hash do snapshot.
+     */
+    private Map<String, Object> trainingConfig() {
+        return Map.of(
+            "model.training.shard-size", trainingShardSize,
+            "model.hierarchy.enabled", hierarchyEnabled,
+            "model.hierarchy.min-rows", hierarchyMinRows,
+            "model.hierarchy.prior-strength", hierarchyPriorStrength);
+    }
 
-            for (CSVRecord record : records) {
-                String sessionId = record.get("SESSION_ID");
-                try {
-                    double quantity = Double.parseDouble(record.get("CONSUMED_QUANTITY").trim());
-                    if (quantity > 0) {
-                        consumptionMap.put(sessionId, quantity);
-                    }
-                } catch (NumberFormatException ignored) {}
-            }
+    /**
+     * Republica modelo, estatísticas e mapas gravados no último treino, se as entradas não mudaram desde então.
+     */
+    private boolean warmStartFromSnapshot(String inputHash) {
+        long inicio = System.currentTimeMillis();
+        ModelSnapshotStore.Contents contents = snapshotStore.load(inputHash).orElse(null);
+        if (contents == null) {
+            return false;
+        }
+        TrainedModelSnapshot saved = contents.getModel();
+        ShipLookupState savedState = contents.getLookupState();
+        // As estatísticas do snapshot contêm as sessões do banco de quando ele foi gravado (hash de entrada igual)
+        Set<String> sessoesTreinadas = new HashSet<>(eventoNavegacaoRepository.findTrainingSessionIds());
+        TrainedModelSnapshot snapshot;
+        synchronized (trainingLock) {
+            snapshot = createSnapshot(modelVersion.incrementAndGet(), saved.getTrainedAt(), saved.getCoefficients(),
+                saved.getCovariance(), saved.getRSquared(), saved.getTrainingRows())
+                .withSegments(saved.getClassModels(), saved.getShipModels());
+            currentModel.set(snapshot);
+            trainingStats = contents.getTrainingStats();
+            trainedSessions = sessoesTreinadas;
+            onlineContributions.clear();
+            trainingGeneration++;
         }
-        System.out.println("   - Consumo mapeado para " + consumptionMap.size() + " sessões.");
-        return consumptionMap;
+        lookupState.set(new ShipLookupState(lookupVersion.incrementAndGet(), savedState.getShipDetails(),
+            savedState.getLastDockingDates(), savedState.getRevestimentos(), savedState.getCfiClean(), savedState.getBaselineCfi()));
+        shipProfileCache.invalidateAll();
+        eventPublisher.publishEvent(new ModelSwappedEvent(snapshot.getVersion()));
+        System.out.println("⚡ Modelo v" + snapshot.getVersion() + " carregado do snapshot em "
+            + (System.currentTimeMillis() - inicio) + " ms (treinado em " + saved.getTrainedAt() + ").");
+        return true;
     }
 
-    private List<ConsolidatedRecord> readEventDataAndJoin(String filePath, Map<String, Double> consumptionMap) throws IOException {
-        List<ConsolidatedRecord> consolidatedList = new ArrayList<>();
+    private void saveSnapshot(String inputHash, ShipLookupState state) {
+        TrainedModelSnapshot model;
+        RegressionAccumulator stats;
+        synchronized (trainingLock) {
+            model = currentModel.get();
+            stats = trainingStats != null ? trainingStats.copy() : null;
+        }
+        try {
+            snapshotStore.save(new ModelSnapshotStore.Contents(inputHash, model, stats, state));
+            System.out.println("   - Snapshot do modelo v" + model.getVersion() + " gravado.");
+        } catch (IOException | RuntimeException e) {
+            // O modelo já está publicado: sem snapshot, o próximo boot só treina de novo
+            System.err.println("   - Falha ao gravar o snapshot do modelo: " + e.getMessage());
+        }
+    }
 
-        // try (Reader reader = new FileReader(filePath);//le da raiz o outro le da resources
-        try (Reader in = new FileReader(new ClassPathResource(filePath).getFile())) {
+    // --- MÉTODOS DE LEITURA E CONSOLIDAÇÃO ---
 
-            // Colunas do Eventos: sessionId, shipName, class, startGMTDate, duration, aftDraft, etc.
-            Iterable<CSVRecord> records = CSVFormat.DEFAULT
-                    .builder()
-                    .setSkipHeaderRecord(true)
-                    .setHeader("sessionId", "shipName", "class", "eventName", "startGMTDate", "endGMTDate", "duration", "distance", "aftDraft", "fwdDraft", "midDraft", "TRIM", "displacement", "beaufortScale", "seaCondition", "beaufortScaleDesc", "seaConditionDesc", "speed", "speedGps", "Porto", "decLatitude", "decLongitude")
-                    .build()
-                    .parse(in);
+    /**
+     * Lê as sessões de treino (evento de navegação + consumo da sessão) direto do banco, em streaming.
+     * O banco é a fonte única: tudo o que foi importado ou cadastrado pela API entra no treino.
+     */
+    TrainingDataset consolidateDataFromDatabase() {
+        TrainingDataset consolidated = new TrainingDataset();
+        // Poucos navios e milhares de sessões: normaliza cada nome uma vez só
+        Map<String, Integer> shipIds = new HashMap<>();
+        trainingDataSource.forEachTrainingSession(session -> addSession(consolidated, shipIds, session));
+        return consolidated;
+    }
 
-            for (CSVRecord record : records) {
-                String sessionId = record.get("sessionId");
-
-                if (consumptionMap.containsKey(sessionId)) {
-                    try {
-                        double speed = Double.parseDouble(record.get("speed").trim());
-                        double aftDraft = Double.parseDouble(record.get("aftDraft").trim());
-                        double fwdDraft = Double.parseDouble(record.get("fwdDraft").trim());
-                        double displacement = Double.parseDouble(record.get("displacement").trim());
-                        double duration = Double.parseDouble(record.get("duration").trim());
-                        String beaufortScaleStr = record.get("beaufortScale").trim();
-                        String beaufortDesc = record.get("beaufortScaleDesc").trim();
-
-                        int beaufortScale = 0;
-                        try {
-                            // Tenta ler o valor
-                            beaufortScale = Integer.parseInt(beaufortScaleStr);
-                        } catch (NumberFormatException ignored) {
-                            if (!beaufortDesc.isEmpty() && beaufortDesc.matches("^\\d+[\\s-].*")) {
-                                try {
-                                    beaufortScale = Integer.parseInt(beaufortDesc.substring(0, 1));
-                                } catch (Exception e2) {
-                                }
-                            }
-                        }
-
-                        ConsolidatedRecord rec = new ConsolidatedRecord(
-                            sessionId, normalizeShipId(record.get("shipName")), record.get("class"), record.get("eventName"), record.get("startGMTDate"),
-                            consumptionMap.get(sessionId), duration, speed, aftDraft, fwdDraft, displacement, beaufortScale
-                        );
-
-                        // Filtro: Consumo é relevante apenas para sessões de navegação
-                        if (rec.getSpeed() > 1.0 && rec.getDuration() > 1.0) {
-                            consolidatedList.add(rec);
-                        }
-
-                    } catch (NumberFormatException | NullPointerException ignored) {
-                        // Ignora registros com dados numéricos inválidos ou nulos
-                    }
-                }
-            }
-        }
-        return consolidatedList;
+    private void addSession(TrainingDataset consolidated, Map<String, Integer> shipIds, TrainingSessionView session) {
+        consolidated.addSessionId(session.getSessionId());
+        consolidated.add(
+            shipIds.computeIfAbsent(session.getNavioNome(), nome -> {
+                int shipId = consolidated.internShip(shipIdentity.canonical(nome));
+                consolidated.setShipClass(shipId, session.getClasse());
+                return shipId;
+            }),
+            session.getStartGMTDate() != null ? (int) session.getStartGMTDate().toLocalDate().toEpochDay() : TrainingDataset.NO_DATE,
+            session.getConsumedQuantity(),
+            session.getDuration(),
+            session.getAftDraft() != null ? session.getAftDraft() : 0.0,
+            session.getFwdDraft() != null ? session.getFwdDraft() : 0.0,
+            session.getDisplacement() != null ? session.getDisplacement() : 0.0,
+            session.getBeaufortScale() != null ? session.getBeaufortScale() : 0,
+            // Classe cadastrada do navio; a importação de eventos a preenche com a coluna class da exportação
+            "Aframax".equals(session.getClasse())
+        );
     }
 
     // --- MÉTODOS DE ENGENHARIA E TREINAMENTO ---
 
     /**
      * ETAPA 2: Calcula HPI, Dias Desde Limpeza e Features de controle.
-     * @param lastCleaningMap
+     * Cada evento é atribuído ao ciclo de casco (docagem anterior mais recente) em que ocorreu.
+     * @param dockingHistory docagens de cada navio
+     * @param cfiByCycle CFI_Limpo de cada ciclo, alinhado a {@link DockingHistory#dockingDays(String)} (NaN = sem dados)
+     * @param cfiCleanMap CFI_Limpo por navio, usado nos ciclos sem dados na janela pós-limpeza
      */
-    private List<TrainingDataRecord> featureEngineering(List<ConsolidatedRecord> rawData, Map<String,LocalDate> lastCleaningMap) {
-
-        List<TrainingDataRecord> trainingData = new ArrayList<>();
+    TrainingFeatures featureEngineering(TrainingDataset rawData, DockingHistory dockingHistory,
+                                        Map<String, double[]> cfiByCycle, Map<String, Double> cfiCleanMap) {
+
+        // Docagens e CFI resolvidos uma vez por navio do dicionário, não por registro
+        int[][] dockingDays = dockingDaysByShip(rawData, dockingHistory);
+        double[][] cycleCfi = new double[rawData.shipCount()][];
+        double[] cfiCleanByShip = new double[rawData.shipCount()];
+        for (int shipId = 0; shipId < cfiCleanByShip.length; shipId++) {
+            cycleCfi[shipId] = cfiByCycle.get(rawData.shipName(shipId));
+            cfiCleanByShip[shipId] = cfiCleanMap.getOrDefault(rawData.shipName(shipId), FALLBACK_CFI);
+        }
 
-        for (ConsolidatedRecord rec : rawData) {
+        TrainingFeatures trainingData = new TrainingFeatures(rawData.size());
 
-            // 1. CALCULAR DIAS DESDE LIMPEZA (X1)
-            LocalDate eventDate = parseDate(rec.getStartGMTDate());
-            LocalDate lastCleaningDate = lastCleaningMap.get(normalizeShipId(rec.getShipName()));
+        for (int row = 0; row < rawData.size(); row++) {
+            int shipId = rawData.ship(row);
 
-            if (lastCleaningDate == null || eventDate == null || eventDate.isBefore(lastCleaningDate)) {
+            // 1. CALCULAR DIAS DESDE LIMPEZA (X1), contados da docagem que abriu o ciclo do evento
+            int eventDay = rawData.eventDay(row);
+            int cycle = DockingHistory.cycleOf(dockingDays[shipId], eventDay);
+            if (cycle == DockingHistory.NO_CYCLE) {
                 continue;
             }
 
-            long daysSinceCleaning = java.time.temporal.ChronoUnit.DAYS.between(lastCleaningDate, eventDate);
+            int daysSinceCleaning = eventDay - dockingDays[shipId][cycle];
             if (daysSinceCleaning < 1) continue;
 
             // 2. CALCULAR HPI (Y) - Simplificado: Consumo Diário / Consumo Base
-            // Consumo Diário: Assumindo que duration está em HORAS.
-            double dailyConsumption = rec.getConsumedQuantity() / (rec.getDuration() / 24.0);
-
-            // Consumo de Referência: Usar o CFI Limpo ESPECÍFICO do navio.
-            double cfiCleanSpec = getCfiCleanTonPerDay(normalizeShipId(rec.getShipName()));
-
-            // HPI é a razão entre o consumo real e o consumo de referência para uma condição limpa.
-            // Se o CFI específico não for encontrado, getCfiCleanTonPerDay retorna a média da frota (FALLBACK_CFI)
-            double hpiCalculated = dailyConsumption / cfiCleanSpec;
+            // HPI é a razão entre o consumo real e o consumo de referência para uma condição limpa
+            // (CFI Limpo do ciclo; sem dados no ciclo, o do navio; se não houver, o valor padrão FALLBACK_CFI).
+            double cfiClean = cycleCfi[shipId] != null && !Double.isNaN(cycleCfi[shipId][cycle])
+                ? cycleCfi[shipId][cycle] : cfiCleanByShip[shipId];
+            double hpiCalculated = rawData.dailyConsumption(row) / cfiClean;
 
             if (hpiCalculated < 1.0) hpiCalculated = 1.0; // Garante HPI mínimo de 1.0
 
-            // 3. POPULAR O TRAINING DATA RECORD
-            TrainingDataRecord tdr = new TrainingDataRecord();
-            tdr.setHpi(hpiCalculated);
-            tdr.setDiasDesdeLimpeza((double) daysSinceCleaning);
-
-            // Features de Controle (X2, X3)
-            tdr.setTrimAjustado(rec.getAftDraft() - rec.getFwdDraft()); // TRIM
-            tdr.setDeslocamento(rec.getDisplacement());
-            tdr.setBeaufortScaleNumeric(rec.getBeaufortScale()); // X4, se quiser adicionar
-
-            // Adicionar features Dummy para classes de navio se necessário
-            tdr.setClasseAframaxDummy(rec.getClassType().equals("Aframax") ? 1 : 0);
-
-            trainingData.add(tdr);
+            // 3. FEATURES DE CONTROLE (TRIM, deslocamento, Beaufort) E DUMMY DE CLASSE
+            trainingData.add(shipId, cycle, eventDay, hpiCalculated, daysSinceCleaning, rawData.trim(row),
+                rawData.displacement(row), rawData.beaufortScale(row), rawData.isAframax(row));
         }
 
         return trainingData;
     }
 
     /**
-     * Método auxiliar para parsing de String para LocalDate (formato yyyy-MM-dd HH:mm:ss)
+     * Docagens (epoch-days ordenados) de cada navio do dicionário; vazio se desconhecidas.
      */
-    private LocalDate parseDate(String dateString) {
-        try {
-            // Pega apenas a parte da data (os primeiros 10 caracteres)
-            return LocalDate.parse(dateString.substring(0, 10));
-        } catch (Exception e) {
-            return null;
+    private static int[][] dockingDaysByShip(TrainingDataset rawData, DockingHistory dockingHistory) {
+        int[][] days = new int[rawData.shipCount()][];
+        for (int shipId = 0; shipId < days.length; shipId++) {
+            days[shipId] = dockingHistory.dockingDays(rawData.shipName(shipId));
         }
+        return days;
     }
 
+    /**
+     * Monta a matriz de treino (consolidação, docagens, CFI por ciclo e features) sem treinar nem publicar nada.
+     * Usada pelo backtest, que treina e avalia cada fold por conta própria.
+     */
+    public BacktestEngine.Dataset buildTrainingDataset() {
+        TrainingDataset rawData = consolidateDataFromDatabase();
+        DockingHistory dockingHistory = loadDockingHistory(DOCAGEM_FILE);
+        Map<String, double[]> cfiByCycle = calculateCfiClean(rawData, dockingHistory);
+        TrainingFeatures features = featureEngineering(rawData, dockingHistory, cfiByCycle, latestCfiByShip(cfiByCycle));
+        return BacktestEngine.Dataset.of(features, rawData);
+    }
 
     /**
-     * ETAPA 3: Prepara os arrays e treina o modelo.
+     * ETAPA 3: Prepara os arrays e treina o modelo da frota e, se habilitado, os modelos por classe e por navio.
+     * @param rawData dicionário de navios (nome e classe) das linhas de trainingData
+     * @return true se um novo modelo foi publicado
      */
-    private void trainModel(List<TrainingDataRecord> trainingData) {
+    boolean trainModel(TrainingFeatures trainingData, TrainingDataset rawData) {
         // Seus 4 preditores são: Dias Desde Limpeza, TRIM Ajustado, Deslocamento e BeaufortScale
         final int NUM_FEATURES = NUM_MODEL_COEFFICIENTS - 1;
 
         if (trainingData.size() < NUM_FEATURES + 2) {
             System.err.println("   - Dados insuficientes para treinamento. Mínimo: " + (NUM_FEATURES + 2) + " registros.");
-            this.trainedModel = null;
-            return;
-        }
-
-        // Y (Variável Dependente): HPI
-        double[] y = trainingData.stream().mapToDouble(TrainingDataRecord::getHpi).toArray();
-
-        // X (Variáveis Independentes/Features)
-        double[][] x = new double[trainingData.size()][NUM_FEATURES];
-
-        for (int i = 0; i < trainingData.size(); i++) {
-            TrainingDataRecord tdr = trainingData.get(i);
-
-            x[i][0] = tdr.getDiasDesdeLimpeza();       // X1: Dias Desde Limpeza
-            x[i][1] = tdr.getTrimAjustado();           // X2: TRIM
-            x[i][2] = tdr.getDeslocamento();           // X3: Deslocamento
-            x[i][3] = tdr.getBeaufortScaleNumeric();   // X4: Escala Beaufort
-            x[i][4] = (double) tdr.getClasseAframaxDummy(); // X5: Aframax Dummy 
+            return false;
         }
 
         try {
-            this.trainedModel = new OLSMultipleLinearRegression();
-            this.trainedModel.newSampleData(y, x);
+            // Y = HPI; X = features de TrainingFeatures. Os shards acumulam XᵀX/Xᵀy em paralelo e só o sistema p×p é resolvido
+            long inicio = System.currentTimeMillis();
+            RegressionAccumulator stats;
+            RegressionAccumulator.Solution solution;
+            Map<String, SegmentModel> classModels = Map.of();
+            Map<String, SegmentModel> shipModels = Map.of();
+            if (hierarchyEnabled) {
+                String[] shipKeys = new String[rawData.shipCount()];
+                String[] classKeys = new String[rawData.shipCount()];
+                for (int shipId = 0; shipId < shipKeys.length; shipId++) {
+                    shipKeys[shipId] = rawData.shipName(shipId);
+                    classKeys[shipId] = SegmentModel.classKey(rawData.shipClass(shipId));
+                }
+                HierarchicalModelTrainer trainer = new HierarchicalModelTrainer(trainingPool, trainingShardSize,
+                    hierarchyMinRows, hierarchyPriorStrength);
+                HierarchicalModelTrainer.Result result = trainer.train(GramTrainingEngine.fromFeatures(trainingData),
+                    trainingData::ship, shipKeys, classKeys);
+                stats = result.getGlobalStats();
+                solution = result.getGlobal();
+                classModels = toSegmentModels(SegmentModel.Level.CLASS, result.getClassModels());
+                shipModels = toSegmentModels(SegmentModel.Level.SHIP, result.getShipModels());
+            } else {
+                GramTrainingEngine engine = new GramTrainingEngine(trainingPool, trainingShardSize);
+                stats = engine.accumulate(GramTrainingEngine.fromFeatures(trainingData));
+                solution = stats.solve();
+            }
 
-            double[] coefficients = this.trainedModel.estimateRegressionParameters();
+            double[] coefficients = solution.getCoefficients();
+            double[][] covariance = solution.getCovariance();
+            double rSquared = solution.getRSquared();
+            System.out.println("   - Regressão resolvida em " + (System.currentTimeMillis() - inicio) + " ms ("
+                + trainingPool.getParallelism() + " threads).");
 
             System.out.println("   - Coeficientes (Inclui Intercepto + " + NUM_FEATURES + " Features):");
             System.out.println("     Intercepto: " + String.format("%.4f", coefficients[0]));
@@ -477,102 +708,300 @@ public class ModelService {
             System.out.println("     Deslocamento: " + String.format("%.6f", coefficients[3]));
             System.out.println("     Beaufort Scale: " + String.format("%.4f", coefficients[4]));
             System.out.println("     Aframax Dummy: " + String.format("%.4f", coefficients[5])); 
+            if (hierarchyEnabled) {
+                System.out.println("   - Modelos específicos: " + classModels.size() + " por classe, " + shipModels.size()
+                    + " por navio (mínimo " + hierarchyMinRows + " registros).");
+            }
+
+            synchronized (trainingLock) {
+                TrainedModelSnapshot snapshot = createSnapshot(modelVersion.incrementAndGet(), coefficients, covariance, rSquared, trainingData.size())
+                    .withSegments(classModels, shipModels);
+                currentModel.set(snapshot);
+                trainingStats = stats;
+                trainedSessions = rawData.sessionIds();
+                onlineContributions.clear();
+                trainingGeneration++;
+                System.out.println("   - Modelo v" + snapshot.getVersion() + " publicado (R² = " + String.format("%.4f", rSquared) + ").");
+            }
+            return true;
 
         } catch (Exception e) {
+            // Mantém o modelo anterior publicado (se houver)
             System.err.println("   - Erro fatal durante o cálculo da Regressão: " + e.getMessage());
-            this.trainedModel = null;
+            return false;
         }
     }
 
+    // --- ATUALIZAÇÃO INCREMENTAL (ONLINE) ---
+
     /**
-     * Calcula o Consumo de Combustível Ideal (CFI_Limpo) de cada navio.
-     * O CFI é a média do consumo diário nos dias 3 a 7 após a docagem (onde HPI ~ 1.0).
+     * Novos pares Consumo/EventoNavegacao gravados (API ou importação): atualiza o modelo sem refazer o treino.
+     * Só os pares completos (evento de navegação com consumo) das sessões informadas entram nas estatísticas.
+     * Cada sessão entra uma vez: o mesmo evento chega de novo a cada combustível da sessão e a cada pedaço
+     * da importação que a contém; sessão do treino completo é ignorada e sessão já somada aqui é trocada.
+     * O custo é O(p²) por sessão, independente do tamanho do histórico.
      */
-    private void calculateCfiClean(List<ConsolidatedRecord> rawData, Map<String, LocalDate> lastDockingMap) {
-
-        // 1. Agrupa o Consumo Diário por Navio e pelo número de Dias Pós-Limpeza
-        Map<String, List<Double>> shipConsumptionPostClean = new HashMap<>();
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainingSessionsWritten(TrainingSessionsWrittenEvent event) {
+        if (!onlineUpdateEnabled || event.getSessionIds().isEmpty()) {
+            return;
+        }
+        TrainedModelSnapshot snapshot = null;
+        boolean aplicada = false;
+        for (int tentativa = 0; tentativa < ONLINE_UPDATE_ATTEMPTS && !aplicada; tentativa++) {
+            long generation;
+            synchronized (trainingLock) {
+                if (trainingStats == null) {
+                    return; // Sem treino completo ainda: as sessões entram no primeiro treino
+                }
+                generation = trainingGeneration;
+            }
 
-        for (ConsolidatedRecord rec : rawData) {
+            Map<String, double[]> contribuicoes = loadSessionContributions(event.getSessionIds());
 
-            LocalDate eventDate = parseDate(rec.getStartGMTDate());
-            LocalDate lastCleaningDate = lastDockingMap.get(normalizeShipId(rec.getShipName()));
+            synchronized (trainingLock) {
+                // Treino completo publicado durante a carga: as estatísticas e as sessões treinadas são outras
+                if (generation == trainingGeneration) {
+                    snapshot = applyOnlineUpdate(event.getSessionIds(), contribuicoes);
+                    aplicada = true;
+                }
+            }
+        }
+        if (!aplicada) {
+            System.err.println("   - Atualização incremental descartada: treinos completos concorrentes; as sessões entram no próximo treino.");
+        } else if (snapshot != null) {
+            eventPublisher.publishEvent(new ModelSwappedEvent(snapshot.getVersion()));
+        }
+    }
 
-            if (lastCleaningDate == null || eventDate == null || eventDate.isBefore(lastCleaningDate)) {
+    /**
+     * Troca na cópia das estatísticas a observação de cada sessão e publica o modelo.
+     * Chamado com trainingLock. Devolve o modelo publicado, ou null se nada mudou.
+     */
+    private TrainedModelSnapshot applyOnlineUpdate(Collection<String> sessionIds, Map<String, double[]> contribuicoes) {
+        RegressionAccumulator updated = trainingStats.copy();
+        Map<String, double[]> alteradas = new HashMap<>(); // null = sessão saiu do treino (ex: consumo removido)
+        int novas = 0;
+        for (String sessionId : new LinkedHashSet<>(sessionIds)) {
+            if (trainedSessions.contains(sessionId)) {
+                continue; // Já contada pelo treino completo; muda só no próximo treino
+            }
+            double[] anterior = onlineContributions.get(sessionId);
+            double[] atual = contribuicoes.get(sessionId);
+            if (anterior != null && atual != null && Arrays.equals(anterior, atual)) {
                 continue;
             }
-
-            long daysPostCleaning = java.time.temporal.ChronoUnit.DAYS.between(lastCleaningDate, eventDate);
-
-            // Filtra apenas os registros na janela "casco limpo" (Dias 3 a 7)
-            if (daysPostCleaning >= DAYS_POST_CLEANING_START && daysPostCleaning <= DAYS_POST_CLEANING_END) {
-
-                // Consumo Diário Real (Ton/Dia)
-                double dailyConsumption = rec.getConsumedQuantity() / (rec.getDuration() / 24.0);
-
-                // Armazena o consumo por navio
-                shipConsumptionPostClean
-                    .computeIfAbsent(normalizeShipId(rec.getShipName()), k -> new ArrayList<>())
-                    .add(dailyConsumption);
+            if (anterior != null) {
+                updated.remove(anterior, anterior[TrainingFeatures.NUM_FEATURES]);
+            } else if (atual != null) {
+                novas++;
             }
+            if (atual != null) {
+                updated.add(atual, atual[TrainingFeatures.NUM_FEATURES]);
+            }
+            if (anterior != null || atual != null) {
+                alteradas.put(sessionId, atual);
+            }
+        }
+        if (alteradas.isEmpty()) {
+            return null;
         }
 
-        // 2. Calcula a média (CFI_Limpo) para cada navio
-        for (Map.Entry<String, List<Double>> entry : shipConsumptionPostClean.entrySet()) {
-            String shipName = normalizeShipId(entry.getKey());
-            List<Double> consumptions = entry.getValue();
+        TrainedModelSnapshot snapshot;
+        try {
+            RegressionAccumulator.Solution solution = updated.solve();
+            // Só o modelo da frota é atualizado; os de classe e navio seguem do último treino completo
+            TrainedModelSnapshot previous = currentModel.get();
+            snapshot = createSnapshot(modelVersion.incrementAndGet(), solution.getCoefficients(),
+                solution.getCovariance(), solution.getRSquared(), (int) updated.getCount())
+                .withSegments(previous.getClassModels(), previous.getShipModels());
+        } catch (RuntimeException e) {
+            // Mantém o modelo, as estatísticas e as sessões anteriores
+            System.err.println("   - Atualização incremental descartada: " + e.getMessage());
+            return null;
+        }
+        trainingStats = updated;
+        alteradas.forEach((sessionId, contribuicao) -> {
+            if (contribuicao != null) {
+                onlineContributions.put(sessionId, contribuicao);
+            } else {
+                onlineContributions.remove(sessionId);
+            }
+        });
+        currentModel.set(snapshot);
+        System.out.println("   - Modelo v" + snapshot.getVersion() + " atualizado com " + novas + " nova(s) sessão(ões) e "
+            + (alteradas.size() - novas) + " alterada(s).");
+        return snapshot;
+    }
 
-            if (!consumptions.isEmpty()) {
-                double avgCfi = consumptions.stream().mapToDouble(Double::doubleValue).average().getAsDouble();
-                cfiCleanMap.put(shipName, avgCfi);
+    /**
+     * Observação (features + HPI na última posição) de cada sessão informada, com a mesma projeção do treino
+     * completo. Sessões novas caem no ciclo atual: basta a última docagem e o CFI publicado de cada navio.
+     * Sessão fora do treino (ex: sem docagem anterior) não aparece no mapa.
+     */
+    private Map<String, double[]> loadSessionContributions(Collection<String> sessionIds) {
+        ShipLookupState state = lookupState.get();
+        DockingHistory docagens = DockingHistory.ofLatest(state.getLastDockingDates());
+        Map<String, double[]> contribuicoes = new HashMap<>();
+        for (TrainingSessionView session : eventoNavegacaoRepository.findTrainingSessionsBySessionIdIn(sessionIds)) {
+            TrainingDataset sessao = new TrainingDataset(1);
+            addSession(sessao, new HashMap<>(), session);
+            TrainingFeatures registro = featureEngineering(sessao, docagens, Map.of(), state.getCfiClean());
+            if (registro.size() == 1) {
+                double[] contribuicao = new double[TrainingFeatures.NUM_FEATURES + 1];
+                registro.fillFeatures(0, contribuicao);
+                contribuicao[TrainingFeatures.NUM_FEATURES] = registro.hpi(0);
+                contribuicoes.put(session.getSessionId(), contribuicao);
             }
         }
+        return contribuicoes;
+    }
 
-        System.out.println("   - CFI_Limpo calculado para " + cfiCleanMap.size() + " navios (usando dias " + DAYS_POST_CLEANING_START + "-" + DAYS_POST_CLEANING_END + ").");
+    /**
+     * Monta o snapshot imutável do modelo, já com os coeficientes ajustados.
+     * Se o modelo tiver menos coeficientes que o esperado, completa com zeros (fallback).
+     */
+    public static TrainedModelSnapshot createSnapshot(long version, double[] rawCoefficients, double[][] covariance,
+                                                      double rSquared, int trainingRows) {
+        return createSnapshot(version, LocalDateTime.now(), rawCoefficients, covariance, rSquared, trainingRows);
     }
 
-    public String normalizeShipId(String shipId) {
-        if (shipId == null || shipId.isEmpty()) {
-            return "";
+    public static TrainedModelSnapshot createSnapshot(long version, LocalDateTime trainedAt, double[] rawCoefficients,
+                                                      double[][] covariance, double rSquared, int trainingRows) {
+        double[] resolved = rawCoefficients;
+        if (rawCoefficients.length < NUM_MODEL_COEFFICIENTS) {
+            double coefDiasFallback = rawCoefficients.length > 1 ? rawCoefficients[1] : DEFAULT_DEGRADATION_RATE;
+            double coefAjustado = coefDiasFallback > 0 ? coefDiasFallback : DEFAULT_DEGRADATION_RATE;
+            System.out.println("❌ ERRO: Modelo treinado com número insuficiente de coeficientes (" + rawCoefficients.length + "). Usando Fallback.");
+            resolved = new double[NUM_MODEL_COEFFICIENTS];
+            resolved[0] = rawCoefficients.length > 0 ? rawCoefficients[0] : 1.0;
+            resolved[1] = coefAjustado;
         }
 
-        // 1. Normaliza para o formato NFD (Canonical Decomposition)
-        String normalized = Normalizer.normalize(shipId.trim().toUpperCase(), Normalizer.Form.NFD);
+        return new TrainedModelSnapshot(version, trainedAt, rawCoefficients, adjustCoefficients(resolved, true),
+                covariance, rSquared, trainingRows);
+    }
 
-        // 2. Remove todos os caracteres diacríticos (acentos, cedilha, til)
-        // O regex \\p{InCombiningDiacriticalMarks}+ remove todos os caracteres de marcação combinada.
-        normalized = normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+    /**
+     * Monta o modelo de uma classe ou navio com as mesmas correções de segurança do modelo da frota.
+     */
+    public static SegmentModel createSegmentModel(SegmentModel.Level level, String key, double[] rawCoefficients,
+                                                  double rSquared, int trainingRows) {
+        return new SegmentModel(level, key, rawCoefficients, adjustCoefficients(rawCoefficients, false), rSquared, trainingRows);
+    }
 
-        // 3. Opcional: Remove caracteres que não sejam letras, números ou espaços (se necessário)
-        // Se o nome puder conter traços ou pontos, ajuste este regex.
-        // Para simplificação, focaremos apenas em letras e números.
-        // Exemplo: Substituir outros caracteres não essenciais por espaço ou remover
-        // normalized = normalized.replaceAll("[^A-Z0-9 ]", "");
+    static Map<String, SegmentModel> toSegmentModels(SegmentModel.Level level,
+                                                             Map<String, RegressionAccumulator.Solution> solutions) {
+        Map<String, SegmentModel> models = new HashMap<>();
+        solutions.forEach((key, solution) -> models.put(key, createSegmentModel(level, key, solution.getCoefficients(),
+            solution.getRSquared(), (int) solution.getObservations())));
+        return models;
+    }
 
-        // 4. Substitui espaços múltiplos por um único espaço
-        normalized = normalized.replaceAll("\\s+", " ").trim();
+    // log = false nos modelos de classe/navio: com muitos grupos os avisos só poluiriam o console
+    private static double[] adjustCoefficients(double[] rawCoefficients, boolean log) {
+        double[] adjusted = Arrays.copyOf(rawCoefficients, rawCoefficients.length);
 
-        return normalized;
+        // --- 1. AJUSTE DO COEFICIENTE DE DIAS (Taxa de Degradação) ---
+        double betaDays = rawCoefficients[1];
+        if (betaDays <= 0 || betaDays > 0.005) { // Evita taxas negativas ou irrealisticamente altas (ex: 0.5% por dia)
+            if (log) System.out.println("⚠️ WARNING: Coeficiente de Dias Limpeza inválido/não razoável. Usando taxa padrão.");
+            adjusted[1] = DEFAULT_DEGRADATION_RATE;
+        }
+
+        // --- 2. AJUSTE DO INTERCEPTO (HPI Inicial - Ponto de Partida) ---
+        double intercept = rawCoefficients[0];
+
+        if (intercept < 1.00) {
+            // O HPI não pode ser menor que 1.00 (Eficiência 100%)
+            if (log) System.out.println("⚠️ WARNING: Intercepto abaixo de 1.0. Corrigindo para 1.0.");
+            adjusted[0] = 1.0;
+        } else if (intercept > HPI_ACCEPTABLE_MAX_CLEAN) {
+            // Se o intercepto for muito alto, forçamos para o limite superior aceitável.
+            // Isso simula que o navio foi "limpo" na melhor condição possível.
+            if (log) System.out.println("⚠️ WARNING: Intercepto muito alto. Corrigindo para o limite máximo aceitável (" + HPI_ACCEPTABLE_MAX_CLEAN + ").");
+            adjusted[0] = HPI_ACCEPTABLE_MAX_CLEAN;
+        }
+
+        return adjusted;
     }
 
-    public LocalDate getLastCleaningDate(String shipName) {
-        // Normaliza o nome do navio para MAIÚSCULAS antes da busca
-        String normalizedName = normalizeShipId(shipName);
+    /**
+     * Calcula o Consumo de Combustível Ideal (CFI_Limpo) de cada ciclo de casco de cada navio.
+     * O CFI é a média do consumo diário nos dias 3 a 7 após a docagem que abriu o ciclo (onde HPI ~ 1.0).
+     * @return por navio, um valor por docagem (mesma ordem de {@link DockingHistory#dockingDays(String)}); NaN = sem dados
+     */
+    Map<String, double[]> calculateCfiClean(TrainingDataset rawData, DockingHistory dockingHistory) {
+        // 1. Soma o Consumo Diário por ciclo na janela pós-limpeza (acumuladores por índice do dicionário e do ciclo)
+        int[][] dockingDays = dockingDaysByShip(rawData, dockingHistory);
+        double[][] consumptionSum = new double[dockingDays.length][];
+        int[][] consumptionCount = new int[dockingDays.length][];
+        for (int shipId = 0; shipId < dockingDays.length; shipId++) {
+            consumptionSum[shipId] = new double[dockingDays[shipId].length];
+            consumptionCount[shipId] = new int[dockingDays[shipId].length];
+        }
+
+        for (int row = 0; row < rawData.size(); row++) {
+            int shipId = rawData.ship(row);
+            int eventDay = rawData.eventDay(row);
+            int cycle = DockingHistory.cycleOf(dockingDays[shipId], eventDay);
 
-        // 1. PRIORIDADE: Busca no banco de dados primeiro (dados mais atualizados)
-        Optional<LocalDate> dbDate = navioRepository.findByNome(normalizedName)
-            .flatMap(navio -> docagemRepository.findUltimaDocagemByNavioId(navio.getId()))
-            .map(docagem -> docagem.getDataDocagem());
-        
-        if (dbDate.isPresent()) {
-            LocalDate date = dbDate.get();
-            // Atualiza o cache
-            lastDockingMap.put(normalizedName, date);
-            return date;
+            if (cycle == DockingHistory.NO_CYCLE) {
+                continue;
+            }
+
+            int daysPostCleaning = eventDay - dockingDays[shipId][cycle];
+
+            // Filtra apenas os registros na janela "casco limpo" (Dias 3 a 7)
+            if (daysPostCleaning >= DAYS_POST_CLEANING_START && daysPostCleaning <= DAYS_POST_CLEANING_END) {
+                // Consumo Diário Real (Ton/Dia)
+                consumptionSum[shipId][cycle] += rawData.dailyConsumption(row);
+                consumptionCount[shipId][cycle]++;
+            }
         }
 
-        // 2. Fallback: Busca no mapa (dados do CSV)
-        return lastDockingMap.get(normalizedName);
+        // 2. Calcula a média (CFI_Limpo) de cada ciclo
+        Map<String, double[]> cfiByCycle = new HashMap<>();
+        int ciclos = 0;
+        for (int shipId = 0; shipId < consumptionSum.length; shipId++) {
+            double[] cfi = new double[consumptionSum[shipId].length];
+            boolean anyData = false;
+            for (int cycle = 0; cycle < cfi.length; cycle++) {
+                if (consumptionCount[shipId][cycle] > 0) {
+                    cfi[cycle] = consumptionSum[shipId][cycle] / consumptionCount[shipId][cycle];
+                    anyData = true;
+                    ciclos++;
+                } else {
+                    cfi[cycle] = Double.NaN;
+                }
+            }
+            if (anyData) {
+                cfiByCycle.put(rawData.shipName(shipId), cfi);
+            }
+        }
+
+        System.out.println("   - CFI_Limpo calculado para " + ciclos + " ciclos de " + cfiByCycle.size() + " navios (usando dias " + DAYS_POST_CLEANING_START + "-" + DAYS_POST_CLEANING_END + ").");
+        return cfiByCycle;
+    }
+
+    /**
+     * CFI_Limpo de cada navio: o do ciclo mais recente que tem dados na janela pós-limpeza.
+     */
+    static Map<String, Double> latestCfiByShip(Map<String, double[]> cfiByCycle) {
+        Map<String, Double> cfiCleanMap = new HashMap<>();
+        cfiByCycle.forEach((ship, cfi) -> {
+            for (int cycle = cfi.length - 1; cycle >= 0; cycle--) {
+                if (!Double.isNaN(cfi[cycle])) {
+                    cfiCleanMap.put(ship, cfi[cycle]);
+                    return;
+                }
+            }
+        });
+        return cfiCleanMap;
+    }
+
+    public LocalDate getLastCleaningDate(String shipName) {
+        return getShipProfile(shipName).getLastCleaningDate();
     }
 
     /**
@@ -580,86 +1009,194 @@ public class ModelService {
      * Se não encontrado no mapa, retorna o FALLBACK_CFI.
      */
     public double getCfiCleanTonPerDay(String shipName) {
-        String normalizedName = normalizeShipId(shipName);
+        String normalizedName = shipIdentity.canonical(shipName);
 
         // Retorna o valor específico ou o FALLBACK, se não houver dados limpos
-        return cfiCleanMap.getOrDefault(normalizedName, FALLBACK_CFI);
+        return lookupState.get().getCfiClean().getOrDefault(normalizedName, FALLBACK_CFI);
     }
 
     public int getPeriodoBaseRevestimento(String navioId) {
-        String normalizedName = normalizeShipId(navioId);
-        
-        // 1. PRIORIDADE: Busca no banco de dados primeiro (dados mais atualizados)
-        Optional<Integer> dbPeriodo = navioRepository.findByNome(normalizedName)
-            .flatMap(navio -> revestimentoRepository.findUltimoRevestimentoByNavioId(navio.getId()))
-            .map(rev -> rev.getPeriodoBaseVerificacao());
-        
-        if (dbPeriodo.isPresent()) {
-            int periodo = dbPeriodo.get();
-            // Atualiza o cache se necessário
-            RevestimentoDetail existingDetail = revestimentosMap.get(normalizedName);
-            if (existingDetail == null || existingDetail.getPeriodoBaseVerificacao() != periodo) {
-                navioRepository.findByNome(normalizedName)
-                    .flatMap(navio -> revestimentoRepository.findUltimoRevestimentoByNavioId(navio.getId()))
-                    .ifPresent(rev -> {
-                        RevestimentoDetail detail = new RevestimentoDetail(
-                            normalizedName,
-                            rev.getPeriodoBaseVerificacao(),
-                            rev.getDataAplicacao()
-                        );
-                        revestimentosMap.put(normalizedName, detail);
-                    });
-            }
-            return periodo;
+        return getShipProfile(navioId).getPeriodoBaseRevestimento();
+    }
+
+    /**
+     * Método que substitui o FALLBACK e busca o TIPO de CARGA/CLASSE do navio.
+     * ESSENCIAL para determinarHPILimite no PredictionService.
+     */
+    public String getShipClassType(String navioId) {
+        return getShipProfile(navioId).getShipClass();
+    }
+
+    /**
+     * Perfil de previsão do navio (classe, porte, CFI, última limpeza, período base).
+     * Servido do cache; em caso de miss faz uma única query de projeção no banco.
+     */
+    public ShipProfile getShipProfile(String navioId) {
+        String normalizedName = shipIdentity.canonical(navioId);
+        ShipProfile cached = shipProfileCache.get(normalizedName);
+        if (cached != null) {
+            return cached;
         }
 
-        // 2. Fallback: Busca no mapa (dados do CSV)
-        RevestimentoDetail detail = revestimentosMap.get(normalizedName);
-        if (detail != null) {
-            return detail.getPeriodoBaseVerificacao();
+        long generation = shipProfileCache.generation();
+        ShipProfileView view = navioRepository.findProfileByNome(normalizedName).orElse(null);
+        ShipProfile profile = view == null
+            ? buildShipProfile(normalizedName, null, null, null, null)
+            : buildShipProfile(normalizedName, view.getClasse(), view.getPorteBruto(), view.getUltimaDocagem(), view.getPeriodoBaseRevestimento());
+        shipProfileCache.put(normalizedName, profile, generation);
+        return profile;
+    }
+
+    /**
+     * Descarta os perfis afetados depois que a escrita for confirmada (ou imediatamente, fora de transação).
+     * Alterações no cadastro de navios invalidam tudo, pois uma renomeação muda a chave.
+     * Roda antes dos outros ouvintes, para que caches derivados do perfil não recarreguem o perfil velho.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDataChanged(ShipDataChangedEvent event) {
+        if (event.isTodosOsNavios() || event.getTipo() == ShipDataChangedEvent.Tipo.NAVIO) {
+            shipProfileCache.invalidateAll();
+        } else {
+            shipProfileCache.invalidate(shipIdentity.canonical(event.getNavioNome()));
         }
+    }
 
-        return 52; // média padrão
+    /**
+     * Lista os navios conhecidos (banco de dados + CSVs carregados), já normalizados.
+     * Usado pela previsão em lote quando nenhum navio é informado.
+     */
+    public List<String> getFleetShipIds() {
+        return fleetShipIds(loadFleetSummaries());
     }
 
     /**
-     * Método que substitui o FALLBACK e busca o TIPO de CARGA/CLASSE do navio.
-     * ESSENCIAL para determinarHPILimite no PredictionService.
+     * Perfis de todos os navios conhecidos (ordem de {@link #getFleetShipIds()}), para a previsão da frota inteira.
+     * O cadastro de navios é lido uma vez só e serve tanto para a lista quanto para os perfis.
      */
-    public String getShipClassType(String navioId) {
-        String normalizedName = normalizeShipId(navioId);
-        
-        // 1. PRIORIDADE: Busca no banco de dados primeiro (dados mais atualizados)
-        Optional<String> dbClasse = navioRepository.findByNome(normalizedName)
-            .map(Navio::getClasse)
-            .filter(classe -> classe != null && !classe.isEmpty());
-        
-        if (dbClasse.isPresent()) {
-            String classe = dbClasse.get();
-            // Atualiza o cache se necessário
-            ShipDetail existingDetail = shipDetailsMap.get(normalizedName);
-            if (existingDetail == null || !classe.equals(existingDetail.getShipClass())) {
-                Navio navio = navioRepository.findByNome(normalizedName).orElse(null);
-                if (navio != null && navio.getPorteBruto() != null && navio.getPorteBruto() > 0) {
-                    ShipDetail detail = new ShipDetail(
-                        normalizedName,
-                        classe,
-                        navio.getTipo() != null ? navio.getTipo() : "UNKNOWN",
-                        navio.getPorteBruto()
-                    );
-                    shipDetailsMap.put(normalizedName, detail);
-                }
+    public Map<String, ShipProfile> loadFleetProfiles() {
+        Map<String, ShipSummaryView> navios = loadFleetSummaries();
+        return loadShipProfiles(fleetShipIds(navios), navios);
+    }
+
+    private List<String> fleetShipIds(Map<String, ShipSummaryView> navios) {
+        Set<String> ids = new TreeSet<>(navios.keySet());
+        ShipLookupState state = lookupState.get();
+        ids.addAll(state.getShipDetails().keySet());
+        ids.addAll(state.getLastDockingDates().keySet());
+        ids.remove("");
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Carrega em lote os perfis dos navios informados para a previsão da frota.
+     * Navios em cache não vão ao banco; para os demais executa sempre as mesmas 3 queries
+     * (navios, docagens, revestimentos), qualquer que seja o tamanho do lote.
+     */
+    public Map<String, ShipProfile> loadShipProfiles(Collection<String> navioIds) {
+        return loadShipProfiles(navioIds, null);
+    }
+
+    /**
+     * @param navios cadastro da frota já lido (chave: nome normalizado), ou null para ler só se houver cache miss
+     */
+    private Map<String, ShipProfile> loadShipProfiles(Collection<String> navioIds, Map<String, ShipSummaryView> navios) {
+        Map<String, ShipProfile> profiles = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String navioId : navioIds) {
+            String normalizedName = shipIdentity.canonical(navioId);
+            if (profiles.containsKey(normalizedName) || missing.contains(normalizedName)) {
+                continue;
             }
-            return classe;
+            ShipProfile cached = shipProfileCache.get(normalizedName);
+            if (cached != null) {
+                profiles.put(normalizedName, cached);
+            } else {
+                profiles.put(normalizedName, null); // Reserva a posição para manter a ordem de entrada
+                missing.add(normalizedName);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return profiles;
         }
 
-        // 2. Fallback: Busca no mapa (dados do CSV)
-        ShipDetail detail = shipDetailsMap.get(normalizedName);
-        if (detail != null) {
-            return detail.getShipClass();
+        long generation = shipProfileCache.generation();
+
+        Map<String, ShipSummaryView> naviosDb = navios != null ? navios : loadFleetSummaries();
+
+        Map<String, LocalDate> ultimaDocagemDb = new HashMap<>();
+        docagemRepository.findLatestPerNavio().forEach(docagem ->
+            ultimaDocagemDb.merge(shipIdentity.canonical(docagem.getNavioNome()), docagem.getDataDocagem(),
+                (atual, nova) -> nova.isAfter(atual) ? nova : atual));
+
+        Map<String, LatestRevestimentoView> ultimoRevestimentoDb = new HashMap<>();
+        revestimentoRepository.findLatestPerNavio().forEach(rev ->
+            ultimoRevestimentoDb.merge(shipIdentity.canonical(rev.getNavioNome()), rev,
+                (atual, novo) -> novo.getDataAplicacao().isAfter(atual.getDataAplicacao()) ? novo : atual));
+
+        for (String normalizedName : missing) {
+            ShipSummaryView navio = naviosDb.get(normalizedName);
+            LatestRevestimentoView revestimento = ultimoRevestimentoDb.get(normalizedName);
+            ShipProfile profile = buildShipProfile(normalizedName,
+                navio != null ? navio.getClasse() : null,
+                navio != null ? navio.getPorteBruto() : null,
+                ultimaDocagemDb.get(normalizedName),
+                revestimento != null ? revestimento.getPeriodoBaseVerificacao() : null);
+            shipProfileCache.put(normalizedName, profile, generation);
+            profiles.put(normalizedName, profile);
         }
+        return profiles;
+    }
 
-        return "UNKNOWN";
+    /**
+     * Cadastro de navios por nome normalizado, em uma única query de projeção.
+     */
+    private Map<String, ShipSummaryView> loadFleetSummaries() {
+        Map<String, ShipSummaryView> navios = new HashMap<>();
+        navioRepository.findAllSummaries().forEach(navio -> navios.put(shipIdentity.canonical(navio.getNome()), navio));
+        return navios;
     }
 
-}
\ No newline at end of file
+    /**
+     * Monta o perfil com a mesma prioridade dos getters individuais:
+     * banco de dados primeiro, depois os mapas carregados dos CSVs.
+     */
+    private ShipProfile buildShipProfile(String normalizedName, String classeDb, Double porteBrutoDb,
+                                         LocalDate ultimaDocagemDb, Integer periodoBaseDb) {
+        ShipLookupState state = lookupState.get(); // Uma única leitura: todos os campos vêm da mesma versão
+        ShipDetail detail = state.getShipDetails().get(normalizedName);
+
+        String shipClass = "UNKNOWN";
+        if (classeDb != null && !classeDb.isEmpty()) {
+            shipClass = classeDb;
+        } else if (detail != null) {
+            shipClass = detail.getShipClass();
+        }
+
+        double deadweightTonnage = 0.0;
+        if (porteBrutoDb != null && porteBrutoDb > 0) {
+            deadweightTonnage = porteBrutoDb;
+        } else if (detail != null) {
+            deadweightTonnage = detail.getDeadweightTonnage();
+        }
+
+        LocalDate lastCleaningDate = ultimaDocagemDb != null ? ultimaDocagemDb : state.getLastDockingDates().get(normalizedName);
+
+        int periodoBase = DEFAULT_PERIODO_BASE;
+        if (periodoBaseDb != null) {
+            periodoBase = periodoBaseDb;
+        } else if (state.getRevestimentos().containsKey(normalizedName)) {
+            periodoBase = state.getRevestimentos().get(normalizedName).getPeriodoBaseVerificacao();
+        }
+
+        return new ShipProfile(
+            normalizedName,
+            shipClass,
+            deadweightTonnage,
+            state.getCfiClean().getOrDefault(normalizedName, FALLBACK_CFI),
+            lastCleaningDate,
+            periodoBase
+        );
+    }
+}
@@ -0,0 +1,392 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.RevestimentoDetail;
+import com.hackathonbrasil.transpetro.model.SegmentModel;
+import com.hackathonbrasil.transpetro.model.ShipDetail;
+import com.hackathonbrasil.transpetro.model.ShipLookupState;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import com.hackathonbrasil.transpetro.repository.ConsumoRepository;
+import com.hackathonbrasil.transpetro.repository.DocagemRepository;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
+import com.hackathonbrasil.transpetro.repository.NavioRepository;
+import com.hackathonbrasil.transpetro.repository.RevestimentoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Snapshot binário do modelo treinado (coeficientes, estatísticas suficientes e mapas de consulta por navio),
+ * gravado após cada treino completo. Na inicialização o ModelService carrega o arquivo (memory-mapped)
+ * se o hash das entradas ainda for o mesmo, e só refaz o pipeline quando os dados mudaram.
+ */
+@Service
+public class ModelSnapshotStore {
+
+    private static final int MAGIC = 0x54504D53; // "TPMS"
+    // Incremente ao mudar o layout do arquivo OU o cálculo das features/HPI: invalida snapshots antigos
+    private static final int FORMAT_VERSION = 2;
+
+    @Autowired
+    private NavioRepository navioRepository;
+
+    @Autowired
+    private DocagemRepository docagemRepository;
+
+    @Autowired
+    private RevestimentoRepository revestimentoRepository;
+
+    @Autowired
+    private EventoNavegacaoRepository eventoNavegacaoRepository;
+
+    @Autowired
+    private ConsumoRepository consumoRepository;
+
+    @Value("${model.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${model.snapshot.path:./data/model-snapshot.bin}")
+    private String snapshotPath;
+
+    /**
+     * Conteúdo de um snapshot: o hash das entradas com que foi treinado e o estado a republicar.
+     */
+    public static final class Contents {
+
+        private final String inputHash;
+        private final TrainedModelSnapshot model;
+        private final RegressionAccumulator trainingStats; // Pode ser null
+        private final ShipLookupState lookupState;
+
+        public Contents(String inputHash, TrainedModelSnapshot model, RegressionAccumulator trainingStats,
+                        ShipLookupState lookupState) {
+            this.inputHash = inputHash;
+            this.model = model;
+            this.trainingStats = trainingStats;
+            this.lookupState = lookupState;
+        }
+
+        public String getInputHash() {
+            return inputHash;
+        }
+
+        public TrainedModelSnapshot getModel() {
+            return model;
+        }
+
+        public RegressionAccumulator getTrainingStats() {
+            return trainingStats;
+        }
+
+        public ShipLookupState getLookupState() {
+            return lookupState;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * SHA-256 das entradas do treino: configuração do treino (propriedade → valor), bytes dos CSVs de apoio e o
+     * resumo (linhas, maior id, última alteração) de cada tabela lida pelo pipeline. Custa algumas queries de
+     * agregação, não uma leitura dos dados.
+     */
+    public String computeInputHash(List<String> csvResources, Map<String, ?> trainingConfig) throws IOException {
+        MessageDigest digest = sha256();
+        updateInt(digest, FORMAT_VERSION);
+        updateInt(digest, ModelService.NUM_MODEL_COEFFICIENTS);
+
+        // Ordenada pela chave: o hash não depende da ordem em que o chamador montou o mapa
+        new TreeMap<>(trainingConfig).forEach((property, value) ->
+            digest.update((property + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+
+        byte[] buffer = new byte[8192];
+        for (String resource : csvResources) {
+            digest.update(resource.getBytes(StandardCharsets.UTF_8));
+            ClassPathResource csv = new ClassPathResource(resource);
+            if (!csv.exists()) {
+                updateInt(digest, -1);
+                continue;
+            }
+            try (InputStream in = csv.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+
+        updateFingerprint(digest, "navios", navioRepository.fingerprint());
+        updateFingerprint(digest, "docagens", docagemRepository.fingerprint());
+        updateFingerprint(digest, "revestimentos", revestimentoRepository.fingerprint());
+        updateFingerprint(digest, "eventos_navegacao", eventoNavegacaoRepository.fingerprint());
+        updateFingerprint(digest, "consumos", consumoRepository.fingerprint());
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Carrega o snapshot se existir, estiver íntegro e tiver sido gerado com o mesmo hash de entrada.
+     */
+    public Optional<Contents> load(String expectedInputHash) {
+        Path path = Paths.get(snapshotPath);
+        if (!enabled || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                System.out.println("   - Snapshot do modelo em formato antigo/desconhecido: ignorado.");
+                return Optional.empty();
+            }
+            String inputHash = readString(in);
+            if (!inputHash.equals(expectedInputHash)) {
+                System.out.println("   - Dados de treino mudaram desde o snapshot: treino completo necessário.");
+                return Optional.empty();
+            }
+            return Optional.of(readContents(in, inputHash));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.err.println("   - Snapshot do modelo ilegível (" + e.getMessage() + "): ignorado.");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Grava o snapshot em um arquivo temporário e troca pelo definitivo (nunca deixa um arquivo pela metade).
+     */
+    public void save(Contents contents) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, contents.getInputHash());
+            writeModel(out, contents.getModel());
+            out.writeBoolean(contents.getTrainingStats() != null);
+            if (contents.getTrainingStats() != null) {
+                contents.getTrainingStats().writeTo(out);
+            }
+            writeLookupState(out, contents.getLookupState());
+        }
+
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // --- FORMATO ---
+
+    private static void writeModel(DataOutputStream out, TrainedModelSnapshot model) throws IOException {
+        out.writeLong(model.getTrainedAt().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(model.getTrainedAt().getNano());
+        writeDoubles(out, model.getCoefficients());
+        double[][] covariance = model.getCovariance();
+        out.writeInt(covariance == null ? -1 : covariance.length);
+        if (covariance != null) {
+            for (double[] row : covariance) {
+                writeDoubles(out, row);
+            }
+        }
+        out.writeDouble(model.getRSquared());
+        out.writeInt(model.getTrainingRows());
+        writeSegments(out, model.getClassModels());
+        writeSegments(out, model.getShipModels());
+    }
+
+    // Só os coeficientes brutos: os ajustados são refeitos na leitura, como no modelo da frota
+    private static void writeSegments(DataOutputStream out, Map<String, SegmentModel> segments) throws IOException {
+        out.writeInt(segments.size());
+        for (SegmentModel segment : segments.values()) {
+            writeString(out, segment.getKey());
+            writeDoubles(out, segment.getCoefficients());
+            out.writeDouble(segment.getRSquared());
+            out.writeInt(segment.getTrainingRows());
+        }
+    }
+
+    private static Map<String, SegmentModel> readSegments(ByteBuffer in, SegmentModel.Level level) {
+        int count = checkedSize(in, in.getInt(), Integer.BYTES);
+        Map<String, SegmentModel> segments = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            segments.put(key, ModelService.createSegmentModel(level, key, readDoubles(in), in.getDouble(), in.getInt()));
+        }
+        return segments;
+    }
+
+    private static void writeLookupState(DataOutputStream out, ShipLookupState state) throws IOException {
+        out.writeInt(state.getShipDetails().size());
+        for (ShipDetail detail : state.getShipDetails().values()) {
+            writeString(out, detail.getShipName());
+            writeString(out, detail.getShipClass());
+            writeString(out, detail.getCargoType());
+            out.writeDouble(detail.getDeadweightTonnage());
+        }
+
+        out.writeInt(state.getLastDockingDates().size());
+        for (Map.Entry<String, LocalDate> entry : state.getLastDockingDates().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue().toEpochDay());
+        }
+
+        out.writeInt(state.getRevestimentos().size());
+        for (Map.Entry<String, RevestimentoDetail> entry : state.getRevestimentos().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().getPeriodoBaseVerificacao());
+            out.writeLong(entry.getValue().getDataAplicacao().toEpochDay());
+        }
+
+        out.writeInt(state.getCfiClean().size());
+        for (Map.Entry<String, Double> entry : state.getCfiClean().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+        out.writeDouble(state.getBaselineCfi());
+    }
+
+    private static Contents readContents(ByteBuffer in, String inputHash) {
+        LocalDateTime trainedAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        double[] coefficients = readDoubles(in);
+        int covarianceRows = in.getInt();
+        double[][] covariance = null;
+        if (covarianceRows >= 0) {
+            covariance = new double[checkedSize(in, covarianceRows, Integer.BYTES)][];
+            for (int i = 0; i < covarianceRows; i++) {
+                covariance[i] = readDoubles(in);
+            }
+        }
+        double rSquared = in.getDouble();
+        int trainingRows = in.getInt();
+        // A versão definitiva é atribuída pelo ModelService ao republicar
+        TrainedModelSnapshot model = ModelService.createSnapshot(0L, trainedAt, coefficients, covariance, rSquared, trainingRows)
+            .withSegments(readSegments(in, SegmentModel.Level.CLASS), readSegments(in, SegmentModel.Level.SHIP));
+
+        RegressionAccumulator trainingStats = in.get() != 0 ? RegressionAccumulator.readFrom(in) : null;
+
+        int details = checkedSize(in, in.getInt(), Double.BYTES);
+        Map<String, ShipDetail> shipDetails = new HashMap<>(details * 2);
+        for (int i = 0; i < details; i++) {
+            ShipDetail detail = new ShipDetail(readString(in), readString(in), readString(in), in.getDouble());
+            shipDetails.put(detail.getShipName(), detail);
+        }
+
+        int dockings = checkedSize(in, in.getInt(), Long.BYTES);
+        Map<String, LocalDate> lastDockingDates = new HashMap<>(dockings * 2);
+        for (int i = 0; i < dockings; i++) {
+            lastDockingDates.put(readString(in), LocalDate.ofEpochDay(in.getLong()));
+        }
+
+        int coatings = checkedSize(in, in.getInt(), Integer.BYTES + Long.BYTES);
+        Map<String, RevestimentoDetail> revestimentos = new HashMap<>(coatings * 2);
+        for (int i = 0; i < coatings; i++) {
+            String navio = readString(in);
+            revestimentos.put(navio, new RevestimentoDetail(navio, in.getInt(), LocalDate.ofEpochDay(in.getLong())));
+        }
+
+        int cfis = checkedSize(in, in.getInt(), Double.BYTES);
+        Map<String, Double> cfiClean = new HashMap<>(cfis * 2);
+        for (int i = 0; i < cfis; i++) {
+            cfiClean.put(readString(in), in.getDouble());
+        }
+        double baselineCfi = in.getDouble();
+
+        ShipLookupState lookupState = new ShipLookupState(0L, shipDetails, lastDockingDates, revestimentos, cfiClean, baselineCfi);
+        return new Contents(inputHash, model, trainingStats, lookupState);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(ByteBuffer in) {
+        double[] values = new double[checkedSize(in, in.getInt(), Double.BYTES)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.getDouble();
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[checkedSize(in, in.getInt(), 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Protege contra arquivo corrompido: um tamanho absurdo viraria uma alocação gigante
+    private static int checkedSize(ByteBuffer in, int size, int minBytesPerItem) {
+        if (size < 0 || (long) size * minBytesPerItem > in.remaining()) {
+            throw new IllegalArgumentException("tamanho inválido " + size);
+        }
+        return size;
+    }
+
+    private static void updateFingerprint(MessageDigest digest, String table, TableFingerprintView fingerprint) {
+        digest.update(table.getBytes(StandardCharsets.UTF_8));
+        updateLong(digest, fingerprint.getTotal() != null ? fingerprint.getTotal() : 0L);
+        updateLong(digest, fingerprint.getMaxId() != null ? fingerprint.getMaxId() : 0L);
+        LocalDateTime lastUpdate = fingerprint.getLastUpdate();
+        updateLong(digest, lastUpdate != null ? lastUpdate.toEpochSecond(ZoneOffset.UTC) : 0L);
+        updateInt(digest, lastUpdate != null ? lastUpdate.getNano() : 0);
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+    }
+
+    private static void updateLong(MessageDigest digest, long value) {
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
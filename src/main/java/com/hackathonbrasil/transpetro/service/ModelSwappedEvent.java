@@ -0,0 +1,18 @@
+package com.hackathonbrasil.transpetro.service;
+
+/**
+ * Publicado pelo ModelService ao final de cada carga/treino, depois da troca do modelo
+ * e dos mapas de consulta. Resultados calculados com a versão anterior devem ser descartados.
+ */
+public class ModelSwappedEvent {
+
+    private final long modelVersion; // 0 = nenhum modelo treinado ainda
+
+    public ModelSwappedEvent(long modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
+    public long getModelVersion() {
+        return modelVersion;
+    }
+}
@@ -7,6 +7,7 @@ import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +15,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.text.Normalizer;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,6 +24,12 @@ public class NavioService {
     @Autowired
     private NavioRepository navioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShipIdentity shipIdentity;
+
     private NavioResponseDto toResponseDto(Navio navio) {
         NavioResponseDto dto = new NavioResponseDto();
         dto.setId(navio.getId());
@@ -63,6 +69,7 @@ public class NavioService {
         }
         Navio navio = toEntity(dto);
         navio = navioRepository.save(navio);
+        publicarAlteracao();
         return toResponseDto(navio);
     }
 
@@ -90,6 +97,7 @@ public class NavioService {
         if (dto.getPontal() != null) navio.setPontal(dto.getPontal());
         
         navio = navioRepository.save(navio);
+        publicarAlteracao();
         return toResponseDto(navio);
     }
 
@@ -111,7 +119,7 @@ public class NavioService {
             .collect(Collectors.toList());
 
         Set<String> nomesNormalizados = naviosFromDB.stream()
-            .map(n -> normalizeShipName(n.getNome()))
+            .map(n -> shipIdentity.canonical(n.getNome()))
             .collect(Collectors.toSet());
 
         try {
@@ -126,7 +134,7 @@ public class NavioService {
             for (CSVRecord record : records) {
                 String nomeNavio = record.get("Nome do navio").trim();
                 if (!nomeNavio.isEmpty()) {
-                    String normalized = normalizeShipName(nomeNavio);
+                    String normalized = shipIdentity.canonical(nomeNavio);
                     if (!nomesNormalizados.contains(normalized)) {
                         nomesNormalizados.add(normalized);
                         NavioResponseDto dto = new NavioResponseDto();
@@ -159,21 +167,13 @@ public class NavioService {
         return naviosFromDB;
     }
 
-    private String normalizeShipName(String name) {
-        if (name == null) return "";
-        return Normalizer.normalize(name.trim(), Normalizer.Form.NFD)
-            .replaceAll("[\\p{InCombiningDiacriticalMarks}]", "")
-            .toLowerCase()
-            .replaceAll("\\s+", " ");
-    }
-
     public List<String> listarTodosNomesUnicos() {
         Set<String> nomesUnicosNormalizados = new LinkedHashSet<>();
         Map<String, String> normalizedToOriginal = new HashMap<>();
 
         navioRepository.findAll().forEach(navio -> {
             String nome = navio.getNome().trim();
-            String normalized = normalizeShipName(nome);
+            String normalized = shipIdentity.canonical(nome);
             if (!normalizedToOriginal.containsKey(normalized)) {
                 normalizedToOriginal.put(normalized, nome);
             }
@@ -192,7 +192,7 @@ public class NavioService {
             for (CSVRecord record : records) {
                 String nomeNavio = record.get("Nome do navio").trim();
                 if (!nomeNavio.isEmpty()) {
-                    String normalized = normalizeShipName(nomeNavio);
+                    String normalized = shipIdentity.canonical(nomeNavio);
                     if (!nomesUnicosNormalizados.contains(normalized)) {
                         nomesUnicosNormalizados.add(normalized);
                         normalizedToOriginal.put(normalized, nomeNavio);
@@ -216,6 +216,15 @@ public class NavioService {
             throw new IllegalArgumentException("Navio não encontrado com ID: " + id);
         }
         navioRepository.deleteById(id);
+        publicarAlteracao();
+    }
+
+    /**
+     * Avisa os caches da previsão que o cadastro de navios mudou.
+     * Invalida todos os navios, pois uma renomeação muda a chave do cache.
+     */
+    private void publicarAlteracao() {
+        eventPublisher.publishEvent(ShipDataChangedEvent.todosOsNavios(ShipDataChangedEvent.Tipo.NAVIO));
     }
 }
 
@@ -0,0 +1,275 @@
+package com.hackathonbrasil.transpetro.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Leitura paralela de CSVs grandes em disco local (UTF-8): o arquivo é mapeado em memória e dividido em pedaços
+ * que terminam em quebra de linha fora de aspas. Cada pedaço é decodificado por um worker com o {@link CsvDecoder};
+ * as linhas chegam ao consumidor na ordem do arquivo e na thread de quem chamou (etapa de gravação sequencial).
+ *
+ * A divisão conta aspas pela paridade, então supõe o CSV bem formado (aspas só delimitando campos, como nas exportações).
+ * No máximo {@code 2 x parallelism} pedaços ficam em memória ao mesmo tempo: se a gravação for mais lenta que o
+ * parsing, os workers esperam.
+ */
+public final class ParallelCsvReader {
+
+    public static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Converte o registro atual do decoder no objeto da linha (roda nos workers: sem acesso ao banco).
+     * Devolver null descarta a linha.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(CsvDecoder csv);
+    }
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int chunkBytes;
+
+    public ParallelCsvReader(Executor executor, int parallelism, int chunkBytes) {
+        if (parallelism < 1 || chunkBytes < 1) {
+            throw new IllegalArgumentException("parallelism e chunkBytes devem ser positivos");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Lê o arquivo inteiro (cabeçalho + dados) e entrega as linhas mapeadas, em ordem, ao consumidor.
+     * @return número de registros de dados lidos (inclui os descartados pelo mapper)
+     */
+    public <T> long read(Path file, CsvDecoder.Schema schema, RowMapper<T> mapper, Consumer<? super T> sink) throws IOException {
+        return read(file, schema, mapper, sink, position -> { });
+    }
+
+    /**
+     * Como {@link #read(Path, CsvDecoder.Schema, RowMapper, Consumer)}, informando a posição no arquivo (bytes)
+     * até onde as linhas já foram entregues, a cada pedaço concluído (progresso da importação).
+     */
+    public <T> long read(Path file, CsvDecoder.Schema schema, RowMapper<T> mapper, Consumer<? super T> sink,
+                         LongConsumer delivered) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextRecordStart(channel, 0, size, false);
+            int[] binding;
+            try (CsvDecoder header = new CsvDecoder(reader(channel, 0, headerEnd), schema)) {
+                header.readHeader();
+                binding = header.getBinding();
+            }
+
+            List<long[]> chunks = split(channel, headerEnd, size);
+            ArrayDeque<CompletableFuture<ChunkResult<T>>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            int merged = 0;
+            long records = 0;
+            delivered.accept(headerEnd);
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < 2 * parallelism) {
+                    long[] chunk = chunks.get(next++);
+                    inFlight.add(CompletableFuture.supplyAsync(
+                        () -> parseChunk(channel, chunk[0], chunk[1], schema, binding, mapper), executor));
+                }
+                ChunkResult<T> result = join(inFlight.poll());
+                records += result.records();
+                result.rows().forEach(sink);
+                delivered.accept(chunks.get(merged++)[1]);
+            }
+            return records;
+        }
+    }
+
+    // --- DIVISÃO DO ARQUIVO ---
+
+    /**
+     * Intervalos [início, fim) dos pedaços a partir de {@code from}. Duas passadas paralelas:
+     * conta as aspas de cada pedaço nominal (para saber se a fronteira cai dentro de um campo entre aspas)
+     * e depois avança cada fronteira até o fim do registro em andamento.
+     */
+    private List<long[]> split(FileChannel channel, long from, long size) {
+        int nominal = (int) Math.max(1, (size - from + chunkBytes - 1) / chunkBytes);
+        List<CompletableFuture<Long>> quoteCounts = new ArrayList<>(nominal);
+        for (int i = 0; i < nominal; i++) {
+            long start = from + (long) i * chunkBytes;
+            long end = Math.min(size, start + chunkBytes);
+            quoteCounts.add(CompletableFuture.supplyAsync(() -> countQuotes(channel, start, end), executor));
+        }
+
+        List<CompletableFuture<Long>> starts = new ArrayList<>(nominal);
+        long quotesBefore = 0;
+        for (int i = 0; i < nominal; i++) {
+            long nominalStart = from + (long) i * chunkBytes;
+            boolean insideQuotes = (quotesBefore & 1) == 1;
+            starts.add(i == 0
+                ? CompletableFuture.completedFuture(from)
+                : CompletableFuture.supplyAsync(() -> nextRecordStart(channel, nominalStart, size, insideQuotes), executor));
+            quotesBefore += join(quoteCounts.get(i));
+        }
+
+        List<long[]> chunks = new ArrayList<>(nominal);
+        long previous = from;
+        for (int i = 1; i <= nominal; i++) {
+            // Registro maior que um pedaço: a fronteira seguinte pode ficar antes da atual
+            long end = i < nominal ? Math.max(previous, join(starts.get(i))) : size;
+            if (end > previous) {
+                chunks.add(new long[]{previous, end});
+            }
+            previous = end;
+        }
+        return chunks;
+    }
+
+    private static long countQuotes(FileChannel channel, long start, long end) {
+        ByteBuffer bytes = map(channel, start, end);
+        byte[] block = new byte[BLOCK_SIZE];
+        long quotes = 0;
+        while (bytes.hasRemaining()) {
+            int length = Math.min(block.length, bytes.remaining());
+            bytes.get(block, 0, length); // Cópia em bloco: o laço sobre o array é bem mais rápido que get() no buffer mapeado
+            for (int i = 0; i < length; i++) {
+                if (block[i] == '"') {
+                    quotes++;
+                }
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Posição logo após a primeira quebra de linha fora de aspas a partir de {@code position} (ou o fim do arquivo).
+     * Aspas escapadas ("") alternam o estado duas vezes, então a paridade continua correta.
+     */
+    private static long nextRecordStart(FileChannel channel, long position, long size, boolean insideQuotes) {
+        long windowStart = position;
+        boolean quoted = insideQuotes;
+        while (windowStart < size) {
+            long windowEnd = Math.min(size, windowStart + BLOCK_SIZE);
+            ByteBuffer bytes = map(channel, windowStart, windowEnd);
+            for (int i = 0; bytes.hasRemaining(); i++) {
+                byte b = bytes.get();
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return windowStart + i + 1;
+                }
+            }
+            windowStart = windowEnd;
+        }
+        return size;
+    }
+
+    // --- PARSING DE UM PEDAÇO ---
+
+    private static <T> ChunkResult<T> parseChunk(FileChannel channel, long start, long end, CsvDecoder.Schema schema,
+                                                 int[] binding, RowMapper<T> mapper) {
+        List<T> rows = new ArrayList<>();
+        long records = 0;
+        try (CsvDecoder csv = new CsvDecoder(reader(channel, start, end), schema, binding)) {
+            while (csv.next()) {
+                records++;
+                T row = mapper.map(csv);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ChunkResult<>(rows, records);
+    }
+
+    private record ChunkResult<T>(List<T> rows, long records) {}
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Reader reader(FileChannel channel, long start, long end) {
+        return new ByteBufferReader(map(channel, start, end));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reader UTF-8 sobre o buffer mapeado. Os pedaços começam depois de '\n', que nunca aparece no meio de um
+     * caractere multibyte em UTF-8, então cada pedaço decodifica sozinho. Os bytes passam por um bloco no heap
+     * porque o decoder só usa o caminho rápido (arrays) com buffers de heap.
+     */
+    private static final class ByteBufferReader extends Reader {
+
+        private final ByteBuffer mapped;
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).flip();
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private boolean flushed;
+
+        private ByteBufferReader(ByteBuffer mapped) {
+            this.mapped = mapped;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (flushed) {
+                return -1;
+            }
+            if (block.remaining() < BLOCK_SIZE / 2 && mapped.hasRemaining()) {
+                block.compact(); // Mantém o resto de um caractere multibyte cortado no fim do bloco anterior
+                int count = Math.min(block.remaining(), mapped.remaining());
+                mapped.get(block.array(), block.position(), count);
+                block.position(block.position() + count).flip();
+            }
+            CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+            boolean endOfInput = !mapped.hasRemaining();
+            decoder.decode(block, out, endOfInput);
+            if (endOfInput && !block.hasRemaining()) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+            int read = out.position() - offset;
+            return read == 0 && flushed ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+            // O mapeamento é liberado pelo GC; o canal é fechado por quem abriu
+        }
+    }
+}
@@ -2,15 +2,29 @@ package com.hackathonbrasil.transpetro.service;
 
 import com.hackathonbrasil.transpetro.model.CleaningSuggestionDto;
 import com.hackathonbrasil.transpetro.model.DailyPredictionDto;
-import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import com.hackathonbrasil.transpetro.model.PredictionCacheStatsDto;
+import com.hackathonbrasil.transpetro.model.ProjectionStep;
+import com.hackathonbrasil.transpetro.model.SegmentModel;
+import com.hackathonbrasil.transpetro.model.ShipProfile;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Service
 public class PredictionService {
@@ -18,49 +32,36 @@ public class PredictionService {
     @Autowired
     private ModelService modelService;
 
+    @Autowired
+    private ShipIdentity shipIdentity;
+
+    @Autowired
+    @Qualifier("predictionExecutor")
+    private Executor predictionExecutor;
+
     // --- CONSTANTES DE DECISÃO HPI ---
-    private static final double HPI_LIMITE_DECISAO = 1.08;
     //dias para gerar e analisar o HPI e o Consumo Extra para os próximos 180 dias (cerca de 6 meses), impede que a degradação para um futuro muito distante
     private static final int MAX_PROJECTION_DAYS = 180;
+    // Horizonte máximo aceito pela API (5 anos)
+    private static final int MAX_HORIZON_DAYS = 1825;
+    // Limite de navios por chamada da previsão em lote
+    private static final int MAX_BATCH_SIZE = 500;
 
-    private static final double HPI_THRESHOLD = 1.025;
-    private static final double HPI_LEVEL_4_START = 1.08; // > 8% de perda
-    private static final double HPI_LEVEL_3_START = 1.06; // > 6% de perda
-    private static final double HPI_LEVEL_2_START = HPI_THRESHOLD; // 1.025, o gatilho real de limpeza
-    private static final double DEFAULT_DEGRADATION_RATE = 0.0005;
-    private static final double HPI_ACCEPTABLE_MAX_CLEAN = 1.030; // 3% de perda é o máximo aceitável para um casco "limpo" (Ponto de corte entre Nível 1 e 2)
+    // Cache de previsões: o resultado de um navio só muda com novo modelo, novos dados do navio ou virada do dia.
+    // Os DTOs guardados são compartilhados entre requisições e não devem ser alterados por quem os recebe.
+    private static final int PREDICTION_CACHE_SIZE = 5000;
 
-    private double[] adjustCoefficients(double[] rawCoefficients) {
-        if (rawCoefficients.length < ModelService.NUM_MODEL_COEFFICIENTS) {
-            // Lógica de fallback mantida (se o array for muito curto)
-            return rawCoefficients;
-        }
-
-        double[] adjusted = Arrays.copyOf(rawCoefficients, rawCoefficients.length);
+    private record PredictionKey(String navioId, long modelVersion, LocalDate dia, int horizonDays, ProjectionStep step) {}
 
-        // --- 1. AJUSTE DO COEFICIENTE DE DIAS (Taxa de Degradação) ---
-        double betaDays = rawCoefficients[1];
-        if (betaDays <= 0 || betaDays > 0.005) { // Evita taxas negativas ou irrealisticamente altas (ex: 0.5% por dia)
-            System.out.println("⚠️ WARNING: Coeficiente de Dias Limpeza inválido/não razoável. Usando taxa padrão.");
-            adjusted[1] = DEFAULT_DEGRADATION_RATE;
-        }
+    private final BoundedLruCache<PredictionKey, CleaningSuggestionDto> predictionCache = new BoundedLruCache<>(PREDICTION_CACHE_SIZE);
 
-        // --- 2. AJUSTE DO INTERCEPTO (HPI Inicial - Ponto de Partida) ---
-        double intercept = rawCoefficients[0];
-
-        if (intercept < 1.00) {
-            // O HPI não pode ser menor que 1.00 (Eficiência 100%)
-            System.out.println("⚠️ WARNING: Intercepto abaixo de 1.0. Corrigindo para 1.0.");
-            adjusted[0] = 1.0;
-        } else if (intercept > HPI_ACCEPTABLE_MAX_CLEAN) {
-            // Se o intercepto for muito alto, forçamos para o limite superior aceitável.
-            // Isso simula que o navio foi "limpo" na melhor condição possível.
-            System.out.println("⚠️ WARNING: Intercepto muito alto. Corrigindo para o limite máximo aceitável (" + HPI_ACCEPTABLE_MAX_CLEAN + ").");
-            adjusted[0] = HPI_ACCEPTABLE_MAX_CLEAN;
-        }
+    // Cálculos em andamento por chave (coalescência de requisições simultâneas)
+    private final ConcurrentMap<PredictionKey, CompletableFuture<CleaningSuggestionDto>> inFlightPredictions = new ConcurrentHashMap<>();
 
-        return adjusted;
-    }
+    private static final double HPI_THRESHOLD = 1.025;
+    private static final double HPI_LEVEL_4_START = 1.08; // > 8% de perda
+    private static final double HPI_LEVEL_3_START = 1.06; // > 6% de perda
+    private static final double HPI_LEVEL_2_START = HPI_THRESHOLD; // 1.025, o gatilho real de limpeza
 
     private int getNivelBioincrustacao(double hpi) {
         // Nível 4 (Ação mais urgente)
@@ -92,34 +93,6 @@ public class PredictionService {
         }
     }
 
-    /**
-     * Mapeia o HPI projetado para a Porcentagem de Cobertura da Superfície
-     * (Estimated Incrustation Coverage), seguindo as RNs de Nível de Bioincrustação.
-     * * NOTA: Os limites de HPI são ESTIMATIVAS de correlação entre perda de performance (HPI)
-     * e a cobertura física.
-     * @param hpi O HPI (Hull Performance Index) calculado.
-     * @return A porcentagem de cobertura da superfície correspondente ao Nível de Bioincrustação.
-     */
-    private double getEstimatedIncrustationCoverage(double hpi) {
-        if (hpi <= 1.025) {
-            // Nível 0 (0% Cobertura) ou Nível 1 (Microincrustação - Cobertura muito baixa).
-            // Usamos 1.0% como um valor de representação Proativa/Baixa.
-            return 1.0;
-        } else if (hpi <= 1.050) {
-            // Nível 2: Macroincrustação leve (1-15% Cobertura).
-            // Atribuímos o LIMITE MÁXIMO da faixa (15%) para indicar a pior condição do nível.
-            return 15.0;
-        } else if (hpi <= 1.100) {
-            // Nível 3: Macroincrustação moderada (16-40% Cobertura).
-            // Atribuímos o LIMITE MÁXIMO da faixa (40%).
-            return 40.0;
-        } else {
-            // Nível 4: Macroincrustação pesada (41-100% Cobertura).
-            // Atribuímos 100% como a condição mais crítica.
-            return 100.0;
-        }
-    }
-
     /**
      * Realiza uma interpolação linear para mapear um valor (HPI) de uma faixa
      * para outra faixa (Porcentagem de Cobertura).
@@ -165,110 +138,254 @@ public class PredictionService {
     // --- MÉTODO PRINCIPAL DE PREVISÃO ---
 
     public CleaningSuggestionDto suggestCleaningDate(String navioId) {
-        navioId = modelService.normalizeShipId(navioId); // Garante que o navioId esteja em maiúsculas
+        return suggestCleaningDate(navioId, MAX_PROJECTION_DAYS, ProjectionStep.DAILY);
+    }
+
+    /**
+     * Sugere a data de limpeza com horizonte e resolução da série configuráveis.
+     * Com step = NONE, só a data e o resumo são calculados (sem série de previsões).
+     */
+    public CleaningSuggestionDto suggestCleaningDate(String navioId, int horizonDays, ProjectionStep step) {
+        validateProjection(horizonDays, step);
+        navioId = shipIdentity.canonical(navioId); // Mesma chave do ModelService (maiúsculas, sem acentos)
+
+        TrainedModelSnapshot model = modelService.getModelSnapshot();
+        PredictionKey key = new PredictionKey(navioId, versionOf(model), LocalDate.now(), horizonDays, step);
+        CleaningSuggestionDto cached = predictionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
 
-        double cfiCleanTonPerDay = modelService.getCfiCleanTonPerDay(navioId);
-        LocalDate ultimaLimpeza = modelService.getLastCleaningDate(navioId);
+        String normalizedId = navioId;
+        return computeOnce(key, () -> {
+            long generation = predictionCache.generation();
+            // Perfil em cache: sem ida ao banco quando o navio já foi consultado
+            ShipProfile profile = modelService.getShipProfile(normalizedId);
+
+            CleaningSuggestionDto suggestion = buildSuggestion(profile, model, horizonDays, step);
+            predictionCache.put(key, suggestion, generation);
+            return suggestion;
+        });
+    }
+
+    public List<CleaningSuggestionDto> suggestCleaningDates(List<String> navioIds) {
+        return suggestCleaningDates(navioIds, MAX_PROJECTION_DAYS, ProjectionStep.DAILY);
+    }
+
+    /**
+     * Previsão em lote para a frota: os coeficientes são lidos uma única vez, os perfis dos navios
+     * são carregados em uma única carga e cada navio é calculado em paralelo no executor limitado.
+     * Se a lista estiver vazia, calcula a frota inteira. O resultado segue a ordem dos IDs informados.
+     */
+    public List<CleaningSuggestionDto> suggestCleaningDates(List<String> navioIds, int horizonDays, ProjectionStep step) {
+        validateProjection(horizonDays, step);
+        boolean frotaInteira = navioIds == null || navioIds.isEmpty();
+        if (!frotaInteira) {
+            checkBatchSize(navioIds.size());
+        }
+
+        TrainedModelSnapshot model = modelService.getModelSnapshot(); // Mesma versão do modelo para todo o lote
+        LocalDate hoje = LocalDate.now();
+        long generation = predictionCache.generation();
+        // Frota inteira: a lista de navios e os perfis saem da mesma leitura do cadastro
+        Map<String, ShipProfile> profiles = frotaInteira ? modelService.loadFleetProfiles() : modelService.loadShipProfiles(navioIds);
+        List<String> ids = frotaInteira ? new ArrayList<>(profiles.keySet()) : navioIds;
+        if (frotaInteira) {
+            checkBatchSize(ids.size());
+        }
+
+        Map<String, CompletableFuture<CleaningSuggestionDto>> futures = new LinkedHashMap<>();
+        for (ShipProfile profile : profiles.values()) {
+            PredictionKey key = new PredictionKey(profile.getNavioId(), versionOf(model), hoje, horizonDays, step);
+            CleaningSuggestionDto cached = predictionCache.get(key);
+            if (cached != null) {
+                futures.put(profile.getNavioId(), CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            futures.put(profile.getNavioId(), CompletableFuture
+                .supplyAsync(() -> computeOnce(key, () -> {
+                    CleaningSuggestionDto suggestion = buildSuggestion(profile, model, horizonDays, step);
+                    predictionCache.put(key, suggestion, generation);
+                    return suggestion;
+                }), predictionExecutor)
+                .exceptionally(ex -> buildFallbackDto(profile.getNavioId(),
+                    "Erro ao calcular a previsão: " + ex.getMessage(), 1.0, new ArrayList<>(), profile.getCfiCleanTonPerDay())));
+        }
+
+        List<CleaningSuggestionDto> results = new ArrayList<>(ids.size());
+        for (String navioId : ids) {
+            results.add(futures.get(shipIdentity.canonical(navioId)).join());
+        }
+        return results;
+    }
+
+    /**
+     * Datas da série dentro do horizonte. Cada ponto sai da data inicial (inicio + i passos), não do ponto anterior:
+     * no passo mensal, começando no dia 31, fevereiro cai no dia 28 e março volta ao dia 31.
+     */
+    static List<LocalDate> seriesDates(LocalDate inicio, int horizonDays, ProjectionStep step) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (step == ProjectionStep.NONE) {
+            return dates;
+        }
+        LocalDate fimHorizonte = inicio.plusDays(horizonDays);
+        int passo = 0;
+        for (LocalDate data = inicio; data.isBefore(fimHorizonte); data = inicio.plus(++passo, step.getUnit())) {
+            dates.add(data);
+        }
+        return dates;
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("O lote aceita no máximo " + MAX_BATCH_SIZE + " navios.");
+        }
+    }
+
+    /**
+     * Contadores do cache de previsões (acertos, faltas, descartes por tamanho).
+     */
+    public PredictionCacheStatsDto getCacheStats() {
+        long hits = predictionCache.getHits();
+        long misses = predictionCache.getMisses();
+        double hitRate = (hits + misses) == 0 ? 0.0 : (double) hits / (hits + misses);
+        return new PredictionCacheStatsDto(hits, misses, predictionCache.getEvictions(),
+            predictionCache.size(), predictionCache.getMaxSize(), hitRate);
+    }
+
+    /**
+     * Docagem, revestimento ou cadastro do navio mudou: descarta as previsões afetadas.
+     * Roda depois do ModelService, que já descartou o perfil do navio.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipDataChanged(ShipDataChangedEvent event) {
+        if (event.isTodosOsNavios() || event.getTipo() == ShipDataChangedEvent.Tipo.NAVIO) {
+            predictionCache.invalidateAll();
+        } else {
+            String navioId = shipIdentity.canonical(event.getNavioNome());
+            predictionCache.invalidateIf(key -> key.navioId().equals(navioId));
+        }
+    }
+
+    /**
+     * Novo modelo ou novos mapas de consulta publicados: nenhuma previsão anterior continua válida.
+     */
+    @EventListener
+    public void onModelSwapped(ModelSwappedEvent event) {
+        predictionCache.invalidateAll();
+    }
+
+    /**
+     * Single-flight: requisições simultâneas para a mesma chave (navio, versão do modelo, dia, horizonte, resolução)
+     * compartilham um único cálculo. A primeira executa; as demais aguardam o mesmo resultado (ou o mesmo erro).
+     */
+    private CleaningSuggestionDto computeOnce(PredictionKey key, Supplier<CleaningSuggestionDto> loader) {
+        CompletableFuture<CleaningSuggestionDto> call = new CompletableFuture<>();
+        CompletableFuture<CleaningSuggestionDto> inFlight = inFlightPredictions.putIfAbsent(key, call);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            CleaningSuggestionDto suggestion = loader.get();
+            call.complete(suggestion);
+            return suggestion;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            // O resultado já está no cache: quem chegar depois da remoção não recalcula
+            inFlightPredictions.remove(key, call);
+        }
+    }
+
+    private static long versionOf(TrainedModelSnapshot model) {
+        return model != null ? model.getVersion() : 0L;
+    }
+
+    private void validateProjection(int horizonDays, ProjectionStep step) {
+        if (horizonDays < 1 || horizonDays > MAX_HORIZON_DAYS) {
+            throw new IllegalArgumentException("O horizonte deve estar entre 1 e " + MAX_HORIZON_DAYS + " dias.");
+        }
+        if (step == null) {
+            throw new IllegalArgumentException("Resolução da projeção é obrigatória.");
+        }
+    }
+
+    private CleaningSuggestionDto buildSuggestion(ShipProfile profile, TrainedModelSnapshot model, int horizonDays, ProjectionStep step) {
+        String navioId = profile.getNavioId();
+        double cfiCleanTonPerDay = profile.getCfiCleanTonPerDay();
+        LocalDate ultimaLimpeza = profile.getLastCleaningDate();
 
         if (ultimaLimpeza == null) {
             return buildFallbackDto(navioId, "Data da última docagem não encontrada para o navio.", 1.0, new ArrayList<>(), cfiCleanTonPerDay);
         }
 
-        OLSMultipleLinearRegression model = modelService.getTrainedModel();
         if (model == null) {
             return buildFallbackDto(navioId, "Modelo de ML não treinado ou indisponível.", 1.0, new ArrayList<>(), cfiCleanTonPerDay);
         }
 
         // --- 1. CONFIGURAÇÃO DO GATILHO DINÂMICO ---
-        String tipoCarga = modelService.getShipClassType(navioId);
+        String tipoCarga = profile.getShipClass();
         if (tipoCarga == null || tipoCarga.isEmpty()) {
             tipoCarga = "UNKNOWN";
         }
 
         // Calcula o LIMITE DINÂMICO UMA ÚNICA VEZ antes de começar a projeção
-        final double HPI_THRESHOLD_DINAMICO = determinarHPILimite(navioId, tipoCarga);
-        System.out.println("✅ HPI Limite Dinâmico para " + navioId + ": " + String.format("%.3f", HPI_THRESHOLD_DINAMICO));
+        final double HPI_THRESHOLD_DINAMICO = determinarHPILimite(tipoCarga, profile.getPeriodoBaseRevestimento());
 
         // --- 2. PREPARAÇÃO DA PREDIÇÃO ---
-        double[] rawCoefficients = model.estimateRegressionParameters();
-
-        // Lógica de tratamento/ajuste de coeficientes (sua lógica mantida)
-        if (rawCoefficients.length < ModelService.NUM_MODEL_COEFFICIENTS) {
-            double coefDiasFallback = rawCoefficients.length > 1 ? rawCoefficients[1] : DEFAULT_DEGRADATION_RATE;
-            double coefAjustado = coefDiasFallback > 0 ? coefDiasFallback : DEFAULT_DEGRADATION_RATE;
-            System.out.println("❌ ERRO: Modelo treinado com número insuficiente de coeficientes (" + rawCoefficients.length + "). Usando Fallback.");
-            rawCoefficients = new double[] {rawCoefficients[0], coefAjustado, 0.0, 0.0};
-        }
-        double[] coefficients = adjustCoefficients(rawCoefficients);
-
-        double intercept = coefficients[0];
-        double betaDays = coefficients[1];
+        // Modelo mais específico disponível (navio > classe > frota); coeficientes já ajustados no treino:
+        // nenhuma álgebra linear no caminho da requisição
+        SegmentModel segment = model.resolve(navioId, profile.getShipClass());
+        double intercept = segment.getAdjustedCoefficient(0);
+        double betaDays = segment.getAdjustedCoefficient(1);
         // Variáveis de controle de regressão são consideradas zero na projeção futura
-        double betaTrim = coefficients[2];
-        double betaDeslocamento = coefficients[3];
-        double betaBeaufort = coefficients[4];
-        double betaAframax = coefficients[5];
+        double betaTrim = segment.getAdjustedCoefficient(2);
+        double betaDeslocamento = segment.getAdjustedCoefficient(3);
+        double betaBeaufort = segment.getAdjustedCoefficient(4);
+        double betaAframax = segment.getAdjustedCoefficient(5);
         double trimFuture = 0.0;
         double deslocamentoFuture = 0.0;
         double beaufortFuture = 0.0;
-        String shipClass = modelService.getShipClassType(navioId);
-        double aframaxDummyFuture = shipClass.contains("Aframax") ? 1.0 : 0.0;
+        double aframaxDummyFuture = tipoCarga.contains("Aframax") ? 1.0 : 0.0;
 
-        LocalDate dataHoje = LocalDate.now();
-        long daysSinceLastCleaning = ChronoUnit.DAYS.between(ultimaLimpeza, dataHoje);
-
-        // HPI no dia de HOJE (Ponto inicial):
-        double initialHPI = intercept
-                        + (betaDays * daysSinceLastCleaning)
+        // Parte constante do modelo: HPI(dias) = baseHPI + betaDays * dias
+        double baseHPI = intercept
                         + (betaTrim * trimFuture)
                         + (betaDeslocamento * deslocamentoFuture)
                         + (betaBeaufort * beaufortFuture)
                         + (betaAframax * aframaxDummyFuture);
 
-        double predictedHPI = Math.max(1.0, initialHPI);
-
-        // --- 3. PONTO INICIAL (HOJE) ---
-        DailyPredictionDto initialPrediction = new DailyPredictionDto(dataHoje, predictedHPI,0d,0d,getEstimatedIncrustationCoverageGranular(predictedHPI));
-        calculatePerformanceMetrics(initialPrediction, cfiCleanTonPerDay);
+        LocalDate dataHoje = LocalDate.now();
+        long daysSinceLastCleaning = ChronoUnit.DAYS.between(ultimaLimpeza, dataHoje);
+        long lastProjectedDay = daysSinceLastCleaning + horizonDays - 1; // Último dia dentro do horizonte
 
-        List<DailyPredictionDto> predictions = new ArrayList<>();
-        predictions.add(initialPrediction);
-        double maxExtraFuel = initialPrediction.getExtraFuelTonPerDay();
-        LocalDate dataIdeal = null; // Data do gatilho
+        // HPI no dia de HOJE (Ponto inicial):
+        double initialHPI = baseHPI + (betaDays * daysSinceLastCleaning);
 
-        if (initialHPI >= HPI_THRESHOLD_DINAMICO) {
-            dataIdeal = dataHoje;
+        // --- 3. DATA IDEAL (Gatilho de Limpeza) EM FORMA FECHADA ---
+        LocalDate dataIdeal = null;
+        long crossingDay = findThresholdCrossingDay(baseHPI, betaDays, HPI_THRESHOLD_DINAMICO, daysSinceLastCleaning, lastProjectedDay);
+        if (crossingDay >= 0) {
+            dataIdeal = ultimaLimpeza.plusDays(crossingDay);
         }
 
-        // --- 4. Simulação e Projeção Diária (Começa a partir de amanhã) ---
-        long maxDays = daysSinceLastCleaning + MAX_PROJECTION_DAYS;
-
-        for (long days = daysSinceLastCleaning + 1; days < maxDays; days++) {
-            LocalDate predictionDate = ultimaLimpeza.plusDays(days);
-
-            // PREVISÃO DO HPI
-            double calculatedHPI = intercept
-                                 + (betaDays * days)
-                                 + (betaTrim * trimFuture)
-                                 + (betaDeslocamento * deslocamentoFuture)
-                                 + (betaBeaufort * beaufortFuture)
-                                 + (betaAframax * aframaxDummyFuture);
-            predictedHPI = Math.max(1.0, calculatedHPI);
-
-            DailyPredictionDto prediction = new DailyPredictionDto(predictionDate, predictedHPI,0d,0d,getEstimatedIncrustationCoverageGranular(predictedHPI));
-            calculatePerformanceMetrics(prediction, cfiCleanTonPerDay);
+        // O HPI é crescente nos dias, então o maior consumo extra do horizonte está no último dia
+        double finalHPI = Math.max(1.0, baseHPI + (betaDays * lastProjectedDay));
+        double maxExtraFuel = Math.max(
+            Math.max(0.0, cfiCleanTonPerDay * (Math.max(1.0, initialHPI) - 1.0)),
+            Math.max(0.0, cfiCleanTonPerDay * (finalHPI - 1.0)));
 
-            predictions.add(prediction);
-
-            if (prediction.getExtraFuelTonPerDay() > maxExtraFuel) {
-                maxExtraFuel = prediction.getExtraFuelTonPerDay();
-            }
-
-            // --- VERIFICAÇÃO DO LIMITE DINÂMICO (Gatilho de Limpeza) ---
-            if (dataIdeal == null && predictedHPI >= HPI_THRESHOLD_DINAMICO) {
-                dataIdeal = predictionDate;
-                // break; // Atingiu o limite, para a projeção
-            }
+        // --- 4. SÉRIE DE PREVISÕES (Somente na resolução pedida) ---
+        List<DailyPredictionDto> predictions = new ArrayList<>();
+        for (LocalDate predictionDate : seriesDates(dataHoje, horizonDays, step)) {
+            long days = ChronoUnit.DAYS.between(ultimaLimpeza, predictionDate);
+            predictions.add(buildDailyPrediction(predictionDate, baseHPI + (betaDays * days), cfiCleanTonPerDay));
         }
 
         // --- 5. Montagem do DTO Final ---
@@ -280,11 +397,11 @@ public class PredictionService {
             justificativaFinal = "Data de limpeza sugerida: HPI projetado atingiu o limite de performance dinâmico ("
                             + String.format("%.3f", HPI_THRESHOLD_DINAMICO) + ") em " + dataIdeal + ".";
         } else {
-            justificativaFinal = "HPI projetado (" + String.format("%.3f", predictedHPI) + ") não atingiu o limite ("
-                            + String.format("%.3f", HPI_THRESHOLD_DINAMICO) + ") dentro de " + MAX_PROJECTION_DAYS + " dias.";
+            justificativaFinal = "HPI projetado (" + String.format("%.3f", finalHPI) + ") não atingiu o limite ("
+                            + String.format("%.3f", HPI_THRESHOLD_DINAMICO) + ") dentro de " + horizonDays + " dias.";
         }
 
-        double porcentagemComprometimentoAtual = initialPrediction.getEstimatedIncrustationCoverage();
+        double porcentagemComprometimentoAtual = getEstimatedIncrustationCoverageGranular(Math.max(1.0, initialHPI));
 
         return new CleaningSuggestionDto(
             navioId,
@@ -301,6 +418,41 @@ public class PredictionService {
         );
     }
 
+    /**
+     * Resolve em O(1) o primeiro dia (desde a última limpeza) em que HPI(dias) = baseHPI + betaDays * dias
+     * atinge o limite, dentro de [primeiroDia, ultimoDia]. Retorna -1 se o limite não for atingido.
+     * O resultado é conferido nos vizinhos para ficar idêntico à simulação dia a dia (arredondamento de ponto flutuante).
+     */
+    static long findThresholdCrossingDay(double baseHPI, double betaDays, double threshold, long firstDay, long lastDay) {
+        if (hpiAt(baseHPI, betaDays, firstDay) >= threshold) {
+            return firstDay;
+        }
+        if (betaDays <= 0 || hpiAt(baseHPI, betaDays, lastDay) < threshold) {
+            return -1;
+        }
+
+        long day = (long) Math.ceil((threshold - baseHPI) / betaDays);
+        day = Math.max(firstDay + 1, Math.min(lastDay, day));
+        while (day > firstDay + 1 && hpiAt(baseHPI, betaDays, day - 1) >= threshold) {
+            day--;
+        }
+        while (day < lastDay && hpiAt(baseHPI, betaDays, day) < threshold) {
+            day++;
+        }
+        return day;
+    }
+
+    private static double hpiAt(double baseHPI, double betaDays, long days) {
+        return Math.max(1.0, baseHPI + (betaDays * days));
+    }
+
+    private DailyPredictionDto buildDailyPrediction(LocalDate date, double calculatedHPI, double cfiCleanTonPerDay) {
+        double predictedHPI = Math.max(1.0, calculatedHPI);
+        DailyPredictionDto prediction = new DailyPredictionDto(date, predictedHPI, 0d, 0d, getEstimatedIncrustationCoverageGranular(predictedHPI));
+        calculatePerformanceMetrics(prediction, cfiCleanTonPerDay);
+        return prediction;
+    }
+
     // --- Método Auxiliar para Falhas ---
     private CleaningSuggestionDto buildFallbackDto(String navioId, String motivo, double hpi, List<DailyPredictionDto> predictions, double cfiCleanTonPerDay) {
         int nivel = getNivelBioincrustacao(hpi);
@@ -336,6 +488,10 @@ public class PredictionService {
     }
 
     public double determinarHPILimite(String navioId, String tipoCarga) {
+        return determinarHPILimite(tipoCarga, modelService.getPeriodoBaseRevestimento(navioId));
+    }
+
+    private double determinarHPILimite(String tipoCarga, int periodoBase) {
         double hpiBase;
 
         // 1. DEFINE O HPI BASE PELA CLASSE (Derivado do Porte Bruto)
@@ -351,10 +507,7 @@ public class PredictionService {
             hpiBase = 1.0275; // Valor de fallback HPI_THRESHOLD
         }
 
-        // 2. BUSCA O PERÍODO BASE DO REVESTIMENTO (Dado do CSV)
-        int periodoBase = modelService.getPeriodoBaseRevestimento(navioId);
-
-        // 3. APLICA AJUSTE FINO COM BASE NA QUALIDADE DO REVESTIMENTO
+        // 2. APLICA AJUSTE FINO COM BASE NA QUALIDADE DO REVESTIMENTO
         if (periodoBase <= 35) { // Curto Período Base (Revestimento Padrão)
             // Reduz a tolerância (HPI Limite fica mais rigoroso)
             return hpiBase - 0.005;
@@ -0,0 +1,425 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.NonSymmetricMatrixException;
+import org.apache.commons.math3.linear.QRDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Estatísticas suficientes da regressão linear com intercepto (equivalentes a XᵀX, Xᵀy, yᵀy e n).
+ * Cada observação custa O(p²) e os coeficientes saem das equações normais, sem guardar a matriz de dados.
+ * Guarda médias e co-momentos centrados (Welford), que são numericamente mais estáveis que as somas brutas
+ * quando as features têm escalas muito diferentes (ex: deslocamento ~1e5 vs dummy 0/1).
+ * Não é thread-safe: quem usa controla o acesso.
+ */
+public final class RegressionAccumulator {
+
+    private final int numFeatures; // Sem o intercepto
+    private long count;
+    private final double[] meanX;
+    private double meanY;
+    private final double[][] cxx; // Σ (x - x̄)(x - x̄)ᵀ
+    private final double[] cxy;   // Σ (x - x̄)(y - ȳ)
+    private double cyy;           // Σ (y - ȳ)²
+    private final double[] dx;    // Área de trabalho do add (evita alocar por observação)
+
+    // Abaixo deste pivô relativo o QR considera o sistema singular
+    private static final double QR_SINGULARITY_THRESHOLD = 1e-12;
+
+    // Piso da variância do pai no encolhimento (feature sem variação no modelo pai), relativo ao segundo momento
+    private static final double MIN_PRIOR_VARIANCE_RATIO = 1e-6;
+
+    public RegressionAccumulator(int numFeatures) {
+        this.numFeatures = numFeatures;
+        this.meanX = new double[numFeatures];
+        this.cxx = new double[numFeatures][numFeatures];
+        this.cxy = new double[numFeatures];
+        this.dx = new double[numFeatures];
+    }
+
+    /**
+     * Acrescenta uma observação (features sem o intercepto).
+     */
+    public void add(double[] features, double y) {
+        count++;
+        for (int i = 0; i < numFeatures; i++) {
+            dx[i] = features[i] - meanX[i];
+            meanX[i] += dx[i] / count;
+        }
+        double dy = y - meanY;
+        meanY += dy / count;
+
+        double yResidual = y - meanY;
+        for (int i = 0; i < numFeatures; i++) {
+            double[] row = cxx[i];
+            for (int j = 0; j < numFeatures; j++) {
+                row[j] += dx[i] * (features[j] - meanX[j]);
+            }
+            cxy[i] += dx[i] * yResidual;
+        }
+        cyy += dy * yResidual;
+    }
+
+    /**
+     * Retira uma observação somada antes por {@link #add(double[], double)} (Welford ao contrário).
+     * Usado quando a observação de uma sessão muda (ex: mais um combustível gravado na mesma sessão).
+     */
+    public void remove(double[] features, double y) {
+        if (count <= 1) {
+            count = 0;
+            Arrays.fill(meanX, 0.0);
+            meanY = 0.0;
+            for (double[] row : cxx) {
+                Arrays.fill(row, 0.0);
+            }
+            Arrays.fill(cxy, 0.0);
+            cyy = 0.0;
+            return;
+        }
+        long previous = count - 1;
+        // dx contra a média sem a observação; o resíduo contra a média atual (a mesma conta do add)
+        for (int i = 0; i < numFeatures; i++) {
+            double previousMean = (meanX[i] * count - features[i]) / previous;
+            dx[i] = features[i] - previousMean;
+        }
+        double previousMeanY = (meanY * count - y) / previous;
+        double dy = y - previousMeanY;
+
+        double yResidual = y - meanY;
+        for (int i = 0; i < numFeatures; i++) {
+            double[] row = cxx[i];
+            for (int j = 0; j < numFeatures; j++) {
+                row[j] -= dx[i] * (features[j] - meanX[j]);
+            }
+            cxy[i] -= dx[i] * yResidual;
+        }
+        cyy -= dy * yResidual;
+
+        for (int i = 0; i < numFeatures; i++) {
+            meanX[i] = features[i] - dx[i];
+        }
+        meanY = previousMeanY;
+        count = previous;
+    }
+
+    /**
+     * Soma as estatísticas de outro acumulador (ex: outro shard de dados) a este.
+     */
+    public void merge(RegressionAccumulator other) {
+        if (other.numFeatures != numFeatures) {
+            throw new IllegalArgumentException("Acumuladores com número de features diferente");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double factor = (double) count * other.count / total;
+
+        double[] deltaX = new double[numFeatures];
+        for (int i = 0; i < numFeatures; i++) {
+            deltaX[i] = other.meanX[i] - meanX[i];
+        }
+        double deltaY = other.meanY - meanY;
+
+        for (int i = 0; i < numFeatures; i++) {
+            for (int j = 0; j < numFeatures; j++) {
+                cxx[i][j] += other.cxx[i][j] + deltaX[i] * deltaX[j] * factor;
+            }
+            cxy[i] += other.cxy[i] + deltaX[i] * deltaY * factor;
+            meanX[i] += deltaX[i] * other.count / total;
+        }
+        cyy += other.cyy + deltaY * deltaY * factor;
+        meanY += deltaY * other.count / total;
+        count = total;
+    }
+
+    public RegressionAccumulator copy() {
+        RegressionAccumulator copy = new RegressionAccumulator(numFeatures);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Grava o estado completo (usado no snapshot binário do modelo). Formato lido por {@link #readFrom(ByteBuffer)}.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numFeatures);
+        out.writeLong(count);
+        out.writeDouble(meanY);
+        out.writeDouble(cyy);
+        for (int i = 0; i < numFeatures; i++) {
+            out.writeDouble(meanX[i]);
+            out.writeDouble(cxy[i]);
+            for (int j = 0; j < numFeatures; j++) {
+                out.writeDouble(cxx[i][j]);
+            }
+        }
+    }
+
+    static RegressionAccumulator readFrom(ByteBuffer in) {
+        int numFeatures = in.getInt();
+        if (numFeatures < 1 || numFeatures * numFeatures * Double.BYTES > in.remaining()) {
+            throw new IllegalArgumentException("Estado do acumulador inválido: " + numFeatures + " features");
+        }
+        RegressionAccumulator stats = new RegressionAccumulator(numFeatures);
+        stats.count = in.getLong();
+        stats.meanY = in.getDouble();
+        stats.cyy = in.getDouble();
+        for (int i = 0; i < stats.numFeatures; i++) {
+            stats.meanX[i] = in.getDouble();
+            stats.cxy[i] = in.getDouble();
+            for (int j = 0; j < stats.numFeatures; j++) {
+                stats.cxx[i][j] = in.getDouble();
+            }
+        }
+        return stats;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * Resolve as equações normais: coeficientes [intercepto, β1..βp], (XᵀX)⁻¹ e R².
+     * Usa Cholesky; se a matriz não for numericamente positiva definida (features quase colineares),
+     * cai para QR. Lança exceção se o sistema for singular (ex: uma feature constante em todos os registros).
+     */
+    public Solution solve() {
+        int p = numFeatures + 1;
+        if (count <= p) {
+            throw new IllegalStateException("Observações insuficientes: " + count + " (mínimo " + (p + 1) + ")");
+        }
+
+        // Escala pela diagonal (Jacobi) para não misturar ordens de grandeza na fatoração
+        double[] scale = new double[numFeatures];
+        for (int i = 0; i < numFeatures; i++) {
+            if (cxx[i][i] <= 0) {
+                throw new IllegalStateException("Feature " + (i + 1) + " sem variação: sistema singular");
+            }
+            scale[i] = 1.0 / Math.sqrt(cxx[i][i]);
+        }
+        double[][] scaled = new double[numFeatures][numFeatures];
+        double[] rhs = new double[numFeatures];
+        for (int i = 0; i < numFeatures; i++) {
+            for (int j = 0; j < numFeatures; j++) {
+                // Média dos termos simétricos: elimina a assimetria de arredondamento antes da fatoração
+                scaled[i][j] = 0.5 * (cxx[i][j] + cxx[j][i]) * scale[i] * scale[j];
+            }
+            rhs[i] = cxy[i] * scale[i];
+        }
+
+        DecompositionSolver solver = decompose(scaled);
+        double[] z = solver.solve(new ArrayRealVector(rhs, false)).toArray();
+        RealMatrix scaledInverse = solver.getInverse();
+
+        double[] coefficients = new double[p];
+        double intercept = meanY;
+        double explained = 0.0;
+        for (int i = 0; i < numFeatures; i++) {
+            double beta = z[i] * scale[i];
+            coefficients[i + 1] = beta;
+            intercept -= beta * meanX[i];
+            explained += beta * cxy[i];
+        }
+        coefficients[0] = intercept;
+
+        double sse = Math.max(0.0, cyy - explained);
+        double rSquared = cyy > 0 ? 1.0 - sse / cyy : 0.0;
+        double sigma2 = sse / (count - p);
+
+        // (XᵀX)⁻¹ a partir dos termos centrados: bloco das features = Cxx⁻¹;
+        // canto do intercepto = 1/n + x̄ᵀ Cxx⁻¹ x̄; cruzado = -Cxx⁻¹ x̄
+        double[][] inverse = new double[numFeatures][numFeatures];
+        for (int i = 0; i < numFeatures; i++) {
+            for (int j = 0; j < numFeatures; j++) {
+                inverse[i][j] = scaledInverse.getEntry(i, j) * scale[i] * scale[j];
+            }
+        }
+        double[][] covariance = new double[p][p];
+        double quadratic = 0.0;
+        for (int i = 0; i < numFeatures; i++) {
+            double inverseTimesMean = 0.0;
+            for (int j = 0; j < numFeatures; j++) {
+                covariance[i + 1][j + 1] = inverse[i][j];
+                inverseTimesMean += inverse[i][j] * meanX[j];
+            }
+            covariance[0][i + 1] = -inverseTimesMean;
+            covariance[i + 1][0] = covariance[0][i + 1];
+            quadratic += meanX[i] * inverseTimesMean;
+        }
+        covariance[0][0] = 1.0 / count + quadratic;
+
+        return new Solution(coefficients, covariance, rSquared, sigma2, count);
+    }
+
+    /**
+     * Regressão com encolhimento (ridge) em direção aos coeficientes de um modelo pai. O prior equivale a k linhas
+     * "típicas" do pai (médias e variâncias das features do pai, variâncias tomadas como independentes):
+     * minimiza Σ (y - xβ)² + k · E_pai[(x(β - β⁰))²]. Assim mudar o nível do modelo custa pouco e mudar a inclinação
+     * de uma feature custa na proporção da variação dela no pai, sem misturar as escalas (deslocamento ~1e5 vs dummy).
+     * Com n ≪ k o resultado fica perto do pai, com n ≫ k perto do OLS. Para k > 0 o sistema é sempre positivo definido,
+     * mesmo com poucas linhas ou features constantes no grupo (ex: a dummy de classe dentro de uma classe).
+     * A covariância não é calculada (null).
+     * @param prior coeficientes do pai (intercepto primeiro)
+     * @param parent estatísticas do pai (médias e variâncias das features)
+     * @param strength força do prior k, em linhas equivalentes
+     */
+    public Solution solveShrunk(double[] prior, RegressionAccumulator parent, double strength) {
+        int p = numFeatures + 1;
+        if (prior.length != p || parent.numFeatures != numFeatures) {
+            throw new IllegalArgumentException("Prior com " + prior.length + " coeficientes, esperado " + p);
+        }
+        if (strength <= 0) {
+            throw new IllegalArgumentException("Força do prior deve ser positiva");
+        }
+
+        // Equações normais não centradas (coluna 0 = intercepto) a partir dos momentos centrados
+        double[][] normal = new double[p][p];
+        double[] rhs = new double[p];
+        normal[0][0] = count;
+        rhs[0] = count * meanY;
+        for (int i = 0; i < numFeatures; i++) {
+            normal[0][i + 1] = count * meanX[i];
+            normal[i + 1][0] = normal[0][i + 1];
+            for (int j = 0; j < numFeatures; j++) {
+                normal[i + 1][j + 1] = 0.5 * (cxx[i][j] + cxx[j][i]) + count * meanX[i] * meanX[j];
+            }
+            rhs[i + 1] = cxy[i] + count * meanX[i] * meanY;
+        }
+        double[][] gram = new double[p][];
+        for (int i = 0; i < p; i++) {
+            gram[i] = normal[i].clone();
+        }
+
+        // Penalidade k·M, com M = E_pai[x xᵀ] (x com o 1 do intercepto) e só a diagonal da covariância do pai:
+        // soma k·M na matriz e k·M·β⁰ no lado direito. Feature sem variação no pai recebe um piso, para o
+        // coeficiente ficar no valor do pai em vez de deixar o sistema singular.
+        double[] parentMean = new double[p];
+        double[] parentVariance = new double[p];
+        parentMean[0] = 1.0;
+        for (int i = 0; i < numFeatures; i++) {
+            parentMean[i + 1] = parent.meanX[i];
+            double variance = parent.count > 0 ? parent.cxx[i][i] / parent.count : 0.0;
+            parentVariance[i + 1] = Math.max(variance,
+                MIN_PRIOR_VARIANCE_RATIO * (variance + parent.meanX[i] * parent.meanX[i] + 1.0));
+        }
+        for (int i = 0; i < p; i++) {
+            double penaltyTimesPrior = 0.0;
+            for (int j = 0; j < p; j++) {
+                double penalty = strength * (parentMean[i] * parentMean[j] + (i == j ? parentVariance[i] : 0.0));
+                normal[i][j] += penalty;
+                penaltyTimesPrior += penalty * prior[j];
+            }
+            rhs[i] += penaltyTimesPrior;
+        }
+
+        // Escala pela diagonal (Jacobi), como no solve()
+        double[] scale = new double[p];
+        for (int i = 0; i < p; i++) {
+            scale[i] = 1.0 / Math.sqrt(normal[i][i]);
+        }
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < p; j++) {
+                normal[i][j] *= scale[i] * scale[j];
+            }
+            rhs[i] *= scale[i];
+        }
+        double[] z = decompose(normal).solve(new ArrayRealVector(rhs, false)).toArray();
+        double[] coefficients = new double[p];
+        for (int i = 0; i < p; i++) {
+            coefficients[i] = z[i] * scale[i];
+        }
+
+        // SSE = yᵀy - 2βᵀXᵀy + βᵀXᵀXβ, com os termos não penalizados
+        double yty = cyy + count * meanY * meanY;
+        double crossTerm = 0.0;
+        double quadratic = 0.0;
+        for (int i = 0; i < p; i++) {
+            double gramTimesBeta = 0.0;
+            for (int j = 0; j < p; j++) {
+                gramTimesBeta += gram[i][j] * coefficients[j];
+            }
+            quadratic += coefficients[i] * gramTimesBeta;
+            crossTerm += coefficients[i] * (i == 0 ? count * meanY : cxy[i - 1] + count * meanX[i - 1] * meanY);
+        }
+        double sse = Math.max(0.0, yty - 2.0 * crossTerm + quadratic);
+        double rSquared = cyy > 0 ? 1.0 - sse / cyy : 0.0;
+        double sigma2 = count > 0 ? sse / count : 0.0;
+        return new Solution(coefficients, null, rSquared, sigma2, count);
+    }
+
+    private static DecompositionSolver decompose(double[][] matrix) {
+        Array2DRowRealMatrix normal = new Array2DRowRealMatrix(matrix, false);
+        try {
+            return new CholeskyDecomposition(normal).getSolver();
+        } catch (NonPositiveDefiniteMatrixException | NonSymmetricMatrixException e) {
+            DecompositionSolver qr = new QRDecomposition(normal, QR_SINGULARITY_THRESHOLD).getSolver();
+            if (!qr.isNonSingular()) {
+                throw new IllegalStateException("Features colineares: sistema singular", e);
+            }
+            return qr;
+        }
+    }
+
+    /**
+     * Resultado da regressão: coeficientes (intercepto primeiro), (XᵀX)⁻¹ e R².
+     * A matriz segue a convenção do OLSMultipleLinearRegression.estimateRegressionParametersVariance:
+     * multiplique por {@link #getErrorVariance()} para obter a covariância dos coeficientes.
+     */
+    public static final class Solution {
+
+        private final double[] coefficients;
+        private final double[][] covariance; // null na regressão com encolhimento
+        private final double rSquared;
+        private final double errorVariance;
+        private final long observations;
+
+        Solution(double[] coefficients, double[][] covariance, double rSquared, double errorVariance, long observations) {
+            this.coefficients = coefficients;
+            this.covariance = covariance;
+            this.rSquared = rSquared;
+            this.errorVariance = errorVariance;
+            this.observations = observations;
+        }
+
+        public double[] getCoefficients() {
+            return coefficients.clone();
+        }
+
+        public double[][] getCovariance() {
+            if (covariance == null) {
+                return null;
+            }
+            double[][] copy = new double[covariance.length][];
+            for (int i = 0; i < covariance.length; i++) {
+                copy[i] = covariance[i].clone();
+            }
+            return copy;
+        }
+
+        public double getRSquared() {
+            return rSquared;
+        }
+
+        public double getErrorVariance() {
+            return errorVariance;
+        }
+
+        public long getObservations() {
+            return observations;
+        }
+    }
+}
@@ -26,6 +26,9 @@ public class RelatorioService {
     @Autowired
     private NavioRepository navioRepository;
 
+    @Autowired
+    private ShipIdentity shipIdentity;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Tipos de relatório válidos
@@ -87,7 +90,7 @@ public class RelatorioService {
         // Buscar navio pelo nome ou ID
         if (dto.getNavioId() != null && !dto.getNavioId().trim().isEmpty()) {
             String navioNome = dto.getNavioId().trim();
-            Optional<Navio> navioOpt = navioRepository.findByNome(navioNome);
+            Optional<Navio> navioOpt = findNavio(navioNome);
             if (navioOpt.isPresent()) {
                 Navio navio = navioOpt.get();
                 relatorio.setNavio(navio);
@@ -128,6 +131,19 @@ public class RelatorioService {
         return relatorio;
     }
 
+    /**
+     * Busca o navio pelo nome como informado e, se não achar, pela chave canônica
+     * (navios importados dos CSVs são gravados com o nome normalizado: "São Sebastião" -> "SAO SEBASTIAO").
+     */
+    private Optional<Navio> findNavio(String navioNome) {
+        Optional<Navio> navio = navioRepository.findByNome(navioNome);
+        if (navio.isPresent()) {
+            return navio;
+        }
+        String canonical = shipIdentity.canonical(navioNome);
+        return canonical.equals(navioNome) ? navio : navioRepository.findByNome(canonical);
+    }
+
     /**
      * Valida os dados do relatório
      */
@@ -198,7 +214,7 @@ public class RelatorioService {
         // Atualiza os campos
         if (dto.getNavioId() != null && !dto.getNavioId().trim().isEmpty()) {
             String navioNome = dto.getNavioId().trim();
-            Optional<Navio> navioOpt = navioRepository.findByNome(navioNome);
+            Optional<Navio> navioOpt = findNavio(navioNome);
             if (navioOpt.isPresent()) {
                 Navio navio = navioOpt.get();
                 relatorio.setNavio(navio);
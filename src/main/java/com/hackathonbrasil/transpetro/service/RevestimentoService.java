@@ -7,6 +7,7 @@ import com.hackathonbrasil.transpetro.model.RevestimentoResponseDto;
 import com.hackathonbrasil.transpetro.repository.NavioRepository;
 import com.hackathonbrasil.transpetro.repository.RevestimentoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,9 @@ public class RevestimentoService {
     @Autowired
     private NavioRepository navioRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private RevestimentoResponseDto toResponseDto(Revestimento revestimento) {
         RevestimentoResponseDto dto = new RevestimentoResponseDto();
         dto.setId(revestimento.getId());
@@ -52,6 +56,7 @@ public class RevestimentoService {
         revestimento.setParadaMaximaAcumulada(dto.getParadaMaximaAcumulada());
 
         revestimento = revestimentoRepository.save(revestimento);
+        publicarAlteracao(navio);
         return toResponseDto(revestimento);
     }
 
@@ -59,6 +64,7 @@ public class RevestimentoService {
     public RevestimentoResponseDto atualizar(Long id, RevestimentoRequestDto dto) {
         Revestimento revestimento = revestimentoRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Revestimento não encontrado"));
+        publicarAlteracao(revestimento.getNavio()); // Navio anterior (caso o revestimento mude de navio)
 
         if (dto.getNavioId() != null) {
             Navio navio = navioRepository.findById(dto.getNavioId())
@@ -71,6 +77,7 @@ public class RevestimentoService {
         if (dto.getParadaMaximaAcumulada() != null) revestimento.setParadaMaximaAcumulada(dto.getParadaMaximaAcumulada());
 
         revestimento = revestimentoRepository.save(revestimento);
+        publicarAlteracao(revestimento.getNavio());
         return toResponseDto(revestimento);
     }
 
@@ -100,10 +107,17 @@ public class RevestimentoService {
 
     @Transactional
     public void deletar(Long id) {
-        if (!revestimentoRepository.existsById(id)) {
-            throw new IllegalArgumentException("Revestimento não encontrado");
-        }
-        revestimentoRepository.deleteById(id);
+        Revestimento revestimento = revestimentoRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Revestimento não encontrado"));
+        revestimentoRepository.delete(revestimento);
+        publicarAlteracao(revestimento.getNavio());
+    }
+
+    /**
+     * Avisa os caches da previsão (perfil do navio) que o revestimento deste navio mudou.
+     */
+    private void publicarAlteracao(Navio navio) {
+        eventPublisher.publishEvent(new ShipDataChangedEvent(ShipDataChangedEvent.Tipo.REVESTIMENTO, navio.getNome()));
     }
 }
 
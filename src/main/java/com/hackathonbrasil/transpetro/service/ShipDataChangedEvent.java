@@ -0,0 +1,34 @@
+package com.hackathonbrasil.transpetro.service;
+
+/**
+ * Publicado pelos serviços sempre que dados de um navio usados na previsão mudam
+ * (cadastro do navio, docagens, revestimentos). Os caches escutam este evento após o commit.
+ */
+public class ShipDataChangedEvent {
+
+    public enum Tipo { NAVIO, DOCAGEM, REVESTIMENTO }
+
+    private final Tipo tipo;
+    private final String navioNome; // null = todos os navios
+
+    public ShipDataChangedEvent(Tipo tipo, String navioNome) {
+        this.tipo = tipo;
+        this.navioNome = navioNome;
+    }
+
+    public static ShipDataChangedEvent todosOsNavios(Tipo tipo) {
+        return new ShipDataChangedEvent(tipo, null);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public String getNavioNome() {
+        return navioNome;
+    }
+
+    public boolean isTodosOsNavios() {
+        return navioNome == null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chave canônica do navio, a mesma em todos os serviços: maiúsculas, sem acentos e com espaços únicos
+ * (" São  Sebastião " -> "SAO SEBASTIAO"). Os mapas por navio (docagens, CFI, perfis, cache de previsões)
+ * e as comparações entre CSV e banco usam esta chave.
+ *
+ * Cada nome distinto é normalizado uma vez só: o resultado fica num cache LRU limitado e a chave é internada,
+ * então navios iguais compartilham a mesma String (menos memória nos mapas e equals por referência no caso comum).
+ */
+@Service
+public class ShipIdentity {
+
+    // Poucas dezenas de navios, com algumas grafias cada (CSV, banco, parâmetros da API)
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final BoundedLruCache<String, String> canonicalByName;
+
+    public ShipIdentity() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ShipIdentity(int cacheSize) {
+        this.canonicalByName = new BoundedLruCache<>(cacheSize);
+    }
+
+    /**
+     * Chave canônica do nome; "" para nome nulo ou vazio.
+     */
+    public String canonical(String shipName) {
+        if (shipName == null || shipName.isEmpty()) {
+            return "";
+        }
+        String cached = canonicalByName.get(shipName);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = canonicalByName.generation();
+        String key = normalize(shipName).intern();
+        canonicalByName.put(shipName, key, generation);
+        return key;
+    }
+
+    /**
+     * Mesmo navio, mesmo que grafado de forma diferente (acentos, maiúsculas, espaços).
+     */
+    public boolean sameShip(String a, String b) {
+        return canonical(a).equals(canonical(b));
+    }
+
+    /**
+     * Normalização sem cache. Nomes só com ASCII (o caso comum) não passam pela decomposição Unicode.
+     */
+    static String normalize(String shipName) {
+        String normalized = shipName.trim().toUpperCase(Locale.ROOT);
+        if (!isAscii(normalized)) {
+            // NFD separa a letra do acento (Ã -> A + ~); as marcas combinantes são removidas
+            normalized = Normalizer.normalize(normalized, Normalizer.Form.NFD);
+            normalized = DIACRITICS.matcher(normalized).replaceAll("");
+        }
+        if (needsWhitespaceCollapse(normalized)) {
+            normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        }
+        return normalized;
+    }
+
+    public long getCacheHits() {
+        return canonicalByName.getHits();
+    }
+
+    public long getCacheMisses() {
+        return canonicalByName.getMisses();
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Só espaços simples entre palavras dispensam o regex (a remoção de acentos pode deixar espaço nas pontas)
+    private static boolean needsWhitespaceCollapse(String value) {
+        int last = value.length() - 1;
+        for (int i = 0; i <= last; i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) && (c != ' ' || i == 0 || i == last || value.charAt(i + 1) == ' ')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Fonte dos dados de treino: as sessões gravadas nas tabelas eventos_navegacao e consumos.
+ * Fica em um bean separado para que a transação somente-leitura (exigida pelo Stream) seja aplicada
+ * pelo proxy do Spring, o que não aconteceria em uma chamada interna do ModelService.
+ */
+@Service
+public class TrainingDataSource {
+
+    @Autowired
+    private EventoNavegacaoRepository eventoNavegacaoRepository;
+
+    /**
+     * Percorre todas as sessões de treino, uma por vez, sem carregá-las de uma só vez.
+     * @return número de sessões entregues ao consumidor
+     */
+    @Transactional(readOnly = true)
+    public long forEachTrainingSession(Consumer<TrainingSessionView> consumer) {
+        long count = 0;
+        try (Stream<TrainingSessionView> sessions = eventoNavegacaoRepository.streamTrainingSessions()) {
+            Iterator<TrainingSessionView> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,22 @@
+package com.hackathonbrasil.transpetro.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Publicado quando consumos ou eventos de navegação são gravados (API ou importação).
+ * O ModelService usa as sessões para atualizar o modelo de forma incremental.
+ */
+public class TrainingSessionsWrittenEvent {
+
+    private final List<String> sessionIds;
+
+    public TrainingSessionsWrittenEvent(Collection<String> sessionIds) {
+        this.sessionIds = sessionIds.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+}
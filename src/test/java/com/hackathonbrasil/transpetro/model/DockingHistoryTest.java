@@ -0,0 +1,48 @@
+package com.hackathonbrasil.transpetro.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DockingHistoryTest {
+
+    private static final LocalDate DOCAGEM_1 = LocalDate.of(2021, 3, 10);
+    private static final LocalDate DOCAGEM_2 = LocalDate.of(2023, 6, 30);
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    @Test
+    void deveOrdenarERemoverDocagensRepetidas() {
+        DockingHistory history = DockingHistory.of(Map.of("NAVIO A", List.of(DOCAGEM_2, DOCAGEM_1, DOCAGEM_2)));
+
+        assertArrayEquals(new int[] { dia(DOCAGEM_1), dia(DOCAGEM_2) }, history.dockingDays("NAVIO A"));
+        assertEquals(DOCAGEM_2, history.lastDockingDates().get("NAVIO A"));
+        assertEquals(2, history.cycleCount());
+    }
+
+    @Test
+    void eventoDeveCairNoCicloDaDocagemAnterior() {
+        int[] docagens = DockingHistory.of(Map.of("NAVIO A", List.of(DOCAGEM_1, DOCAGEM_2))).dockingDays("NAVIO A");
+
+        assertEquals(DockingHistory.NO_CYCLE, DockingHistory.cycleOf(docagens, dia(DOCAGEM_1) - 1));
+        assertEquals(0, DockingHistory.cycleOf(docagens, dia(DOCAGEM_1)));
+        assertEquals(0, DockingHistory.cycleOf(docagens, dia(DOCAGEM_2) - 1));
+        assertEquals(1, DockingHistory.cycleOf(docagens, dia(DOCAGEM_2)));
+        assertEquals(1, DockingHistory.cycleOf(docagens, dia(DOCAGEM_2) + 400));
+    }
+
+    @Test
+    void navioSemDocagemOuEventoSemDataNaoTemCiclo() {
+        DockingHistory history = DockingHistory.ofLatest(Map.of("NAVIO A", DOCAGEM_2));
+
+        assertEquals(0, history.dockingDays("NAVIO B").length);
+        assertEquals(DockingHistory.NO_CYCLE, DockingHistory.cycleOf(history.dockingDays("NAVIO B"), dia(DOCAGEM_2)));
+        assertEquals(DockingHistory.NO_CYCLE, DockingHistory.cycleOf(history.dockingDays("NAVIO A"), TrainingDataset.NO_DATE));
+    }
+}
@@ -0,0 +1,124 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.BacktestFoldDto;
+import com.hackathonbrasil.transpetro.model.BacktestReportDto;
+import com.hackathonbrasil.transpetro.model.BacktestSplit;
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktestEngineTest {
+
+    private static final double LIMITE_HPI = 1.025;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Frota sintética: metade Suezmax, metade Aframax, cada navio com um desvio próprio de intercepto
+     * e vários ciclos de casco (a contagem de dias recomeça a cada docagem).
+     */
+    static BacktestEngine.Dataset gerarFrota(int navios, int ciclos, int diasPorCiclo, long seed) {
+        Random random = new Random(seed);
+        String[] shipKeys = new String[navios];
+        String[] classKeys = new String[navios];
+        TrainingFeatures features = new TrainingFeatures(navios * ciclos * diasPorCiclo / 3);
+        for (int ship = 0; ship < navios; ship++) {
+            shipKeys[ship] = "NAVIO " + ship;
+            boolean aframax = ship % 2 == 1;
+            classKeys[ship] = aframax ? "AFRAMAX" : "SUEZMAX";
+            double desvio = (random.nextDouble() - 0.5) * 0.02;
+            int docagem = 18000 + random.nextInt(60);
+            for (int ciclo = 0; ciclo < ciclos; ciclo++) {
+                for (int dias = 1 + random.nextInt(3); dias < diasPorCiclo; dias += 3) {
+                    double trim = random.nextGaussian() * 1.5;
+                    double deslocamento = 60000 + random.nextDouble() * 90000;
+                    int beaufort = random.nextInt(9);
+                    double hpi = 1.005 + desvio + 0.0001 * dias + 0.002 * trim + 0.0000001 * deslocamento
+                        + 0.001 * beaufort - 0.003 * (aframax ? 1 : 0) + random.nextGaussian() * 0.002;
+                    features.add(ship, ciclo, docagem + dias, hpi, dias, trim, deslocamento, beaufort, aframax);
+                }
+                docagem += diasPorCiclo;
+            }
+        }
+        return new BacktestEngine.Dataset(features, shipKeys, classKeys);
+    }
+
+    @Test
+    void kFoldDeveAvaliarCadaLinhaUmaVez() {
+        BacktestEngine.Dataset frota = gerarFrota(12, 3, 500, 1);
+        int n = frota.getFeatures().size();
+
+        BacktestReportDto report = new BacktestEngine(pool, 500, 30, 200.0)
+            .run(frota, BacktestSplit.CYCLE, 4, true, LIMITE_HPI);
+
+        assertEquals(4, report.getFoldResults().size());
+        int linhasAvaliadas = 0;
+        for (BacktestFoldDto fold : report.getFoldResults()) {
+            assertNull(fold.getError());
+            assertEquals(n, fold.getTrainingRows() + fold.getTestRows());
+            linhasAvaliadas += fold.getTestRows();
+        }
+        assertEquals(n, linhasAvaliadas);
+        assertEquals(n, report.getEvaluatedRows());
+        assertEquals(0.002, report.getHpiMae(), 0.002); // Da ordem do ruído
+        assertTrue(report.getCleaningDateCycles() > 0);
+        assertEquals(0, report.getCleaningDateMissed());
+    }
+
+    @Test
+    void origemMovelDeveTreinarSoComOPassado() {
+        BacktestEngine.Dataset frota = gerarFrota(6, 3, 500, 2);
+
+        BacktestReportDto report = new BacktestEngine(pool, 500, 30, 200.0)
+            .run(frota, BacktestSplit.ROLLING, 3, false, LIMITE_HPI);
+
+        int anterior = 0;
+        int avaliadas = 0;
+        for (BacktestFoldDto fold : report.getFoldResults()) {
+            assertNull(fold.getError());
+            assertTrue(fold.getTestRows() > 0);
+            assertTrue(fold.getTrainingRows() > anterior); // A janela de treino só cresce
+            anterior = fold.getTrainingRows();
+            avaliadas += fold.getTestRows();
+        }
+        // O primeiro bloco só é usado no treino
+        assertTrue(avaliadas < frota.getFeatures().size());
+    }
+
+    @Test
+    void modeloHierarquicoDeveErrarMenosQueOGlobalComDesvioPorNavio() {
+        BacktestEngine.Dataset frota = gerarFrota(12, 3, 500, 3);
+        BacktestEngine engine = new BacktestEngine(pool, 500, 30, 200.0);
+
+        double global = engine.run(frota, BacktestSplit.CYCLE, 3, false, LIMITE_HPI).getHpiMae();
+        double hierarquico = engine.run(frota, BacktestSplit.CYCLE, 3, true, LIMITE_HPI).getHpiMae();
+
+        assertTrue(hierarquico < global, "hierárquico=" + hierarquico + " global=" + global);
+    }
+
+    @Test
+    void runDeveRejeitarNumeroDeFoldsInvalido() {
+        BacktestEngine.Dataset frota = gerarFrota(2, 1, 100, 4);
+        BacktestEngine engine = new BacktestEngine(pool, 500, 30, 200.0);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.run(frota, BacktestSplit.SHIP, 1, false, LIMITE_HPI));
+        assertThrows(IllegalArgumentException.class,
+            () -> engine.run(frota, BacktestSplit.SHIP, BacktestEngine.MAX_FOLDS + 1, false, LIMITE_HPI));
+    }
+}
@@ -0,0 +1,121 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvDecoderTest {
+
+    private static final CsvDecoder.Schema SCHEMA = CsvDecoder.Schema.of("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION");
+    private static final int SESSION_ID = SCHEMA.index("SESSION_ID");
+    private static final int QUANTIDADE = SCHEMA.index("CONSUMED_QUANTITY");
+    private static final int DESCRICAO = SCHEMA.index("DESCRIPTION");
+
+    private static CsvDecoder decoder(String csv) throws IOException {
+        CsvDecoder decoder = new CsvDecoder(new StringReader(csv), SCHEMA);
+        decoder.readHeader();
+        return decoder;
+    }
+
+    @Test
+    void deveLerCamposComAspasQuebrasDeLinhaELinhasVazias() throws IOException {
+        CsvDecoder csv = decoder("\"SESSION_ID\",\"CONSUMED_QUANTITY\",\"DESCRIPTION\"\r\n"
+            + "39800000086,47.0000,LSHFO 0.5\r\n"
+            + "\r\n"
+            + "39800000087, 12.5 ,\"Diesel, \"\"marítimo\"\"\nlinha 2\"\n"
+            + "39800000088");
+
+        assertTrue(csv.next());
+        assertEquals("39800000086", csv.get(SESSION_ID));
+        assertEquals(47.0, csv.getDouble(QUANTIDADE));
+        assertEquals("LSHFO 0.5", csv.get(DESCRICAO));
+
+        assertTrue(csv.next());
+        assertEquals(2, csv.getRecordNumber());
+        assertEquals(" 12.5 ", csv.get(QUANTIDADE));
+        assertEquals(12.5, csv.getDouble(QUANTIDADE));
+        assertEquals("Diesel, \"marítimo\"\nlinha 2", csv.get(DESCRICAO));
+
+        assertTrue(csv.next());
+        assertTrue(csv.isBlank(QUANTIDADE)); // Linha curta: colunas ausentes ficam vazias
+        assertEquals("", csv.get(DESCRICAO));
+        assertFalse(csv.next());
+    }
+
+    @Test
+    void deveMapearColunasPeloNomeQuandoOCabecalhoTemTodas() throws IOException {
+        CsvDecoder porNome = decoder("DESCRIPTION,SESSION_ID,CONSUMED_QUANTITY\nMGO,1,3.5\n");
+        assertTrue(porNome.next());
+        assertEquals("1", porNome.get(SESSION_ID));
+        assertEquals("MGO", porNome.get(DESCRICAO));
+
+        CsvDecoder porPosicao = decoder("id,qtd,desc\n1,3.5,MGO\n");
+        assertTrue(porPosicao.next());
+        assertEquals("1", porPosicao.get(SESSION_ID));
+        assertEquals(3.5, porPosicao.getDouble(QUANTIDADE));
+    }
+
+    @Test
+    void numerosDevemBaterComOParserDoJdk() {
+        String[] valores = {"0", "-0", "47.0000", "0.05", "123456.789", "-8.5", "+3", ".5", "5.",
+            "0.1", "0.30000000000000004", "12345678901234567890", "1e3", "2.5E-4", "9007199254740993"};
+        for (String valor : valores) {
+            char[] chars = valor.toCharArray();
+            assertEquals(Double.parseDouble(valor), CsvDecoder.parseDouble(chars, 0, chars.length), valor);
+        }
+        for (String invalido : new String[]{"", "-", ".", "1.2.3", "abc", "1,5"}) {
+            char[] chars = invalido.toCharArray();
+            assertThrows(NumberFormatException.class, () -> CsvDecoder.parseDouble(chars, 0, chars.length), invalido);
+        }
+        assertEquals(-7, CsvDecoder.parseInt("-7".toCharArray(), 0, 2));
+        assertEquals(Integer.MAX_VALUE, CsvDecoder.parseInt("2147483647".toCharArray(), 0, 10));
+        assertThrows(NumberFormatException.class, () -> CsvDecoder.parseInt("2147483648".toCharArray(), 0, 10));
+    }
+
+    @Test
+    void datasDevemSeguirOsFormatosDosCsvs() {
+        assertEquals(LocalDateTime.of(2023, 5, 1, 13, 45, 10), dateTime("2023-05-01 13:45:10"));
+        assertEquals(LocalDateTime.of(2023, 5, 1, 0, 0), dateTime("2023-05-01T13:45:10.000"));
+        assertEquals(LocalDateTime.of(2023, 5, 1, 0, 0), dateTime("2023-05-01 25:00:00"));
+        assertEquals(LocalDateTime.of(2023, 5, 1, 0, 0), dateTime("2023-05-01"));
+        assertNull(dateTime("2023-13-01 00:00:00"));
+        assertNull(dateTime("01/05/2023"));
+
+        assertEquals(LocalDate.of(2022, 3, 7), usDate("3/7/2022"));
+        assertEquals(LocalDate.of(2022, 12, 25), usDate("12/25/2022"));
+        assertNull(usDate("25/12/2022"));
+        assertNull(usDate("2022-12-25"));
+    }
+
+    private static LocalDateTime dateTime(String valor) {
+        return CsvDecoder.parseDateTime(valor.toCharArray(), 0, valor.length());
+    }
+
+    private static LocalDate usDate(String valor) {
+        return CsvDecoder.parseUsDate(valor.toCharArray(), 0, valor.length());
+    }
+
+    @Test
+    void numeroNoInicioDaDescricao() throws IOException {
+        CsvDecoder csv = decoder("SESSION_ID,CONSUMED_QUANTITY,DESCRIPTION\n"
+            + "1,,4 - Moderate breeze\n"
+            + "2,,10-Storm\n"
+            + "3,,Moderate breeze\n"
+            + "4,,4\n");
+
+        assertTrue(csv.next());
+        assertEquals(4, csv.getLeadingInt(DESCRICAO));
+        assertTrue(csv.next());
+        assertEquals(10, csv.getLeadingInt(DESCRICAO));
+        assertTrue(csv.next());
+        assertNull(csv.getLeadingInt(DESCRICAO));
+        assertTrue(csv.next());
+        assertNull(csv.getLeadingInt(DESCRICAO)); // Só número não é descrição
+        assertNull(csv.getLeadingInt(QUANTIDADE));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.EventoNavegacao;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataImportServiceTest {
+
+    private static final String CABECALHO = "sessionId,shipName,class,eventName,startGMTDate,endGMTDate,duration,distance,"
+        + "aftDraft,fwdDraft,midDraft,TRIM,displacement,beaufortScale,seaCondition,beaufortScaleDesc,seaConditionDesc,"
+        + "speed,speedGps,Porto,decLatitude,decLongitude\n";
+
+    private static EventoNavegacao evento(String beaufortScale, String beaufortScaleDesc) throws IOException {
+        CsvDecoder csv = new CsvDecoder(new StringReader(CABECALHO
+            + "S1,BRUNO LIMA,Suezmax,NAVEGACAO,2024-03-01 08:00:00,2024-03-01 20:00:00,12,140,9.5,8.0,8.7,1.5,95000,"
+            + beaufortScale + ",Moderate," + beaufortScaleDesc + ",Moderate,11.7,11.5,,-23.9,-46.3\n"),
+            DataImportService.EVENTOS_SCHEMA);
+        csv.readHeader();
+        assertTrue(csv.next());
+        return DataImportService.processEventoRecord(csv, "S1");
+    }
+
+    @Test
+    void beaufortEmTextoUsaONumeroDaDescricao() throws IOException {
+        EventoNavegacao evento = evento("Moderate breeze", "4 - Moderate breeze");
+
+        assertNotNull(evento); // O evento não é descartado
+        assertEquals(4, evento.getBeaufortScale());
+        assertEquals(95000.0, evento.getDisplacement());
+    }
+
+    @Test
+    void beaufortSemNumeroFicaVazioSemDescartarOEvento() throws IOException {
+        assertEquals(5, evento("5", "4 - Moderate breeze").getBeaufortScale());
+        assertEquals(6, evento("", "6 - Strong breeze").getBeaufortScale());
+
+        EventoNavegacao semEscala = evento("Moderate breeze", "Moderate breeze");
+        assertNotNull(semEscala);
+        assertNull(semEscala.getBeaufortScale());
+    }
+}
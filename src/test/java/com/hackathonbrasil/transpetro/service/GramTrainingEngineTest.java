@@ -0,0 +1,118 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GramTrainingEngineTest {
+
+    private static final int NUM_FEATURES = 5;
+
+    /**
+     * Linhas sintéticas com as escalas das features do modelo (dias, trim, deslocamento ~1e5, beaufort, dummy 0/1).
+     * Os CSVs de eventos não acompanham o repositório, então a comparação com o OLS usa dados gerados.
+     */
+    static GramTrainingEngine.TrainingRows gerarLinhas(int n, long seed) {
+        Random random = new Random(seed);
+        double[][] x = new double[n][NUM_FEATURES];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i][0] = 1 + random.nextInt(700);
+            x[i][1] = random.nextGaussian() * 1.5;
+            x[i][2] = 60000 + random.nextDouble() * 90000;
+            x[i][3] = random.nextInt(9);
+            x[i][4] = random.nextBoolean() ? 1.0 : 0.0;
+            y[i] = 1.01 + 0.0004 * x[i][0] + 0.002 * x[i][1] + 0.0000003 * x[i][2]
+                + 0.004 * x[i][3] - 0.01 * x[i][4] + random.nextGaussian() * 0.01;
+        }
+        return new GramTrainingEngine.TrainingRows() {
+            @Override
+            public int size() {
+                return n;
+            }
+
+            @Override
+            public int numFeatures() {
+                return NUM_FEATURES;
+            }
+
+            @Override
+            public void features(int row, double[] out) {
+                System.arraycopy(x[row], 0, out, 0, NUM_FEATURES);
+            }
+
+            @Override
+            public double target(int row) {
+                return y[row];
+            }
+        };
+    }
+
+    @Test
+    void trainDeveCoincidirComOlsParaQualquerParalelismoEShard() {
+        GramTrainingEngine.TrainingRows linhas = gerarLinhas(5000, 11);
+
+        double[][] x = new double[linhas.size()][NUM_FEATURES];
+        double[] y = new double[linhas.size()];
+        for (int i = 0; i < linhas.size(); i++) {
+            linhas.features(i, x[i]);
+            y[i] = linhas.target(i);
+        }
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] esperado = ols.estimateRegressionParameters();
+
+        for (int paralelismo : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(paralelismo);
+            try {
+                for (int shard : new int[] {37, 1000, 10000}) {
+                    RegressionAccumulator.Solution solution = new GramTrainingEngine(pool, shard).train(linhas);
+                    double[] obtido = solution.getCoefficients();
+                    for (int i = 0; i < esperado.length; i++) {
+                        assertEquals(esperado[i], obtido[i], 1e-9 * Math.max(1.0, Math.abs(esperado[i])),
+                            "Coeficiente " + i + " (threads=" + paralelismo + ", shard=" + shard + ")");
+                    }
+                    assertEquals(ols.calculateRSquared(), solution.getRSquared(), 1e-9);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void accumulateDeveContarTodasAsLinhas() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            RegressionAccumulator stats = new GramTrainingEngine(pool, 100).accumulate(gerarLinhas(1234, 3));
+            assertEquals(1234, stats.getCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void trainDeveFalharComFeaturesColineares() {
+        GramTrainingEngine.TrainingRows base = gerarLinhas(500, 5);
+        GramTrainingEngine.TrainingRows colineares = GramTrainingEngine.fromList(
+            java.util.stream.IntStream.range(0, base.size()).boxed().toList(), 2,
+            (i, out) -> {
+                double[] row = new double[NUM_FEATURES];
+                base.features(i, row);
+                out[0] = row[0];
+                out[1] = 2 * row[0]; // Combinação linear exata da primeira
+            },
+            base::target);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertThrows(IllegalStateException.class, () -> new GramTrainingEngine(pool, 64).train(colineares));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.SegmentModel;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalModelTrainerTest {
+
+    private static final int NUM_FEATURES = 5;
+
+    // Navios 0 e 1 da mesma classe, 2 de outra, 3 sem classe e com poucas linhas
+    private static final String[] NAVIOS = {"NAVIO A", "NAVIO B", "NAVIO C", "NAVIO D"};
+    private static final String[] CLASSES = {"SUEZMAX", "SUEZMAX", "AFRAMAX", null};
+    private static final double[] DESVIO_NAVIO = {0.02, 0.0, -0.01, 0.0};
+    private static final int[] LINHAS_NAVIO = {3000, 3000, 3000, 10};
+
+    /**
+     * Mesmas escalas de GramTrainingEngineTest.gerarLinhas, com um desvio de intercepto por navio.
+     */
+    private static final class Linhas implements GramTrainingEngine.TrainingRows {
+
+        final double[][] x;
+        final double[] y;
+        final int[] navio;
+
+        Linhas(long seed) {
+            int n = 0;
+            for (int linhas : LINHAS_NAVIO) {
+                n += linhas;
+            }
+            Random random = new Random(seed);
+            x = new double[n][NUM_FEATURES];
+            y = new double[n];
+            navio = new int[n];
+            int row = 0;
+            for (int ship = 0; ship < NAVIOS.length; ship++) {
+                for (int i = 0; i < LINHAS_NAVIO[ship]; i++, row++) {
+                    x[row][0] = 1 + random.nextInt(700);
+                    x[row][1] = random.nextGaussian() * 1.5;
+                    x[row][2] = 60000 + random.nextDouble() * 90000;
+                    x[row][3] = random.nextInt(9);
+                    x[row][4] = random.nextBoolean() ? 1.0 : 0.0;
+                    y[row] = 1.01 + DESVIO_NAVIO[ship] + 0.0004 * x[row][0] + 0.002 * x[row][1]
+                        + 0.0000003 * x[row][2] + 0.004 * x[row][3] - 0.01 * x[row][4] + random.nextGaussian() * 0.005;
+                    navio[row] = ship;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return y.length;
+        }
+
+        @Override
+        public int numFeatures() {
+            return NUM_FEATURES;
+        }
+
+        @Override
+        public void features(int row, double[] out) {
+            System.arraycopy(x[row], 0, out, 0, NUM_FEATURES);
+        }
+
+        @Override
+        public double target(int row) {
+            return y[row];
+        }
+    }
+
+    @Test
+    void trainDeveGerarModelosDaFrotaDasClassesEDosNavios() {
+        Linhas linhas = new Linhas(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            HierarchicalModelTrainer trainer = new HierarchicalModelTrainer(pool, 500,
+                HierarchicalModelTrainer.DEFAULT_MIN_ROWS, HierarchicalModelTrainer.DEFAULT_PRIOR_STRENGTH);
+            HierarchicalModelTrainer.Result result = trainer.train(linhas, row -> linhas.navio[row], NAVIOS, CLASSES);
+
+            // Frota: mesmo resultado do treino simples
+            double[] esperado = new GramTrainingEngine(pool, 500).train(linhas).getCoefficients();
+            double[] global = result.getGlobal().getCoefficients();
+            for (int i = 0; i < esperado.length; i++) {
+                assertEquals(esperado[i], global[i], 1e-9 * Math.max(1.0, Math.abs(esperado[i])), "Coeficiente " + i);
+            }
+            assertEquals(linhas.size(), result.getGlobalStats().getCount());
+
+            assertEquals(6000, result.getClassModels().get("SUEZMAX").getObservations());
+            assertEquals(3000, result.getClassModels().get("AFRAMAX").getObservations());
+            // Navio com menos linhas que o mínimo fica sem modelo próprio
+            assertEquals(3, result.getShipModels().size());
+            assertFalse(result.getShipModels().containsKey("NAVIO D"));
+
+            // Com bastante dado, cada navio recupera o próprio desvio (pouco encolhido em direção à classe)
+            double interceptoA = result.getShipModels().get("NAVIO A").getCoefficients()[0];
+            double interceptoB = result.getShipModels().get("NAVIO B").getCoefficients()[0];
+            assertEquals(0.02, interceptoA - interceptoB, 0.003);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void resolveDeveEscolherONivelMaisEspecifico() {
+        double[] frota = {1.01, 0.0004, 0.0, 0.0, 0.0, 0.0};
+        double[] classe = {1.02, 0.0005, 0.0, 0.0, 0.0, 0.0};
+        double[] navio = {1.03, 0.0006, 0.0, 0.0, 0.0, 0.0};
+        TrainedModelSnapshot modelo = ModelService.createSnapshot(1L, frota, null, 0.5, 100).withSegments(
+            Map.of("SUEZMAX", ModelService.createSegmentModel(SegmentModel.Level.CLASS, "SUEZMAX", classe, 0.5, 60)),
+            Map.of("NAVIO A", ModelService.createSegmentModel(SegmentModel.Level.SHIP, "NAVIO A", navio, 0.5, 40)));
+
+        assertEquals(SegmentModel.Level.SHIP, modelo.resolve("NAVIO A", "Suezmax").getLevel());
+        assertEquals(SegmentModel.Level.CLASS, modelo.resolve("NAVIO B", " suezmax ").getLevel());
+        assertEquals(SegmentModel.Level.GLOBAL, modelo.resolve("NAVIO C", "Aframax").getLevel());
+        assertEquals(SegmentModel.Level.GLOBAL, modelo.resolve("NAVIO C", null).getLevel());
+        assertEquals(1.02, modelo.resolve("NAVIO B", "Suezmax").getAdjustedCoefficient(0), 1e-12);
+    }
+}
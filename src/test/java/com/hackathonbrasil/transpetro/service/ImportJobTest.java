@@ -0,0 +1,107 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.ImportJobDto;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportJobTest {
+
+    private static final CsvDecoder.Schema SCHEMA = CsvDecoder.Schema.of("SESSION_ID", "CONSUMED_QUANTITY");
+    private static final int QUANTIDADE = SCHEMA.index("CONSUMED_QUANTITY");
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void iniciarExecutor() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterAll
+    static void pararExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    void contaLinhasLidasDescartadasEGravadasPeloPipeline() throws IOException {
+        ImportJob job = new ImportJob("1", ImportJob.Tipo.CONSUMOS, "padrao");
+        job.started();
+        byte[] csv = "SESSION_ID,CONSUMED_QUANTITY\n1,2.5\n2,\n3,abc\n4,1.0\n".getBytes(StandardCharsets.UTF_8);
+        job.startStage("consumos", csv.length);
+
+        ImportPipeline<String> pipeline = new ImportPipeline<>(executor, 1, 10, 1, chunk -> {
+            if (chunk.contains("4")) {
+                throw new DataIntegrityViolationException("duplicata");
+            }
+        }, chunk -> { });
+        job.track(pipeline);
+
+        ParallelCsvReader.RowMapper<String> mapper = job.counting(
+            decoder -> decoder.isBlank(QUANTIDADE) ? null : decoder.get(SCHEMA.index("SESSION_ID")));
+        try (CsvDecoder decoder = new CsvDecoder(new InputStreamReader(job.counting(new ByteArrayInputStream(csv)),
+                StandardCharsets.UTF_8), SCHEMA)) {
+            decoder.readHeader();
+            while (decoder.next()) {
+                String linha = mapper.map(decoder);
+                if (linha != null) {
+                    pipeline.accept(linha);
+                }
+            }
+        }
+        pipeline.finish();
+
+        ImportJobDto executando = job.toDto();
+        assertEquals(4, executando.getRowsParsed());
+        assertEquals(2, executando.getRowsWritten()); // "1" e "3"
+        assertEquals(2, executando.getRowsRejected()); // "2" sem quantidade e "4" recusada pelo banco
+        assertEquals(1.0, executando.getStageProgress().doubleValue());
+        assertEquals(0L, executando.getEtaSeconds().longValue());
+
+        job.finished(ImportJob.Status.CONCLUIDO, "ok");
+        ImportJobDto concluido = job.toDto();
+        assertEquals("CONCLUIDO", concluido.getStatus());
+        assertEquals(2, concluido.getRowsWritten());
+        assertEquals(2, concluido.getRowsRejected());
+        assertNull(concluido.getEtaSeconds());
+        assertNotNull(concluido.getRowsPerSecond());
+    }
+
+    @Test
+    void cancelamentoInterrompeALeituraNaProximaLinha() throws IOException {
+        ImportJob job = new ImportJob("2", ImportJob.Tipo.EVENTOS, "padrao");
+        job.started();
+        ParallelCsvReader.RowMapper<String> mapper = job.counting(decoder -> decoder.get(0));
+
+        try (CsvDecoder decoder = new CsvDecoder(new StringReader("SESSION_ID,CONSUMED_QUANTITY\n1,1\n2,1\n3,1\n"), SCHEMA)) {
+            decoder.readHeader();
+            decoder.next();
+            mapper.map(decoder);
+            job.cancel();
+            decoder.next();
+            assertThrows(CancellationException.class, () -> mapper.map(decoder));
+        }
+        assertEquals(1, job.toDto().getRowsParsed());
+        assertThrows(CancellationException.class, () -> job.startStage("consumos", 10));
+    }
+
+    @Test
+    void jobNaFilaNaoTemVelocidadeNemEta() {
+        ImportJobDto dto = new ImportJob("3", ImportJob.Tipo.TODOS, "padrao").toDto();
+        assertEquals("NA_FILA", dto.getStatus());
+        assertNull(dto.getRowsPerSecond());
+        assertNull(dto.getEtaSeconds());
+        assertNull(dto.getStageProgress());
+    }
+}
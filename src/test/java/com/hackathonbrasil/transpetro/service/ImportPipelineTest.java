@@ -0,0 +1,107 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPipelineTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void iniciarExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void pararExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    void todasAsLinhasSaoGravadasEmPedacosDeTamanhoFixo() {
+        List<Integer> gravadas = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> tamanhos = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger commitadas = new AtomicInteger();
+        ImportPipeline<Integer> pipeline = new ImportPipeline<>(executor, 3, 100, 1, chunk -> {
+            tamanhos.add(chunk.size());
+            gravadas.addAll(chunk);
+        }, chunk -> commitadas.addAndGet(chunk.size()));
+
+        for (int i = 0; i < 1050; i++) {
+            pipeline.accept(i);
+        }
+
+        assertEquals(1050, pipeline.finish());
+        assertEquals(1050, commitadas.get());
+        assertEquals(1050, gravadas.stream().distinct().count());
+        assertEquals(11, tamanhos.size());
+        assertTrue(tamanhos.stream().allMatch(tamanho -> tamanho == 100 || tamanho == 50));
+    }
+
+    @Test
+    void pedacoComLinhaRejeitadaERefeitoLinhaALinha() {
+        List<Integer> gravadas = Collections.synchronizedList(new ArrayList<>());
+        ImportPipeline<Integer> pipeline = new ImportPipeline<>(executor, 2, 10, 2, chunk -> {
+            // Como uma transação: qualquer linha inválida desfaz o pedaço inteiro
+            if (chunk.stream().anyMatch(linha -> linha % 25 == 0)) {
+                throw new DataIntegrityViolationException("duplicata");
+            }
+            gravadas.addAll(chunk);
+        }, chunk -> { });
+
+        for (int i = 1; i <= 100; i++) {
+            pipeline.accept(i);
+        }
+
+        assertEquals(96, pipeline.finish());
+        assertEquals(4, pipeline.getRejected());
+        assertEquals(4, pipeline.getChunksRetried());
+        assertFalse(gravadas.contains(50));
+        assertTrue(gravadas.contains(49));
+    }
+
+    @Test
+    void falhaDoOuvinteNaoRegravaPedacoJaCommitado() {
+        List<Integer> gravadas = Collections.synchronizedList(new ArrayList<>());
+        ImportPipeline<Integer> pipeline = new ImportPipeline<>(executor, 2, 10, 2, gravadas::addAll, chunk -> {
+            throw new IllegalStateException("consulta do modelo falhou");
+        });
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.accept(i);
+        }
+
+        assertEquals(100, pipeline.finish());
+        assertEquals(100, gravadas.size());
+        assertEquals(0, pipeline.getChunksRetried());
+        assertEquals(0, pipeline.getRejected());
+    }
+
+    @Test
+    void erroQueNaoEDeIntegridadeInterrompeAImportacao() {
+        ImportPipeline<Integer> pipeline = new ImportPipeline<>(executor, 1, 5, 1, chunk -> {
+            throw new DataAccessResourceFailureException("conexão perdida");
+        }, chunk -> { });
+
+        DataAccessResourceFailureException erro = assertThrows(DataAccessResourceFailureException.class, () -> {
+            for (int i = 0; i < 1000; i++) {
+                pipeline.accept(i);
+            }
+            pipeline.finish();
+        });
+        assertEquals("conexão perdida", erro.getMessage());
+        assertEquals(0, pipeline.getWritten());
+    }
+}
@@ -0,0 +1,134 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.ShipLookupState;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import com.hackathonbrasil.transpetro.model.TrainingFeatures;
+import com.hackathonbrasil.transpetro.model.TrainingSessionView;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Atualização incremental do modelo (onTrainingSessionsWritten): cada sessão entra uma vez nas estatísticas.
+ */
+@ExtendWith(MockitoExtension.class)
+class ModelServiceTest {
+
+    private static final int LINHAS_TREINADAS = 200;
+    private static final String NAVIO = "BRUNO LIMA";
+    private static final LocalDate ULTIMA_DOCAGEM = LocalDate.of(2024, 1, 10);
+
+    @InjectMocks
+    private ModelService modelService;
+
+    @Mock
+    private EventoNavegacaoRepository eventoNavegacaoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ShipIdentity shipIdentity = new ShipIdentity();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void publicarTreinoCompleto() {
+        // Estado de um treino completo já publicado: estatísticas, modelo e mapas de consulta
+        Random random = new Random(3);
+        RegressionAccumulator stats = new RegressionAccumulator(TrainingFeatures.NUM_FEATURES);
+        for (int i = 0; i < LINHAS_TREINADAS; i++) {
+            double dias = 1 + random.nextInt(300);
+            double beaufort = random.nextInt(9);
+            stats.add(new double[] {dias, random.nextGaussian(), 60000 + random.nextDouble() * 90000, beaufort,
+                random.nextBoolean() ? 1.0 : 0.0}, 1.01 + 0.0004 * dias + 0.003 * beaufort + random.nextGaussian() * 0.01);
+        }
+        RegressionAccumulator.Solution solution = stats.solve();
+        TrainedModelSnapshot snapshot = ModelService.createSnapshot(1, solution.getCoefficients(), solution.getCovariance(),
+            solution.getRSquared(), LINHAS_TREINADAS);
+
+        ReflectionTestUtils.setField(modelService, "onlineUpdateEnabled", true);
+        ReflectionTestUtils.setField(modelService, "trainingStats", stats);
+        ((AtomicReference<TrainedModelSnapshot>) ReflectionTestUtils.getField(modelService, "currentModel")).set(snapshot);
+        ((AtomicLong) ReflectionTestUtils.getField(modelService, "modelVersion")).set(snapshot.getVersion());
+        ((AtomicReference<ShipLookupState>) ReflectionTestUtils.getField(modelService, "lookupState")).set(
+            new ShipLookupState(1, Map.of(), Map.of(NAVIO, ULTIMA_DOCAGEM), Map.of(), Map.of(NAVIO, 25.0), 25.0));
+    }
+
+    @Test
+    void doisCombustiveisDaMesmaSessaoContamUmaSessaoSo() {
+        // Cada consumo gravado publica o evento da sessão; no segundo a soma da sessão já inclui os dois combustíveis
+        when(eventoNavegacaoRepository.findTrainingSessionsBySessionIdIn(anyCollection()))
+            .thenReturn(List.of(sessao("S1", 30.0)), List.of(sessao("S1", 42.0)));
+
+        modelService.onTrainingSessionsWritten(new TrainingSessionsWrittenEvent(List.of("S1")));
+        assertEquals(LINHAS_TREINADAS + 1, contagem());
+
+        modelService.onTrainingSessionsWritten(new TrainingSessionsWrittenEvent(List.of("S1")));
+        assertEquals(LINHAS_TREINADAS + 1, contagem());
+        assertEquals(LINHAS_TREINADAS + 1, modelService.getModelSnapshot().getTrainingRows());
+        assertEquals(3, modelService.getModelSnapshot().getVersion());
+    }
+
+    @Test
+    void mesmaSessaoEmOutroPedacoDaImportacaoNaoPublicaOutroModelo() {
+        when(eventoNavegacaoRepository.findTrainingSessionsBySessionIdIn(anyCollection()))
+            .thenReturn(List.of(sessao("S1", 30.0)));
+
+        modelService.onTrainingSessionsWritten(new TrainingSessionsWrittenEvent(List.of("S1")));
+        modelService.onTrainingSessionsWritten(new TrainingSessionsWrittenEvent(List.of("S1")));
+
+        assertEquals(LINHAS_TREINADAS + 1, contagem());
+        assertEquals(2, modelService.getModelSnapshot().getVersion());
+        verify(eventPublisher, times(1)).publishEvent(any(ModelSwappedEvent.class));
+    }
+
+    @Test
+    void sessaoDoTreinoCompletoNaoEntraDeNovo() {
+        ReflectionTestUtils.setField(modelService, "trainedSessions", Set.of("S1"));
+        when(eventoNavegacaoRepository.findTrainingSessionsBySessionIdIn(anyCollection()))
+            .thenReturn(List.of(sessao("S1", 42.0)));
+
+        modelService.onTrainingSessionsWritten(new TrainingSessionsWrittenEvent(List.of("S1")));
+
+        assertEquals(LINHAS_TREINADAS, contagem());
+        assertEquals(1, modelService.getModelSnapshot().getVersion());
+        verify(eventPublisher, never()).publishEvent(any(ModelSwappedEvent.class));
+    }
+
+    private long contagem() {
+        return ((RegressionAccumulator) ReflectionTestUtils.getField(modelService, "trainingStats")).getCount();
+    }
+
+    private static TrainingSessionView sessao(String sessionId, double consumo) {
+        return new Sessao(sessionId, NAVIO, "Suezmax", ULTIMA_DOCAGEM.plusDays(40).atTime(8, 0), 12.0,
+            9.5, 8.0, 95000.0, 4, consumo);
+    }
+
+    private record Sessao(String getSessionId, String getNavioNome, String getClasse, LocalDateTime getStartGMTDate,
+                          Double getDuration, Double getAftDraft, Double getFwdDraft, Double getDisplacement,
+                          Integer getBeaufortScale, Double getConsumedQuantity) implements TrainingSessionView {}
+}
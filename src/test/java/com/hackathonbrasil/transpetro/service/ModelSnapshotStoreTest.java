@@ -0,0 +1,164 @@
+package com.hackathonbrasil.transpetro.service;
+
+import com.hackathonbrasil.transpetro.model.RevestimentoDetail;
+import com.hackathonbrasil.transpetro.model.SegmentModel;
+import com.hackathonbrasil.transpetro.model.ShipDetail;
+import com.hackathonbrasil.transpetro.model.ShipLookupState;
+import com.hackathonbrasil.transpetro.model.TableFingerprintView;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
+import com.hackathonbrasil.transpetro.repository.ConsumoRepository;
+import com.hackathonbrasil.transpetro.repository.DocagemRepository;
+import com.hackathonbrasil.transpetro.repository.EventoNavegacaoRepository;
+import com.hackathonbrasil.transpetro.repository.NavioRepository;
+import com.hackathonbrasil.transpetro.repository.RevestimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ModelSnapshotStoreTest {
+
+    private static final String HASH = "abc123";
+
+    @TempDir
+    Path tempDir;
+
+    private ModelSnapshotStore store;
+    private Path arquivo;
+
+    @BeforeEach
+    void setUp() {
+        store = new ModelSnapshotStore();
+        arquivo = tempDir.resolve("modelo.bin");
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "snapshotPath", arquivo.toString());
+    }
+
+    private static ModelSnapshotStore.Contents conteudo() {
+        LocalDateTime treinadoEm = LocalDateTime.of(2025, 3, 10, 14, 30, 5, 123_000_000);
+        double[] coeficientes = {1.012, 0.0004, 0.002, 0.0000003, 0.004, -0.01};
+        double[][] covariancia = new double[6][6];
+        for (int i = 0; i < 6; i++) {
+            covariancia[i][i] = 1e-6 * (i + 1);
+        }
+        TrainedModelSnapshot modelo = ModelService.createSnapshot(7L, treinadoEm, coeficientes, covariancia, 0.83, 4321)
+            .withSegments(
+                Map.of("SUEZMAX", ModelService.createSegmentModel(SegmentModel.Level.CLASS, "SUEZMAX",
+                    new double[] {1.02, 0.0005, 0.002, 0.0000003, 0.004, 0.0}, 0.8, 2000)),
+                Map.of("BRUNO LIMA", ModelService.createSegmentModel(SegmentModel.Level.SHIP, "BRUNO LIMA",
+                    new double[] {0.99, 0.0006, 0.002, 0.0000003, 0.004, 0.0}, 0.9, 300)));
+
+        RegressionAccumulator stats = new RegressionAccumulator(2);
+        for (int i = 0; i < 20; i++) {
+            stats.add(new double[] {i, (i * 7) % 5}, 1.0 + 0.01 * i);
+        }
+
+        ShipLookupState estado = new ShipLookupState(3L,
+            Map.of("BRUNO LIMA", new ShipDetail("BRUNO LIMA", "Suezmax", "Petroleiro", 156000.0)),
+            Map.of("BRUNO LIMA", LocalDate.of(2024, 6, 30)),
+            Map.of("BRUNO LIMA", new RevestimentoDetail("BRUNO LIMA", 52, LocalDate.of(2024, 7, 1))),
+            Map.of("BRUNO LIMA", 31.5, "HENRIQUE ALVES", 22.25),
+            26.875);
+        return new ModelSnapshotStore.Contents(HASH, modelo, stats, estado);
+    }
+
+    @Test
+    void loadDeveDevolverOMesmoConteudoGravado() throws Exception {
+        ModelSnapshotStore.Contents original = conteudo();
+        store.save(original);
+
+        ModelSnapshotStore.Contents lido = store.load(HASH).orElseThrow();
+
+        TrainedModelSnapshot modelo = lido.getModel();
+        assertEquals(original.getModel().getTrainedAt(), modelo.getTrainedAt());
+        assertArrayEquals(original.getModel().getCoefficients(), modelo.getCoefficients());
+        assertArrayEquals(original.getModel().getAdjustedCoefficients(), modelo.getAdjustedCoefficients());
+        assertArrayEquals(original.getModel().getCovariance()[5], modelo.getCovariance()[5]);
+        assertEquals(0.83, modelo.getRSquared());
+        assertEquals(4321, modelo.getTrainingRows());
+        SegmentModel navio = modelo.resolve("BRUNO LIMA", "Suezmax");
+        assertEquals(SegmentModel.Level.SHIP, navio.getLevel());
+        assertArrayEquals(original.getModel().getShipModels().get("BRUNO LIMA").getCoefficients(), navio.getCoefficients());
+        assertArrayEquals(original.getModel().getShipModels().get("BRUNO LIMA").getAdjustedCoefficients(), navio.getAdjustedCoefficients());
+        assertEquals(300, navio.getTrainingRows());
+        assertEquals(2000, modelo.getClassModels().get("SUEZMAX").getTrainingRows());
+
+        assertEquals(20, lido.getTrainingStats().getCount());
+        assertArrayEquals(original.getTrainingStats().solve().getCoefficients(), lido.getTrainingStats().solve().getCoefficients());
+
+        ShipLookupState estado = lido.getLookupState();
+        assertEquals(original.getLookupState().getShipDetails(), estado.getShipDetails());
+        assertEquals(original.getLookupState().getLastDockingDates(), estado.getLastDockingDates());
+        assertEquals(original.getLookupState().getRevestimentos(), estado.getRevestimentos());
+        assertEquals(original.getLookupState().getCfiClean(), estado.getCfiClean());
+        assertEquals(26.875, estado.getBaselineCfi());
+    }
+
+    @Test
+    void loadDeveIgnorarSnapshotDeOutrasEntradas() throws Exception {
+        store.save(conteudo());
+
+        assertEquals(Optional.empty(), store.load("outro-hash"));
+    }
+
+    @Test
+    void loadDeveIgnorarArquivoAusenteOuCorrompido() throws Exception {
+        assertTrue(store.load(HASH).isEmpty());
+
+        store.save(conteudo());
+        byte[] bytes = Files.readAllBytes(arquivo);
+        Files.write(arquivo, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertTrue(store.load(HASH).isEmpty());
+    }
+
+    @Test
+    void hashDeveMudarComAConfiguracaoDoTreino() throws Exception {
+        TableFingerprintView fingerprint = mock(TableFingerprintView.class);
+        when(fingerprint.getTotal()).thenReturn(120L);
+        when(fingerprint.getMaxId()).thenReturn(120L);
+        NavioRepository navios = mock(NavioRepository.class);
+        DocagemRepository docagens = mock(DocagemRepository.class);
+        RevestimentoRepository revestimentos = mock(RevestimentoRepository.class);
+        EventoNavegacaoRepository eventos = mock(EventoNavegacaoRepository.class);
+        ConsumoRepository consumos = mock(ConsumoRepository.class);
+        when(navios.fingerprint()).thenReturn(fingerprint);
+        when(docagens.fingerprint()).thenReturn(fingerprint);
+        when(revestimentos.fingerprint()).thenReturn(fingerprint);
+        when(eventos.fingerprint()).thenReturn(fingerprint);
+        when(consumos.fingerprint()).thenReturn(fingerprint);
+        ReflectionTestUtils.setField(store, "navioRepository", navios);
+        ReflectionTestUtils.setField(store, "docagemRepository", docagens);
+        ReflectionTestUtils.setField(store, "revestimentoRepository", revestimentos);
+        ReflectionTestUtils.setField(store, "eventoNavegacaoRepository", eventos);
+        ReflectionTestUtils.setField(store, "consumoRepository", consumos);
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("model.hierarchy.enabled", true);
+        config.put("model.hierarchy.min-rows", 30);
+        Map<String, Object> mesmaConfigEmOutraOrdem = new LinkedHashMap<>();
+        mesmaConfigEmOutraOrdem.put("model.hierarchy.min-rows", 30);
+        mesmaConfigEmOutraOrdem.put("model.hierarchy.enabled", true);
+        String hash = store.computeInputHash(List.of(), config);
+
+        assertEquals(hash, store.computeInputHash(List.of(), mesmaConfigEmOutraOrdem));
+        assertNotEquals(hash, store.computeInputHash(List.of(), Map.of(
+            "model.hierarchy.enabled", true, "model.hierarchy.min-rows", 50)));
+        assertNotEquals(hash, store.computeInputHash(List.of(), Map.of(
+            "model.hierarchy.enabled", false, "model.hierarchy.min-rows", 30)));
+    }
+}
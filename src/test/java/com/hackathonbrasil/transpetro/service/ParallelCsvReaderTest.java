@@ -0,0 +1,100 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvReaderTest {
+
+    private static final CsvDecoder.Schema SCHEMA = CsvDecoder.Schema.of("SESSION_ID", "CONSUMED_QUANTITY", "DESCRIPTION");
+    private static final int SESSION_ID = SCHEMA.index("SESSION_ID");
+    private static final int QUANTIDADE = SCHEMA.index("CONSUMED_QUANTITY");
+    private static final int DESCRICAO = SCHEMA.index("DESCRIPTION");
+
+    private static ExecutorService executor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void iniciarExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void pararExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    void pedacosPequenosDevemDarOMesmoResultadoDaLeituraSequencial() throws IOException {
+        StringBuilder csv = new StringBuilder("\"SESSION_ID\",\"CONSUMED_QUANTITY\",\"DESCRIPTION\"\r\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append(39800000000L + i).append(',').append(i % 7 == 0 ? "" : (i % 50) + ".25").append(',');
+            // Quebras de linha e aspas dentro dos campos, acentos (multibyte) e linhas em branco no meio
+            csv.append(i % 3 == 0 ? "\"Óleo \"\"pesado\"\"\nlinha " + i + "\"" : "LSHFO 0.5").append("\r\n");
+            if (i % 100 == 0) {
+                csv.append("\r\n");
+            }
+        }
+        Path file = tempDir.resolve("consumo.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        List<String> sequencial = new ArrayList<>();
+        try (CsvDecoder decoder = new CsvDecoder(new StringReader(csv.toString()), SCHEMA)) {
+            decoder.readHeader();
+            while (decoder.next()) {
+                sequencial.add(linha(decoder));
+            }
+        }
+
+        for (int chunkBytes : new int[]{16, 97, 1024, 1 << 20}) {
+            List<String> paralelo = new ArrayList<>();
+            long registros = new ParallelCsvReader(executor, 4, chunkBytes)
+                .read(file, SCHEMA, ParallelCsvReaderTest::linha, paralelo::add);
+
+            assertEquals(500, registros);
+            assertEquals(sequencial, paralelo, "chunkBytes=" + chunkBytes);
+        }
+    }
+
+    @Test
+    void linhasDescartadasPeloMapperNaoChegamAoConsumidor() throws IOException {
+        Path file = tempDir.resolve("consumo.csv");
+        Files.writeString(file, "SESSION_ID,CONSUMED_QUANTITY,DESCRIPTION\n1,,MGO\n2,3.5,MGO\n3,0,MGO");
+
+        List<String> sessoes = new ArrayList<>();
+        long registros = new ParallelCsvReader(executor, 2, 8).read(file, SCHEMA,
+            csv -> csv.isBlank(QUANTIDADE) || csv.getDouble(QUANTIDADE) <= 0 ? null : csv.get(SESSION_ID), sessoes::add);
+
+        assertEquals(3, registros);
+        assertEquals(List.of("2"), sessoes);
+    }
+
+    @Test
+    void arquivoSoComCabecalhoNaoTemLinhas() throws IOException {
+        Path file = tempDir.resolve("vazio.csv");
+        Files.writeString(file, "SESSION_ID,CONSUMED_QUANTITY,DESCRIPTION\n");
+
+        List<String> linhas = new ArrayList<>();
+        assertEquals(0, new ParallelCsvReader(executor, 2, 1024).read(file, SCHEMA, ParallelCsvReaderTest::linha, linhas::add));
+        assertTrue(linhas.isEmpty());
+    }
+
+    private static String linha(CsvDecoder csv) {
+        return csv.get(SESSION_ID) + "|" + csv.get(QUANTIDADE) + "|" + csv.get(DESCRICAO);
+    }
+}
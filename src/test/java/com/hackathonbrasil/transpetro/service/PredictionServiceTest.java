@@ -1,25 +1,43 @@
 package com.hackathonbrasil.transpetro.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.hackathonbrasil.transpetro.model.CleaningSuggestionDto;
 import com.hackathonbrasil.transpetro.model.DailyPredictionDto;
+import com.hackathonbrasil.transpetro.model.ProjectionStep;
+import com.hackathonbrasil.transpetro.model.ShipProfile;
+import com.hackathonbrasil.transpetro.model.TrainedModelSnapshot;
 
 @ExtendWith(MockitoExtension.class)
 public class PredictionServiceTest {
@@ -30,8 +48,9 @@ public class PredictionServiceTest {
   @Mock
   private ModelService modelService;
 
-  @Mock
-  private OLSMultipleLinearRegression trainedModelMock;
+  // Normalização real do ID (maiúsculas, sem acentos e sem espaços extras)
+  @Spy
+  private ShipIdentity shipIdentity = new ShipIdentity();
 
   // ====================================================================
   // DADOS FIXOS DO CENÁRIO DE TESTE
@@ -49,8 +68,8 @@ public class PredictionServiceTest {
   private static final double INTERCEPTO_SUCESSO = 1.010000; // Começa limpo (1% de perda)
   private static final double TAXA_DEGRADACAO_LENTA = 0.000010; // Taxa muito baixa
 
-  // Data de Referência (Última Docagem)
-  private static final LocalDate DATA_ULTIMA_LIMPEZA = LocalDate.of(2025, 11, 29);
+  // Data de Referência (Última Docagem). A série começa hoje: com a limpeza hoje, o dia 0 da série é o dia 0 do casco.
+  private static final LocalDate DATA_ULTIMA_LIMPEZA = LocalDate.now();
   private static final String NAVIO_ID = "BRUNO LIMA";
 
   private static final Double CFI_LIMPO_PADRAO = 25.0;
@@ -72,11 +91,9 @@ public class PredictionServiceTest {
   public void setup() {
     // --- MOCKANDO O MODELSERVICE (Usando métodos globais e CFI específico) ---
 
-    // 1. Mocka o CFI Específico do navio
-    lenient().when(modelService.getCfiCleanTonPerDay(NAVIO_ID)).thenReturn(CFI_LIMPO_BRUNO_LIMA);
-
-    // 2. Mocka a Data Base de Limpeza
-    lenient().when(modelService.getLastCleaningDate(NAVIO_ID)).thenReturn(DATA_ULTIMA_LIMPEZA);
+    // 1. Mocka o perfil do navio (CFI Específico e Data Base de Limpeza)
+    lenient().when(modelService.getShipProfile(NAVIO_ID))
+        .thenReturn(new ShipProfile(NAVIO_ID, "UNKNOWN", 0.0, CFI_LIMPO_BRUNO_LIMA, DATA_ULTIMA_LIMPEZA, 52));
 
     // 3. Mocka os Coeficientes GLOBAIS do OLS
     // lenient().when(modelService.getModelIntercept()).thenReturn(INTERCEPTO_GLOBAL_B0);
@@ -85,21 +102,18 @@ public class PredictionServiceTest {
     // O HPI Inicial será assumido como o INTERCEPTO_GLOBAL_B0 para fins de teste,
     // pois estamos ignorando TRIM e Deslocamento (assumindo que são zero).
 
-    // A data de limpeza sempre deve ser mockada para o navio de teste.
-    lenient().when(modelService.getLastCleaningDate(NAVIO_ID)).thenReturn(DATA_ULTIMA_LIMPEZA);
-
     // --- MOCKS DO MODELO OLS ---
-    // 1. Mocka o retorno do modelo treinado
-    lenient().when(modelService.getTrainedModel()).thenReturn(trainedModelMock);
-
-    // 2. Mocka o retorno dos Coeficientes da Regressão (Simulando o resultado do
-    // treino)
-    lenient().when(trainedModelMock.estimateRegressionParameters()).thenReturn(new double[] {
+    // Mocka o snapshot do modelo treinado (Simulando o resultado do treino)
+    lenient().when(modelService.getModelSnapshot()).thenReturn(snapshot(new double[] {
         INTERCEPTO_GLOBAL_B0, // 0: Intercepto (HPI Base)
         TAXA_DEGRADACAO_B1, // 1: Taxa de Degradação (Dias Desde Limpeza)
         0.001, // 2: TRIM
         0.000002 // 3: Deslocamento
-    });
+    }));
+  }
+
+  private static TrainedModelSnapshot snapshot(double[] coeficientes) {
+    return ModelService.createSnapshot(1L, coeficientes, null, 0.0, 0);
   }
 
   // ====================================================================
@@ -108,13 +122,12 @@ public class PredictionServiceTest {
 
   @Test
   void suggestCleaningDateDeveRetornarDtoComPrevisoesPara180Dias() {
-    when(modelService.getTrainedModel()).thenReturn(trainedModelMock);
-    when(trainedModelMock.estimateRegressionParameters()).thenReturn(new double[] {
+    when(modelService.getModelSnapshot()).thenReturn(snapshot(new double[] {
         INTERCEPTO_SUCESSO, // B0 = 1.01
         TAXA_DEGRADACAO_LENTA, // B1 = 0.00001
         0.001,
         0.000002
-    });
+    }));
     // ACT
     CleaningSuggestionDto suggestionDto = predictionService.suggestCleaningDate(NAVIO_ID);
 
@@ -175,13 +188,10 @@ public class PredictionServiceTest {
     // ARRANGE: Configura o cenário de FALHA (Dados ausentes/nulos)
     String navioAusente = "Navio Fantasma";
 
-    // 1. Mock do CFI (Pode ser um valor OK, mas a Data de Limpeza é a falha
-    // crítica)
-    // Se o CFI for o ponto de falha, você mockaria 0.0 aqui.
-    lenient().when(modelService.getCfiCleanTonPerDay(navioAusente.toUpperCase())).thenReturn(CFI_LIMPO_PADRAO);
-
-    // 2. Mock da Data de Limpeza (A condição que causa o fallback)
-    when(modelService.getLastCleaningDate(navioAusente.toUpperCase())).thenReturn(null);
+    // Mock do perfil: o CFI é um valor OK, mas a Data de Limpeza nula é a falha
+    // crítica (a condição que causa o fallback)
+    when(modelService.getShipProfile(navioAusente.toUpperCase()))
+        .thenReturn(new ShipProfile(navioAusente.toUpperCase(), "UNKNOWN", 0.0, CFI_LIMPO_PADRAO, null, 52));
 
     // ACT: Executa a sugestão
     CleaningSuggestionDto resultDto = predictionService.suggestCleaningDate(navioAusente);
@@ -215,17 +225,17 @@ public class PredictionServiceTest {
     // Mocking do Intercepto e Taxa para o CENÁRIO ESPECÍFICO
     // IMPORTANTE: Os mocks do setup() são mais fracos que os mocks locais.
     // O Mockito deve ser reconfigurado para este cenário:
-    when(modelService.getTrainedModel()).thenReturn(trainedModelMock);
-    when(trainedModelMock.estimateRegressionParameters()).thenReturn(new double[] {
+    when(modelService.getModelSnapshot()).thenReturn(snapshot(new double[] {
         INTERCEPTO_PARA_VALIDACAO, // 0: HPI Base (1.000)
         TAXA_DEGRADACAO_VALIDACAO, // 1: Taxa (0.000167)
         0.001,
         0.000002
-    });
+    }));
 
     // Mocking dos Dados do Navio (Assumindo HPI começa em 1.000 - casco limpo)
-    when(modelService.getCfiCleanTonPerDay(NAVIO_VALIDACAO)).thenReturn(CFI_LIMPO_PADRAO);
-    when(modelService.getLastCleaningDate(NAVIO_VALIDACAO)).thenReturn(DATA_ULTIMA_LIMPEZA); // Ex: 2025-11-29
+    // Aframax com período base médio: limite de HPI = 1.025
+    when(modelService.getShipProfile(NAVIO_VALIDACAO))
+        .thenReturn(new ShipProfile(NAVIO_VALIDACAO, "Aframax", 0.0, CFI_LIMPO_PADRAO, DATA_ULTIMA_LIMPEZA, 52));
 
     // ---------------------------------------------------------------------------------
     // ACT: Executa a previsão
@@ -233,7 +243,7 @@ public class PredictionServiceTest {
 
     // ---------------------------------------------------------------------------------
     // ASSERT 1: Valida a data ideal de limpeza
-    LocalDate dataEsperada = DATA_ULTIMA_LIMPEZA.plusDays(DIAS_PARA_LIMPEZA); // 2025-11-29 + 150 dias
+    LocalDate dataEsperada = DATA_ULTIMA_LIMPEZA.plusDays(DIAS_PARA_LIMPEZA); // Limpeza + 150 dias
 
     // O teste é validado se o método encontrar o dia exato
     assertEquals(dataEsperada, suggestionDto.getDataIdealLimpeza(),
@@ -251,4 +261,165 @@ public class PredictionServiceTest {
     assertEquals(hpiNoDiaDoCorte, predictionNoCorte.getHpi(), 0.00001,
         "O HPI no dia da limpeza deve ser exatamente o limite crítico (ou o mais próximo acima).");
   }
-}
\ No newline at end of file
+
+  // ====================================================================
+  // TESTE DA PREVISÃO EM LOTE
+  // ====================================================================
+
+  @Test
+  void suggestCleaningDatesDeveCalcularLoteNaOrdemInformada() {
+    // ARRANGE: executor síncrono para o teste e perfis carregados em lote
+    ReflectionTestUtils.setField(predictionService, "predictionExecutor", (Executor) Runnable::run);
+
+    List<String> lote = List.of("Navio Fantasma", "bruno lima");
+    Map<String, ShipProfile> profiles = new LinkedHashMap<>();
+    profiles.put("NAVIO FANTASMA", new ShipProfile("NAVIO FANTASMA", "UNKNOWN", 0.0, CFI_LIMPO_PADRAO, null, 52));
+    profiles.put(NAVIO_ID, new ShipProfile(NAVIO_ID, "Suezmax", 0.0, CFI_LIMPO_BRUNO_LIMA, DATA_ULTIMA_LIMPEZA, 52));
+    when(modelService.loadShipProfiles(lote)).thenReturn(profiles);
+
+    // ACT
+    List<CleaningSuggestionDto> resultado = predictionService.suggestCleaningDates(lote);
+
+    // ASSERT: uma previsão por navio, na ordem do pedido
+    assertEquals(2, resultado.size());
+    assertEquals("NAVIO FANTASMA", resultado.get(0).getNavioId());
+    assertTrue(resultado.get(0).getPredictions().isEmpty(), "Navio sem docagem deve cair no fallback.");
+    assertEquals(NAVIO_ID, resultado.get(1).getNavioId());
+    assertFalse(resultado.get(1).getPredictions().isEmpty(), "Navio com docagem deve ter projeção.");
+
+    // Uma única carga de perfis e uma única leitura do modelo para o lote inteiro
+    verify(modelService, times(1)).loadShipProfiles(anyList());
+    verify(modelService, times(1)).getModelSnapshot();
+  }
+
+  @Test
+  void suggestCleaningDatesSemNaviosDeveUsarUmaUnicaCargaDaFrota() {
+    ReflectionTestUtils.setField(predictionService, "predictionExecutor", (Executor) Runnable::run);
+
+    Map<String, ShipProfile> frota = new LinkedHashMap<>();
+    frota.put(NAVIO_ID, new ShipProfile(NAVIO_ID, "Suezmax", 0.0, CFI_LIMPO_BRUNO_LIMA, DATA_ULTIMA_LIMPEZA, 52));
+    frota.put("NAVIO FANTASMA", new ShipProfile("NAVIO FANTASMA", "UNKNOWN", 0.0, CFI_LIMPO_PADRAO, null, 52));
+    when(modelService.loadFleetProfiles()).thenReturn(frota);
+
+    List<CleaningSuggestionDto> resultado = predictionService.suggestCleaningDates(List.of());
+
+    // A lista da frota e os perfis vêm da mesma carga do cadastro
+    assertEquals(2, resultado.size());
+    assertEquals(NAVIO_ID, resultado.get(0).getNavioId());
+    assertEquals("NAVIO FANTASMA", resultado.get(1).getNavioId());
+    verify(modelService, times(1)).loadFleetProfiles();
+    verify(modelService, never()).getFleetShipIds();
+    verify(modelService, never()).loadShipProfiles(anyList());
+  }
+
+  // ====================================================================
+  // TESTES DO SOLVER EM FORMA FECHADA
+  // ====================================================================
+
+  @Test
+  void findThresholdCrossingDayDeveCoincidirComSimulacaoDiaADia() {
+    double[] taxas = {0.000010, 0.000167, 0.000678, 0.0005, 0.005};
+    double[] bases = {1.000, 1.010, 1.030};
+    double[] limites = {1.020, 1.025, 1.0275, 1.035};
+
+    for (double taxa : taxas) {
+      for (double base : bases) {
+        for (double limite : limites) {
+          for (long primeiroDia : new long[] {0, 37, 322}) {
+            long ultimoDia = primeiroDia + MAX_PROJECTION_DAYS - 1;
+
+            // Referência: a simulação dia a dia original
+            long esperado = -1;
+            for (long dia = primeiroDia; dia <= ultimoDia; dia++) {
+              if (Math.max(1.0, base + taxa * dia) >= limite) {
+                esperado = dia;
+                break;
+              }
+            }
+
+            assertEquals(esperado, PredictionService.findThresholdCrossingDay(base, taxa, limite, primeiroDia, ultimoDia),
+                "Divergência para base=" + base + ", taxa=" + taxa + ", limite=" + limite + ", primeiroDia=" + primeiroDia);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void suggestCleaningDateSemSerieDeveRetornarApenasResumo() {
+    // ACT: resolução NONE (somente data e resumo)
+    CleaningSuggestionDto completo = predictionService.suggestCleaningDate(NAVIO_ID, MAX_PROJECTION_DAYS, ProjectionStep.DAILY);
+    CleaningSuggestionDto resumo = predictionService.suggestCleaningDate(NAVIO_ID, MAX_PROJECTION_DAYS, ProjectionStep.NONE);
+    CleaningSuggestionDto semanal = predictionService.suggestCleaningDate(NAVIO_ID, MAX_PROJECTION_DAYS, ProjectionStep.WEEKLY);
+
+    // ASSERT: mesma decisão, séries de tamanhos diferentes
+    assertTrue(resumo.getPredictions().isEmpty(), "Com step NONE não deve haver série.");
+    assertEquals((MAX_PROJECTION_DAYS + 6) / 7, semanal.getPredictions().size(), "Série semanal deve ter um ponto por semana.");
+    assertEquals(completo.getDataIdealLimpeza(), resumo.getDataIdealLimpeza());
+    assertEquals(completo.getMaxExtraFuelTonPerDay(), resumo.getMaxExtraFuelTonPerDay(), 0.00001);
+    assertEquals(completo.getNivelBioincrustacao(), resumo.getNivelBioincrustacao());
+  }
+
+  @Test
+  void serieMensalComecandoNoDia31NaoDeveGrudarNoDia28() {
+    // ACT: série mensal a partir de 31/01, passando por fevereiro
+    List<LocalDate> datas = PredictionService.seriesDates(LocalDate.of(2025, 1, 31), MAX_PROJECTION_DAYS, ProjectionStep.MONTHLY);
+
+    // ASSERT: cada ponto sai do início, então depois de fevereiro volta ao fim do mês
+    assertEquals(List.of(
+        LocalDate.of(2025, 1, 31),
+        LocalDate.of(2025, 2, 28),
+        LocalDate.of(2025, 3, 31),
+        LocalDate.of(2025, 4, 30),
+        LocalDate.of(2025, 5, 31),
+        LocalDate.of(2025, 6, 30)), datas);
+  }
+
+  // ====================================================================
+  // TESTE DO CACHE DE PREVISÕES
+  // ====================================================================
+
+  @Test
+  void suggestCleaningDateDeveServirDoCacheAteAlteracaoDoNavio() {
+    // ACT: duas consultas iguais, depois uma docagem nova do navio
+    CleaningSuggestionDto primeira = predictionService.suggestCleaningDate(NAVIO_ID);
+    CleaningSuggestionDto segunda = predictionService.suggestCleaningDate("bruno lima");
+    predictionService.onShipDataChanged(new ShipDataChangedEvent(ShipDataChangedEvent.Tipo.DOCAGEM, "Bruno Lima"));
+    predictionService.suggestCleaningDate(NAVIO_ID);
+
+    // ASSERT: a segunda consulta não recalcula; a alteração do navio força novo cálculo
+    assertSame(primeira, segunda, "A segunda consulta deve devolver o resultado em cache.");
+    verify(modelService, times(2)).getShipProfile(NAVIO_ID);
+    assertEquals(1, predictionService.getCacheStats().getHits());
+    assertEquals(2, predictionService.getCacheStats().getMisses());
+  }
+
+  @Test
+  void suggestCleaningDateDeveCompartilharCalculoEntreRequisicoesSimultaneas() throws Exception {
+    // ARRANGE: o carregamento do perfil fica bloqueado até a segunda requisição chegar
+    CountDownLatch calculoIniciado = new CountDownLatch(1);
+    CountDownLatch liberarCalculo = new CountDownLatch(1);
+    ShipProfile perfil = new ShipProfile(NAVIO_ID, "UNKNOWN", 0.0, CFI_LIMPO_BRUNO_LIMA, DATA_ULTIMA_LIMPEZA, 52);
+    when(modelService.getShipProfile(NAVIO_ID)).thenAnswer(invocation -> {
+      calculoIniciado.countDown();
+      liberarCalculo.await(5, TimeUnit.SECONDS);
+      return perfil;
+    });
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      // ACT: duas requisições iguais ao mesmo tempo
+      Future<CleaningSuggestionDto> primeira = pool.submit(() -> predictionService.suggestCleaningDate(NAVIO_ID));
+      assertTrue(calculoIniciado.await(5, TimeUnit.SECONDS));
+      Future<CleaningSuggestionDto> segunda = pool.submit(() -> predictionService.suggestCleaningDate(NAVIO_ID));
+      Thread.sleep(50);
+      liberarCalculo.countDown();
+
+      // ASSERT: mesmo resultado, um único cálculo
+      assertSame(primeira.get(5, TimeUnit.SECONDS), segunda.get(5, TimeUnit.SECONDS));
+      verify(modelService, times(1)).getShipProfile(NAVIO_ID);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
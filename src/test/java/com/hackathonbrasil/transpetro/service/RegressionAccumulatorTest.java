@@ -0,0 +1,174 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegressionAccumulatorTest {
+
+    private static final int NUM_FEATURES = 5;
+
+    /**
+     * Dados sintéticos com as mesmas escalas das features do modelo
+     * (dias, trim, deslocamento ~1e5, beaufort, dummy 0/1).
+     */
+    private static double[][] gerarFeatures(int n, Random random) {
+        double[][] x = new double[n][NUM_FEATURES];
+        for (int i = 0; i < n; i++) {
+            x[i][0] = 1 + random.nextInt(700);
+            x[i][1] = random.nextGaussian() * 1.5;
+            x[i][2] = 60000 + random.nextDouble() * 90000;
+            x[i][3] = random.nextInt(9);
+            x[i][4] = random.nextBoolean() ? 1.0 : 0.0;
+        }
+        return x;
+    }
+
+    private static double[] gerarAlvo(double[][] x, Random random) {
+        double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = 1.01 + 0.0004 * x[i][0] + 0.002 * x[i][1] + 0.0000003 * x[i][2]
+                + 0.004 * x[i][3] - 0.01 * x[i][4] + random.nextGaussian() * 0.01;
+        }
+        return y;
+    }
+
+    @Test
+    void solveDeveCoincidirComOls() {
+        Random random = new Random(42);
+        double[][] x = gerarFeatures(2000, random);
+        double[] y = gerarAlvo(x, random);
+
+        RegressionAccumulator stats = new RegressionAccumulator(NUM_FEATURES);
+        for (int i = 0; i < x.length; i++) {
+            stats.add(x[i], y[i]);
+        }
+        RegressionAccumulator.Solution solution = stats.solve();
+
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] esperado = ols.estimateRegressionParameters();
+        double[][] covarianciaEsperada = ols.estimateRegressionParametersVariance();
+
+        double[] coeficientes = solution.getCoefficients();
+        double[][] covariancia = solution.getCovariance();
+        for (int i = 0; i < esperado.length; i++) {
+            assertEquals(esperado[i], coeficientes[i], 1e-9 * Math.max(1.0, Math.abs(esperado[i])), "Coeficiente " + i);
+            for (int j = 0; j < esperado.length; j++) {
+                assertEquals(covarianciaEsperada[i][j], covariancia[i][j],
+                    1e-6 * Math.abs(covarianciaEsperada[i][j]) + 1e-18, "Covariância " + i + "," + j);
+            }
+        }
+        assertEquals(ols.calculateRSquared(), solution.getRSquared(), 1e-9);
+    }
+
+    @Test
+    void addIncrementalEMergeDevemSerEquivalentesAoLoteCompleto() {
+        Random random = new Random(7);
+        double[][] x = gerarFeatures(1000, random);
+        double[] y = gerarAlvo(x, random);
+
+        // Lote completo
+        RegressionAccumulator completo = new RegressionAccumulator(NUM_FEATURES);
+        for (int i = 0; i < x.length; i++) {
+            completo.add(x[i], y[i]);
+        }
+
+        // Histórico + novas sessões chegando uma a uma, e dois shards combinados
+        RegressionAccumulator historico = new RegressionAccumulator(NUM_FEATURES);
+        RegressionAccumulator shard = new RegressionAccumulator(NUM_FEATURES);
+        for (int i = 0; i < x.length; i++) {
+            (i < 600 ? historico : shard).add(x[i], y[i]);
+        }
+        RegressionAccumulator combinado = historico.copy();
+        combinado.merge(shard);
+
+        assertEquals(completo.getCount(), combinado.getCount());
+        double[] esperado = completo.solve().getCoefficients();
+        double[] obtido = combinado.solve().getCoefficients();
+        for (int i = 0; i < esperado.length; i++) {
+            assertEquals(esperado[i], obtido[i], 1e-9 * Math.max(1.0, Math.abs(esperado[i])));
+        }
+        // A cópia não é afetada pelo merge
+        assertEquals(600, historico.getCount());
+    }
+
+    @Test
+    void removeDeveDesfazerOAddDeUmaObservacao() {
+        Random random = new Random(11);
+        double[][] x = gerarFeatures(500, random);
+        double[] y = gerarAlvo(x, random);
+
+        RegressionAccumulator semAUltima = new RegressionAccumulator(NUM_FEATURES);
+        for (int i = 0; i < x.length - 1; i++) {
+            semAUltima.add(x[i], y[i]);
+        }
+        // Sessão que mudou: a observação antiga sai e a nova entra no lugar
+        RegressionAccumulator trocada = semAUltima.copy();
+        trocada.add(x[x.length - 1], y[x.length - 1]);
+        trocada.remove(x[x.length - 1], y[x.length - 1]);
+
+        assertEquals(semAUltima.getCount(), trocada.getCount());
+        RegressionAccumulator.Solution esperado = semAUltima.solve();
+        RegressionAccumulator.Solution obtido = trocada.solve();
+        for (int i = 0; i < esperado.getCoefficients().length; i++) {
+            assertEquals(esperado.getCoefficients()[i], obtido.getCoefficients()[i],
+                1e-9 * Math.max(1.0, Math.abs(esperado.getCoefficients()[i])));
+        }
+        assertEquals(esperado.getRSquared(), obtido.getRSquared(), 1e-9);
+
+        RegressionAccumulator unica = new RegressionAccumulator(NUM_FEATURES);
+        unica.add(x[0], y[0]);
+        unica.remove(x[0], y[0]);
+        assertEquals(0, unica.getCount());
+    }
+
+    @Test
+    void solveDeveFalharComFeatureConstante() {
+        RegressionAccumulator stats = new RegressionAccumulator(2);
+        for (int i = 0; i < 10; i++) {
+            stats.add(new double[] {i, 3.0}, 1.0 + i * 0.01);
+        }
+        assertThrows(IllegalStateException.class, stats::solve);
+    }
+
+    @Test
+    void solveShrunkDeveIrDoOlsAoPriorConformeAForca() {
+        Random random = new Random(3);
+        double[][] x = gerarFeatures(1500, random);
+        double[] y = gerarAlvo(x, random);
+        RegressionAccumulator stats = new RegressionAccumulator(NUM_FEATURES);
+        for (int i = 0; i < x.length; i++) {
+            stats.add(x[i], y[i]);
+        }
+        double[] ols = stats.solve().getCoefficients();
+        double[] prior = {1.02, 0.0005, 0.0, 0.0, 0.003, 0.0};
+
+        double[] fraco = stats.solveShrunk(prior, stats, 1e-9).getCoefficients();
+        double[] forte = stats.solveShrunk(prior, stats, 1e12).getCoefficients();
+        for (int i = 0; i < ols.length; i++) {
+            assertEquals(ols[i], fraco[i], 1e-6 * Math.max(1.0, Math.abs(ols[i])) + 1e-9, "Prior fraco, coeficiente " + i);
+            assertEquals(prior[i], forte[i], 1e-6, "Prior forte, coeficiente " + i);
+        }
+    }
+
+    @Test
+    void solveShrunkNaoDeveFalharComFeatureConstante() {
+        RegressionAccumulator stats = new RegressionAccumulator(2);
+        for (int i = 0; i < 10; i++) {
+            stats.add(new double[] {i, 3.0}, 1.0 + i * 0.01);
+        }
+        double[] prior = {1.0, 0.02, 0.001};
+
+        RegressionAccumulator.Solution solution = stats.solveShrunk(prior, stats, 0.1);
+
+        // Os dados não dizem nada sobre a feature constante: o coeficiente fica no do pai e a reta segue os dados
+        double[] b = solution.getCoefficients();
+        assertEquals(prior[2], b[2], 1e-6);
+        assertEquals(1.0 + 5 * 0.01, b[0] + b[1] * 5 + b[2] * 3.0, 1e-3);
+        assertNull(solution.getCovariance());
+    }
+}
@@ -0,0 +1,42 @@
+package com.hackathonbrasil.transpetro.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipIdentityTest {
+
+    private final ShipIdentity shipIdentity = new ShipIdentity();
+
+    @Test
+    void canonicalDeveRemoverAcentosEspacosEMaiusculas() {
+        assertEquals("SAO SEBASTIAO", shipIdentity.canonical("  São   Sebastião "));
+        assertEquals("CANDIDO GONCALVES", shipIdentity.canonical("cândido\tgonçalves"));
+        assertEquals("BRUNO LIMA", shipIdentity.canonical("Bruno Lima"));
+        assertEquals("", shipIdentity.canonical(null));
+        assertEquals("", shipIdentity.canonical(""));
+        assertEquals("", shipIdentity.canonical("   "));
+    }
+
+    @Test
+    void canonicalDeveDevolverAMesmaInstanciaParaGrafiasDiferentes() {
+        String a = shipIdentity.canonical("José Bonifácio");
+        String b = shipIdentity.canonical("JOSE  BONIFACIO");
+        String c = shipIdentity.canonical("José Bonifácio");
+
+        assertSame(a, b);
+        assertSame(a, c);
+        assertEquals(1, shipIdentity.getCacheHits()); // Só a terceira chamada repete o nome exato
+        assertTrue(shipIdentity.sameShip("jose bonifacio", " José Bonifácio"));
+        assertFalse(shipIdentity.sameShip("José Bonifácio", "José Bonifácio 2"));
+    }
+
+    @Test
+    void cacheLimitadoNaoDeveMudarOResultado() {
+        ShipIdentity pequeno = new ShipIdentity(2);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("NAVIO " + i, pequeno.canonical("navio  " + i));
+        }
+        assertEquals("NAVIO 0", pequeno.canonical("Navio 0"));
+    }
+}